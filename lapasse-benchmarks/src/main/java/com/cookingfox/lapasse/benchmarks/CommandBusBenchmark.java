@@ -0,0 +1,91 @@
+package com.cookingfox.lapasse.benchmarks;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.state.State;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the synchronous single-event command path: command bus, logger helper, event bus and
+ * state manager.
+ * <p>
+ * The command, event and state objects are pre-allocated, so that any allocation reported by the GC
+ * profiler is caused by LaPasse itself. Run with:
+ * <pre>
+ * java -jar lapasse-benchmarks/target/benchmarks.jar CommandBusBenchmark -prof gc
+ * </pre>
+ * In steady state, `gc.alloc.rate.norm` should report 0 bytes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class CommandBusBenchmark {
+
+    //----------------------------------------------------------------------------------------------
+    // FIXTURES
+    //----------------------------------------------------------------------------------------------
+
+    static final class Toggle implements Command {
+    }
+
+    static final class Toggled implements Event {
+    }
+
+    static final class ToggleState implements State {
+    }
+
+    static final Toggle COMMAND = new Toggle();
+    static final Toggled EVENT = new Toggled();
+    static final ToggleState ON = new ToggleState();
+    static final ToggleState OFF = new ToggleState();
+
+    //----------------------------------------------------------------------------------------------
+    // SETUP
+    //----------------------------------------------------------------------------------------------
+
+    LaPasseFacade<ToggleState> facade;
+
+    @Setup
+    public void setUp() {
+        facade = new LaPasseFacade.Builder<>(OFF).build();
+
+        facade.mapCommandHandler(Toggle.class, new SyncCommandHandler<ToggleState, Toggle, Toggled>() {
+            @Override
+            public Toggled handle(ToggleState state, Toggle command) {
+                return EVENT;
+            }
+        });
+
+        facade.mapEventHandler(Toggled.class, new EventHandler<ToggleState, Toggled>() {
+            @Override
+            public ToggleState handle(ToggleState state, Toggled event) {
+                return state == ON ? OFF : ON;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        facade.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // BENCHMARKS
+    //----------------------------------------------------------------------------------------------
+
+    @Benchmark
+    public ToggleState handleCommand() {
+        facade.handleCommand(COMMAND);
+
+        return facade.getCurrentState();
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.cookingfox.lapasse.benchmarks;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor;
+import com.cookingfox.lapasse.impl.command.dedup.CommandDeduplicator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost that command deduplication adds to every command: extracting the identifier,
+ * and looking it up in and adding it to the window. Every command has a new identifier, so the
+ * generations fill up and rotate like they would under load. Run with:
+ * <pre>
+ * java -jar lapasse-benchmarks/target/benchmarks.jar CommandDeduplicatorBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandDeduplicatorBenchmark {
+
+    //----------------------------------------------------------------------------------------------
+    // FIXTURES
+    //----------------------------------------------------------------------------------------------
+
+    static final class IdentifiedCommand implements Command {
+        long id;
+    }
+
+    static final class IdExtractor implements CommandIdExtractor {
+        @Override
+        public long getCommandId(Command command) {
+            return ((IdentifiedCommand) command).id;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // SETUP
+    //----------------------------------------------------------------------------------------------
+
+    final IdentifiedCommand command = new IdentifiedCommand();
+
+    CommandDeduplicator deduplicator;
+
+    @Setup
+    public void setUp() {
+        deduplicator = new CommandDeduplicator(new IdExtractor(), 1, TimeUnit.MINUTES);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // BENCHMARKS
+    //----------------------------------------------------------------------------------------------
+
+    @Benchmark
+    public boolean isDuplicate() {
+        command.id++;
+
+        return deduplicator.isDuplicate(command);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.cookingfox.lapasse.benchmarks;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.impl.message.store.journal.DurabilityPolicy;
+import com.cookingfox.lapasse.impl.message.store.journal.JournalMessageStore;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of durable appends with the group commit policy, from several threads.
+ * A force starts as soon as one is requested and none is in flight, so the throughput should be
+ * close to the number of forces per second times the number of appends that arrive during a force,
+ * and should hardly depend on the latency budget. Run with:
+ * <pre>
+ * java -jar lapasse-benchmarks/target/benchmarks.jar JournalGroupCommitBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class JournalGroupCommitBenchmark {
+
+    //----------------------------------------------------------------------------------------------
+    // FIXTURES
+    //----------------------------------------------------------------------------------------------
+
+    static final class Appended implements Event, Serializable {
+    }
+
+    static final Appended EVENT = new Appended();
+
+    //----------------------------------------------------------------------------------------------
+    // SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Param({"1", "10"})
+    public long latencyBudgetMillis;
+
+    File directory;
+    JournalMessageStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lapasse-journal").toFile();
+        store = new JournalMessageStore.Builder(directory, new SerializableMessageCodec())
+                .setDurabilityPolicy(DurabilityPolicy.groupCommit(latencyBudgetMillis, TimeUnit.MILLISECONDS))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.dispose();
+
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // BENCHMARKS
+    //----------------------------------------------------------------------------------------------
+
+    @Benchmark
+    public void addMessage() {
+        store.addMessage(EVENT);
+    }
+
+}
@@ -2,9 +2,12 @@ package com.cookingfox.lapasse.compiler;
 
 import com.cookingfox.lapasse.annotation.HandleCommand;
 import com.cookingfox.lapasse.annotation.HandleEvent;
+import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.handler.*;
+import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
 import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.compiler.exception.AnnotationProcessorException;
 import com.cookingfox.lapasse.compiler.processor.ProcessorResults;
@@ -16,7 +19,9 @@ import com.cookingfox.lapasse.compiler.processor.event.HandleEventMethodParams;
 import com.cookingfox.lapasse.compiler.processor.event.HandleEventProcessor;
 import com.cookingfox.lapasse.compiler.processor.event.HandleEventResult;
 import com.cookingfox.lapasse.impl.helper.LaPasse;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
 import com.cookingfox.lapasse.impl.internal.HandlerMapper;
+import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;
 import com.squareup.javapoet.*;
 
 import javax.annotation.processing.*;
@@ -25,10 +30,15 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 import static java.util.Objects.requireNonNull;
@@ -44,21 +54,36 @@ public class LaPasseAnnotationProcessor extends AbstractProcessor {
 
     public static final String FIELD_PREFIX = "handler";
     public static final String FILE_COMMENT = "Generated code from LaPasse - do not modify!";
+    public static final String METHOD_CREATE_HANDLER_DISPATCHER = "createHandlerDispatcher";
+    public static final String METHOD_CREATE_HANDLER_MAPPER = "createHandlerMapper";
+    public static final String METHOD_DISPATCH_COMMAND = "dispatchCommand";
+    public static final String METHOD_DISPATCH_EVENT = "dispatchEvent";
+    public static final String METHOD_GET_COMMAND_COUNT = "getCommandCount";
+    public static final String METHOD_GET_COMMAND_INDEX = "getCommandIndex";
+    public static final String METHOD_GET_COMMAND_RESULT_TYPE = "getCommandResultType";
+    public static final String METHOD_GET_EVENT_COUNT = "getEventCount";
+    public static final String METHOD_GET_EVENT_INDEX = "getEventIndex";
+    public static final String METHOD_GET_ORIGIN_CLASS = "getOriginClass";
     public static final String METHOD_HANDLE = "handle";
     public static final String METHOD_MAP_COMMAND_HANDLER = "mapCommandHandler";
     public static final String METHOD_MAP_EVENT_HANDLER = "mapEventHandler";
     public static final String METHOD_MAP_HANDLERS = "mapHandlers";
     public static final String VAR_COMMAND = "command";
+    public static final String VAR_COMMAND_CLASS = "commandClass";
     public static final String VAR_EVENT = "event";
+    public static final String VAR_EVENT_CLASS = "eventClass";
     public static final String VAR_FACADE = "facade";
+    public static final String VAR_INDEX = "index";
     public static final String VAR_ORIGIN = "origin";
     public static final String VAR_STATE = "state";
+    public static final String SERVICES_FILE = "META-INF/services/" + HandlerMapperFactory.class.getName();
 
     //----------------------------------------------------------------------------------------------
     // PROPERTIES
     //----------------------------------------------------------------------------------------------
 
     protected Elements elements;
+    protected final Set<String> factoryClassNames = new LinkedHashSet<>();
     protected Filer filer;
     protected Messager messager;
     protected Types types;
@@ -94,6 +119,11 @@ public class LaPasseAnnotationProcessor extends AbstractProcessor {
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         try {
             doProcess(roundEnv);
+
+            // register generated factories once all rounds are processed
+            if (roundEnv.processingOver() && !factoryClassNames.isEmpty()) {
+                writeServicesFile();
+            }
         } catch (AnnotationProcessorException e) {
             printError(e.getOrigin(), e.getMessage());
         }
@@ -145,7 +175,208 @@ public class LaPasseAnnotationProcessor extends AbstractProcessor {
                     .build();
 
             writeJavaFile(javaFile, origin);
+
+            // generate dispatcher, if possible
+            TypeSpec dispatcherTypeSpec = generateDispatcherType(model);
+
+            if (dispatcherTypeSpec != null) {
+                writeJavaFile(JavaFile.builder(model.packageName, dispatcherTypeSpec)
+                        .addFileComment(FILE_COMMENT)
+                        .build(), origin);
+            }
+
+            // generate factory, which creates the mapper and dispatcher without reflection
+            TypeSpec factoryTypeSpec = generateFactoryType(model, dispatcherTypeSpec != null);
+
+            writeJavaFile(JavaFile.builder(model.packageName, factoryTypeSpec)
+                    .addFileComment(FILE_COMMENT)
+                    .build(), origin);
+
+            factoryClassNames.add(model.packageName + "." + factoryTypeSpec.name);
+
+            // write routing graph, so the runtime can prepare for the first messages
+            writeRoutesFile(model);
+        }
+    }
+
+    /**
+     * Generate a {@link HandlerDispatcher} implementation, which routes messages directly to the
+     * annotated methods using a class-indexed table. No dispatcher is generated when the origin
+     * has multiple handlers for the same message type: the dispatcher can only route a message to
+     * one handler, so the generated {@link HandlerMapper} is used instead.
+     *
+     * @param model The processed data to use for code generation.
+     * @return The dispatcher type spec, or `null` if no dispatcher can be generated.
+     */
+    protected TypeSpec generateDispatcherType(GenerationModel model) {
+        List<HandleCommandResult> commandResults = model.processorResults.getHandleCommandResults();
+        List<HandleEventResult> eventResults = model.processorResults.getHandleEventResults();
+
+        // collect message types: dispatcher indexes must be unique per message type
+        List<TypeName> commandTypes = new ArrayList<>();
+        List<TypeName> eventTypes = new ArrayList<>();
+        List<TypeMirror> commandMirrors = new ArrayList<>();
+        List<TypeMirror> eventMirrors = new ArrayList<>();
+
+        for (HandleCommandResult result : commandResults) {
+            commandTypes.add(result.getCommandTypeName());
+            commandMirrors.add(result.getCommandType());
+        }
+
+        for (HandleEventResult result : eventResults) {
+            eventTypes.add(result.getEventTypeName());
+            eventMirrors.add(result.getEventType());
+        }
+
+        if (new HashSet<>(commandTypes).size() < commandTypes.size() ||
+                new HashSet<>(eventTypes).size() < eventTypes.size()) {
+            return null;
+        }
+
+        String originClassName = getClassName(model.origin, model.packageName);
+        ClassName className = ClassName.get(model.packageName, originClassName + LaPasse.DISPATCHER_SUFFIX);
+
+        // create generic type parameter for origin
+        TypeVariableName originGeneric = TypeVariableName.get("T",
+                ClassName.get(model.packageName, originClassName));
+
+        // create constructor
+        MethodSpec constructor = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(originGeneric, VAR_ORIGIN)
+                .addStatement("this.$N = $N", VAR_ORIGIN, VAR_ORIGIN)
+                .build();
+
+        // command handlers: index lookup, result types and dispatch
+        CodeBlock.Builder commandResultTypes = CodeBlock.builder();
+        CodeBlock.Builder commandDispatch = CodeBlock.builder();
+        int index = 0;
+
+        for (HandleCommandResult result : commandResults) {
+            CodeBlock call = createCallCode(result.getMethodName(), result.getMethodParams(),
+                    CodeBlock.of("($T) $N", result.getCommandTypeName(), VAR_COMMAND));
+
+            commandResultTypes.add("case $L:\n", index).indent()
+                    .addStatement("return $N", getDispatcherResultType(result.getReturnValue()))
+                    .unindent();
+
+            commandDispatch.add("case $L:\n", index).indent();
+
+            if (result.getReturnValue() == HandleCommandReturnValue.RETURNS_VOID) {
+                commandDispatch.addStatement("$L", call).addStatement("return null");
+            } else {
+                commandDispatch.addStatement("return $L", call);
+            }
+
+            commandDispatch.unindent();
+            index++;
+        }
+
+        // event handlers: dispatch
+        CodeBlock.Builder eventDispatch = CodeBlock.builder();
+        index = 0;
+
+        for (HandleEventResult result : eventResults) {
+            CodeBlock call = createCallCode(result.getMethodName(), result.getMethodParams(),
+                    CodeBlock.of("($T) $N", result.getEventTypeName(), VAR_EVENT));
+
+            eventDispatch.add("case $L:\n", index++).indent()
+                    .addStatement("return $L", call)
+                    .unindent();
+        }
+
+        return TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PUBLIC)
+                .addTypeVariable(originGeneric)
+                .addSuperinterface(ParameterizedTypeName.get(
+                        ClassName.get(HandlerDispatcher.class), model.targetStateName))
+                .addField(originGeneric, VAR_ORIGIN, Modifier.FINAL)
+                .addMethod(constructor)
+                .addMethod(createCountMethod(METHOD_GET_COMMAND_COUNT, commandTypes.size()))
+                .addMethod(createIndexMethod(METHOD_GET_COMMAND_INDEX, VAR_COMMAND_CLASS, commandTypes, commandMirrors))
+                .addMethod(MethodSpec.methodBuilder(METHOD_GET_COMMAND_RESULT_TYPE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(TypeName.INT, VAR_INDEX)
+                        .returns(TypeName.INT)
+                        .addCode(createSwitchCode(commandResultTypes.build()))
+                        .build())
+                .addMethod(MethodSpec.methodBuilder(METHOD_DISPATCH_COMMAND)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(TypeName.INT, VAR_INDEX)
+                        .addParameter(model.targetStateName, VAR_STATE)
+                        .addParameter(Command.class, VAR_COMMAND)
+                        .addException(Exception.class)
+                        .returns(Object.class)
+                        .addCode(createSwitchCode(commandDispatch.build()))
+                        .build())
+                .addMethod(createCountMethod(METHOD_GET_EVENT_COUNT, eventTypes.size()))
+                .addMethod(createIndexMethod(METHOD_GET_EVENT_INDEX, VAR_EVENT_CLASS, eventTypes, eventMirrors))
+                .addMethod(MethodSpec.methodBuilder(METHOD_DISPATCH_EVENT)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(TypeName.INT, VAR_INDEX)
+                        .addParameter(model.targetStateName, VAR_STATE)
+                        .addParameter(Event.class, VAR_EVENT)
+                        .returns(model.targetStateName)
+                        .addCode(createSwitchCode(eventDispatch.build()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Generate a {@link HandlerMapperFactory} implementation, which creates the generated
+     * {@link HandlerMapper} and {@link HandlerDispatcher} without reflection. The factories are
+     * registered as service in {@link #SERVICES_FILE}.
+     *
+     * @param model         The processed data to use for code generation.
+     * @param hasDispatcher Whether a dispatcher was generated for the origin.
+     * @return The factory type spec.
+     */
+    protected TypeSpec generateFactoryType(GenerationModel model, boolean hasDispatcher) {
+        String originClassName = getClassName(model.origin, model.packageName);
+        ClassName originName = ClassName.get(model.packageName, originClassName);
+
+        MethodSpec.Builder createDispatcher = MethodSpec.methodBuilder(METHOD_CREATE_HANDLER_DISPATCHER)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(Object.class, VAR_ORIGIN)
+                .returns(HandlerDispatcher.class);
+
+        if (hasDispatcher) {
+            createDispatcher.addStatement("return new $T<>(($T) $N)",
+                    ClassName.get(model.packageName, originClassName + LaPasse.DISPATCHER_SUFFIX),
+                    originName, VAR_ORIGIN);
+        } else {
+            createDispatcher.addStatement("return null");
         }
+
+        return TypeSpec.classBuilder(originClassName + LaPasse.FACTORY_SUFFIX)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(HandlerMapperFactory.class)
+                .addMethod(MethodSpec.methodBuilder(METHOD_GET_ORIGIN_CLASS)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(ParameterizedTypeName.get(ClassName.get(Class.class),
+                                WildcardTypeName.subtypeOf(Object.class)))
+                        .addStatement("return $T.class", originName)
+                        .build())
+                .addMethod(createDispatcher.build())
+                .addMethod(MethodSpec.methodBuilder(METHOD_CREATE_HANDLER_MAPPER)
+                        .addAnnotation(Override.class)
+                        .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                                .addMember("value", "$S", "unchecked")
+                                .build())
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(Object.class, VAR_ORIGIN)
+                        .addParameter(Facade.class, VAR_FACADE)
+                        .returns(HandlerMapper.class)
+                        .addStatement("return new $T<>(($T) $N, $N)",
+                                ClassName.get(model.packageName, originClassName + LaPasse.GENERATED_SUFFIX),
+                                originName, VAR_ORIGIN, VAR_FACADE)
+                        .build())
+                .build();
     }
 
     /**
@@ -398,6 +629,235 @@ public class LaPasseAnnotationProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Creates the code that calls an annotated command handler method on the origin.
+     *
+     * @param methodName   The name of the annotated method.
+     * @param methodParams The parameters of the annotated method.
+     * @param command      The code for the (cast) command argument.
+     * @return The method call code.
+     */
+    protected CodeBlock createCallCode(Name methodName, HandleCommandMethodParams methodParams,
+                                       CodeBlock command) {
+        if (methodParams == HandleCommandMethodParams.METHOD_ONE_PARAM_COMMAND) {
+            return CodeBlock.of("$N.$N($L)", VAR_ORIGIN, methodName, command);
+        } else if (methodParams == HandleCommandMethodParams.METHOD_ONE_PARAM_STATE) {
+            return CodeBlock.of("$N.$N($N)", VAR_ORIGIN, methodName, VAR_STATE);
+        } else if (methodParams == HandleCommandMethodParams.METHOD_TWO_PARAMS_COMMAND_STATE) {
+            return CodeBlock.of("$N.$N($L, $N)", VAR_ORIGIN, methodName, command, VAR_STATE);
+        } else if (methodParams == HandleCommandMethodParams.METHOD_TWO_PARAMS_STATE_COMMAND) {
+            return CodeBlock.of("$N.$N($N, $L)", VAR_ORIGIN, methodName, VAR_STATE, command);
+        }
+
+        return CodeBlock.of("$N.$N()", VAR_ORIGIN, methodName);
+    }
+
+    /**
+     * Creates the code that calls an annotated event handler method on the origin.
+     *
+     * @param methodName   The name of the annotated method.
+     * @param methodParams The parameters of the annotated method.
+     * @param event        The code for the (cast) event argument.
+     * @return The method call code.
+     */
+    protected CodeBlock createCallCode(Name methodName, HandleEventMethodParams methodParams,
+                                       CodeBlock event) {
+        if (methodParams == HandleEventMethodParams.METHOD_ONE_PARAM_EVENT) {
+            return CodeBlock.of("$N.$N($L)", VAR_ORIGIN, methodName, event);
+        } else if (methodParams == HandleEventMethodParams.METHOD_ONE_PARAM_STATE) {
+            return CodeBlock.of("$N.$N($N)", VAR_ORIGIN, methodName, VAR_STATE);
+        } else if (methodParams == HandleEventMethodParams.METHOD_TWO_PARAMS_EVENT_STATE) {
+            return CodeBlock.of("$N.$N($L, $N)", VAR_ORIGIN, methodName, event, VAR_STATE);
+        } else if (methodParams == HandleEventMethodParams.METHOD_TWO_PARAMS_STATE_EVENT) {
+            return CodeBlock.of("$N.$N($N, $L)", VAR_ORIGIN, methodName, VAR_STATE, event);
+        }
+
+        return CodeBlock.of("$N.$N()", VAR_ORIGIN, methodName);
+    }
+
+    /**
+     * Creates a dispatcher method that returns the number of handlers.
+     *
+     * @param methodName The name of the method.
+     * @param count      The number of handlers.
+     * @return The method spec.
+     */
+    protected MethodSpec createCountMethod(String methodName, int count) {
+        return MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addStatement("return $L", count)
+                .build();
+    }
+
+    /**
+     * Creates a dispatcher method that returns the handler index for a message class: first by
+     * identity, then by super type, from the most specific to the least specific type, so a
+     * message is routed to the handler of its closest super type.
+     *
+     * @param methodName     The name of the method.
+     * @param paramName      The name of the message class parameter.
+     * @param messageTypes   The message types, ordered by handler index.
+     * @param messageMirrors The type mirrors of the message types, ordered by handler index.
+     * @return The method spec.
+     */
+    protected MethodSpec createIndexMethod(String methodName, String paramName,
+                                           List<TypeName> messageTypes, List<TypeMirror> messageMirrors) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class),
+                        WildcardTypeName.subtypeOf(Object.class)), paramName)
+                .returns(TypeName.INT);
+
+        for (int i = 0; i < messageTypes.size(); i++) {
+            builder.beginControlFlow("if ($N == $T.class)", paramName, messageTypes.get(i))
+                    .addStatement("return $L", i)
+                    .endControlFlow();
+        }
+
+        for (int i : sortBySpecificity(messageMirrors)) {
+            builder.beginControlFlow("if ($T.class.isAssignableFrom($N))", messageTypes.get(i), paramName)
+                    .addStatement("return $L", i)
+                    .endControlFlow();
+        }
+
+        return builder.addStatement("return NOT_HANDLED").build();
+    }
+
+    /**
+     * Orders the indices of the types so that every type comes before its super types. Unrelated
+     * types keep their declaration order.
+     *
+     * @param typeMirrors The types.
+     * @return The indices of the types, from the most specific to the least specific type.
+     */
+    protected List<Integer> sortBySpecificity(List<TypeMirror> typeMirrors) {
+        List<Integer> sorted = new ArrayList<>(typeMirrors.size());
+
+        for (int i = 0; i < typeMirrors.size(); i++) {
+            TypeMirror type = types.erasure(typeMirrors.get(i));
+            int position = 0;
+
+            // insert before the first super type: the sub types that are already sorted come
+            // before that super type too
+            while (position < sorted.size() &&
+                    !types.isSubtype(type, types.erasure(typeMirrors.get(sorted.get(position))))) {
+                position++;
+            }
+
+            sorted.add(position, i);
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Creates a switch statement on the handler index, with a default case that throws.
+     *
+     * @param cases The switch cases.
+     * @return The switch statement code.
+     */
+    protected CodeBlock createSwitchCode(CodeBlock cases) {
+        return CodeBlock.builder()
+                .beginControlFlow("switch ($N)", VAR_INDEX)
+                .add(cases)
+                .add("default:\n").indent()
+                .addStatement("throw new $T($S + $N)", IndexOutOfBoundsException.class,
+                        "Invalid handler index: ", VAR_INDEX)
+                .unindent()
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Returns the {@link HandlerDispatcher} result type constant for the handler return value.
+     *
+     * @param returnValue The return value of the command handler method.
+     * @return The name of the result type constant.
+     */
+    protected String getDispatcherResultType(HandleCommandReturnValue returnValue) {
+        switch (returnValue) {
+            case RETURNS_EVENT:
+                return "RESULT_EVENT";
+            case RETURNS_EVENT_CALLABLE:
+                return "RESULT_EVENT_CALLABLE";
+            case RETURNS_EVENT_COLLECTION:
+                return "RESULT_EVENT_COLLECTION";
+            case RETURNS_EVENT_COLLECTION_CALLABLE:
+                return "RESULT_EVENT_COLLECTION_CALLABLE";
+            case RETURNS_EVENT_COLLECTION_OBSERVABLE:
+                return "RESULT_EVENT_COLLECTION_OBSERVABLE";
+            case RETURNS_EVENT_COLLECTION_SINGLE:
+                return "RESULT_EVENT_COLLECTION_SINGLE";
+            case RETURNS_EVENT_OBSERVABLE:
+                return "RESULT_EVENT_OBSERVABLE";
+            case RETURNS_EVENT_SINGLE:
+                return "RESULT_EVENT_SINGLE";
+            default:
+                return "RESULT_VOID";
+        }
+    }
+
+    /**
+     * Returns the binary name of the type, which can be used to load its class at runtime.
+     *
+     * @param type The type to get the binary name of.
+     * @return The binary name of the type.
+     */
+    protected String getBinaryName(TypeMirror type) {
+        Element element = types.asElement(type);
+
+        if (element instanceof TypeElement) {
+            return elements.getBinaryName((TypeElement) element).toString();
+        }
+
+        return type.toString();
+    }
+
+    /**
+     * Creates the routing graph of the origin: the command handlers with the event types they
+     * emit, the event handlers and the concrete state. Every line contains a record type followed
+     * by its tab-separated values:
+     * <pre>
+     * origin   [origin class]
+     * state    [state class]
+     * command  [command class] [method] [dispatcher result type] [event class, empty for void]
+     * event    [event class] [method]
+     * </pre>
+     *
+     * @param model The processed data to create the routing graph for.
+     * @return The routing graph contents.
+     * @see RoutingGraph
+     */
+    protected String createRoutes(GenerationModel model) {
+        StringBuilder routes = new StringBuilder()
+                .append("# ").append(FILE_COMMENT).append('\n')
+                .append(RoutingGraph.RECORD_ORIGIN).append('\t')
+                .append(elements.getBinaryName(model.origin)).append('\n')
+                .append(RoutingGraph.RECORD_STATE).append('\t')
+                .append(getBinaryName(model.processorResults.getTargetStateType())).append('\n');
+
+        for (HandleCommandResult result : model.processorResults.getHandleCommandResults()) {
+            boolean returnsVoid = result.getReturnValue() == HandleCommandReturnValue.RETURNS_VOID;
+
+            routes.append(RoutingGraph.RECORD_COMMAND).append('\t')
+                    .append(getBinaryName(result.getCommandType())).append('\t')
+                    .append(result.getMethodName()).append('\t')
+                    .append(getDispatcherResultType(result.getReturnValue())).append('\t')
+                    .append(returnsVoid ? "" : getBinaryName(result.getEventType())).append('\n');
+        }
+
+        for (HandleEventResult result : model.processorResults.getHandleEventResults()) {
+            routes.append(RoutingGraph.RECORD_EVENT).append('\t')
+                    .append(getBinaryName(result.getEventType())).append('\t')
+                    .append(result.getMethodName()).append('\n');
+        }
+
+        return routes.toString();
+    }
+
     /**
      * Generates a class name using the provided type and package name.
      *
@@ -508,6 +968,83 @@ public class LaPasseAnnotationProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Writes the routing graph of the origin as a resource next to its generated classes.
+     *
+     * @param model The processed data to write the routing graph for.
+     * @throws AnnotationProcessorException when an errors occurs.
+     * @see #createRoutes(GenerationModel)
+     */
+    protected void writeRoutesFile(GenerationModel model) throws AnnotationProcessorException {
+        String fileName = getClassName(model.origin, model.packageName) + LaPasse.ROUTES_SUFFIX;
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, model.packageName,
+                    fileName, model.origin);
+
+            try (Writer writer = file.openWriter()) {
+                writer.write(createRoutes(model));
+            }
+        } catch (IOException e) {
+            throw new AnnotationProcessorException("Unable to write routing graph", e, model.origin);
+        }
+    }
+
+    /**
+     * Reads the factory class names of an existing {@link ServiceLoader} registration, for example
+     * of a previous incremental compilation.
+     *
+     * @return The registered factory class names, or an empty set if no registration exists.
+     */
+    protected Set<String> readServicesFile() {
+        Set<String> classNames = new LinkedHashSet<>();
+
+        try {
+            FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+
+            try (BufferedReader reader = new BufferedReader(file.openReader(true))) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    String className = (comment < 0 ? line : line.substring(0, comment)).trim();
+
+                    if (!className.isEmpty()) {
+                        classNames.add(className);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no existing registration
+        }
+
+        return classNames;
+    }
+
+    /**
+     * Writes the {@link ServiceLoader} registration of the generated factories, merged with the
+     * factories of an existing registration.
+     *
+     * @throws AnnotationProcessorException when an errors occurs.
+     */
+    protected void writeServicesFile() throws AnnotationProcessorException {
+        Set<String> classNames = readServicesFile();
+        classNames.addAll(factoryClassNames);
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+
+            try (Writer writer = file.openWriter()) {
+                for (String factoryClassName : classNames) {
+                    writer.write(factoryClassName);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new AnnotationProcessorException("Unable to write services file", e, null);
+        }
+    }
+
     //----------------------------------------------------------------------------------------------
     // MEMBER CLASSES
     //----------------------------------------------------------------------------------------------
@@ -96,22 +96,35 @@ public class ProcessorResults {
 
     /**
      * Attempts to determine the concrete {@link State} implementation for this origin (class).
-     * Since event handler methods always return the State type, event handlers will be leading. If
-     * no event handlers have been processed, the concrete state will be determined by the first
-     * command handler that returns a valid state type.
      *
      * @return The concrete state implementation for this origin (class).
+     * @see #getTargetStateType()
      */
     public TypeName getTargetStateName() {
+        TypeMirror stateType = getTargetStateType();
+
+        return stateType == null ? null : ClassName.get(stateType);
+    }
+
+    /**
+     * Attempts to determine the concrete {@link State} type for this origin (class). Since event
+     * handler methods always return the State type, event handlers will be leading. If no event
+     * handlers have been processed, the concrete state will be determined by the first command
+     * handler that returns a valid state type.
+     *
+     * @return The concrete state type for this origin (class), or `null` if it can not be
+     * determined.
+     */
+    public TypeMirror getTargetStateType() {
         if (!handleEventResults.isEmpty()) {
-            return ClassName.get(handleEventResults.get(0).getStateType());
+            return handleEventResults.get(0).getStateType();
         }
 
         for (HandleCommandResult result : handleCommandResults) {
             TypeMirror stateType = result.getStateType();
 
             if (stateType != null) {
-                return ClassName.get(stateType);
+                return stateType;
             }
         }
 
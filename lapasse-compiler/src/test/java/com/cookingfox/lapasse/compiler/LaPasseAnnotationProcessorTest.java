@@ -11,8 +11,18 @@ import com.squareup.javapoet.TypeSpec;
 import org.junit.Test;
 
 import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static testing.TestingUtils.superficialEnumCodeCoverage;
@@ -35,6 +45,35 @@ public class LaPasseAnnotationProcessorTest {
         superficialEnumCodeCoverage(HandleEventMethodParams.class);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: writeServicesFile
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void writeServicesFile_should_merge_existing_registration() throws Exception {
+        ResourceFiler filer = new ResourceFiler("# registered factories\nold.Old$$LaPasseFactory\n");
+
+        LaPasseAnnotationProcessor processor = new LaPasseAnnotationProcessor();
+        processor.filer = filer;
+        processor.factoryClassNames.add("test.Test$$LaPasseFactory");
+        processor.factoryClassNames.add("old.Old$$LaPasseFactory");
+        processor.writeServicesFile();
+
+        assertEquals("old.Old$$LaPasseFactory\ntest.Test$$LaPasseFactory\n", filer.written.toString());
+    }
+
+    @Test
+    public void writeServicesFile_should_write_factories_if_no_registration() throws Exception {
+        ResourceFiler filer = new ResourceFiler(null);
+
+        LaPasseAnnotationProcessor processor = new LaPasseAnnotationProcessor();
+        processor.filer = filer;
+        processor.factoryClassNames.add("test.Test$$LaPasseFactory");
+        processor.writeServicesFile();
+
+        assertEquals("test.Test$$LaPasseFactory\n", filer.written.toString());
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: writeJavaFile
     //----------------------------------------------------------------------------------------------
@@ -54,4 +93,58 @@ public class LaPasseAnnotationProcessorTest {
         processor.writeJavaFile(javaFile, null);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Filer with one existing resource, which records what is written to created resources.
+     */
+    static class ResourceFiler implements Filer {
+
+        final String existing;
+        final StringWriter written = new StringWriter();
+
+        ResourceFiler(String existing) {
+            this.existing = existing;
+        }
+
+        @Override
+        public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence pkg,
+                                         CharSequence relativeName, Element... originatingElements) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + relativeName), JavaFileObject.Kind.OTHER) {
+                @Override
+                public Writer openWriter() {
+                    return written;
+                }
+            };
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence pkg,
+                                      CharSequence relativeName) throws IOException {
+            if (existing == null) {
+                throw new FileNotFoundException(relativeName.toString());
+            }
+
+            return new SimpleJavaFileObject(URI.create("mem:///" + relativeName), JavaFileObject.Kind.OTHER) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return existing;
+                }
+            };
+        }
+
+    }
+
 }
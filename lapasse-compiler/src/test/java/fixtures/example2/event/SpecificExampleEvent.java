@@ -0,0 +1,7 @@
+package fixtures.example2.event;
+
+/**
+ * Example Event that extends another event.
+ */
+public class SpecificExampleEvent extends ExampleEvent {
+}
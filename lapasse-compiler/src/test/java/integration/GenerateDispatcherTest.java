@@ -0,0 +1,241 @@
+package integration;
+
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor;
+import com.google.testing.compile.JavaFileObjects;
+import com.squareup.javapoet.MethodSpec;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import fixtures.example2.event.ExampleEvent;
+import fixtures.example2.event.SpecificExampleEvent;
+import fixtures.example2.state.ExampleState;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+
+import static com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor.*;
+import static integration.IntegrationTestHelper.*;
+
+/**
+ * Integration tests for {@link LaPasseAnnotationProcessor} and the generated
+ * {@link HandlerDispatcher}.
+ */
+public class GenerateDispatcherTest {
+
+    //----------------------------------------------------------------------------------------------
+    // COMMAND AND EVENT HANDLER
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void dispatcher_for_command_and_event_handler() throws Exception {
+        MethodSpec commandHandler = createHandleCommandMethod()
+                .addParameter(CountState.class, VAR_STATE)
+                .addParameter(IncrementCount.class, VAR_COMMAND)
+                .build();
+
+        MethodSpec eventHandler = createHandleEventMethod()
+                .addParameter(CountIncremented.class, VAR_EVENT)
+                .addStatement("return new $T($N.getCount())", CountState.class, VAR_EVENT)
+                .returns(CountState.class)
+                .build();
+
+        JavaFileObject expected = JavaFileObjects.forSourceString(
+                TEST_PACKAGE + "." + TEST_CLASS + "$$LaPasseDispatcher", "" +
+                        "package test;\n" +
+                        "\n" +
+                        "import com.cookingfox.lapasse.api.command.Command;\n" +
+                        "import com.cookingfox.lapasse.api.event.Event;\n" +
+                        "import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;\n" +
+                        "import fixtures.example.command.IncrementCount;\n" +
+                        "import fixtures.example.event.CountIncremented;\n" +
+                        "import fixtures.example.state.CountState;\n" +
+                        "import java.lang.Class;\n" +
+                        "import java.lang.Exception;\n" +
+                        "import java.lang.IndexOutOfBoundsException;\n" +
+                        "import java.lang.Object;\n" +
+                        "import java.lang.Override;\n" +
+                        "\n" +
+                        "public class Test$$LaPasseDispatcher<T extends Test> implements HandlerDispatcher<CountState> {\n" +
+                        "  final T origin;\n" +
+                        "\n" +
+                        "  public Test$$LaPasseDispatcher(T origin) {\n" +
+                        "    this.origin = origin;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandCount() {\n" +
+                        "    return 1;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandIndex(Class<?> commandClass) {\n" +
+                        "    if (commandClass == IncrementCount.class) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    if (IncrementCount.class.isAssignableFrom(commandClass)) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    return NOT_HANDLED;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandResultType(int index) {\n" +
+                        "    switch (index) {\n" +
+                        "      case 0:\n" +
+                        "        return RESULT_VOID;\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public Object dispatchCommand(int index, CountState state, Command command) throws Exception {\n" +
+                        "    switch (index) {\n" +
+                        "      case 0:\n" +
+                        "        origin.handle(state, (IncrementCount) command);\n" +
+                        "        return null;\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getEventCount() {\n" +
+                        "    return 1;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getEventIndex(Class<?> eventClass) {\n" +
+                        "    if (eventClass == CountIncremented.class) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    if (CountIncremented.class.isAssignableFrom(eventClass)) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    return NOT_HANDLED;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public CountState dispatchEvent(int index, CountState state, Event event) {\n" +
+                        "    switch (index) {\n" +
+                        "      case 0:\n" +
+                        "        return origin.handle((CountIncremented) event);\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}\n");
+
+        assertCompileSuccess(createSource(commandHandler, eventHandler), expected);
+    }
+
+
+    //----------------------------------------------------------------------------------------------
+    // SUPER TYPE HANDLERS
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void dispatcher_should_check_most_specific_super_type_first() throws Exception {
+        MethodSpec baseEventHandler = createHandleEventMethod()
+                .addParameter(ExampleEvent.class, VAR_EVENT)
+                .addParameter(ExampleState.class, VAR_STATE)
+                .addStatement("return $N", VAR_STATE)
+                .returns(ExampleState.class)
+                .build();
+
+        MethodSpec eventHandler = createHandleEventMethod()
+                .addParameter(SpecificExampleEvent.class, VAR_EVENT)
+                .addParameter(ExampleState.class, VAR_STATE)
+                .addStatement("return $N", VAR_STATE)
+                .returns(ExampleState.class)
+                .build();
+
+        JavaFileObject expected = JavaFileObjects.forSourceString(
+                TEST_PACKAGE + "." + TEST_CLASS + "$$LaPasseDispatcher", "" +
+                        "package test;\n" +
+                        "\n" +
+                        "import com.cookingfox.lapasse.api.command.Command;\n" +
+                        "import com.cookingfox.lapasse.api.event.Event;\n" +
+                        "import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;\n" +
+                        "import fixtures.example2.event.ExampleEvent;\n" +
+                        "import fixtures.example2.event.SpecificExampleEvent;\n" +
+                        "import fixtures.example2.state.ExampleState;\n" +
+                        "import java.lang.Class;\n" +
+                        "import java.lang.Exception;\n" +
+                        "import java.lang.IndexOutOfBoundsException;\n" +
+                        "import java.lang.Object;\n" +
+                        "import java.lang.Override;\n" +
+                        "\n" +
+                        "public class Test$$LaPasseDispatcher<T extends Test> implements HandlerDispatcher<ExampleState> {\n" +
+                        "  final T origin;\n" +
+                        "\n" +
+                        "  public Test$$LaPasseDispatcher(T origin) {\n" +
+                        "    this.origin = origin;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandCount() {\n" +
+                        "    return 0;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandIndex(Class<?> commandClass) {\n" +
+                        "    return NOT_HANDLED;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getCommandResultType(int index) {\n" +
+                        "    switch (index) {\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public Object dispatchCommand(int index, ExampleState state, Command command) throws Exception {\n" +
+                        "    switch (index) {\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getEventCount() {\n" +
+                        "    return 2;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public int getEventIndex(Class<?> eventClass) {\n" +
+                        "    if (eventClass == ExampleEvent.class) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    if (eventClass == SpecificExampleEvent.class) {\n" +
+                        "      return 1;\n" +
+                        "    }\n" +
+                        "    if (SpecificExampleEvent.class.isAssignableFrom(eventClass)) {\n" +
+                        "      return 1;\n" +
+                        "    }\n" +
+                        "    if (ExampleEvent.class.isAssignableFrom(eventClass)) {\n" +
+                        "      return 0;\n" +
+                        "    }\n" +
+                        "    return NOT_HANDLED;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public ExampleState dispatchEvent(int index, ExampleState state, Event event) {\n" +
+                        "    switch (index) {\n" +
+                        "      case 0:\n" +
+                        "        return origin.handle((ExampleEvent) event, state);\n" +
+                        "      case 1:\n" +
+                        "        return origin.handle((SpecificExampleEvent) event, state);\n" +
+                        "      default:\n" +
+                        "        throw new IndexOutOfBoundsException(\"Invalid handler index: \" + index);\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}\n");
+
+        assertCompileSuccess(createSource(baseEventHandler, eventHandler), expected);
+    }
+
+}
@@ -0,0 +1,82 @@
+package integration;
+
+import com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor;
+import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;
+import com.google.testing.compile.JavaFileObjects;
+import com.squareup.javapoet.MethodSpec;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import org.junit.Test;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.nio.charset.StandardCharsets;
+
+import static com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor.*;
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static integration.IntegrationTestHelper.*;
+
+/**
+ * Integration tests for {@link LaPasseAnnotationProcessor} and the generated
+ * {@link HandlerMapperFactory}.
+ */
+public class GenerateFactoryTest {
+
+    //----------------------------------------------------------------------------------------------
+    // FACTORY AND SERVICE REGISTRATION
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void factory_should_be_generated_and_registered() throws Exception {
+        MethodSpec commandHandler = createHandleCommandMethod()
+                .addParameter(CountState.class, VAR_STATE)
+                .addParameter(IncrementCount.class, VAR_COMMAND)
+                .addStatement("return new $T($N.getCount())", CountIncremented.class, VAR_COMMAND)
+                .returns(CountIncremented.class)
+                .build();
+
+        JavaFileObject expected = JavaFileObjects.forSourceString(
+                TEST_PACKAGE + "." + TEST_CLASS + "$$LaPasseFactory", "" +
+                        "package test;\n" +
+                        "\n" +
+                        "import com.cookingfox.lapasse.api.facade.Facade;\n" +
+                        "import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;\n" +
+                        "import com.cookingfox.lapasse.impl.internal.HandlerMapper;\n" +
+                        "import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;\n" +
+                        "import java.lang.Class;\n" +
+                        "import java.lang.Object;\n" +
+                        "import java.lang.Override;\n" +
+                        "import java.lang.SuppressWarnings;\n" +
+                        "\n" +
+                        "public final class Test$$LaPasseFactory implements HandlerMapperFactory {\n" +
+                        "  @Override\n" +
+                        "  public Class<?> getOriginClass() {\n" +
+                        "    return Test.class;\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  public HandlerDispatcher createHandlerDispatcher(Object origin) {\n" +
+                        "    return new Test$$LaPasseDispatcher<>((Test) origin);\n" +
+                        "  }\n" +
+                        "\n" +
+                        "  @Override\n" +
+                        "  @SuppressWarnings(\"unchecked\")\n" +
+                        "  public HandlerMapper createHandlerMapper(Object origin, Facade facade) {\n" +
+                        "    return new Test$$LaPasseGenerated<>((Test) origin, facade);\n" +
+                        "  }\n" +
+                        "}\n");
+
+        assertAbout(javaSource())
+                .that(createSource(commandHandler))
+                .processedWith(new LaPasseAnnotationProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected)
+                .and()
+                .generatesFileNamed(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE)
+                .withStringContents(StandardCharsets.UTF_8, "test.Test$$LaPasseFactory\n");
+    }
+
+}
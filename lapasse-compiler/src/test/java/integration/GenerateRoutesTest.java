@@ -0,0 +1,61 @@
+package integration;
+
+import com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
+import com.squareup.javapoet.MethodSpec;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import org.junit.Test;
+
+import javax.tools.StandardLocation;
+import java.nio.charset.StandardCharsets;
+
+import static com.cookingfox.lapasse.compiler.LaPasseAnnotationProcessor.*;
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static integration.IntegrationTestHelper.*;
+
+/**
+ * Integration tests for {@link LaPasseAnnotationProcessor} and the generated {@link RoutingGraph}.
+ */
+public class GenerateRoutesTest {
+
+    //----------------------------------------------------------------------------------------------
+    // ROUTING GRAPH
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void routing_graph_should_be_generated() throws Exception {
+        MethodSpec commandHandler = createHandleCommandMethod()
+                .addParameter(CountState.class, VAR_STATE)
+                .addParameter(IncrementCount.class, VAR_COMMAND)
+                .addStatement("return new $T($N.getCount())", CountIncremented.class, VAR_COMMAND)
+                .returns(CountIncremented.class)
+                .build();
+
+        MethodSpec eventHandler = createHandleEventMethod()
+                .addParameter(CountState.class, VAR_STATE)
+                .addParameter(CountIncremented.class, VAR_EVENT)
+                .addStatement("return new $T($N.getCount() + $N.getCount())",
+                        CountState.class, VAR_STATE, VAR_EVENT)
+                .returns(CountState.class)
+                .build();
+
+        String expected = "" +
+                "# " + FILE_COMMENT + "\n" +
+                "origin\ttest.Test\n" +
+                "state\tfixtures.example.state.CountState\n" +
+                "command\tfixtures.example.command.IncrementCount\thandle\tRESULT_EVENT\tfixtures.example.event.CountIncremented\n" +
+                "event\tfixtures.example.event.CountIncremented\thandle\n";
+
+        assertAbout(javaSource())
+                .that(createSource(commandHandler, eventHandler))
+                .processedWith(new LaPasseAnnotationProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesFileNamed(StandardLocation.CLASS_OUTPUT, TEST_PACKAGE, TEST_CLASS + "$$LaPasseRoutes")
+                .withStringContents(StandardCharsets.UTF_8, expected);
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base {@link Subscription} that emits values which are offered by a LaPasse listener to one
+ * subscriber, honouring its demand. Signals are serialized, so values can be offered from multiple
+ * threads.
+ *
+ * @param <T> The type of emitted values.
+ */
+abstract class AbstractEmitter<T> implements Subscription {
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Whether this subscription was cancelled (or terminated with an error).
+     */
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    /**
+     * Terminal error to signal to the subscriber.
+     */
+    private volatile Throwable error;
+
+    /**
+     * Releases the LaPasse listener when cancelled.
+     */
+    private volatile Disposable release;
+
+    /**
+     * The number of outstanding requests.
+     */
+    private final AtomicLong requested = new AtomicLong();
+
+    /**
+     * The subscriber to emit to.
+     */
+    protected final Subscriber<? super T> subscriber;
+
+    /**
+     * Work-in-progress counter: makes sure only one thread signals the subscriber at a time.
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    AbstractEmitter(Subscriber<? super T> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            Disposable current = release;
+
+            if (current != null) {
+                current.dispose();
+            }
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            // rule 3.9: non-positive requests must be signalled as an error
+            fail(new IllegalArgumentException("Request amount must be positive: " + n));
+            return;
+        }
+
+        // add with cap at Long.MAX_VALUE (unbounded)
+        for (; ; ) {
+            long current = requested.get();
+            long next = current + n;
+
+            if (next < 0) {
+                next = Long.MAX_VALUE;
+            }
+
+            if (requested.compareAndSet(current, next)) {
+                break;
+            }
+        }
+
+        drain();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PACKAGE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Terminates this subscription with an error.
+     *
+     * @param error The error to signal.
+     */
+    void fail(Throwable error) {
+        this.error = error;
+        drain();
+    }
+
+    /**
+     * @return Whether this subscription was cancelled.
+     */
+    boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * @return The next value to emit, or `null` if there is none.
+     */
+    abstract T poll();
+
+    /**
+     * Sets the action that releases the LaPasse listener when this subscription is cancelled. When
+     * already cancelled, it is disposed immediately.
+     *
+     * @param release The release action.
+     */
+    void setRelease(Disposable release) {
+        this.release = release;
+
+        if (isCancelled()) {
+            release.dispose();
+        }
+    }
+
+    /**
+     * Emits values while the subscriber has outstanding requests.
+     */
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        for (; ; ) {
+            if (isCancelled()) {
+                return;
+            }
+
+            Throwable currentError = error;
+
+            if (currentError != null) {
+                cancel();
+                subscriber.onError(currentError);
+                return;
+            }
+
+            long currentRequested = requested.get();
+            long emitted = 0;
+
+            while (emitted != currentRequested) {
+                T value = poll();
+
+                if (value == null) {
+                    break;
+                }
+
+                subscriber.onNext(value);
+                emitted++;
+
+                if (isCancelled()) {
+                    return;
+                }
+            }
+
+            if (emitted != 0 && currentRequested != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+
+            missed = wip.addAndGet(-missed);
+
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.impl.reactivestreams.exception.SubscriberBufferOverflowException;
+import org.reactivestreams.Subscriber;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Emitter that buffers a bounded number of values that were not requested yet. When the buffer
+ * overflows, the subscription is terminated with a {@link SubscriberBufferOverflowException}.
+ *
+ * @param <T> The type of emitted values.
+ */
+class BufferingEmitter<T> extends AbstractEmitter<T> {
+
+    private final int bufferSize;
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    BufferingEmitter(Subscriber<? super T> subscriber, int bufferSize) {
+        super(subscriber);
+
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Adds a value to the buffer and emits it if requested.
+     *
+     * @param value The value to emit.
+     */
+    void offer(T value) {
+        if (size.incrementAndGet() > bufferSize) {
+            fail(new SubscriberBufferOverflowException(bufferSize));
+            return;
+        }
+
+        queue.offer(value);
+        drain();
+    }
+
+    @Override
+    T poll() {
+        T value = queue.poll();
+
+        if (value != null) {
+            size.decrementAndGet();
+        }
+
+        return value;
+    }
+
+}
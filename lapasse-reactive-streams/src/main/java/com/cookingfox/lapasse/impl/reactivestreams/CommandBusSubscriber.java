@@ -0,0 +1,180 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.bus.CommandBus;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reactive Streams {@link Subscriber} that passes commands from a {@link Publisher} to a command
+ * bus. At most `prefetch` commands are requested ahead: new commands are requested once three
+ * quarters of the prefetched commands have been handled, so a fast publisher can not flood the
+ * command bus.
+ * <p>
+ * Commands are handled on the thread that delivers them. When handling a command throws, the
+ * subscription is cancelled and the error is available through {@link #getError()}.
+ */
+public class CommandBusSubscriber implements Subscriber<Command>, Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default number of commands that are requested ahead.
+     */
+    public static final int DEFAULT_PREFETCH = 16;
+
+    /**
+     * Marks a disposed subscriber.
+     */
+    static final Subscription CANCELLED = new Subscription() {
+        @Override
+        public void request(long n) {
+            // no-op
+        }
+
+        @Override
+        public void cancel() {
+            // no-op
+        }
+    };
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The command bus to pass commands to.
+     */
+    protected final CommandBus<?> commandBus;
+
+    /**
+     * The number of commands that were handled since the last request.
+     */
+    protected int consumed;
+
+    /**
+     * Whether the publisher terminated or this subscriber was disposed.
+     */
+    protected volatile boolean done;
+
+    /**
+     * The error from the publisher or the command bus, if any.
+     */
+    protected volatile Throwable error;
+
+    /**
+     * The number of handled commands after which new commands are requested.
+     */
+    protected final int limit;
+
+    /**
+     * The number of commands that are requested ahead.
+     */
+    protected final int prefetch;
+
+    /**
+     * The upstream subscription.
+     */
+    protected final AtomicReference<Subscription> subscription = new AtomicReference<>();
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTORS
+    //----------------------------------------------------------------------------------------------
+
+    public CommandBusSubscriber(CommandBus<?> commandBus) {
+        this(commandBus, DEFAULT_PREFETCH);
+    }
+
+    public CommandBusSubscriber(CommandBus<?> commandBus, int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be at least 1");
+        }
+
+        this.commandBus = requireNonNull(commandBus, "Command bus can not be null");
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Cancels the subscription to the publisher.
+     */
+    @Override
+    public void dispose() {
+        done = true;
+
+        Subscription current = subscription.getAndSet(CANCELLED);
+
+        if (current != null && current != CANCELLED) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * @return The error from the publisher or the command bus, or `null` if there is none.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return Whether the publisher terminated, or this subscriber was disposed.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        this.error = requireNonNull(error, "Error can not be null");
+        done = true;
+    }
+
+    @Override
+    public void onNext(Command command) {
+        requireNonNull(command, "Command can not be null");
+
+        try {
+            commandBus.handleCommand(command);
+        } catch (Throwable e) {
+            error = e;
+            dispose();
+            return;
+        }
+
+        if (++consumed == limit) {
+            consumed = 0;
+            subscription.get().request(limit);
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        requireNonNull(subscription, "Subscription can not be null");
+
+        // rule 2.5: only one active subscription
+        if (!this.subscription.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+
+        subscription.request(prefetch);
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.logging.CommandHandlerResult;
+import com.cookingfox.lapasse.api.command.logging.CommandLogger;
+import com.cookingfox.lapasse.api.command.logging.CommandLoggerAware;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.event.logging.EventHandlerResult;
+import com.cookingfox.lapasse.api.event.logging.EventLogger;
+import com.cookingfox.lapasse.api.event.logging.EventLoggerAware;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.state.State;
+import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+import com.cookingfox.lapasse.api.state.observer.StateChanged;
+import com.cookingfox.lapasse.api.state.observer.StateObserver;
+import com.cookingfox.lapasse.impl.reactivestreams.exception.SubscriberBufferOverflowException;
+import com.cookingfox.lapasse.impl.state.observer.StateChangedVo;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.Collection;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reactive Streams {@link Publisher}s for LaPasse command results, event results and state changes.
+ * <p>
+ * Each subscriber gets its own listener, which is added on subscribe and removed on cancel. Values
+ * are only emitted when requested. Values that are produced while a subscriber has no outstanding
+ * requests are buffered up to a bounded size; when the buffer overflows, the subscriber receives a
+ * {@link SubscriberBufferOverflowException}. The latest state publisher conflates instead, so it
+ * never overflows.
+ * <p>
+ * On Java 9+, use `org.reactivestreams.FlowAdapters` to convert these publishers to
+ * `java.util.concurrent.Flow.Publisher`.
+ */
+public final class LaPassePublishers {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default maximum number of values that are buffered per subscriber.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 128;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR (disabled)
+    //----------------------------------------------------------------------------------------------
+
+    private LaPassePublishers() {
+        throw new UnsupportedOperationException();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a publisher for command handler results, with the default buffer size.
+     *
+     * @param loggerAware The subject for which to publish command handler results.
+     * @return A publisher for command handler results.
+     * @see #commandHandlerResults(CommandLoggerAware, int)
+     */
+    public static Publisher<CommandHandlerResult> commandHandlerResults(CommandLoggerAware loggerAware) {
+        return commandHandlerResults(loggerAware, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a publisher for command handler results.
+     *
+     * @param loggerAware The subject for which to publish command handler results.
+     * @param bufferSize  The maximum number of buffered results per subscriber.
+     * @return A publisher for command handler results.
+     */
+    public static Publisher<CommandHandlerResult> commandHandlerResults(
+            final CommandLoggerAware loggerAware, final int bufferSize) {
+        requireNonNull(loggerAware, "Logger aware can not be null");
+        checkBufferSize(bufferSize);
+
+        return new Publisher<CommandHandlerResult>() {
+            @Override
+            public void subscribe(Subscriber<? super CommandHandlerResult> subscriber) {
+                requireNonNull(subscriber, "Subscriber can not be null");
+
+                final BufferingEmitter<CommandHandlerResult> emitter =
+                        new BufferingEmitter<>(subscriber, bufferSize);
+
+                final CommandLogger logger = new CommandLogger() {
+                    @Override
+                    public void onCommandHandlerError(Throwable error, Command command) {
+                        // not published
+                    }
+
+                    @Override
+                    public void onCommandHandlerResult(final Command command,
+                                                       final Collection<Event> events) {
+                        emitter.offer(new CommandHandlerResult() {
+                            @Override
+                            public Command getCommand() {
+                                return command;
+                            }
+
+                            @Override
+                            public Collection<Event> getEvents() {
+                                return events;
+                            }
+                        });
+                    }
+                };
+
+                subscriber.onSubscribe(emitter);
+                loggerAware.addCommandLogger(logger);
+
+                emitter.setRelease(new Disposable() {
+                    @Override
+                    public void dispose() {
+                        loggerAware.removeCommandLogger(logger);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Creates a publisher for event handler results, with the default buffer size.
+     *
+     * @param loggerAware The subject for which to publish event handler results.
+     * @param <S>         The concrete type of the state object.
+     * @return A publisher for event handler results.
+     * @see #eventHandlerResults(EventLoggerAware, int)
+     */
+    public static <S extends State> Publisher<EventHandlerResult<S>> eventHandlerResults(
+            EventLoggerAware<S> loggerAware) {
+        return eventHandlerResults(loggerAware, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a publisher for event handler results.
+     *
+     * @param loggerAware The subject for which to publish event handler results.
+     * @param bufferSize  The maximum number of buffered results per subscriber.
+     * @param <S>         The concrete type of the state object.
+     * @return A publisher for event handler results.
+     */
+    public static <S extends State> Publisher<EventHandlerResult<S>> eventHandlerResults(
+            final EventLoggerAware<S> loggerAware, final int bufferSize) {
+        requireNonNull(loggerAware, "Logger aware can not be null");
+        checkBufferSize(bufferSize);
+
+        return new Publisher<EventHandlerResult<S>>() {
+            @Override
+            public void subscribe(Subscriber<? super EventHandlerResult<S>> subscriber) {
+                requireNonNull(subscriber, "Subscriber can not be null");
+
+                final BufferingEmitter<EventHandlerResult<S>> emitter =
+                        new BufferingEmitter<>(subscriber, bufferSize);
+
+                final EventLogger<S> logger = new EventLogger<S>() {
+                    @Override
+                    public void onEventHandlerError(Throwable error, Event event) {
+                        // not published
+                    }
+
+                    @Override
+                    public void onEventHandlerResult(final Event event, final S newState) {
+                        emitter.offer(new EventHandlerResult<S>() {
+                            @Override
+                            public Event getEvent() {
+                                return event;
+                            }
+
+                            @Override
+                            public S getNewState() {
+                                return newState;
+                            }
+                        });
+                    }
+                };
+
+                subscriber.onSubscribe(emitter);
+                loggerAware.addEventLogger(logger);
+
+                emitter.setRelease(new Disposable() {
+                    @Override
+                    public void dispose() {
+                        loggerAware.removeEventLogger(logger);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Creates a publisher of the latest state. The current state is emitted on subscribe. When a
+     * subscriber can not keep up, intermediate states are skipped.
+     *
+     * @param stateObserver The state observer.
+     * @param <S>           The concrete type of the state object.
+     * @return A publisher of the latest state.
+     */
+    public static <S extends State> Publisher<S> latestState(final StateObserver<S> stateObserver) {
+        requireNonNull(stateObserver, "State observer can not be null");
+
+        return new Publisher<S>() {
+            @Override
+            public void subscribe(Subscriber<? super S> subscriber) {
+                requireNonNull(subscriber, "Subscriber can not be null");
+
+                final LatestEmitter<S> emitter = new LatestEmitter<>(subscriber);
+
+                final OnStateChanged<S> listener = new OnStateChanged<S>() {
+                    @Override
+                    public void onStateChanged(S state, Event event) {
+                        emitter.offer(state);
+                    }
+                };
+
+                subscriber.onSubscribe(emitter);
+
+                // add listener before reading the current state, so no state change can be missed
+                stateObserver.addStateChangedListener(listener);
+                emitter.offerIfEmpty(stateObserver.getCurrentState());
+
+                emitter.setRelease(new Disposable() {
+                    @Override
+                    public void dispose() {
+                        stateObserver.removeStateChangedListener(listener);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Creates a publisher for state changes, with the default buffer size.
+     *
+     * @param stateObserver The state observer.
+     * @param <S>           The concrete type of the state object.
+     * @return A publisher for state changes.
+     * @see #stateChanges(StateObserver, int)
+     */
+    public static <S extends State> Publisher<StateChanged<S>> stateChanges(
+            StateObserver<S> stateObserver) {
+        return stateChanges(stateObserver, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a publisher for state changes, including the event that caused each change.
+     *
+     * @param stateObserver The state observer.
+     * @param bufferSize    The maximum number of buffered state changes per subscriber.
+     * @param <S>           The concrete type of the state object.
+     * @return A publisher for state changes.
+     * @see #latestState(StateObserver)
+     */
+    public static <S extends State> Publisher<StateChanged<S>> stateChanges(
+            final StateObserver<S> stateObserver, final int bufferSize) {
+        requireNonNull(stateObserver, "State observer can not be null");
+        checkBufferSize(bufferSize);
+
+        return new Publisher<StateChanged<S>>() {
+            @Override
+            public void subscribe(Subscriber<? super StateChanged<S>> subscriber) {
+                requireNonNull(subscriber, "Subscriber can not be null");
+
+                final BufferingEmitter<StateChanged<S>> emitter =
+                        new BufferingEmitter<>(subscriber, bufferSize);
+
+                final OnStateChanged<S> listener = new OnStateChanged<S>() {
+                    @Override
+                    public void onStateChanged(S state, Event event) {
+                        emitter.offer(new StateChangedVo<>(event, state));
+                    }
+                };
+
+                subscriber.onSubscribe(emitter);
+                stateObserver.addStateChangedListener(listener);
+
+                emitter.setRelease(new Disposable() {
+                    @Override
+                    public void dispose() {
+                        stateObserver.removeStateChangedListener(listener);
+                    }
+                });
+            }
+        };
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static void checkBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1");
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Emitter that keeps only the latest value that was not requested yet: a slow subscriber skips
+ * intermediate values.
+ *
+ * @param <T> The type of emitted values.
+ */
+class LatestEmitter<T> extends AbstractEmitter<T> {
+
+    private final AtomicReference<T> pending = new AtomicReference<>();
+
+    /**
+     * The last emitted value, to prevent emitting the same value twice. Only accessed while
+     * draining.
+     */
+    private T lastEmitted;
+
+    LatestEmitter(Subscriber<? super T> subscriber) {
+        super(subscriber);
+    }
+
+    /**
+     * Offers a new value, replacing a pending value that has not been emitted yet.
+     *
+     * @param value The new value.
+     */
+    void offer(T value) {
+        pending.set(value);
+        drain();
+    }
+
+    /**
+     * Offers a value only if no other value is pending.
+     *
+     * @param value The value.
+     */
+    void offerIfEmpty(T value) {
+        if (pending.compareAndSet(null, value)) {
+            drain();
+        }
+    }
+
+    @Override
+    T poll() {
+        for (; ; ) {
+            T value = pending.getAndSet(null);
+
+            if (value == null) {
+                return null;
+            }
+
+            if (value != lastEmitted) {
+                lastEmitted = value;
+                return value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.cookingfox.lapasse.impl.reactivestreams.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Signalled to a Reactive Streams subscriber that did not request values fast enough, causing its
+ * buffer to overflow.
+ */
+public class SubscriberBufferOverflowException extends LaPasseException {
+
+    public SubscriberBufferOverflowException(int bufferSize) {
+        super(String.format("Subscriber buffer overflow: more than %d values were not requested",
+                bufferSize));
+    }
+
+}
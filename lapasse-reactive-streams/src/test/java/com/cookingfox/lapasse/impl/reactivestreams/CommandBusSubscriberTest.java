@@ -0,0 +1,142 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import fixtures.reactivestreams.IterablePublisher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CommandBusSubscriber}.
+ */
+public class CommandBusSubscriberTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private LaPasseFacade<CountState> facade;
+
+    @Before
+    public void setUp() throws Exception {
+        facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: CommandBusSubscriber
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void subscriber_should_handle_all_commands_with_bounded_demand() throws Exception {
+        mapHandlers();
+
+        IterablePublisher<Command> publisher = new IterablePublisher<>(createCommands(100));
+        CommandBusSubscriber subscriber = new CommandBusSubscriber(facade, 8);
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(new CountState(100), facade.getCurrentState());
+        assertTrue(publisher.maxOutstanding <= 8);
+        assertTrue(subscriber.isDone());
+        assertNull(subscriber.getError());
+    }
+
+    @Test
+    public void subscriber_should_cancel_on_command_error() throws Exception {
+        // no handlers mapped: handling throws
+        IterablePublisher<Command> publisher = new IterablePublisher<>(createCommands(10));
+        CommandBusSubscriber subscriber = new CommandBusSubscriber(facade);
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(publisher.cancelled);
+        assertTrue(subscriber.isDone());
+        assertTrue(subscriber.getError() instanceof NoMessageHandlersException);
+    }
+
+    @Test
+    public void dispose_should_cancel_subscription() throws Exception {
+        mapHandlers();
+
+        IterablePublisher<Command> publisher = new IterablePublisher<>(createCommands(10));
+        CommandBusSubscriber subscriber = new CommandBusSubscriber(facade, 1) {
+            @Override
+            public void onNext(Command command) {
+                super.onNext(command);
+                dispose();
+            }
+        };
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(publisher.cancelled);
+        assertEquals(new CountState(1), facade.getCurrentState());
+    }
+
+    @Test
+    public void onSubscribe_should_cancel_second_subscription() throws Exception {
+        mapHandlers();
+
+        CommandBusSubscriber subscriber = new CommandBusSubscriber(facade);
+        IterablePublisher<Command> first = new IterablePublisher<>(new ArrayList<Command>());
+        IterablePublisher<Command> second = new IterablePublisher<>(new ArrayList<Command>());
+
+        first.subscribe(subscriber);
+        second.subscribe(subscriber);
+
+        assertFalse(first.cancelled);
+        assertTrue(second.cancelled);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_throw_if_prefetch_invalid() throws Exception {
+        new CommandBusSubscriber(facade, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructor_should_throw_if_command_bus_null() throws Exception {
+        new CommandBusSubscriber(null);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private List<Command> createCommands(int count) {
+        List<Command> commands = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            commands.add(new IncrementCount(1));
+        }
+
+        return commands;
+    }
+
+    private void mapHandlers() {
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                return new CountState(previousState.getCount() + event.getCount());
+            }
+        });
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.cookingfox.lapasse.impl.reactivestreams;
+
+import com.cookingfox.lapasse.api.command.logging.CommandHandlerResult;
+import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.logging.EventHandlerResult;
+import com.cookingfox.lapasse.api.state.observer.StateChanged;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import com.cookingfox.lapasse.impl.reactivestreams.exception.SubscriberBufferOverflowException;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import fixtures.reactivestreams.RecordingSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LaPassePublishers}.
+ */
+public class LaPassePublishersTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private LaPasseFacade<CountState> facade;
+
+    @Before
+    public void setUp() throws Exception {
+        facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                return new CountState(previousState.getCount() + event.getCount());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        facade.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: commandHandlerResults
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void commandHandlerResults_should_emit_results() throws Exception {
+        RecordingSubscriber<CommandHandlerResult> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        LaPassePublishers.commandHandlerResults(facade).subscribe(subscriber);
+
+        IncrementCount command = new IncrementCount(1);
+        facade.handleCommand(command);
+
+        assertEquals(1, subscriber.values.size());
+        assertSame(command, subscriber.values.get(0).getCommand());
+        assertEquals(Collections.singleton(new CountIncremented(1)),
+                subscriber.values.get(0).getEvents());
+    }
+
+    @Test
+    public void commandHandlerResults_should_only_emit_requested_results() throws Exception {
+        RecordingSubscriber<CommandHandlerResult> subscriber = new RecordingSubscriber<>(0);
+
+        LaPassePublishers.commandHandlerResults(facade).subscribe(subscriber);
+
+        facade.handleCommand(new IncrementCount(1));
+        facade.handleCommand(new IncrementCount(2));
+        facade.handleCommand(new IncrementCount(3));
+
+        assertEquals(0, subscriber.values.size());
+
+        subscriber.request(2);
+
+        assertEquals(2, subscriber.values.size());
+        assertEquals(new IncrementCount(2), subscriber.values.get(1).getCommand());
+
+        subscriber.request(5);
+
+        assertEquals(3, subscriber.values.size());
+
+        facade.handleCommand(new IncrementCount(4));
+
+        assertEquals(4, subscriber.values.size());
+    }
+
+    @Test
+    public void commandHandlerResults_should_signal_buffer_overflow() throws Exception {
+        RecordingSubscriber<CommandHandlerResult> subscriber = new RecordingSubscriber<>(0);
+
+        LaPassePublishers.commandHandlerResults(facade, 2).subscribe(subscriber);
+
+        facade.handleCommand(new IncrementCount(1));
+        facade.handleCommand(new IncrementCount(1));
+
+        assertNull(subscriber.error);
+
+        facade.handleCommand(new IncrementCount(1));
+
+        assertTrue(subscriber.error instanceof SubscriberBufferOverflowException);
+
+        // cancelled: no more values
+        subscriber.request(10);
+
+        assertEquals(0, subscriber.values.size());
+    }
+
+    @Test
+    public void commandHandlerResults_should_stop_emitting_after_cancel() throws Exception {
+        RecordingSubscriber<CommandHandlerResult> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        LaPassePublishers.commandHandlerResults(facade).subscribe(subscriber);
+
+        facade.handleCommand(new IncrementCount(1));
+        subscriber.cancel();
+        facade.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, subscriber.values.size());
+    }
+
+    @Test
+    public void commandHandlerResults_should_signal_error_for_non_positive_request() throws Exception {
+        RecordingSubscriber<CommandHandlerResult> subscriber = new RecordingSubscriber<>(0);
+
+        LaPassePublishers.commandHandlerResults(facade).subscribe(subscriber);
+
+        subscriber.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void commandHandlerResults_should_throw_if_logger_aware_null() throws Exception {
+        LaPassePublishers.commandHandlerResults(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void commandHandlerResults_should_throw_if_buffer_size_invalid() throws Exception {
+        LaPassePublishers.commandHandlerResults(facade, 0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: eventHandlerResults
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void eventHandlerResults_should_emit_results() throws Exception {
+        RecordingSubscriber<EventHandlerResult<CountState>> subscriber = new RecordingSubscriber<>(1);
+
+        LaPassePublishers.eventHandlerResults(facade).subscribe(subscriber);
+
+        facade.handleCommand(new IncrementCount(3));
+
+        assertEquals(1, subscriber.values.size());
+        assertEquals(new CountIncremented(3), subscriber.values.get(0).getEvent());
+        assertEquals(new CountState(3), subscriber.values.get(0).getNewState());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: latestState
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void latestState_should_emit_current_state_on_request() throws Exception {
+        RecordingSubscriber<CountState> subscriber = new RecordingSubscriber<>(0);
+
+        LaPassePublishers.latestState(facade).subscribe(subscriber);
+
+        assertEquals(0, subscriber.values.size());
+
+        subscriber.request(1);
+
+        assertEquals(Collections.singletonList(new CountState(0)), subscriber.values);
+    }
+
+    @Test
+    public void latestState_should_conflate_states() throws Exception {
+        RecordingSubscriber<CountState> subscriber = new RecordingSubscriber<>(0);
+
+        LaPassePublishers.latestState(facade).subscribe(subscriber);
+
+        for (int i = 0; i < 100; i++) {
+            facade.handleCommand(new IncrementCount(1));
+        }
+
+        subscriber.request(10);
+
+        assertEquals(Collections.singletonList(new CountState(100)), subscriber.values);
+
+        facade.handleCommand(new IncrementCount(1));
+
+        assertEquals(new CountState(101), subscriber.values.get(1));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: stateChanges
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void stateChanges_should_emit_state_changes() throws Exception {
+        RecordingSubscriber<StateChanged<CountState>> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        LaPassePublishers.stateChanges(facade).subscribe(subscriber);
+
+        facade.handleCommand(new IncrementCount(1));
+        facade.handleCommand(new IncrementCount(2));
+
+        assertEquals(2, subscriber.values.size());
+        assertEquals(new CountIncremented(2), subscriber.values.get(1).getEvent());
+        assertEquals(new CountState(3), subscriber.values.get(1).getState());
+    }
+
+    @Test
+    public void stateChanges_should_remove_listener_on_cancel() throws Exception {
+        RecordingSubscriber<StateChanged<CountState>> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        LaPassePublishers.stateChanges(facade).subscribe(subscriber);
+        subscriber.cancel();
+
+        facade.handleCommand(new IncrementCount(1));
+
+        assertEquals(0, subscriber.values.size());
+    }
+
+}
@@ -0,0 +1,64 @@
+package fixtures.reactivestreams;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+
+/**
+ * Synchronous publisher of the values of an iterable, honouring demand. Records the requests.
+ */
+public class IterablePublisher<T> implements Publisher<T> {
+
+    private final Iterable<T> values;
+
+    public long totalRequested;
+    public long maxOutstanding;
+    public boolean cancelled;
+
+    public IterablePublisher(Iterable<T> values) {
+        this.values = values;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        final Iterator<T> iterator = values.iterator();
+
+        subscriber.onSubscribe(new Subscription() {
+            long outstanding;
+            boolean emitting;
+
+            @Override
+            public void request(long n) {
+                totalRequested += n;
+                outstanding += n;
+                maxOutstanding = Math.max(maxOutstanding, outstanding);
+
+                if (emitting) {
+                    return;
+                }
+
+                emitting = true;
+
+                while (outstanding > 0 && !cancelled) {
+                    if (!iterator.hasNext()) {
+                        subscriber.onComplete();
+                        break;
+                    }
+
+                    outstanding--;
+                    subscriber.onNext(iterator.next());
+                }
+
+                emitting = false;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,57 @@
+package fixtures.reactivestreams;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reactive Streams subscriber that records all signals and requests values manually.
+ */
+public class RecordingSubscriber<T> implements Subscriber<T> {
+
+    public final List<T> values = new CopyOnWriteArrayList<>();
+    public volatile Throwable error;
+    public volatile boolean completed;
+    public volatile Subscription subscription;
+
+    private final long initialRequest;
+
+    public RecordingSubscriber(long initialRequest) {
+        this.initialRequest = initialRequest;
+    }
+
+    public void request(long n) {
+        subscription.request(n);
+    }
+
+    public void cancel() {
+        subscription.cancel();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+
+        if (initialRequest > 0) {
+            subscription.request(initialRequest);
+        }
+    }
+
+    @Override
+    public void onNext(T value) {
+        values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.cookingfox.lapasse.api.command.bus;
 
+import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.state.State;
 import rx.Scheduler;
 
@@ -16,6 +17,25 @@ public interface RxCommandBus<S extends State> extends CommandBus<S> {
     @Override
     void dispose();
 
+    /**
+     * Returns the number of Rx commands that are currently in flight: their command handler
+     * Observable or Single has been subscribed to, but has not terminated yet.
+     *
+     * @return The number of in-flight Rx commands.
+     */
+    int getInFlightCommandCount();
+
+    /**
+     * Set the maximum number of Rx commands that can be in flight at the same time. When the limit
+     * is reached, new Rx commands are rejected with a
+     * {@link com.cookingfox.lapasse.api.command.exception.TooManyInFlightCommandsException}, which
+     * is passed to the command loggers. The default is unbounded.
+     *
+     * @param maxInFlightCommands The maximum number of in-flight Rx commands (at least 1).
+     * @throws IllegalArgumentException when the value is less than 1.
+     */
+    void setMaxInFlightCommands(int maxInFlightCommands);
+
     /**
      * Set the scheduler to observe command handler Observables on.
      *
@@ -24,6 +44,16 @@ public interface RxCommandBus<S extends State> extends CommandBus<S> {
      */
     void setCommandObserveScheduler(Scheduler observeOnScheduler);
 
+    /**
+     * Set the scheduler to observe command handler Observables on, for a concrete command type.
+     * Overrides the default scheduler for this command type.
+     *
+     * @param commandClass       The concrete command type.
+     * @param observeOnScheduler The scheduler to observe on.
+     * @see #setCommandObserveScheduler(Scheduler)
+     */
+    void setCommandObserveScheduler(Class<? extends Command> commandClass, Scheduler observeOnScheduler);
+
     /**
      * Set the scheduler to subscribe command handler Observables on.
      *
@@ -32,4 +62,15 @@ public interface RxCommandBus<S extends State> extends CommandBus<S> {
      */
     void setCommandSubscribeScheduler(Scheduler subscribeOnScheduler);
 
+    /**
+     * Set the scheduler to subscribe command handler Observables on, for a concrete command type.
+     * Overrides the default scheduler for this command type. For example: an I/O scheduler for
+     * commands with I/O-bound handlers and a computation scheduler for CPU-bound ones.
+     *
+     * @param commandClass         The concrete command type.
+     * @param subscribeOnScheduler The scheduler to subscribe on.
+     * @see #setCommandSubscribeScheduler(Scheduler)
+     */
+    void setCommandSubscribeScheduler(Class<? extends Command> commandClass, Scheduler subscribeOnScheduler);
+
 }
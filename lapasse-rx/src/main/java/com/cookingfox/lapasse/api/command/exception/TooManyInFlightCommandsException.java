@@ -0,0 +1,17 @@
+package com.cookingfox.lapasse.api.command.exception;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when an Rx command is rejected, because the maximum number of in-flight Rx commands has
+ * been reached.
+ */
+public class TooManyInFlightCommandsException extends LaPasseException {
+
+    public TooManyInFlightCommandsException(Command command, int maxInFlightCommands) {
+        super(String.format("Rejected command '%s': maximum of %d in-flight commands reached",
+                command, maxInFlightCommands));
+    }
+
+}
@@ -10,6 +10,16 @@ import rx.Observable;
  */
 public interface RxStateObserver<S extends State> extends StateObserver<S> {
 
+    /**
+     * Returns a backpressure-aware Rx observable of the latest state. The current state is emitted
+     * on subscribe. When a subscriber can not keep up, intermediate states are dropped and only the
+     * latest state is emitted once the subscriber requests more, so memory use stays bounded. All
+     * subscribers share a single state changed listener.
+     *
+     * @return An Rx observable of the latest state.
+     */
+    Observable<S> observeLatestState();
+
     /**
      * Returns an Rx observable for state changes.
      *
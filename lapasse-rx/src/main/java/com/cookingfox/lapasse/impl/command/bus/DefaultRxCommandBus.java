@@ -2,23 +2,26 @@ package com.cookingfox.lapasse.impl.command.bus;
 
 import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.bus.RxCommandBus;
+import com.cookingfox.lapasse.api.command.exception.TooManyInFlightCommandsException;
 import com.cookingfox.lapasse.api.command.handler.*;
 import com.cookingfox.lapasse.api.command.logging.CommandLoggerHelper;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.observer.RxStateObserver;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
 import rx.Observable;
 import rx.Scheduler;
 import rx.Single;
-import rx.functions.Action1;
+import rx.Subscriber;
+import rx.functions.Action0;
 import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.Subscriptions;
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Default implementation of {@link RxCommandBus}.
@@ -62,6 +65,12 @@ public class DefaultRxCommandBus<S extends State>
      */
     protected Scheduler observeOnScheduler;
 
+    /**
+     * Schedulers to observe on per concrete command type. Overrides {@link #observeOnScheduler}.
+     */
+    protected final Map<Class<? extends Command>, Scheduler> commandObserveOnSchedulers =
+            CollectionUtils.newConcurrentMap();
+
     /**
      * The default Scheduler that will be subscribed on.
      *
@@ -70,10 +79,27 @@ public class DefaultRxCommandBus<S extends State>
     protected Scheduler subscribeOnScheduler;
 
     /**
-     * Managed collection of Rx subscriptions.
+     * Schedulers to subscribe on per concrete command type. Overrides {@link #subscribeOnScheduler}.
+     */
+    protected final Map<Class<? extends Command>, Scheduler> commandSubscribeOnSchedulers =
+            CollectionUtils.newConcurrentMap();
+
+    /**
+     * Managed collection of Rx subscriptions. Subscriptions remove themselves when they terminate,
+     * so this only contains the subscriptions of in-flight commands.
      */
     protected final CompositeSubscription subscriptions = new CompositeSubscription();
 
+    /**
+     * The number of in-flight Rx commands.
+     */
+    protected final AtomicInteger inFlightCommands = new AtomicInteger();
+
+    /**
+     * The maximum number of in-flight Rx commands.
+     */
+    protected volatile int maxInFlightCommands = Integer.MAX_VALUE;
+
     //----------------------------------------------------------------------------------------------
     // CONSTRUCTOR
     //----------------------------------------------------------------------------------------------
@@ -82,7 +108,23 @@ public class DefaultRxCommandBus<S extends State>
                                EventBus<S> eventBus,
                                CommandLoggerHelper loggerHelper,
                                RxStateObserver<S> stateObserver) {
-        super(messageStore, eventBus, loggerHelper, stateObserver);
+        this(messageStore, eventBus, loggerHelper, stateObserver, 0);
+    }
+
+    /**
+     * @param messageStore         Stores the handled commands.
+     * @param eventBus             Handles the events that the command handlers produce.
+     * @param loggerHelper         Notifies the command loggers.
+     * @param stateObserver        Provides the current state to the command handlers.
+     * @param expectedCommandTypes The expected number of mapped command types, used to size the
+     *                             handler map.
+     */
+    public DefaultRxCommandBus(MessageStore messageStore,
+                               EventBus<S> eventBus,
+                               CommandLoggerHelper loggerHelper,
+                               RxStateObserver<S> stateObserver,
+                               int expectedCommandTypes) {
+        super(messageStore, eventBus, loggerHelper, stateObserver, expectedCommandTypes);
     }
 
     //----------------------------------------------------------------------------------------------
@@ -96,18 +138,48 @@ public class DefaultRxCommandBus<S extends State>
         subscriptions.unsubscribe();
     }
 
+    @Override
+    public int getInFlightCommandCount() {
+        return inFlightCommands.get();
+    }
+
+    @Override
+    public void setMaxInFlightCommands(int maxInFlightCommands) {
+        if (maxInFlightCommands < 1) {
+            throw new IllegalArgumentException("Max in-flight commands must be at least 1");
+        }
+
+        this.maxInFlightCommands = maxInFlightCommands;
+    }
+
     @Override
     public void setCommandObserveScheduler(Scheduler observeOnScheduler) {
         this.observeOnScheduler = Objects.requireNonNull(observeOnScheduler,
                 "Scheduler can not be null");
     }
 
+    @Override
+    public void setCommandObserveScheduler(Class<? extends Command> commandClass,
+                                           Scheduler observeOnScheduler) {
+        commandObserveOnSchedulers.put(
+                Objects.requireNonNull(commandClass, "Command class can not be null"),
+                Objects.requireNonNull(observeOnScheduler, "Scheduler can not be null"));
+    }
+
     @Override
     public void setCommandSubscribeScheduler(Scheduler subscribeOnScheduler) {
         this.subscribeOnScheduler = Objects.requireNonNull(subscribeOnScheduler,
                 "Scheduler can not be null");
     }
 
+    @Override
+    public void setCommandSubscribeScheduler(Class<? extends Command> commandClass,
+                                             Scheduler subscribeOnScheduler) {
+        commandSubscribeOnSchedulers.put(
+                Objects.requireNonNull(commandClass, "Command class can not be null"),
+                Objects.requireNonNull(subscribeOnScheduler, "Scheduler can not be null"));
+    }
+
     //----------------------------------------------------------------------------------------------
     // PROTECTED METHODS
     //----------------------------------------------------------------------------------------------
@@ -141,11 +213,13 @@ public class DefaultRxCommandBus<S extends State>
      */
     protected void executeRxCommandHandler(S state, Command command,
                                            CommandHandler<S, Command, Event> handler) {
-        // get re-usable Rx actions for this operation
-        DefaultRxCommandBusActions actions = DefaultRxCommandBusActions.of(this, command, handler);
+        boolean isMultiCommandHandler = handler instanceof MultiCommandHandler;
 
-        // on error action
-        Action1<Throwable> onError = actions.getOnError();
+        if (!tryAcquireInFlightCommand()) {
+            handleRxResult(new TooManyInFlightCommandsException(command, maxInFlightCommands),
+                    command, isMultiCommandHandler, null);
+            return;
+        }
 
         // the Rx observable / single that was returned by the command handler.
         Object rx;
@@ -162,43 +236,148 @@ public class DefaultRxCommandBus<S extends State>
                 rx = ((RxSingleMultiCommandHandler<S, Command, Event>) handler).handle(state, command);
             }
         } catch (Throwable error) {
-            onError.call(error);
+            inFlightCommands.decrementAndGet();
+            handleRxResult(error, command, isMultiCommandHandler, null);
+            return;
+        }
+
+        subscribeRxResult(command, isMultiCommandHandler, rx);
+    }
+
+    /**
+     * Execute a command handler of a dispatcher. Rx result types are subscribed to, other result
+     * types are handled by the super implementation.
+     *
+     * @param dispatcher The dispatcher to execute the command handler of.
+     * @param index      The index of the command handler.
+     * @param command    The command object.
+     */
+    @Override
+    protected void executeDispatcher(HandlerDispatcher<S> dispatcher, int index, Command command) {
+        int resultType = dispatcher.getCommandResultType(index);
+
+        if (resultType < HandlerDispatcher.RESULT_EVENT_OBSERVABLE) {
+            super.executeDispatcher(dispatcher, index, command);
             return;
         }
 
+        boolean isMulti = isMultiResultType(resultType);
+
+        if (!tryAcquireInFlightCommand()) {
+            handleRxResult(new TooManyInFlightCommandsException(command, maxInFlightCommands),
+                    command, isMulti, null);
+            return;
+        }
+
+        // the Rx observable / single that was returned by the command handler.
+        Object rx;
+
+        try {
+            rx = dispatcher.dispatchCommand(index, stateObserver.getCurrentState(), command);
+        } catch (Throwable error) {
+            inFlightCommands.decrementAndGet();
+            handleRxResult(error, command, isMulti, null);
+            return;
+        }
+
+        subscribeRxResult(command, isMulti, rx);
+    }
+
+    @Override
+    protected boolean isCommandResultTypeSupported(int resultType) {
+        return resultType >= HandlerDispatcher.RESULT_VOID &&
+                resultType <= HandlerDispatcher.RESULT_EVENT_COLLECTION_SINGLE;
+    }
+
+    /**
+     * Subscribe to the Rx observable / single that was returned by a command handler. Expects an
+     * in-flight command to be acquired already: it is released when the subscription terminates.
+     *
+     * @param command               The command that was handled.
+     * @param isMultiCommandHandler Whether the handler produces a collection of events.
+     * @param rx                    (Optional) The Rx observable / single.
+     */
+    protected void subscribeRxResult(Command command, boolean isMultiCommandHandler, Object rx) {
         // `null` result is valid: command handlers are not required to return an event
         if (rx == null) {
-            actions.getOnNull().call();
+            inFlightCommands.decrementAndGet();
+            handleRxResult(null, command, isMultiCommandHandler, null);
             return;
         }
 
+        Scheduler subscribeOn = getSubscribeOnScheduler(command);
+        Scheduler observeOn = getObserveOnScheduler(command);
+
+        // add before subscribing, so a subscription that terminates immediately can remove itself
+        InFlightCommandSubscriber subscriber =
+                new InFlightCommandSubscriber(command, isMultiCommandHandler);
+        subscriptions.add(subscriber);
+
         if (rx instanceof Single) {
             Single<?> single = (Single<?>) rx;
 
-            // apply schedulers if set
-            if (subscribeOnScheduler != null) {
-                single.subscribeOn(subscribeOnScheduler);
+            // apply schedulers if set: the operators return a new Single
+            if (subscribeOn != null) {
+                single = single.subscribeOn(subscribeOn);
             }
-            if (observeOnScheduler != null) {
-                single.observeOn(observeOnScheduler);
+            if (observeOn != null) {
+                single = single.observeOn(observeOn);
             }
 
             // perform the operation
-            subscriptions.add(single.subscribe(actions.getOnSuccess(), onError));
+            single.subscribe(subscriber);
         } else {
             Observable<?> observable = (Observable<?>) rx;
 
-            // apply schedulers if set
-            if (subscribeOnScheduler != null) {
-                observable.subscribeOn(subscribeOnScheduler);
+            // apply schedulers if set: the operators return a new Observable
+            if (subscribeOn != null) {
+                observable = observable.subscribeOn(subscribeOn);
             }
-            if (observeOnScheduler != null) {
-                observable.observeOn(observeOnScheduler);
+            if (observeOn != null) {
+                observable = observable.observeOn(observeOn);
             }
 
             // perform the operation
-            subscriptions.add(observable.subscribe(actions.getOnSuccess(), onError));
+            observable.subscribe(subscriber);
+        }
+    }
+
+    /**
+     * Returns the scheduler to observe on for this command: the scheduler for its concrete type if
+     * set, otherwise the default scheduler.
+     *
+     * @param command The command that is handled.
+     * @return The scheduler to observe on, or `null` if not set.
+     */
+    protected Scheduler getObserveOnScheduler(Command command) {
+        if (!commandObserveOnSchedulers.isEmpty()) {
+            Scheduler scheduler = commandObserveOnSchedulers.get(command.getClass());
+
+            if (scheduler != null) {
+                return scheduler;
+            }
         }
+
+        return observeOnScheduler;
+    }
+
+    /**
+     * Returns the scheduler to subscribe on for this command: the scheduler for its concrete type
+     * if set, otherwise the default scheduler.
+     *
+     * @param command The command that is handled.
+     * @return The scheduler to subscribe on, or `null` if not set.
+     */
+    protected Scheduler getSubscribeOnScheduler(Command command) {
+        if (!commandSubscribeOnSchedulers.isEmpty()) {
+            Scheduler scheduler = commandSubscribeOnSchedulers.get(command.getClass());
+
+            if (scheduler != null) {
+                return scheduler;
+            }
+        }
+
+        return subscribeOnScheduler;
     }
 
     /**
@@ -217,4 +396,86 @@ public class DefaultRxCommandBus<S extends State>
         return false;
     }
 
+    /**
+     * Handle the result of an Rx command handler.
+     *
+     * @param error                 (Optional) An error that occurred.
+     * @param command               The command that was handled.
+     * @param isMultiCommandHandler Whether the handler is a {@link MultiCommandHandler}.
+     * @param result                (Optional) The event or collection of events that was produced.
+     */
+    protected void handleRxResult(Throwable error, Command command, boolean isMultiCommandHandler,
+                                  Object result) {
+        if (isMultiCommandHandler) {
+            // noinspection unchecked
+            handleMultiResult(error, command, (Collection<Event>) result);
+        } else {
+            handleResult(error, command, (Event) result);
+        }
+    }
+
+    /**
+     * Attempts to register a new in-flight Rx command.
+     *
+     * @return Whether the command can be executed: `false` if the limit has been reached.
+     */
+    protected boolean tryAcquireInFlightCommand() {
+        for (; ; ) {
+            int current = inFlightCommands.get();
+
+            if (current >= maxInFlightCommands) {
+                return false;
+            }
+
+            if (inFlightCommands.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: IN-FLIGHT COMMAND SUBSCRIBER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Subscriber for the Rx result of a command handler. Created for every Rx command, so results
+     * are always reported for the correct command, also when handlers complete concurrently. When
+     * it is unsubscribed - because the Rx result terminated or the bus was disposed - it releases
+     * its in-flight slot and removes itself from the managed subscriptions.
+     */
+    protected class InFlightCommandSubscriber extends Subscriber<Object> implements Action0 {
+
+        private final Command command;
+        private final boolean isMultiCommandHandler;
+
+        protected InFlightCommandSubscriber(Command command, boolean isMultiCommandHandler) {
+            this.command = command;
+            this.isMultiCommandHandler = isMultiCommandHandler;
+
+            add(Subscriptions.create(this));
+        }
+
+        @Override
+        public void call() {
+            inFlightCommands.decrementAndGet();
+            subscriptions.remove(this);
+        }
+
+        @Override
+        public void onCompleted() {
+            // no-op: the result is handled in `onNext`
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            handleRxResult(error, command, isMultiCommandHandler, null);
+        }
+
+        @Override
+        public void onNext(Object result) {
+            handleRxResult(null, command, isMultiCommandHandler, result);
+        }
+
+    }
+
 }
@@ -1,10 +1,13 @@
 package com.cookingfox.lapasse.impl.facade;
 
+import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.bus.CommandBus;
 import com.cookingfox.lapasse.api.command.bus.RxCommandBus;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommandStore;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.facade.RxFacade;
 import com.cookingfox.lapasse.api.logging.LoggersHelper;
+import com.cookingfox.lapasse.api.message.Message;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.manager.RxStateManager;
@@ -12,10 +15,13 @@ import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.api.state.observer.RxStateObserver;
 import com.cookingfox.lapasse.api.state.observer.StateChanged;
 import com.cookingfox.lapasse.impl.command.bus.DefaultRxCommandBus;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
 import com.cookingfox.lapasse.impl.state.manager.DefaultRxStateManager;
 import rx.Observable;
 import rx.Scheduler;
 
+import java.util.Set;
+
 /**
  * Implementation of {@link RxFacade}, containing a Builder class.
  *
@@ -32,27 +38,71 @@ public class LaPasseRxFacade<S extends State> extends LaPasseFacade<S> implement
                            LoggersHelper<S> loggers,
                            MessageStore messageStore,
                            RxStateManager<S> stateManager) {
-        super(commandBus, eventBus, loggers, messageStore, stateManager);
+        this(commandBus, eventBus, loggers, messageStore, stateManager, null);
+    }
+
+    /**
+     * @param commandBus            Handles the commands.
+     * @param eventBus              Handles the events.
+     * @param loggers               Notifies the command and event loggers.
+     * @param messageStore          Stores the handled messages.
+     * @param stateManager          Manages the state.
+     * @param scheduledCommandStore (Optional) Persists the commands of the command scheduler.
+     */
+    public LaPasseRxFacade(RxCommandBus<S> commandBus,
+                           EventBus<S> eventBus,
+                           LoggersHelper<S> loggers,
+                           MessageStore messageStore,
+                           RxStateManager<S> stateManager,
+                           ScheduledCommandStore scheduledCommandStore) {
+        super(commandBus, eventBus, loggers, messageStore, stateManager, scheduledCommandStore);
     }
 
     //----------------------------------------------------------------------------------------------
     // RX COMMAND BUS
     //----------------------------------------------------------------------------------------------
 
+    @Override
+    public int getInFlightCommandCount() {
+        return getRxCommandBus().getInFlightCommandCount();
+    }
+
+    @Override
+    public void setMaxInFlightCommands(int maxInFlightCommands) {
+        getRxCommandBus().setMaxInFlightCommands(maxInFlightCommands);
+    }
+
     @Override
     public void setCommandObserveScheduler(Scheduler observeOnScheduler) {
         getRxCommandBus().setCommandObserveScheduler(observeOnScheduler);
     }
 
+    @Override
+    public void setCommandObserveScheduler(Class<? extends Command> commandClass,
+                                           Scheduler observeOnScheduler) {
+        getRxCommandBus().setCommandObserveScheduler(commandClass, observeOnScheduler);
+    }
+
     @Override
     public void setCommandSubscribeScheduler(Scheduler subscribeOnScheduler) {
         getRxCommandBus().setCommandSubscribeScheduler(subscribeOnScheduler);
     }
 
+    @Override
+    public void setCommandSubscribeScheduler(Class<? extends Command> commandClass,
+                                             Scheduler subscribeOnScheduler) {
+        getRxCommandBus().setCommandSubscribeScheduler(commandClass, subscribeOnScheduler);
+    }
+
     //----------------------------------------------------------------------------------------------
     // RX STATE OBSERVER
     //----------------------------------------------------------------------------------------------
 
+    @Override
+    public Observable<S> observeLatestState() {
+        return getRxStateObserver().observeLatestState();
+    }
+
     @Override
     public Observable<StateChanged<S>> observeStateChanges() {
         return getRxStateObserver().observeStateChanges();
@@ -62,6 +112,14 @@ public class LaPasseRxFacade<S extends State> extends LaPasseFacade<S> implement
     // PROTECTED METHODS
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Creates an isolated Rx facade copy, so warming up also covers the Rx command bus.
+     */
+    @Override
+    protected LaPasseFacade<S> createWarmUpCopy(S initialState) {
+        return new Builder<>(initialState).build();
+    }
+
     /**
      * @return The command bus as Rx command bus.
      */
@@ -95,10 +153,17 @@ public class LaPasseRxFacade<S extends State> extends LaPasseFacade<S> implement
         // PUBLIC METHODS
         //------------------------------------------------------------------------------------------
 
+        @Override
+        public LaPasseRxFacade.Builder<S> addRoutingGraph(RoutingGraph routingGraph) {
+            return (LaPasseRxFacade.Builder<S>) super.addRoutingGraph(routingGraph);
+        }
+
         @Override
         public LaPasseRxFacade<S> build() {
+            preloadRoutingGraphs();
+
             return new LaPasseRxFacade<>(getCommandBus(), getEventBus(), getLoggersHelper(),
-                    getMessageStore(), getStateManager());
+                    getMessageStore(), getStateManager(), scheduledCommandStore);
         }
 
         //------------------------------------------------------------------------------------------
@@ -108,8 +173,12 @@ public class LaPasseRxFacade<S extends State> extends LaPasseFacade<S> implement
         @Override
         public RxCommandBus<S> getCommandBus() {
             if (commandBus == null) {
-                commandBus = new DefaultRxCommandBus<>(getMessageStore(), getEventBus(),
-                        getLoggersHelper(), getStateManager());
+                Set<Class<? extends Message>> commandClasses = getRoutedCommandClasses();
+                DefaultRxCommandBus<S> rxCommandBus = new DefaultRxCommandBus<>(getMessageStore(),
+                        getEventBus(), getLoggersHelper(), getStateManager(), commandClasses.size());
+
+                rxCommandBus.setPreloadedMessageClasses(commandClasses);
+                commandBus = rxCommandBus;
             }
 
             return (RxCommandBus<S>) super.getCommandBus();
@@ -152,6 +221,11 @@ public class LaPasseRxFacade<S extends State> extends LaPasseFacade<S> implement
             return (LaPasseRxFacade.Builder<S>) super.setMessageStore(messageStore);
         }
 
+        @Override
+        public LaPasseRxFacade.Builder<S> setScheduledCommandStore(ScheduledCommandStore scheduledCommandStore) {
+            return (LaPasseRxFacade.Builder<S>) super.setScheduledCommandStore(scheduledCommandStore);
+        }
+
         @Override
         public LaPasseRxFacade.Builder<S> setStateManager(StateManager<S> stateManager) {
             if (!(stateManager instanceof RxStateManager)) {
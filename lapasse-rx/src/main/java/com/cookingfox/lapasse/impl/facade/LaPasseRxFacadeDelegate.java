@@ -1,5 +1,6 @@
 package com.cookingfox.lapasse.impl.facade;
 
+import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.facade.RxFacade;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.observer.StateChanged;
@@ -32,19 +33,46 @@ public class LaPasseRxFacadeDelegate<S extends State>
     // PUBLIC METHODS
     //----------------------------------------------------------------------------------------------
 
+    @Override
+    public Observable<S> observeLatestState() {
+        return rxFacade.observeLatestState();
+    }
+
     @Override
     public Observable<StateChanged<S>> observeStateChanges() {
         return rxFacade.observeStateChanges();
     }
 
+    @Override
+    public int getInFlightCommandCount() {
+        return rxFacade.getInFlightCommandCount();
+    }
+
+    @Override
+    public void setMaxInFlightCommands(int maxInFlightCommands) {
+        rxFacade.setMaxInFlightCommands(maxInFlightCommands);
+    }
+
     @Override
     public void setCommandObserveScheduler(Scheduler observeOnScheduler) {
         rxFacade.setCommandObserveScheduler(observeOnScheduler);
     }
 
+    @Override
+    public void setCommandObserveScheduler(Class<? extends Command> commandClass,
+                                           Scheduler observeOnScheduler) {
+        rxFacade.setCommandObserveScheduler(commandClass, observeOnScheduler);
+    }
+
     @Override
     public void setCommandSubscribeScheduler(Scheduler subscribeOnScheduler) {
         rxFacade.setCommandSubscribeScheduler(subscribeOnScheduler);
     }
 
+    @Override
+    public void setCommandSubscribeScheduler(Class<? extends Command> commandClass,
+                                             Scheduler subscribeOnScheduler) {
+        rxFacade.setCommandSubscribeScheduler(commandClass, subscribeOnScheduler);
+    }
+
 }
@@ -143,6 +143,93 @@ public final class RxLoggerHelper {
         });
     }
 
+    /**
+     * Creates a shared observable for command handler errors: one logger is added for all
+     * subscribers, while at least one subscriber is subscribed.
+     *
+     * @param loggerAware The subject for which to observe command handler errors.
+     * @return A shared observable for command handler errors.
+     * @see Observable#share()
+     */
+    public static Observable<CommandHandlerError> shareCommandHandlerErrors(
+            CommandLoggerAware loggerAware) {
+        return observeCommandHandlerErrors(loggerAware).share();
+    }
+
+    /**
+     * Creates a shared observable for command handler results: one logger is added for all
+     * subscribers, while at least one subscriber is subscribed. One value object is created per
+     * result, regardless of the number of subscribers.
+     *
+     * @param loggerAware The subject for which to observe command handler results.
+     * @return A shared observable for command handler results.
+     * @see Observable#share()
+     */
+    public static Observable<CommandHandlerResult> shareCommandHandlerResults(
+            CommandLoggerAware loggerAware) {
+        return observeCommandHandlerResults(loggerAware).share();
+    }
+
+    /**
+     * Creates a shared observable for command handler results that re-uses one value object for
+     * all results. The value object is only valid while `onNext` executes: subscribers must
+     * process it synchronously and must not store it or observe it on another scheduler. In
+     * exchange, no object is created per result.
+     *
+     * @param loggerAware The subject for which to observe command handler results.
+     * @return A shared observable for command handler results, using a re-used value object.
+     * @see #shareCommandHandlerResults(CommandLoggerAware)
+     */
+    public static Observable<CommandHandlerResult> shareCommandHandlerResultsFlyweight(
+            CommandLoggerAware loggerAware) {
+        return logCommand(requireNonNull(loggerAware), new FlyweightCommandResultLogger()).share();
+    }
+
+    /**
+     * Creates a shared observable for event handler errors: one logger is added for all
+     * subscribers, while at least one subscriber is subscribed.
+     *
+     * @param loggerAware The subject for which to observe event handler errors.
+     * @param <S>         The concrete type of the state object.
+     * @return A shared observable for event handler errors.
+     * @see Observable#share()
+     */
+    public static <S extends State> Observable<EventHandlerError> shareEventHandlerErrors(
+            EventLoggerAware<S> loggerAware) {
+        return observeEventHandlerErrors(loggerAware).share();
+    }
+
+    /**
+     * Creates a shared observable for event handler results: one logger is added for all
+     * subscribers, while at least one subscriber is subscribed. One value object is created per
+     * result, regardless of the number of subscribers.
+     *
+     * @param loggerAware The subject for which to observe event handler results.
+     * @param <S>         The concrete type of the state object.
+     * @return A shared observable for event handler results.
+     * @see Observable#share()
+     */
+    public static <S extends State> Observable<EventHandlerResult> shareEventHandlerResults(
+            EventLoggerAware<S> loggerAware) {
+        return observeEventHandlerResults(loggerAware).share();
+    }
+
+    /**
+     * Creates a shared observable for event handler results that re-uses one value object for all
+     * results. The value object is only valid while `onNext` executes: subscribers must process it
+     * synchronously and must not store it or observe it on another scheduler. In exchange, no
+     * object is created per result.
+     *
+     * @param loggerAware The subject for which to observe event handler results.
+     * @param <S>         The concrete type of the state object.
+     * @return A shared observable for event handler results, using a re-used value object.
+     * @see #shareEventHandlerResults(EventLoggerAware)
+     */
+    public static <S extends State> Observable<EventHandlerResult> shareEventHandlerResultsFlyweight(
+            EventLoggerAware<S> loggerAware) {
+        return logEvent(requireNonNull(loggerAware), new FlyweightEventResultLogger<S>()).share();
+    }
+
     //----------------------------------------------------------------------------------------------
     // PRIVATE METHODS
     //----------------------------------------------------------------------------------------------
@@ -247,6 +334,42 @@ public final class RxLoggerHelper {
 
     }
 
+    /**
+     * Command logger that emits itself as the command handler result value object. Emission is
+     * synchronized, so the value can not change while subscribers process it.
+     */
+    static class FlyweightCommandResultLogger extends RxCommandLogger<CommandHandlerResult>
+            implements CommandHandlerResult {
+
+        private Command command;
+        private Collection<Event> events;
+
+        @Override
+        public synchronized void onCommandHandlerResult(Command command, Collection<Event> events) {
+            this.command = command;
+            this.events = events;
+
+            try {
+                subscriber.onNext(this);
+            } finally {
+                // do not retain references
+                this.command = null;
+                this.events = null;
+            }
+        }
+
+        @Override
+        public Command getCommand() {
+            return command;
+        }
+
+        @Override
+        public Collection<Event> getEvents() {
+            return events;
+        }
+
+    }
+
     /**
      * No-operation implementation of {@link EventLogger} that is {@link SubscriberAware}.
      *
@@ -268,4 +391,42 @@ public final class RxLoggerHelper {
 
     }
 
+    /**
+     * Event logger that emits itself as the event handler result value object. Emission is
+     * synchronized, so the value can not change while subscribers process it.
+     *
+     * @param <S> The concrete type of the state object.
+     */
+    static class FlyweightEventResultLogger<S extends State>
+            extends RxEventLogger<S, EventHandlerResult> implements EventHandlerResult<S> {
+
+        private Event event;
+        private S newState;
+
+        @Override
+        public synchronized void onEventHandlerResult(Event event, S newState) {
+            this.event = event;
+            this.newState = newState;
+
+            try {
+                subscriber.onNext(this);
+            } finally {
+                // do not retain references
+                this.event = null;
+                this.newState = null;
+            }
+        }
+
+        @Override
+        public Event getEvent() {
+            return event;
+        }
+
+        @Override
+        public S getNewState() {
+            return newState;
+        }
+
+    }
+
 }
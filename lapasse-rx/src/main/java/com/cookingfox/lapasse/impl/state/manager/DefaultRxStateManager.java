@@ -7,11 +7,18 @@ import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
 import com.cookingfox.lapasse.api.state.observer.StateChanged;
 import com.cookingfox.lapasse.impl.state.observer.StateChangedVo;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 import rx.Observable;
+import rx.Producer;
 import rx.Subscriber;
 import rx.functions.Action0;
 import rx.subscriptions.Subscriptions;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Default implementation of {@link StateManager}.
  *
@@ -21,6 +28,28 @@ public class DefaultRxStateManager<S extends State>
         extends DefaultStateManager<S>
         implements RxStateManager<S> {
 
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Producers of the subscribers of {@link #observeLatestState()}.
+     */
+    protected final SnapshotSet<LatestStateProducer> latestStateProducers = CollectionUtils.newSnapshotSet();
+
+    /**
+     * Single state changed listener that is shared by all {@link #latestStateProducers}.
+     */
+    protected final OnStateChanged<S> latestStateListener = new OnStateChanged<S>() {
+        @Override
+        public void onStateChanged(S state, Event event) {
+            for (Object producer : latestStateProducers.snapshot()) {
+                // noinspection unchecked
+                ((LatestStateProducer) producer).offer(state);
+            }
+        }
+    };
+
     //----------------------------------------------------------------------------------------------
     // CONSTRUCTOR
     //----------------------------------------------------------------------------------------------
@@ -33,6 +62,31 @@ public class DefaultRxStateManager<S extends State>
     // PUBLIC METHODS
     //----------------------------------------------------------------------------------------------
 
+    @Override
+    public Observable<S> observeLatestState() {
+        return Observable.create(new Observable.OnSubscribe<S>() {
+            @Override
+            public void call(Subscriber<? super S> subscriber) {
+                final LatestStateProducer producer = new LatestStateProducer(subscriber);
+
+                // register before reading the current state, so no state change can be missed
+                addLatestStateProducer(producer);
+
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        removeLatestStateProducer(producer);
+                    }
+                }));
+
+                // replay current state, unless a newer state was offered in the meantime
+                producer.offerIfEmpty(getCurrentState());
+
+                subscriber.setProducer(producer);
+            }
+        });
+    }
+
     @Override
     public Observable<StateChanged<S>> observeStateChanges() {
         return Observable.create(new Observable.OnSubscribe<StateChanged<S>>() {
@@ -67,4 +121,165 @@ public class DefaultRxStateManager<S extends State>
         });
     }
 
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Adds a producer and registers the shared state changed listener if necessary.
+     *
+     * @param producer The producer to add.
+     */
+    protected synchronized void addLatestStateProducer(LatestStateProducer producer) {
+        latestStateProducers.add(producer);
+
+        // (re-)register: the listener is removed by `dispose`
+        if (!stateChangedListeners.contains(latestStateListener)) {
+            addStateChangedListener(latestStateListener);
+        }
+    }
+
+    /**
+     * Removes a producer and removes the shared state changed listener when no producers remain.
+     *
+     * @param producer The producer to remove.
+     */
+    protected synchronized void removeLatestStateProducer(LatestStateProducer producer) {
+        latestStateProducers.remove(producer);
+
+        if (latestStateProducers.isEmpty()) {
+            removeStateChangedListener(latestStateListener);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: LATEST STATE PRODUCER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Emits state objects to one subscriber, honouring its requests. States that are offered while
+     * the subscriber has no outstanding requests replace each other, so only the latest state is
+     * kept: a slow subscriber holds at most one pending state.
+     */
+    protected class LatestStateProducer implements Producer {
+
+        /**
+         * The subscriber to emit to.
+         */
+        private final Subscriber<? super S> subscriber;
+
+        /**
+         * The latest state that has not been emitted yet.
+         */
+        private final AtomicReference<S> pending = new AtomicReference<>();
+
+        /**
+         * The number of outstanding requests.
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * Work-in-progress counter: makes sure only one thread emits at a time.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /**
+         * The last emitted state, to prevent emitting the same state twice. Only accessed while
+         * draining.
+         */
+        private S lastEmitted;
+
+        protected LatestStateProducer(Subscriber<? super S> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Offers a new state, replacing a pending state that has not been emitted yet.
+         *
+         * @param state The new state.
+         */
+        protected void offer(S state) {
+            pending.set(state);
+            drain();
+        }
+
+        /**
+         * Offers a state only if no other state is pending.
+         *
+         * @param state The state.
+         */
+        protected void offerIfEmpty(S state) {
+            if (pending.compareAndSet(null, state)) {
+                drain();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("Request amount can not be negative: " + n);
+            }
+
+            if (n == 0) {
+                return;
+            }
+
+            // add with cap at Long.MAX_VALUE (unbounded)
+            for (; ; ) {
+                long current = requested.get();
+                long next = current + n;
+
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+
+                if (requested.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+
+            drain();
+        }
+
+        /**
+         * Emits the pending state if the subscriber has outstanding requests.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (; ; ) {
+                if (subscriber.isUnsubscribed()) {
+                    return;
+                }
+
+                long currentRequested = requested.get();
+
+                if (currentRequested != 0) {
+                    S state = pending.getAndSet(null);
+
+                    if (state != null && state != lastEmitted) {
+                        lastEmitted = state;
+
+                        if (currentRequested != Long.MAX_VALUE) {
+                            requested.decrementAndGet();
+                        }
+
+                        subscriber.onNext(state);
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+    }
+
 }
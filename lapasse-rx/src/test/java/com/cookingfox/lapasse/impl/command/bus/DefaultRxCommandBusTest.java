@@ -1,11 +1,13 @@
 package com.cookingfox.lapasse.impl.command.bus;
 
 import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.exception.TooManyInFlightCommandsException;
 import com.cookingfox.lapasse.api.command.handler.*;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
 import com.cookingfox.lapasse.api.logging.LoggersHelper;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.manager.RxStateManager;
 import com.cookingfox.lapasse.api.state.observer.StateChanged;
@@ -17,15 +19,17 @@ import com.cookingfox.lapasse.impl.state.manager.DefaultRxStateManager;
 import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
+import fixtures.message.dispatcher.FixtureHandlerDispatcher;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import rx.Observable;
 import rx.Single;
 import rx.observers.TestSubscriber;
 import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -57,6 +61,12 @@ public class DefaultRxCommandBusTest {
         commandBus = new DefaultRxCommandBus<>(messageStore, eventBus, loggers, stateManager);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        // cancel pending (delayed) command handler subscriptions
+        commandBus.dispose();
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: dispose
     //----------------------------------------------------------------------------------------------
@@ -308,13 +318,15 @@ public class DefaultRxCommandBusTest {
     public void executeHandler_should_add_subscription_observable() throws Exception {
         assertFalse(commandBus.subscriptions.hasSubscriptions());
 
+        final TestScheduler scheduler = new TestScheduler();
+
         commandBus.mapCommandHandler(IncrementCount.class,
                 new RxCommandHandler<CountState, IncrementCount, CountIncremented>() {
                     @Override
                     public Observable<CountIncremented> handle(CountState state, IncrementCount command) {
                         return Observable.just(new CountIncremented(command.getCount()))
                                 // add delay so the subscription remains
-                                .delay(1, TimeUnit.MILLISECONDS);
+                                .delay(1, TimeUnit.MILLISECONDS, scheduler);
                     }
                 });
 
@@ -328,12 +340,18 @@ public class DefaultRxCommandBusTest {
         commandBus.handleCommand(new IncrementCount(1));
 
         assertTrue(commandBus.subscriptions.hasSubscriptions());
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        assertFalse(commandBus.subscriptions.hasSubscriptions());
     }
 
     @Test
     public void executeHandler_should_add_subscription_multi() throws Exception {
         assertFalse(commandBus.subscriptions.hasSubscriptions());
 
+        final TestScheduler scheduler = new TestScheduler();
+
         commandBus.mapCommandHandler(IncrementCount.class,
                 new RxMultiCommandHandler<CountState, IncrementCount, CountIncremented>() {
                     @Override
@@ -341,7 +359,7 @@ public class DefaultRxCommandBusTest {
                         // noinspection unchecked
                         return (Observable) Observable.just(Collections.singleton(new CountIncremented(1)))
                                 // add delay so the subscription remains
-                                .delay(1, TimeUnit.MILLISECONDS);
+                                .delay(1, TimeUnit.MILLISECONDS, scheduler);
                     }
                 });
 
@@ -355,6 +373,10 @@ public class DefaultRxCommandBusTest {
         commandBus.handleCommand(new IncrementCount(1));
 
         assertTrue(commandBus.subscriptions.hasSubscriptions());
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        assertFalse(commandBus.subscriptions.hasSubscriptions());
     }
 
     @Test
@@ -424,10 +446,396 @@ public class DefaultRxCommandBusTest {
         subscriber.assertValueCount(1);
     }
 
+    @Test
+    public void executeHandler_should_apply_subscribe_scheduler() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        TestScheduler scheduler = new TestScheduler();
+        commandBus.setCommandSubscribeScheduler(scheduler);
+
+        TestSubscriber<StateChanged<CountState>> subscriber = TestSubscriber.create();
+        stateManager.observeStateChanges().subscribe(subscriber);
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        subscriber.assertValueCount(0);
+
+        scheduler.triggerActions();
+
+        subscriber.assertValueCount(1);
+    }
+
+    @Test
+    public void executeHandler_should_apply_observe_scheduler_to_single() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        commandBus.mapCommandHandler(IncrementCount.class, new RxSingleCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public Single<CountIncremented> handle(CountState state, IncrementCount command) {
+                return Single.just(new CountIncremented(command.getCount()));
+            }
+        });
+
+        TestScheduler scheduler = new TestScheduler();
+        commandBus.setCommandObserveScheduler(scheduler);
+
+        TestSubscriber<StateChanged<CountState>> subscriber = TestSubscriber.create();
+        stateManager.observeStateChanges().subscribe(subscriber);
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        subscriber.assertValueCount(0);
+
+        scheduler.triggerActions();
+
+        subscriber.assertValueCount(1);
+    }
+
+    @Test
+    public void executeHandler_should_prefer_command_class_schedulers() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        TestScheduler defaultScheduler = new TestScheduler();
+        TestScheduler commandScheduler = new TestScheduler();
+        commandBus.setCommandSubscribeScheduler(defaultScheduler);
+        commandBus.setCommandObserveScheduler(defaultScheduler);
+        commandBus.setCommandSubscribeScheduler(IncrementCount.class, commandScheduler);
+        commandBus.setCommandObserveScheduler(IncrementCount.class, commandScheduler);
+
+        TestSubscriber<StateChanged<CountState>> subscriber = TestSubscriber.create();
+        stateManager.observeStateChanges().subscribe(subscriber);
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        defaultScheduler.triggerActions();
+
+        subscriber.assertValueCount(0);
+
+        commandScheduler.triggerActions();
+
+        subscriber.assertValueCount(1);
+    }
+
+    @Test
+    public void executeHandler_should_not_keep_completed_subscriptions() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        commandBus.setCommandSubscribeScheduler(Schedulers.from(executor));
+
+        TestSubscriber<StateChanged<CountState>> subscriber = TestSubscriber.create();
+        stateManager.observeStateChanges().subscribe(subscriber);
+
+        for (int i = 0; i < 100; i++) {
+            commandBus.handleCommand(new IncrementCount(1));
+        }
+
+        subscriber.awaitValueCount(100, 1, TimeUnit.SECONDS);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+
+        assertFalse(commandBus.subscriptions.hasSubscriptions());
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void executeHandler_should_not_keep_completed_single_subscriptions() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        final TestScheduler scheduler = new TestScheduler();
+
+        commandBus.mapCommandHandler(IncrementCount.class, new RxSingleCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public Single<CountIncremented> handle(CountState state, IncrementCount command) {
+                return Single.just(new CountIncremented(command.getCount())).subscribeOn(scheduler);
+            }
+        });
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertTrue(commandBus.subscriptions.hasSubscriptions());
+
+        scheduler.triggerActions();
+
+        assertFalse(commandBus.subscriptions.hasSubscriptions());
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void executeHandler_should_report_async_results_for_own_command() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        final List<Command> handledCommands = new LinkedList<>();
+
+        loggers.addLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                handledCommands.add(command);
+            }
+        });
+
+        TestScheduler scheduler = new TestScheduler();
+        commandBus.setCommandSubscribeScheduler(scheduler);
+
+        IncrementCount first = new IncrementCount(1);
+        IncrementCount second = new IncrementCount(2);
+
+        commandBus.handleCommand(first);
+        commandBus.handleCommand(second);
+
+        scheduler.triggerActions();
+
+        assertEquals(Arrays.<Command>asList(first, second), handledCommands);
+        assertEquals(3, stateManager.getCurrentState().getCount());
+    }
+
+    @Test
+    public void executeHandler_should_report_results_to_own_bus() throws Exception {
+        MessageStore otherMessageStore = new NoStorageMessageStore();
+        RxStateManager<CountState> otherStateManager = new DefaultRxStateManager<>(new CountState(0));
+        EventBus<CountState> otherEventBus = new DefaultEventBus<>(otherMessageStore, loggers, otherStateManager);
+        DefaultRxCommandBus<CountState> otherCommandBus =
+                new DefaultRxCommandBus<>(otherMessageStore, otherEventBus, loggers, otherStateManager);
+
+        TestScheduler scheduler = new TestScheduler();
+
+        for (DefaultRxCommandBus<CountState> bus : Arrays.asList(commandBus, otherCommandBus)) {
+            bus.setCommandSubscribeScheduler(scheduler);
+            bus.mapCommandHandler(IncrementCount.class, new RxCommandHandler<CountState, IncrementCount, CountIncremented>() {
+                @Override
+                public Observable<CountIncremented> handle(CountState state, IncrementCount command) {
+                    return Observable.just(new CountIncremented(command.getCount()));
+                }
+            });
+        }
+
+        EventHandler<CountState, CountIncremented> eventHandler = new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                return new CountState(previousState.getCount() + event.getCount());
+            }
+        };
+        eventBus.mapEventHandler(CountIncremented.class, eventHandler);
+        otherEventBus.mapEventHandler(CountIncremented.class, eventHandler);
+
+        commandBus.handleCommand(new IncrementCount(1));
+        otherCommandBus.handleCommand(new IncrementCount(2));
+
+        scheduler.triggerActions();
+
+        assertEquals(1, stateManager.getCurrentState().getCount());
+        assertEquals(2, otherStateManager.getCurrentState().getCount());
+
+        otherCommandBus.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: executeDispatcher
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void executeDispatcher_should_subscribe_to_observable_result() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_OBSERVABLE, Observable.just(new CountIncremented(1))));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, stateManager.getCurrentState().getCount());
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void executeDispatcher_should_subscribe_to_single_multi_result() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        Collection<CountIncremented> events = Arrays.asList(new CountIncremented(1), new CountIncremented(2));
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_COLLECTION_SINGLE, Single.just(events)));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(3, stateManager.getCurrentState().getCount());
+    }
+
+    @Test
+    public void executeDispatcher_should_apply_schedulers_and_in_flight_limit() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        TestScheduler scheduler = new TestScheduler();
+        final AtomicReference<Throwable> calledError = new AtomicReference<>();
+
+        loggers.addLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerError(Throwable error, Command command) {
+                calledError.set(error);
+            }
+        });
+
+        commandBus.setCommandSubscribeScheduler(scheduler);
+        commandBus.setMaxInFlightCommands(1);
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_OBSERVABLE, Observable.just(new CountIncremented(1))));
+
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, commandBus.getInFlightCommandCount());
+        assertTrue(calledError.get() instanceof TooManyInFlightCommandsException);
+
+        scheduler.triggerActions();
+
+        assertEquals(0, commandBus.getInFlightCommandCount());
+        assertEquals(1, stateManager.getCurrentState().getCount());
+    }
+
+    @Test
+    public void executeDispatcher_should_support_non_rx_result() throws Exception {
+        mapCountIncrementedEventHandler();
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT, new CountIncremented(1)));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, stateManager.getCurrentState().getCount());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getInFlightCommandCount / setMaxInFlightCommands
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getInFlightCommandCount_should_count_pending_rx_commands() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        TestScheduler scheduler = new TestScheduler();
+        commandBus.setCommandSubscribeScheduler(scheduler);
+
+        assertEquals(0, commandBus.getInFlightCommandCount());
+
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(2, commandBus.getInFlightCommandCount());
+
+        scheduler.triggerActions();
+
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void getInFlightCommandCount_should_release_on_handler_error() throws Exception {
+        commandBus.mapCommandHandler(IncrementCount.class, new RxCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public Observable<CountIncremented> handle(CountState state, IncrementCount command) {
+                throw new RuntimeException("Example");
+            }
+        });
+
+        loggers.addLogger(new DefaultLogger<CountState>());
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void getInFlightCommandCount_should_release_on_dispose() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        commandBus.setCommandSubscribeScheduler(new TestScheduler());
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, commandBus.getInFlightCommandCount());
+
+        commandBus.dispose();
+
+        assertEquals(0, commandBus.getInFlightCommandCount());
+    }
+
+    @Test
+    public void setMaxInFlightCommands_should_reject_commands_over_limit() throws Exception {
+        mapCountIncrementedEventHandler();
+        mapRxIncrementCountHandler();
+
+        final AtomicReference<Throwable> rejection = new AtomicReference<>();
+
+        loggers.addLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerError(Throwable error, Command command) {
+                rejection.set(error);
+            }
+        });
+
+        TestScheduler scheduler = new TestScheduler();
+        commandBus.setCommandSubscribeScheduler(scheduler);
+        commandBus.setMaxInFlightCommands(1);
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertNull(rejection.get());
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertTrue(rejection.get() instanceof TooManyInFlightCommandsException);
+        assertEquals(1, commandBus.getInFlightCommandCount());
+
+        scheduler.triggerActions();
+        rejection.set(null);
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertNull(rejection.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxInFlightCommands_should_throw_if_less_than_one() throws Exception {
+        commandBus.setMaxInFlightCommands(0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: setCommandObserveScheduler / setCommandSubscribeScheduler
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void setCommandObserveScheduler_should_throw_if_command_class_null() throws Exception {
+        commandBus.setCommandObserveScheduler(null, Schedulers.immediate());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setCommandObserveScheduler_should_throw_if_command_scheduler_null() throws Exception {
+        commandBus.setCommandObserveScheduler(IncrementCount.class, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setCommandSubscribeScheduler_should_throw_if_command_class_null() throws Exception {
+        commandBus.setCommandSubscribeScheduler(null, Schedulers.immediate());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setCommandSubscribeScheduler_should_throw_if_command_scheduler_null() throws Exception {
+        commandBus.setCommandSubscribeScheduler(IncrementCount.class, null);
+    }
+
     //----------------------------------------------------------------------------------------------
     // HELPER METHODS
     //----------------------------------------------------------------------------------------------
 
+    private void mapRxIncrementCountHandler() {
+        commandBus.mapCommandHandler(IncrementCount.class, new RxCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public Observable<CountIncremented> handle(CountState state, IncrementCount command) {
+                return Observable.just(new CountIncremented(command.getCount()));
+            }
+        });
+    }
+
     private void mapCountIncrementedEventHandler() {
         eventBus.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
             @Override
@@ -40,8 +40,12 @@ public class LaPasseRxFacadeDelegateTest {
 
         delegate.addLogger(logger);
         delegate.removeLogger(logger);
+        delegate.setMaxInFlightCommands(10);
+        delegate.getInFlightCommandCount();
         delegate.setCommandObserveScheduler(Schedulers.immediate());
         delegate.setCommandSubscribeScheduler(Schedulers.immediate());
+        delegate.setCommandObserveScheduler(IncrementCount.class, Schedulers.immediate());
+        delegate.setCommandSubscribeScheduler(IncrementCount.class, Schedulers.immediate());
 
         /* COMMAND */
 
@@ -74,6 +78,7 @@ public class LaPasseRxFacadeDelegateTest {
         delegate.addStateChangedListener(onStateChanged);
         delegate.removeStateChangedListener(onStateChanged);
         delegate.observeStateChanges().subscribe();
+        delegate.observeLatestState().subscribe();
 
         /* DISPOSE */
 
@@ -2,30 +2,50 @@ package com.cookingfox.lapasse.impl.facade;
 
 import com.cookingfox.lapasse.api.command.bus.RxCommandBus;
 import com.cookingfox.lapasse.api.command.handler.RxCommandHandler;
+import com.cookingfox.lapasse.api.command.schedule.CommandScheduler;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
 import com.cookingfox.lapasse.api.state.manager.RxStateManager;
 import com.cookingfox.lapasse.api.state.observer.StateChanged;
 import com.cookingfox.lapasse.impl.command.bus.DefaultCommandBus;
 import com.cookingfox.lapasse.impl.command.bus.DefaultRxCommandBus;
+import com.cookingfox.lapasse.impl.command.schedule.FileScheduledCommandStore;
 import com.cookingfox.lapasse.impl.facade.LaPasseRxFacade.Builder;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
+import com.cookingfox.lapasse.impl.helper.exception.InvalidRoutingGraphException;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
 import com.cookingfox.lapasse.impl.state.manager.DefaultRxStateManager;
 import com.cookingfox.lapasse.impl.state.manager.DefaultStateManager;
 import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import rx.Observable;
 import rx.observers.TestSubscriber;
 import rx.schedulers.Schedulers;
 
+import java.io.File;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link LaPasseRxFacade}.
  */
 public class LaPasseRxFacadeTest {
 
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     //----------------------------------------------------------------------------------------------
     // TESTS: LaPasseRxFacade
     //----------------------------------------------------------------------------------------------
@@ -34,13 +54,21 @@ public class LaPasseRxFacadeTest {
     public void methods_should_not_throw() throws Exception {
         LaPasseRxFacade<CountState> facade = new Builder<>(new CountState(0)).build();
 
+        facade.setMaxInFlightCommands(10);
+        facade.getInFlightCommandCount();
         facade.setCommandObserveScheduler(Schedulers.immediate());
         facade.setCommandSubscribeScheduler(Schedulers.immediate());
+        facade.setCommandObserveScheduler(IncrementCount.class, Schedulers.immediate());
+        facade.setCommandSubscribeScheduler(IncrementCount.class, Schedulers.immediate());
 
         TestSubscriber<StateChanged<CountState>> subscriber = TestSubscriber.create();
 
         facade.observeStateChanges().subscribe(subscriber);
 
+        TestSubscriber<CountState> latestStateSubscriber = TestSubscriber.create();
+
+        facade.observeLatestState().subscribe(latestStateSubscriber);
+
         facade.mapCommandHandler(IncrementCount.class, new RxCommandHandler<CountState, IncrementCount, CountIncremented>() {
             @Override
             public Observable<CountIncremented> handle(CountState state, IncrementCount command) {
@@ -59,6 +87,17 @@ public class LaPasseRxFacadeTest {
 
         subscriber.assertNoErrors();
         subscriber.assertValueCount(1);
+        latestStateSubscriber.assertValueCount(2);
+    }
+
+    @Test
+    public void createWarmUpCopy_should_create_rx_facade() throws Exception {
+        LaPasseRxFacade<CountState> facade = new Builder<>(new CountState(0)).build();
+
+        LaPasseFacade<CountState> copy = facade.createWarmUpCopy(new CountState(1));
+
+        assertTrue(copy instanceof LaPasseRxFacade);
+        assertEquals(1, copy.getCurrentState().getCount());
     }
 
     //----------------------------------------------------------------------------------------------
@@ -112,12 +151,37 @@ public class LaPasseRxFacadeTest {
         Builder<CountState> fromSetEventBus = builder.setEventBus(builder.getEventBus());
         Builder<CountState> fromSetLoggersHelper = builder.setLoggersHelper(builder.getLoggersHelper());
         Builder<CountState> fromSetMessageStore = builder.setMessageStore(builder.getMessageStore());
+        Builder<CountState> fromAddRoutingGraph = builder.addRoutingGraph(RoutingGraph.read(
+                new StringReader("origin\ttest.Origin\nstate\ttest.State\n"), getClass().getClassLoader()));
 
+        assertSame(builder, fromAddRoutingGraph);
         assertSame(builder, fromSetEventBus);
         assertSame(builder, fromSetLoggersHelper);
         assertSame(builder, fromSetMessageStore);
     }
 
+    @Test
+    public void setScheduledCommandStore_should_restore_scheduled_commands() throws Exception {
+        File file = folder.newFile();
+        LaPasseRxFacade<CountState> facade = new Builder<>(new CountState(0))
+                .setScheduledCommandStore(new FileScheduledCommandStore(file, new SerializableMessageCodec()))
+                .build();
+
+        facade.getCommandScheduler().schedule(new IncrementCount(1), 1, TimeUnit.HOURS);
+        facade.dispose();
+
+        facade = new Builder<>(new CountState(0))
+                .setScheduledCommandStore(new FileScheduledCommandStore(file, new SerializableMessageCodec()))
+                .build();
+
+        CommandScheduler scheduler = facade.getCommandScheduler();
+        scheduler.start();
+
+        assertEquals(1, scheduler.getPendingCount());
+
+        facade.dispose();
+    }
+
     @Test
     public void getters_should_create_defaults_if_null() throws Exception {
         Builder<CountState> builder = new Builder<>(new CountState(0));
@@ -131,4 +195,13 @@ public class LaPasseRxFacadeTest {
         assertNotNull(stateManager);
     }
 
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void build_should_preload_routing_graphs() throws Exception {
+        RoutingGraph routingGraph = RoutingGraph.read(new StringReader("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.DoesNotExist\n"), getClass().getClassLoader());
+
+        new Builder<>(new CountState(0)).addRoutingGraph(routingGraph).build();
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.cookingfox.lapasse.impl.logging;
 
+import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
 import com.cookingfox.lapasse.api.command.handler.VoidCommandHandler;
 import com.cookingfox.lapasse.api.command.logging.CommandHandlerError;
@@ -12,9 +13,14 @@ import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
 import org.junit.Test;
+import rx.Observable;
 import rx.Subscription;
 import rx.functions.Action1;
+import rx.observers.TestSubscriber;
 
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.cookingfox.lapasse.impl.logging.RxLoggerHelper.*;
@@ -282,6 +288,178 @@ public class RxLoggerHelperTest {
         assertTrue(loggersHelper.eventLoggers.isEmpty());
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: shareCommandHandlerErrors / shareEventHandlerErrors
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void shareCommandHandlerErrors_should_add_one_logger() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+
+        Observable<CommandHandlerError> shared = shareCommandHandlerErrors(facade);
+        Subscription first = shared.subscribe();
+        Subscription second = shared.subscribe();
+
+        assertEquals(1, loggersHelper.commandLoggers.size());
+
+        first.unsubscribe();
+        second.unsubscribe();
+
+        assertTrue(loggersHelper.commandLoggers.isEmpty());
+    }
+
+    @Test
+    public void shareEventHandlerErrors_should_add_one_logger() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+
+        Observable<EventHandlerError> shared = shareEventHandlerErrors(facade);
+        Subscription first = shared.subscribe();
+        Subscription second = shared.subscribe();
+
+        assertEquals(1, loggersHelper.eventLoggers.size());
+
+        first.unsubscribe();
+        second.unsubscribe();
+
+        assertTrue(loggersHelper.eventLoggers.isEmpty());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: shareCommandHandlerResults
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void shareCommandHandlerResults_should_throw_if_null() throws Exception {
+        shareCommandHandlerResults(null);
+    }
+
+    @Test
+    public void shareCommandHandlerResults_should_multicast_with_one_logger() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+        mapIncrementCountHandlers(facade);
+
+        Observable<CommandHandlerResult> shared = shareCommandHandlerResults(facade);
+        TestSubscriber<CommandHandlerResult> first = TestSubscriber.create();
+        TestSubscriber<CommandHandlerResult> second = TestSubscriber.create();
+        shared.subscribe(first);
+        shared.subscribe(second);
+
+        assertEquals(1, loggersHelper.commandLoggers.size());
+
+        IncrementCount command = new IncrementCount(1);
+        facade.handleCommand(command);
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        assertSame(command, first.getOnNextEvents().get(0).getCommand());
+        assertSame(first.getOnNextEvents().get(0), second.getOnNextEvents().get(0));
+
+        first.unsubscribe();
+
+        assertEquals(1, loggersHelper.commandLoggers.size());
+
+        second.unsubscribe();
+
+        assertTrue(loggersHelper.commandLoggers.isEmpty());
+    }
+
+    @Test
+    public void shareCommandHandlerResultsFlyweight_should_reuse_value_object() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+        mapIncrementCountHandlers(facade);
+
+        final List<Command> commands = new LinkedList<>();
+        TestSubscriber<CommandHandlerResult> subscriber = TestSubscriber.create();
+
+        Observable<CommandHandlerResult> shared = shareCommandHandlerResultsFlyweight(facade);
+        shared.subscribe(subscriber);
+        shared.subscribe(new Action1<CommandHandlerResult>() {
+            @Override
+            public void call(CommandHandlerResult result) {
+                commands.add(result.getCommand());
+            }
+        });
+
+        assertEquals(1, loggersHelper.commandLoggers.size());
+
+        IncrementCount firstCommand = new IncrementCount(1);
+        IncrementCount secondCommand = new IncrementCount(2);
+        facade.handleCommand(firstCommand);
+        facade.handleCommand(secondCommand);
+
+        assertEquals(Arrays.<Command>asList(firstCommand, secondCommand), commands);
+
+        List<CommandHandlerResult> values = subscriber.getOnNextEvents();
+        assertSame(values.get(0), values.get(1));
+
+        // not valid after emission
+        assertNull(values.get(0).getCommand());
+        assertNull(values.get(0).getEvents());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: shareEventHandlerResults
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void shareEventHandlerResults_should_throw_if_null() throws Exception {
+        shareEventHandlerResults(null);
+    }
+
+    @Test
+    public void shareEventHandlerResults_should_multicast_with_one_logger() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+        mapIncrementCountHandlers(facade);
+
+        Observable<EventHandlerResult> shared = shareEventHandlerResults(facade);
+        TestSubscriber<EventHandlerResult> first = TestSubscriber.create();
+        TestSubscriber<EventHandlerResult> second = TestSubscriber.create();
+        shared.subscribe(first);
+        shared.subscribe(second);
+
+        assertEquals(1, loggersHelper.eventLoggers.size());
+
+        facade.handleCommand(new IncrementCount(1));
+
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        assertSame(first.getOnNextEvents().get(0), second.getOnNextEvents().get(0));
+    }
+
+    @Test
+    public void shareEventHandlerResultsFlyweight_should_reuse_value_object() throws Exception {
+        DefaultLoggersHelper<CountState> loggersHelper = new DefaultLoggersHelper<>();
+        LaPasseRxFacade<CountState> facade = createFacade(loggersHelper);
+        mapIncrementCountHandlers(facade);
+
+        final List<Object> states = new LinkedList<>();
+        TestSubscriber<EventHandlerResult> subscriber = TestSubscriber.create();
+
+        Observable<EventHandlerResult> shared = shareEventHandlerResultsFlyweight(facade);
+        shared.subscribe(subscriber);
+        shared.subscribe(new Action1<EventHandlerResult>() {
+            @Override
+            public void call(EventHandlerResult result) {
+                states.add(result.getNewState());
+            }
+        });
+
+        facade.handleCommand(new IncrementCount(1));
+        facade.handleCommand(new IncrementCount(2));
+
+        assertEquals(Arrays.<Object>asList(new CountState(1), new CountState(3)), states);
+
+        List<EventHandlerResult> values = subscriber.getOnNextEvents();
+        assertSame(values.get(0), values.get(1));
+        assertNull(values.get(0).getEvent());
+        assertNull(values.get(0).getNewState());
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: default logger implementations
     //----------------------------------------------------------------------------------------------
@@ -300,4 +478,30 @@ public class RxLoggerHelperTest {
         logger.onEventHandlerResult(null, null);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static LaPasseRxFacade<CountState> createFacade(DefaultLoggersHelper<CountState> loggersHelper) {
+        return new LaPasseRxFacade.Builder<>(new CountState(0))
+                .setLoggersHelper(loggersHelper)
+                .build();
+    }
+
+    private static void mapIncrementCountHandlers(LaPasseRxFacade<CountState> facade) {
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                return new CountState(previousState.getCount() + event.getCount());
+            }
+        });
+    }
+
 }
@@ -7,6 +7,10 @@ import org.junit.Before;
 import org.junit.Test;
 import rx.Subscription;
 import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -27,6 +31,121 @@ public class DefaultRxStateManagerTest {
         stateManager = new DefaultRxStateManager<>(new CountState(0));
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: observeLatestState
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void observeLatestState_should_replay_current_state() throws Exception {
+        TestSubscriber<CountState> subscriber = TestSubscriber.create();
+
+        stateManager.observeLatestState().subscribe(subscriber);
+
+        subscriber.assertValues(stateManager.getCurrentState());
+    }
+
+    @Test
+    public void observeLatestState_should_emit_state_changes() throws Exception {
+        TestSubscriber<CountState> subscriber = TestSubscriber.create();
+
+        stateManager.observeLatestState().subscribe(subscriber);
+
+        CountState initialState = stateManager.getCurrentState();
+        CountState newState = new CountState(1);
+
+        stateManager.handleNewState(newState, new CountIncremented(1));
+
+        subscriber.assertNoErrors();
+        subscriber.assertValues(initialState, newState);
+    }
+
+    @Test
+    public void observeLatestState_should_conflate_to_latest_state_without_requests() throws Exception {
+        TestSubscriber<CountState> subscriber = TestSubscriber.create(0);
+
+        stateManager.observeLatestState().subscribe(subscriber);
+
+        for (int i = 1; i <= 100; i++) {
+            stateManager.handleNewState(new CountState(i), new CountIncremented(1));
+        }
+
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(1);
+
+        subscriber.assertValues(stateManager.getCurrentState());
+
+        subscriber.requestMore(1);
+
+        subscriber.assertValueCount(1);
+
+        CountState newState = new CountState(101);
+        stateManager.handleNewState(newState, new CountIncremented(1));
+
+        subscriber.assertValueCount(2);
+        assertEquals(newState, subscriber.getOnNextEvents().get(1));
+    }
+
+    @Test
+    public void observeLatestState_should_share_one_listener() throws Exception {
+        Subscription first = stateManager.observeLatestState().subscribe();
+        Subscription second = stateManager.observeLatestState().subscribe();
+
+        assertEquals(1, stateManager.stateChangedListeners.size());
+        assertEquals(2, stateManager.latestStateProducers.size());
+
+        first.unsubscribe();
+
+        assertEquals(1, stateManager.stateChangedListeners.size());
+
+        second.unsubscribe();
+
+        assertEquals(0, stateManager.stateChangedListeners.size());
+        assertEquals(0, stateManager.latestStateProducers.size());
+    }
+
+    @Test
+    public void observeLatestState_should_re_register_listener_after_dispose() throws Exception {
+        stateManager.observeLatestState().subscribe();
+        stateManager.dispose();
+
+        TestSubscriber<CountState> subscriber = TestSubscriber.create();
+        stateManager.observeLatestState().subscribe(subscriber);
+
+        CountState newState = new CountState(1);
+        stateManager.handleNewState(newState, new CountIncremented(1));
+
+        assertEquals(newState, subscriber.getOnNextEvents().get(1));
+    }
+
+    @Test
+    public void observeLatestState_should_keep_up_with_slow_observer() throws Exception {
+        TestSubscriber<CountState> subscriber = TestSubscriber.create();
+
+        stateManager.observeLatestState()
+                .observeOn(Schedulers.computation())
+                .subscribe(subscriber);
+
+        for (int i = 1; i <= 10000; i++) {
+            stateManager.handleNewState(new CountState(i), new CountIncremented(1));
+        }
+
+        subscriber.awaitValueCount(1, 1, TimeUnit.SECONDS);
+
+        // the final state is always emitted
+        long deadline = System.currentTimeMillis() + 1000;
+        List<CountState> values = subscriber.getOnNextEvents();
+
+        while (!values.get(values.size() - 1).equals(stateManager.getCurrentState())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+            values = subscriber.getOnNextEvents();
+        }
+
+        subscriber.assertNoErrors();
+        assertEquals(stateManager.getCurrentState(), values.get(values.size() - 1));
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: observeStateChanges
     //----------------------------------------------------------------------------------------------
@@ -5,6 +5,7 @@ import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.logging.CombinedLogger;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
 import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
 import com.cookingfox.lapasse.samples.shared.tasks.command.AddTask;
 import com.cookingfox.lapasse.samples.shared.tasks.command.CompleteTask;
 import com.cookingfox.lapasse.samples.shared.tasks.command.RemoveTask;
@@ -32,8 +33,10 @@ public class TasksAnnotationsSample implements CombinedLogger<TasksState>, OnSta
         // create initial state
         TasksState initialState = TasksState.createInitialState();
 
-        // create facade
-        TasksAnnotationsFacade facade = new TasksAnnotationsFacade(new LaPasseFacade.Builder<>(initialState).build());
+        // create facade: the generated routing graph prepares it for the first messages
+        TasksAnnotationsFacade facade = new TasksAnnotationsFacade(new LaPasseFacade.Builder<>(initialState)
+                .addRoutingGraph(RoutingGraph.load(TasksAnnotationsFacade.class))
+                .build());
 
         // add state changed listener
         facade.addStateChangedListener(this);
@@ -1,10 +1,13 @@
 package com.cookingfox.lapasse.api.command.bus;
 
 import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.exception.UnsupportedCommandHandlerException;
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
 import com.cookingfox.lapasse.api.command.handler.CommandHandler;
 import com.cookingfox.lapasse.api.command.logging.CommandLoggerAware;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.state.State;
 
 import java.util.concurrent.ExecutorService;
@@ -25,6 +28,16 @@ public interface CommandBus<S extends State> extends CommandLoggerAware, Disposa
      */
     void handleCommand(Command command);
 
+    /**
+     * Map the command handlers of a dispatcher. Commands that are handled by the dispatcher are
+     * routed to it directly, bypassing the command handler map.
+     *
+     * @param dispatcher The dispatcher of which the command handlers should be mapped.
+     * @throws UnsupportedCommandHandlerException when the bus does not support a result type of
+     *                                            the dispatcher's command handlers.
+     */
+    void mapCommandDispatcher(HandlerDispatcher<S> dispatcher);
+
     /**
      * Map a command handler for a concrete command type.
      *
@@ -43,4 +56,16 @@ public interface CommandBus<S extends State> extends CommandLoggerAware, Disposa
      */
     void setCommandHandlerExecutor(ExecutorService executor);
 
+    /**
+     * Sets the strategy that creates the executor service for async command handlers, when no
+     * executor has been set explicitly. The executor is created lazily, when the first async command
+     * handler is executed.
+     *
+     * @param strategy The executor strategy to use.
+     * @throws IllegalStateException when the executor has already been set or created, so the
+     *                               strategy would not be used.
+     * @see #setCommandHandlerExecutor(ExecutorService)
+     */
+    void setCommandHandlerExecutorStrategy(CommandHandlerExecutorStrategy strategy);
+
 }
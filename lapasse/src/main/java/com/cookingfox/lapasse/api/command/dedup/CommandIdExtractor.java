@@ -0,0 +1,25 @@
+package com.cookingfox.lapasse.api.command.dedup;
+
+import com.cookingfox.lapasse.api.command.Command;
+
+/**
+ * Extracts the unique identifier of a command, which is used to detect commands that are sent more
+ * than once, for example when a client retries.
+ */
+public interface CommandIdExtractor {
+
+    /**
+     * The identifier of commands that should never be considered a duplicate.
+     */
+    long NO_ID = 0;
+
+    /**
+     * Returns the identifier of the command. Commands with an equal identifier are considered
+     * duplicates of each other.
+     *
+     * @param command The command.
+     * @return The identifier of the command, or {@link #NO_ID} to always handle the command.
+     */
+    long getCommandId(Command command);
+
+}
@@ -0,0 +1,16 @@
+package com.cookingfox.lapasse.api.command.exception;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Passed to the command loggers when a command is dropped, because a command with the same
+ * identifier was already handled or is still being handled.
+ */
+public class DuplicateCommandException extends LaPasseException {
+
+    public DuplicateCommandException(Command command) {
+        super(String.format("Dropped duplicate of command '%s'", command));
+    }
+
+}
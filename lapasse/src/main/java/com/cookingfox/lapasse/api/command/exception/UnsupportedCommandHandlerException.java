@@ -2,6 +2,7 @@ package com.cookingfox.lapasse.api.command.exception;
 
 import com.cookingfox.lapasse.api.command.handler.CommandHandler;
 import com.cookingfox.lapasse.api.exception.LaPasseException;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 
 /**
  * Thrown when the command handler implementation is unsupported.
@@ -12,4 +13,9 @@ public class UnsupportedCommandHandlerException extends LaPasseException {
         super(String.format("Unsupported command handler implementation: '%s'", commandHandler));
     }
 
+    public UnsupportedCommandHandlerException(HandlerDispatcher dispatcher, int resultType) {
+        super(String.format("Unsupported command handler result type %d of dispatcher: '%s'",
+                resultType, dispatcher));
+    }
+
 }
@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.api.command.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Strategy for creating the executor service that runs async command handlers.
+ */
+public interface CommandHandlerExecutorStrategy {
+
+    /**
+     * Creates a new executor service for running async command handlers. This is called lazily:
+     * only when the first async command handler is executed.
+     *
+     * @return A new executor service.
+     */
+    ExecutorService createExecutor();
+
+}
@@ -0,0 +1,47 @@
+package com.cookingfox.lapasse.api.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles commands after a delay, or repeatedly at a fixed rate.
+ */
+public interface CommandScheduler extends Disposable {
+
+    /**
+     * @return The number of scheduled commands that have not been handled or cancelled yet.
+     */
+    int getPendingCount();
+
+    /**
+     * Handle a command once, after a delay.
+     *
+     * @param command The command to handle.
+     * @param delay   The delay.
+     * @param unit    The unit of the delay.
+     * @return The scheduled command, which can be cancelled.
+     */
+    ScheduledCommand schedule(Command command, long delay, TimeUnit unit);
+
+    /**
+     * Handle a command repeatedly: first after the initial delay, then every period. Runs that
+     * were missed, for example while the application was stopped, are handled once.
+     *
+     * @param command      The command to handle.
+     * @param initialDelay The delay before the first run.
+     * @param period       The time between runs.
+     * @param unit         The unit of the delay and period.
+     * @return The scheduled command, which can be cancelled.
+     */
+    ScheduledCommand scheduleAtFixedRate(Command command, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * Starts handling the scheduled commands, including the ones that were restored from a
+     * persistent store. Scheduling a command starts the scheduler implicitly, so this only needs
+     * to be called to resume restored commands. Call it after the command handlers are mapped.
+     */
+    void start();
+
+}
@@ -0,0 +1,22 @@
+package com.cookingfox.lapasse.api.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+
+/**
+ * Listener interface for when a scheduled command has been loaded from a store.
+ *
+ * @see ScheduledCommandStore#load(OnScheduledCommandLoaded)
+ */
+public interface OnScheduledCommandLoaded {
+
+    /**
+     * Called when a scheduled command has been loaded from a store.
+     *
+     * @param id       The identifier of the scheduled command.
+     * @param command  The command to handle.
+     * @param deadline The time of the next run, in milliseconds since the epoch.
+     * @param period   The time between runs in milliseconds, or 0 if the command is handled once.
+     */
+    void onScheduledCommandLoaded(long id, Command command, long deadline, long period);
+
+}
@@ -0,0 +1,46 @@
+package com.cookingfox.lapasse.api.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+
+/**
+ * A command that is scheduled to be handled later.
+ *
+ * @see CommandScheduler
+ */
+public interface ScheduledCommand {
+
+    /**
+     * Prevents future runs of the command. A one-time command that is already being handled can
+     * not be cancelled.
+     *
+     * @return Whether the command was cancelled by this call.
+     */
+    boolean cancel();
+
+    /**
+     * @return The command to handle.
+     */
+    Command getCommand();
+
+    /**
+     * @return The time of the next run, in milliseconds since the epoch.
+     */
+    long getDeadline();
+
+    /**
+     * @return The identifier of the scheduled command, which is unique within its scheduler and
+     * store.
+     */
+    long getId();
+
+    /**
+     * @return The time between runs in milliseconds, or 0 if the command is handled once.
+     */
+    long getPeriod();
+
+    /**
+     * @return Whether the scheduled command was cancelled.
+     */
+    boolean isCancelled();
+
+}
@@ -0,0 +1,40 @@
+package com.cookingfox.lapasse.api.command.schedule;
+
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+
+/**
+ * Persists scheduled commands, so they survive a restart of the application.
+ */
+public interface ScheduledCommandStore extends Disposable {
+
+    /**
+     * Stores a scheduled command. A recurring command is stored once: its next deadline is updated
+     * after every run.
+     *
+     * @param scheduledCommand The scheduled command.
+     */
+    void add(ScheduledCommand scheduledCommand);
+
+    /**
+     * Passes the stored commands to the listener, in the order they were added.
+     *
+     * @param listener The listener to pass the stored commands to.
+     */
+    void load(OnScheduledCommandLoaded listener);
+
+    /**
+     * Removes a scheduled command, because it was handled or cancelled.
+     *
+     * @param id The identifier of the scheduled command.
+     */
+    void remove(long id);
+
+    /**
+     * Stores the next deadline of a recurring command, after it was handled.
+     *
+     * @param id       The identifier of the scheduled command.
+     * @param deadline The time of the next run, in milliseconds since the epoch.
+     */
+    void update(long id, long deadline);
+
+}
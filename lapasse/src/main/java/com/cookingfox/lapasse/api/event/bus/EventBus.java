@@ -2,10 +2,14 @@ package com.cookingfox.lapasse.api.event.bus;
 
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLoggerAware;
 import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.state.State;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Map event handlers and execute them by handling event objects.
  *
@@ -22,6 +26,14 @@ public interface EventBus<S extends State> extends Disposable, EventLoggerAware<
      */
     void handleEvent(Event event);
 
+    /**
+     * Map the event handlers of a dispatcher. Events that are handled by the dispatcher are routed
+     * to it directly, bypassing the event handler map.
+     *
+     * @param dispatcher The dispatcher of which the event handlers should be mapped.
+     */
+    void mapEventDispatcher(HandlerDispatcher<S> dispatcher);
+
     /**
      * Map a event handler for a concrete event type.
      *
@@ -32,4 +44,16 @@ public interface EventBus<S extends State> extends Disposable, EventLoggerAware<
      */
     <E extends Event> void mapEventHandler(Class<E> eventClass, EventHandler<S, E> eventHandler);
 
+    /**
+     * Execute the event handlers that are mapped or dispatched to the same event type in parallel,
+     * instead of one after the other. All handlers are applied to the same previous state, after which their
+     * new states are combined into one state, which is passed to the state manager once. Use when
+     * an event type has several expensive event handlers. Pass `null` for the pool or combiner to
+     * execute the event handlers one after the other again.
+     *
+     * @param pool     (Optional) The pool to execute the event handlers on.
+     * @param combiner (Optional) Combines the new states of the event handlers.
+     */
+    void setParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<S> combiner);
+
 }
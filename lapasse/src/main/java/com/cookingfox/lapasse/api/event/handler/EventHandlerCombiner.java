@@ -0,0 +1,27 @@
+package com.cookingfox.lapasse.api.event.handler;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.State;
+
+import java.util.List;
+
+/**
+ * Combines the new states that are produced by the event handlers of one event, when these
+ * handlers are executed in parallel against the same previous state.
+ *
+ * @param <S> The concrete type of the state object.
+ */
+public interface EventHandlerCombiner<S extends State> {
+
+    /**
+     * Combines the new states of the event handlers into one state.
+     *
+     * @param previousState The previous state, that all event handlers were applied to.
+     * @param event         The event that was handled.
+     * @param newStates     The new states of the event handlers, in the order the handlers were
+     *                      mapped. Handlers that failed are not included.
+     * @return The combined state.
+     */
+    S combine(S previousState, Event event, List<S> newStates);
+
+}
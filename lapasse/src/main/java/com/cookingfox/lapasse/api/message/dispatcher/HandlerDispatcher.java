@@ -0,0 +1,142 @@
+package com.cookingfox.lapasse.api.message.dispatcher;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.State;
+
+/**
+ * Routes commands and events directly to handler methods, using a class-indexed table instead of
+ * handler objects. Implementations are typically generated by the annotation processor, one per
+ * annotated class.
+ * <p>
+ * Every handler has an index, starting at 0. The index of a message class is resolved using
+ * {@link #getCommandIndex(Class)} or {@link #getEventIndex(Class)}, after which the handler is
+ * executed using {@link #dispatchCommand(int, State, Command)} or
+ * {@link #dispatchEvent(int, State, Event)}.
+ *
+ * @param <S> The concrete type of the state object.
+ */
+public interface HandlerDispatcher<S extends State> {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Index that is returned when no handler exists for a message class.
+     */
+    int NOT_HANDLED = -1;
+
+    /**
+     * Command handler result type: returns nothing.
+     */
+    int RESULT_VOID = 0;
+
+    /**
+     * Command handler result type: returns an event (or null).
+     */
+    int RESULT_EVENT = 1;
+
+    /**
+     * Command handler result type: returns a collection of events (or null).
+     */
+    int RESULT_EVENT_COLLECTION = 2;
+
+    /**
+     * Command handler result type: returns a callable that produces an event.
+     */
+    int RESULT_EVENT_CALLABLE = 3;
+
+    /**
+     * Command handler result type: returns a callable that produces a collection of events.
+     */
+    int RESULT_EVENT_COLLECTION_CALLABLE = 4;
+
+    /**
+     * Command handler result type: returns an Rx Observable that produces an event.
+     */
+    int RESULT_EVENT_OBSERVABLE = 5;
+
+    /**
+     * Command handler result type: returns an Rx Observable that produces a collection of events.
+     */
+    int RESULT_EVENT_COLLECTION_OBSERVABLE = 6;
+
+    /**
+     * Command handler result type: returns an Rx Single that produces an event.
+     */
+    int RESULT_EVENT_SINGLE = 7;
+
+    /**
+     * Command handler result type: returns an Rx Single that produces a collection of events.
+     */
+    int RESULT_EVENT_COLLECTION_SINGLE = 8;
+
+    //----------------------------------------------------------------------------------------------
+    // COMMANDS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The number of command handlers of this dispatcher.
+     */
+    int getCommandCount();
+
+    /**
+     * Returns the index of the command handler for this command class. When there is no handler
+     * for the exact class, the handler for a super type is used.
+     *
+     * @param commandClass The concrete command class.
+     * @return The command handler index, or {@link #NOT_HANDLED}.
+     */
+    int getCommandIndex(Class<?> commandClass);
+
+    /**
+     * Returns the result type of the command handler: one of the `RESULT_` constants.
+     *
+     * @param index The command handler index.
+     * @return The result type of the command handler.
+     * @throws IndexOutOfBoundsException when the index is invalid.
+     */
+    int getCommandResultType(int index);
+
+    /**
+     * Executes the command handler.
+     *
+     * @param index   The command handler index.
+     * @param state   The current state object.
+     * @param command The command to handle.
+     * @return The result of the command handler, as indicated by
+     * {@link #getCommandResultType(int)}.
+     * @throws Exception when the command handler throws.
+     */
+    Object dispatchCommand(int index, S state, Command command) throws Exception;
+
+    //----------------------------------------------------------------------------------------------
+    // EVENTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The number of event handlers of this dispatcher.
+     */
+    int getEventCount();
+
+    /**
+     * Returns the index of the event handler for this event class. When there is no handler for
+     * the exact class, the handler for a super type is used.
+     *
+     * @param eventClass The concrete event class.
+     * @return The event handler index, or {@link #NOT_HANDLED}.
+     */
+    int getEventIndex(Class<?> eventClass);
+
+    /**
+     * Executes the event handler.
+     *
+     * @param index The event handler index.
+     * @param state The current state object.
+     * @param event The event to handle.
+     * @return The new state object.
+     */
+    S dispatchEvent(int index, S state, Event event);
+
+}
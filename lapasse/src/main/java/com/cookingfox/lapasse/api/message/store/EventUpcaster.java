@@ -0,0 +1,21 @@
+package com.cookingfox.lapasse.api.message.store;
+
+import com.cookingfox.lapasse.api.event.Event;
+
+/**
+ * Converts a stored event of an older version to the next version, so old events can be read
+ * without rewriting the stored messages.
+ *
+ * @param <E> The concrete type of the event at the older version.
+ */
+public interface EventUpcaster<E extends Event> {
+
+    /**
+     * Converts the event to the next version.
+     *
+     * @param event The event at the older version.
+     * @return The event at the next version: the same or another class.
+     */
+    Event upcast(E event);
+
+}
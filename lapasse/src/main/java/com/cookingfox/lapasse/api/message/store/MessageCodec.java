@@ -0,0 +1,29 @@
+package com.cookingfox.lapasse.api.message.store;
+
+import com.cookingfox.lapasse.api.message.Message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts messages to bytes and back, for message stores that persist messages.
+ */
+public interface MessageCodec {
+
+    /**
+     * Decode a message.
+     *
+     * @param bytes The encoded message: from its position to its limit. The buffer may be a view of
+     *              the stored data, so it must not be modified or kept.
+     * @return The decoded message.
+     */
+    Message decode(ByteBuffer bytes);
+
+    /**
+     * Encode a message.
+     *
+     * @param message The message to encode.
+     * @return The encoded message.
+     */
+    byte[] encode(Message message);
+
+}
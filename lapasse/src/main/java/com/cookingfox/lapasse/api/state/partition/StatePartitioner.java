@@ -0,0 +1,36 @@
+package com.cookingfox.lapasse.api.state.partition;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.State;
+
+import java.util.List;
+
+/**
+ * Partitions a state by key, so its event history can be replayed in parallel: every partition
+ * replays the events of its keys into its own copy of the state, after which the copies are merged.
+ * Only suitable for states where the events of one key never depend on the state of another key.
+ *
+ * @param <S> The concrete type of the state object.
+ */
+public interface StatePartitioner<S extends State> {
+
+    /**
+     * Returns the key of the part of the state that the event changes. Events with equal keys are
+     * replayed in order, by the same partition.
+     *
+     * @param event The event.
+     * @return The key of the event: not `null`.
+     */
+    Object getKey(Event event);
+
+    /**
+     * Assembles the final state from the states of the partitions.
+     *
+     * @param initialState    The state that every partition started from.
+     * @param partitionStates The final states of the partitions, that each only contain the changes
+     *                        of their own keys.
+     * @return The merged state.
+     */
+    S merge(S initialState, List<S> partitionStates);
+
+}
@@ -0,0 +1,20 @@
+package com.cookingfox.lapasse.api.state.slice;
+
+import com.cookingfox.lapasse.api.event.Event;
+
+/**
+ * Listener interface for when one slice of a sliced state changes.
+ *
+ * @param <T> The type of the slice.
+ */
+public interface OnSliceChanged<T> {
+
+    /**
+     * Called when an event causes the slice to change.
+     *
+     * @param slice The new slice.
+     * @param event The event that changed the slice.
+     */
+    void onSliceChanged(T slice, Event event);
+
+}
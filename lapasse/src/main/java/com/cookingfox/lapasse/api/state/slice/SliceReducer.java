@@ -0,0 +1,24 @@
+package com.cookingfox.lapasse.api.state.slice;
+
+import com.cookingfox.lapasse.api.event.Event;
+
+/**
+ * Interface for a reducer of one slice of a sliced state: the event handler of a slice.
+ *
+ * @param <T> The type of the slice.
+ * @param <E> The concrete event type that this reducer will handle.
+ */
+public interface SliceReducer<T, E extends Event> {
+
+    /**
+     * Returns the previous slice or creates a new slice by applying the event to the previous
+     * slice. Return the previous slice when the event does not change it, so the slice is not
+     * replaced.
+     *
+     * @param previousSlice The previous slice.
+     * @param event         The event to apply.
+     * @return The previous slice, or a new slice with the event applied.
+     */
+    T reduce(T previousSlice, E event);
+
+}
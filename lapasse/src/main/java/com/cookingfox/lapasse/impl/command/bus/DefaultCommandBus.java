@@ -2,22 +2,33 @@ package com.cookingfox.lapasse.impl.command.bus;
 
 import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.bus.CommandBus;
+import com.cookingfox.lapasse.api.command.exception.DuplicateCommandException;
 import com.cookingfox.lapasse.api.command.exception.UnsupportedCommandHandlerException;
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
 import com.cookingfox.lapasse.api.command.handler.*;
 import com.cookingfox.lapasse.api.command.logging.CommandLogger;
 import com.cookingfox.lapasse.api.command.logging.CommandLoggerHelper;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.observer.StateObserver;
+import com.cookingfox.lapasse.impl.command.dedup.CommandDeduplicator;
+import com.cookingfox.lapasse.impl.command.executor.CommandHandlerExecutors;
+import com.cookingfox.lapasse.impl.logging.DefaultLoggersHelper;
 import com.cookingfox.lapasse.impl.message.bus.AbstractMessageBus;
+import com.cookingfox.lapasse.impl.message.bus.DispatchRoute;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+
+import static com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher.*;
 
 /**
  * Default implementation of {@link CommandBus}.
@@ -50,10 +61,26 @@ public class DefaultCommandBus<S extends State>
     // PROPERTIES
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Drops commands that were already handled, if set.
+     */
+    protected volatile CommandDeduplicator commandDeduplicator;
+
+    /**
+     * Handler dispatchers that route commands directly to their handler methods.
+     */
+    protected final SnapshotSet<HandlerDispatcher<S>> commandDispatchers = CollectionUtils.newSnapshotSet();
+
     /**
      * Executor service that runs the async command handlers.
      */
-    protected ExecutorService commandHandlerExecutor;
+    protected volatile ExecutorService commandHandlerExecutor;
+
+    /**
+     * Creates the command handler executor, if it was not set explicitly. Guarded by `this`.
+     */
+    protected CommandHandlerExecutorStrategy commandHandlerExecutorStrategy =
+            CommandHandlerExecutors.singleThread();
 
     /**
      * The event bus to pass generated events to.
@@ -78,7 +105,23 @@ public class DefaultCommandBus<S extends State>
                              EventBus<S> eventBus,
                              CommandLoggerHelper loggerHelper,
                              StateObserver<S> stateObserver) {
-        super(messageStore);
+        this(messageStore, eventBus, loggerHelper, stateObserver, 0);
+    }
+
+    /**
+     * @param messageStore         Stores the handled commands.
+     * @param eventBus             Handles the events that the command handlers produce.
+     * @param loggerHelper         Notifies the command loggers.
+     * @param stateObserver        Provides the current state to the command handlers.
+     * @param expectedCommandTypes The expected number of mapped command types, used to size the
+     *                             handler map.
+     */
+    public DefaultCommandBus(MessageStore messageStore,
+                             EventBus<S> eventBus,
+                             CommandLoggerHelper loggerHelper,
+                             StateObserver<S> stateObserver,
+                             int expectedCommandTypes) {
+        super(messageStore, expectedCommandTypes);
 
         this.eventBus = Objects.requireNonNull(eventBus, "Event bus can not be null");
         this.loggerHelper = Objects.requireNonNull(loggerHelper, "Logger helper can not be null");
@@ -96,6 +139,8 @@ public class DefaultCommandBus<S extends State>
 
     @Override
     public void dispose() {
+        commandDispatchers.clear();
+
         super.dispose();
 
         // shutdown command handler executor
@@ -106,7 +151,42 @@ public class DefaultCommandBus<S extends State>
 
     @Override
     public void handleCommand(Command command) {
-        handleMessage(command);
+        CommandDeduplicator deduplicator = commandDeduplicator;
+
+        if (deduplicator == null) {
+            handleMessage(command);
+            return;
+        }
+
+        if (deduplicator.isDuplicate(command)) {
+            // already handled or still being handled: notify the loggers, so callers stop waiting
+            loggerHelper.onCommandHandlerError(new DuplicateCommandException(command), command);
+            return;
+        }
+
+        try {
+            handleMessage(command);
+        } catch (RuntimeException e) {
+            deduplicator.forget(command);
+            throw e;
+        }
+    }
+
+    @Override
+    public void mapCommandDispatcher(HandlerDispatcher<S> dispatcher) {
+        Objects.requireNonNull(dispatcher, "Dispatcher can not be null");
+
+        // check result types up front, like the command handler implementations
+        for (int index = 0; index < dispatcher.getCommandCount(); index++) {
+            int resultType = dispatcher.getCommandResultType(index);
+
+            if (!isCommandResultTypeSupported(resultType)) {
+                throw new UnsupportedCommandHandlerException(dispatcher, resultType);
+            }
+        }
+
+        commandDispatchers.add(dispatcher);
+        clearDispatchRoutes();
     }
 
     @Override
@@ -123,6 +203,20 @@ public class DefaultCommandBus<S extends State>
         loggerHelper.removeCommandLogger(logger);
     }
 
+    /**
+     * Sets the deduplicator that drops commands with an identifier that was already handled
+     * within its window. The loggers are notified of a dropped command as an error: a
+     * {@link DuplicateCommandException}, so it can be told apart from a result without events.
+     * Like a handler error, it is thrown wrapped in a `NoRegisteredCommandLoggerException` when
+     * no command logger is registered. A command that could not be handled is forgotten, so a
+     * retry is handled again. Commands are not deduplicated by default.
+     *
+     * @param deduplicator The deduplicator to use, or `null` to stop deduplicating.
+     */
+    public void setCommandDeduplicator(CommandDeduplicator deduplicator) {
+        this.commandDeduplicator = deduplicator;
+    }
+
     /**
      * Sets the executor service to use for executing async command handlers.
      *
@@ -134,6 +228,18 @@ public class DefaultCommandBus<S extends State>
                 "Command handler executor service can not be null");
     }
 
+    @Override
+    public synchronized void setCommandHandlerExecutorStrategy(CommandHandlerExecutorStrategy strategy) {
+        Objects.requireNonNull(strategy, "Command handler executor strategy can not be null");
+
+        if (commandHandlerExecutor != null) {
+            throw new IllegalStateException("Command handler executor already exists: " +
+                    "set the executor strategy before executing async command handlers");
+        }
+
+        this.commandHandlerExecutorStrategy = strategy;
+    }
+
     //----------------------------------------------------------------------------------------------
     // OVERRIDDEN ABSTRACT METHODS
     //----------------------------------------------------------------------------------------------
@@ -154,10 +260,114 @@ public class DefaultCommandBus<S extends State>
         return message instanceof Command;
     }
 
+    //----------------------------------------------------------------------------------------------
+    // OVERRIDDEN PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    protected void dispatch(Command command) {
+        DispatchRoute route = getDispatchRoute(command.getClass());
+
+        for (int i = 0; i < route.size(); i++) {
+            executeDispatcher(route.<S>getDispatcher(i), route.getIndex(i), command);
+        }
+    }
+
+    @Override
+    protected DispatchRoute resolveDispatchRoute(Class<? extends Message> messageClass) {
+        Object[] dispatchers = commandDispatchers.snapshot();
+        HandlerDispatcher[] matched = new HandlerDispatcher[dispatchers.length];
+        int[] indices = new int[dispatchers.length];
+        int size = 0;
+
+        for (Object element : dispatchers) {
+            HandlerDispatcher dispatcher = (HandlerDispatcher) element;
+            int index = dispatcher.getCommandIndex(messageClass);
+
+            if (index != NOT_HANDLED) {
+                matched[size] = dispatcher;
+                indices[size++] = index;
+            }
+        }
+
+        return DispatchRoute.of(matched, indices, size);
+    }
+
     //----------------------------------------------------------------------------------------------
     // PROTECTED METHODS
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Execute a command handler of a dispatcher. The result type determines how the result is
+     * handled, so no `instanceof` checks are necessary.
+     *
+     * @param dispatcher The dispatcher to execute the command handler of.
+     * @param index      The index of the command handler.
+     * @param command    The command object.
+     */
+    protected void executeDispatcher(HandlerDispatcher<S> dispatcher, int index, Command command) {
+        int resultType = dispatcher.getCommandResultType(index);
+        boolean isMulti = isMultiResultType(resultType);
+        Object result;
+
+        try {
+            result = dispatcher.dispatchCommand(index, stateObserver.getCurrentState(), command);
+
+            if (resultType == RESULT_EVENT_CALLABLE || resultType == RESULT_EVENT_COLLECTION_CALLABLE) {
+                // returns a callable that is submitted to the executor service (async).
+                executeCallable(command, (Callable<?>) result, isMulti);
+                return;
+            } else if (resultType > RESULT_EVENT_COLLECTION_CALLABLE) {
+                // unsupported result type
+                throw new UnsupportedCommandHandlerException(dispatcher, resultType);
+            }
+        } catch (Exception e) {
+            if (isMulti) {
+                handleMultiResult(e, command, null);
+            } else {
+                handleResult(e, command, null);
+            }
+            return;
+        }
+
+        if (isMulti) {
+            // noinspection unchecked
+            handleMultiResult(null, command, (Collection<Event>) result);
+        } else {
+            handleResult(null, command, (Event) result);
+        }
+    }
+
+    /**
+     * Submits the callable of an async command handler to the command handler executor. The
+     * result is handled by the executor thread when the callable completes, so the calling thread
+     * does not wait and slow handlers run concurrently, as far as the executor allows. An error
+     * thrown by the callable is reported wrapped in an {@link ExecutionException}.
+     *
+     * @param command  The command that is handled.
+     * @param callable The callable that produces the result.
+     * @param isMulti  Whether the callable produces a collection of events.
+     */
+    protected void executeCallable(final Command command, final Callable<?> callable, final boolean isMulti) {
+        Objects.requireNonNull(callable, "Callable can not be null");
+
+        getCommandHandlerExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Object result;
+
+                try {
+                    result = callable.call();
+                } catch (Exception e) {
+                    handleCallableResult(new ExecutionException(e), command, isMulti, null);
+                    return;
+                }
+
+                handleCallableResult(null, command, isMulti, result);
+            }
+        });
+    }
+
     /**
      * Execute a command handler that produces 0 or 1 event.
      *
@@ -178,7 +388,8 @@ public class DefaultCommandBus<S extends State>
             } else if (handler instanceof AsyncCommandHandler) {
                 // returns a callable that is submitted to the executor service (async).
                 Callable<Event> callable = ((AsyncCommandHandler<S, Command, Event>) handler).handle(state, command);
-                event = getCommandHandlerExecutor().submit(callable).get();
+                executeCallable(command, callable, false);
+                return;
             } else {
                 // unsupported implementation
                 throw new UnsupportedCommandHandlerException(handler);
@@ -208,7 +419,8 @@ public class DefaultCommandBus<S extends State>
             } else if (handler instanceof AsyncMultiCommandHandler) {
                 // returns a callable that is submitted to the executor service (async).
                 Callable<Collection<Event>> callable = ((AsyncMultiCommandHandler<S, Command, Event>) handler).handle(state, command);
-                events = getCommandHandlerExecutor().submit(callable).get();
+                executeCallable(command, callable, true);
+                return;
             } else {
                 // unsupported implementation
                 throw new UnsupportedCommandHandlerException(handler);
@@ -222,17 +434,57 @@ public class DefaultCommandBus<S extends State>
     }
 
     /**
-     * Returns the command handler executor. Creates a new single thread executor if it has not been
-     * set explicitly.
+     * Forgets the command in the deduplicator, if set, so it is handled again when it is retried.
+     *
+     * @param command The command that could not be handled.
+     */
+    protected void forgetCommand(Command command) {
+        CommandDeduplicator deduplicator = commandDeduplicator;
+
+        if (deduplicator != null) {
+            deduplicator.forget(command);
+        }
+    }
+
+    /**
+     * Returns the command handler executor. Creates it using the executor strategy if it has not
+     * been set explicitly.
      *
      * @return The command handler executor.
+     * @see #setCommandHandlerExecutorStrategy(CommandHandlerExecutorStrategy)
      */
     protected ExecutorService getCommandHandlerExecutor() {
-        if (commandHandlerExecutor == null) {
-            commandHandlerExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService executor = commandHandlerExecutor;
+
+        if (executor == null) {
+            synchronized (this) {
+                executor = commandHandlerExecutor;
+
+                if (executor == null) {
+                    executor = commandHandlerExecutorStrategy.createExecutor();
+                    commandHandlerExecutor = executor;
+                }
+            }
         }
 
-        return commandHandlerExecutor;
+        return executor;
+    }
+
+    /**
+     * Handle the result of an async command handler's callable.
+     *
+     * @param error   (Optional) An error that occurred.
+     * @param command The command that was handled.
+     * @param isMulti Whether the result is a collection of events.
+     * @param result  (Optional) The result of the callable.
+     */
+    @SuppressWarnings("unchecked")
+    protected void handleCallableResult(Throwable error, Command command, boolean isMulti, Object result) {
+        if (isMulti) {
+            handleMultiResult(error, command, (Collection<Event>) result);
+        } else {
+            handleResult(error, command, (Event) result);
+        }
     }
 
     /**
@@ -243,10 +495,21 @@ public class DefaultCommandBus<S extends State>
      * @param event   (Optional) The event that was produced by the command handler.
      */
     protected void handleResult(Throwable error, Command command, Event event) {
-        if (event == null) {
-            handleMultiResult(error, command, null);
+        if (error != null) {
+            forgetCommand(command);
+            loggerHelper.onCommandHandlerError(error, command);
+            return;
+        }
+
+        if (loggerHelper instanceof DefaultLoggersHelper) {
+            ((DefaultLoggersHelper<?>) loggerHelper).onCommandHandlerSingleResult(command, event);
         } else {
-            handleMultiResult(error, command, Collections.singleton(event));
+            loggerHelper.onCommandHandlerResult(command, event == null ?
+                    null : Collections.singleton(event));
+        }
+
+        if (event != null) {
+            eventBus.handleEvent(event);
         }
     }
 
@@ -259,6 +522,7 @@ public class DefaultCommandBus<S extends State>
      */
     protected void handleMultiResult(Throwable error, Command command, Collection<Event> events) {
         if (error != null) {
+            forgetCommand(command);
             loggerHelper.onCommandHandlerError(error, command);
             return;
         }
@@ -272,6 +536,30 @@ public class DefaultCommandBus<S extends State>
         }
     }
 
+    /**
+     * Returns whether the result type of a dispatcher's command handler is supported by this bus.
+     *
+     * @param resultType The result type: one of the {@link HandlerDispatcher} `RESULT_` constants.
+     * @return Whether the result type is supported.
+     */
+    protected boolean isCommandResultTypeSupported(int resultType) {
+        return resultType >= RESULT_VOID && resultType <= RESULT_EVENT_COLLECTION_CALLABLE;
+    }
+
+    /**
+     * Returns whether the result type of a dispatcher's command handler produces a collection of
+     * events.
+     *
+     * @param resultType The result type: one of the {@link HandlerDispatcher} `RESULT_` constants.
+     * @return Whether the result type produces a collection of events.
+     */
+    protected static boolean isMultiResultType(int resultType) {
+        return resultType == RESULT_EVENT_COLLECTION ||
+                resultType == RESULT_EVENT_COLLECTION_CALLABLE ||
+                resultType == RESULT_EVENT_COLLECTION_OBSERVABLE ||
+                resultType == RESULT_EVENT_COLLECTION_SINGLE;
+    }
+
     /**
      * Checks whether this command handler implementation is supported.
      *
@@ -0,0 +1,283 @@
+package com.cookingfox.lapasse.impl.command.dedup;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor;
+
+import java.io.*;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor.NO_ID;
+
+/**
+ * Detects commands with an identifier that was already seen within a time window, so retried
+ * commands are only handled once.
+ * <p>
+ * The identifiers are kept in two generations of a primitive hash set: the current and the
+ * previous. When the current generation is older than the window or full, it becomes the previous
+ * generation and the old previous generation is cleared. An identifier is therefore remembered for
+ * at least the window and at most twice the window, unless more than the maximum number of
+ * identifiers per generation are seen within the window. Memory is fixed at construction and
+ * checking a command does not allocate.
+ * <p>
+ * Checking and forgetting take a lock on the deduplicator, so it is cheap when commands are
+ * handled by one thread, but threads that handle commands concurrently wait for each other.
+ * <p>
+ * The identifier of a command that could not be handled should be forgotten with
+ * {@link #forget(Command)}, so a retry is handled again.
+ * <p>
+ * The window can be written alongside a snapshot with {@link #writeTo(OutputStream)} and restored
+ * with {@link #readFrom(InputStream)} before commands are handled again.
+ *
+ * @see com.cookingfox.lapasse.impl.command.bus.DefaultCommandBus#setCommandDeduplicator(CommandDeduplicator)
+ */
+public class CommandDeduplicator {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default maximum number of identifiers per generation.
+     */
+    public static final int DEFAULT_MAX_IDS_PER_GENERATION = 1 << 16;
+
+    /**
+     * Version of the format that is written by {@link #writeTo(OutputStream)}.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Number of commands that were detected as duplicates.
+     */
+    protected long duplicateCount;
+
+    /**
+     * The identifiers of the current generation.
+     */
+    protected LongHashSet currentIds;
+
+    /**
+     * The time (`System.nanoTime()`) the current generation started.
+     */
+    protected long generationStart;
+
+    /**
+     * Extracts the identifiers of the commands.
+     */
+    protected final CommandIdExtractor idExtractor;
+
+    /**
+     * The identifiers of the previous generation.
+     */
+    protected LongHashSet previousIds;
+
+    /**
+     * The duration of a generation, in nanoseconds.
+     */
+    protected final long windowNanos;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param idExtractor Extracts the identifiers of the commands.
+     * @param window      The minimum time to remember an identifier.
+     * @param unit        The unit of the window.
+     */
+    public CommandDeduplicator(CommandIdExtractor idExtractor, long window, TimeUnit unit) {
+        this(idExtractor, window, unit, DEFAULT_MAX_IDS_PER_GENERATION);
+    }
+
+    /**
+     * @param idExtractor         Extracts the identifiers of the commands.
+     * @param window              The minimum time to remember an identifier.
+     * @param unit                The unit of the window.
+     * @param maxIdsPerGeneration The maximum number of identifiers per generation, which bounds
+     *                            the memory: two generations of 16 bytes per identifier.
+     */
+    public CommandDeduplicator(CommandIdExtractor idExtractor, long window, TimeUnit unit,
+                               int maxIdsPerGeneration) {
+        this.idExtractor = Objects.requireNonNull(idExtractor, "Command id extractor can not be null");
+        Objects.requireNonNull(unit, "Time unit can not be null");
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+
+        this.windowNanos = unit.toNanos(window);
+        this.currentIds = new LongHashSet(maxIdsPerGeneration);
+        this.previousIds = new LongHashSet(maxIdsPerGeneration);
+        this.generationStart = nanoTime();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Forgets the identifier of the command, so it is handled again when it is retried: for
+     * example because handling it failed.
+     *
+     * @param command The command.
+     */
+    public void forget(Command command) {
+        long id = idExtractor.getCommandId(command);
+
+        if (id == NO_ID) {
+            return;
+        }
+
+        synchronized (this) {
+            currentIds.remove(id);
+            previousIds.remove(id);
+        }
+    }
+
+    /**
+     * @return The number of commands that were detected as duplicates.
+     */
+    public synchronized long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Returns whether the identifier of the command was already seen within the window, and
+     * remembers it otherwise.
+     *
+     * @param command The command.
+     * @return Whether the command is a duplicate and should not be handled.
+     */
+    public boolean isDuplicate(Command command) {
+        long id = idExtractor.getCommandId(command);
+
+        if (id == NO_ID) {
+            return false;
+        }
+
+        synchronized (this) {
+            rotate(nanoTime());
+
+            if (previousIds.contains(id) || !currentIds.add(id)) {
+                duplicateCount++;
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the window with one that was written by {@link #writeTo(OutputStream)}. The time
+     * between writing and reading counts towards the age of the window. Does not close the stream.
+     *
+     * @param in The stream to read from.
+     * @throws IOException when the window could not be read.
+     */
+    public synchronized void readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported deduplication window format: " + version);
+        }
+
+        long writtenAt = data.readLong();
+        long age = data.readLong() + TimeUnit.MILLISECONDS.toNanos(
+                Math.max(System.currentTimeMillis() - writtenAt, 0));
+
+        currentIds.clear();
+        previousIds.clear();
+        readIds(data, currentIds);
+        readIds(data, previousIds);
+
+        generationStart = nanoTime() - age;
+    }
+
+    /**
+     * Writes the window, so it can be restored with {@link #readFrom(InputStream)}, for example
+     * alongside a snapshot of the state. Does not close the stream.
+     *
+     * @param out The stream to write to.
+     * @throws IOException when the window could not be written.
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(System.currentTimeMillis());
+        data.writeLong(nanoTime() - generationStart);
+        writeIds(data, currentIds);
+        writeIds(data, previousIds);
+        data.flush();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The current time in nanoseconds, relative to an arbitrary origin.
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Starts a new generation if the current generation is older than the window or full.
+     *
+     * @param now The current time.
+     */
+    protected void rotate(long now) {
+        long age = now - generationStart;
+
+        if (age >= windowNanos * 2) {
+            // both generations expired
+            currentIds.clear();
+            previousIds.clear();
+            generationStart = now;
+        } else if (age >= windowNanos || currentIds.isFull()) {
+            LongHashSet expired = previousIds;
+            expired.clear();
+            previousIds = currentIds;
+            currentIds = expired;
+            generationStart = now;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Reads identifiers into the set, ignoring those that do not fit: the maximum per generation
+     * may have been lowered since the window was written.
+     */
+    private static void readIds(DataInputStream data, LongHashSet ids) throws IOException {
+        int count = data.readInt();
+
+        for (int i = 0; i < count; i++) {
+            long id = data.readLong();
+
+            if (id != NO_ID && !ids.isFull()) {
+                ids.add(id);
+            }
+        }
+    }
+
+    private static void writeIds(DataOutputStream data, LongHashSet ids) throws IOException {
+        long[] values = ids.toArray();
+
+        data.writeInt(values.length);
+
+        for (long value : values) {
+            data.writeLong(value);
+        }
+    }
+
+}
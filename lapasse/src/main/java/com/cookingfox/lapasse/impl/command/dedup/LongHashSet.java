@@ -0,0 +1,160 @@
+package com.cookingfox.lapasse.impl.command.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Set of `long` values with a fixed capacity, using open addressing and linear probing, so adding
+ * and looking up values does not allocate. The value 0 marks an empty slot and can not be added.
+ */
+final class LongHashSet {
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private final int maxSize;
+    private final int mask;
+    private final long[] slots;
+    private int size;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param maxSize The maximum number of values. The table is kept at most half full.
+     */
+    LongHashSet(int maxSize) {
+        if (maxSize < 1 || maxSize > 1 << 29) {
+            throw new IllegalArgumentException("Maximum size must be between 1 and 2^29");
+        }
+
+        this.maxSize = maxSize;
+        this.slots = new long[Integer.highestOneBit(maxSize * 2 - 1) << 1];
+        this.mask = slots.length - 1;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param value The value to add: not 0.
+     * @return Whether the value was added: `false` if the set already contains it.
+     * @throws IllegalStateException when the set is full.
+     */
+    boolean add(long value) {
+        int index = indexOf(value);
+
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return false;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        if (size >= maxSize) {
+            throw new IllegalStateException("Set is full");
+        }
+
+        slots[index] = value;
+        size++;
+        return true;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(slots, 0);
+            size = 0;
+        }
+    }
+
+    boolean contains(long value) {
+        int index = indexOf(value);
+
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return true;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return false;
+    }
+
+    boolean isFull() {
+        return size >= maxSize;
+    }
+
+    /**
+     * @param value The value to remove.
+     * @return Whether the value was removed: `false` if the set does not contain it.
+     */
+    boolean remove(long value) {
+        int index = indexOf(value);
+
+        while (slots[index] != value) {
+            if (slots[index] == 0) {
+                return false;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        // shift back the values that probed past the removed one, so lookups do not stop early
+        int gap = index;
+        int next = (gap + 1) & mask;
+
+        while (slots[next] != 0) {
+            int preferred = indexOf(slots[next]);
+
+            if (((next - preferred) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        slots[gap] = 0;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The values of the set, in no particular order.
+     */
+    long[] toArray() {
+        long[] values = new long[size];
+        int count = 0;
+
+        for (long slot : slots) {
+            if (slot != 0) {
+                values[count++] = slot;
+            }
+        }
+
+        return values;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The preferred slot of the value. Mixes the bits, so that sequential identifiers are
+     * spread over the table.
+     */
+    private int indexOf(long value) {
+        long hash = value * 0x9e3779b97f4a7c15L;
+
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+}
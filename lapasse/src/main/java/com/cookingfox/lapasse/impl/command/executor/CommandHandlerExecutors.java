@@ -0,0 +1,187 @@
+package com.cookingfox.lapasse.impl.command.executor;
+
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
+import com.cookingfox.lapasse.impl.command.executor.exception.VirtualThreadsUnsupportedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for {@link CommandHandlerExecutorStrategy} implementations.
+ * <p>
+ * All platform threads that are created by these strategies are daemon threads, so an executor that
+ * is never shut down does not prevent the JVM from exiting.
+ */
+public final class CommandHandlerExecutors {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Name prefix for created platform threads.
+     */
+    static final String THREAD_NAME_PREFIX = "lapasse-command-handler-";
+
+    /**
+     * Idle time after which threads of a bounded pool are terminated.
+     */
+    static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * `Executors.newVirtualThreadPerTaskExecutor()` (Java 21+), or `null` if not available.
+     */
+    static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private CommandHandlerExecutors() {
+        throw new UnsupportedOperationException();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a strategy for a bounded pool of platform threads. Threads are created on demand and
+     * are terminated after being idle for a while.
+     *
+     * @param maxThreads The maximum number of threads.
+     * @return The strategy.
+     */
+    public static CommandHandlerExecutorStrategy boundedPool(final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Max threads must be at least 1");
+        }
+
+        return new CommandHandlerExecutorStrategy() {
+            @Override
+            public ExecutorService createExecutor() {
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                        new DaemonThreadFactory());
+                executor.allowCoreThreadTimeOut(true);
+
+                return executor;
+            }
+        };
+    }
+
+    /**
+     * Returns whether the current JVM supports virtual threads.
+     *
+     * @return Whether virtual threads are supported.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Creates a strategy that runs all async command handlers on one (daemon) platform thread. This
+     * is the default strategy.
+     *
+     * @return The strategy.
+     */
+    public static CommandHandlerExecutorStrategy singleThread() {
+        return new CommandHandlerExecutorStrategy() {
+            @Override
+            public ExecutorService createExecutor() {
+                return Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+            }
+        };
+    }
+
+    /**
+     * Creates a strategy that starts a new virtual thread per command. Virtual threads are cheap to
+     * create and block, which makes this strategy suitable for I/O-bound async command handlers.
+     *
+     * @return The strategy.
+     * @throws VirtualThreadsUnsupportedException when the executor is created on a JVM that does
+     *                                            not support virtual threads.
+     * @see #virtualThreadPerCommandOr(CommandHandlerExecutorStrategy)
+     */
+    public static CommandHandlerExecutorStrategy virtualThreadPerCommand() {
+        return new CommandHandlerExecutorStrategy() {
+            @Override
+            public ExecutorService createExecutor() {
+                return newVirtualThreadPerTaskExecutor();
+            }
+        };
+    }
+
+    /**
+     * Creates a strategy that starts a new virtual thread per command if the JVM supports it, and
+     * uses the fallback strategy otherwise.
+     *
+     * @param fallback The strategy to use when virtual threads are not supported.
+     * @return The strategy.
+     */
+    public static CommandHandlerExecutorStrategy virtualThreadPerCommandOr(
+            CommandHandlerExecutorStrategy fallback) {
+        Objects.requireNonNull(fallback, "Fallback strategy can not be null");
+
+        return isVirtualThreadSupported() ? virtualThreadPerCommand() : fallback;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The virtual thread executor factory method, or `null` if not available.
+     */
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return A new virtual thread per task executor.
+     * @throws VirtualThreadsUnsupportedException when virtual threads are not supported.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new VirtualThreadsUnsupportedException(null);
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new VirtualThreadsUnsupportedException(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates named daemon threads.
+     */
+    static final class DaemonThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    }
+
+}
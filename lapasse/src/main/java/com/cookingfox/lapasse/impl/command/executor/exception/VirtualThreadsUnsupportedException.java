@@ -0,0 +1,14 @@
+package com.cookingfox.lapasse.impl.command.executor.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when a virtual thread executor is requested, but the JVM does not support virtual threads.
+ */
+public class VirtualThreadsUnsupportedException extends LaPasseException {
+
+    public VirtualThreadsUnsupportedException(Throwable cause) {
+        super("Virtual threads are not supported by this JVM (requires Java 21 or higher)", cause);
+    }
+
+}
@@ -0,0 +1,487 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.bus.CommandBus;
+import com.cookingfox.lapasse.api.command.schedule.CommandScheduler;
+import com.cookingfox.lapasse.api.command.schedule.OnScheduledCommandLoaded;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommand;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommandStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.cookingfox.lapasse.impl.command.schedule.DefaultScheduledCommand.*;
+
+/**
+ * Default implementation of {@link CommandScheduler}, backed by a hierarchical timing wheel: one
+ * thread advances the wheel every tick and passes the due commands to the command bus. Scheduling
+ * and cancelling take constant time and only allocate the returned {@link ScheduledCommand}, so
+ * millions of commands can be pending.
+ * <p>
+ * Commands are handled on the scheduler thread, in the order of their deadline ticks, and never
+ * before their deadline. When a store is set, scheduled commands are restored by {@link #start()}.
+ * A one-time command is removed from the store after it is handled, so it is handled at least once:
+ * again after a restart, if the application stopped while it was handled. The next deadline of a
+ * recurring command is stored after every run, so after a restart it continues from its last run.
+ */
+public class DefaultCommandScheduler implements CommandScheduler {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default duration of a tick in milliseconds: the precision of the deadlines.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    static final String THREAD_NAME = "lapasse-command-scheduler";
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The commands that are due, but not handled yet. Guarded by the lock.
+     */
+    protected final List<DefaultScheduledCommand> due = new ArrayList<>();
+
+    /**
+     * Guards the wheel, the due commands and the states of the scheduled commands.
+     */
+    protected final Object lock = new Object();
+
+    protected volatile boolean disposed;
+
+    /**
+     * The error of the last command that could not be handled.
+     */
+    protected volatile RuntimeException lastError;
+
+    /**
+     * The identifier of the next scheduled command. Guarded by the lock.
+     */
+    protected long nextId = 1;
+
+    /**
+     * The number of scheduled commands that are not handled or cancelled. Guarded by the lock.
+     */
+    protected int pendingCount;
+
+    /**
+     * Whether the scheduler is started. Guarded by the lock.
+     */
+    protected boolean started;
+
+    /**
+     * Persists the scheduled commands, or `null`.
+     */
+    protected final ScheduledCommandStore store;
+
+    /**
+     * The command bus to pass the due commands to.
+     */
+    protected final CommandBus<?> target;
+
+    /**
+     * Advances the wheel, or `null` if the scheduler is not started.
+     */
+    protected Thread thread;
+
+    protected final long tickMillis;
+
+    /**
+     * Guarded by the lock.
+     */
+    protected final TimingWheel wheel;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    protected DefaultCommandScheduler(Builder builder) {
+        this.store = builder.store;
+        this.target = builder.target;
+        this.tickMillis = builder.tickMillis;
+        this.wheel = new TimingWheel(currentTimeMillis() / tickMillis);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Stops the scheduler thread and disposes the store. Pending commands remain in the store.
+     */
+    @Override
+    public void dispose() {
+        Thread runningThread;
+
+        synchronized (lock) {
+            if (disposed) {
+                return;
+            }
+
+            disposed = true;
+            runningThread = thread;
+            lock.notifyAll();
+        }
+
+        if (runningThread != null && runningThread != Thread.currentThread()) {
+            try {
+                runningThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (store != null) {
+            store.dispose();
+        }
+    }
+
+    /**
+     * @return The error of the last command that could not be handled, or `null`.
+     */
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingCount;
+        }
+    }
+
+    @Override
+    public ScheduledCommand schedule(Command command, long delay, TimeUnit unit) {
+        Objects.requireNonNull(unit, "Time unit can not be null");
+
+        return add(command, currentTimeMillis() + unit.toMillis(Math.max(delay, 0)), 0);
+    }
+
+    @Override
+    public ScheduledCommand scheduleAtFixedRate(Command command, long initialDelay, long period, TimeUnit unit) {
+        Objects.requireNonNull(unit, "Time unit can not be null");
+
+        long periodMillis = unit.toMillis(period);
+
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("Period must be at least 1 millisecond");
+        }
+
+        return add(command, currentTimeMillis() + unit.toMillis(Math.max(initialDelay, 0)), periodMillis);
+    }
+
+    /**
+     * Restores the commands of the store, if set, and starts the scheduler thread. Does nothing if
+     * the scheduler is already started.
+     *
+     * @throws IllegalStateException when the scheduler is disposed.
+     */
+    @Override
+    public void start() {
+        synchronized (lock) {
+            checkNotDisposed();
+
+            if (started) {
+                return;
+            }
+
+            started = true;
+
+            if (store != null) {
+                store.load(new OnScheduledCommandLoaded() {
+                    @Override
+                    public void onScheduledCommandLoaded(long id, Command command, long deadline, long period) {
+                        nextId = Math.max(nextId, id + 1);
+                        insert(new DefaultScheduledCommand(DefaultCommandScheduler.this, id, command, deadline, period));
+                    }
+                });
+            }
+
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runTickLoop();
+                }
+            }, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Schedules a command and stores it.
+     *
+     * @param command  The command to handle.
+     * @param deadline The time of the first run.
+     * @param period   The time between runs, or 0.
+     * @return The scheduled command.
+     */
+    protected ScheduledCommand add(Command command, long deadline, long period) {
+        Objects.requireNonNull(command, "Command can not be null");
+
+        start();
+
+        synchronized (lock) {
+            checkNotDisposed();
+
+            DefaultScheduledCommand scheduled = new DefaultScheduledCommand(this, nextId++, command, deadline, period);
+
+            // store first, so a removal is never stored before its addition
+            if (store != null) {
+                store.add(scheduled);
+            }
+
+            insert(scheduled);
+            return scheduled;
+        }
+    }
+
+    /**
+     * Cancels a scheduled command of this scheduler.
+     *
+     * @param scheduled The scheduled command.
+     * @return Whether the command was cancelled by this call.
+     * @see ScheduledCommand#cancel()
+     */
+    protected boolean cancel(DefaultScheduledCommand scheduled) {
+        synchronized (lock) {
+            int state = scheduled.state;
+
+            if (state != PENDING && !(state == FIRING && scheduled.period > 0)) {
+                return false;
+            }
+
+            wheel.remove(scheduled);
+            scheduled.state = CANCELLED;
+            pendingCount--;
+        }
+
+        if (store != null) {
+            store.remove(scheduled.id);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The current time in milliseconds since the epoch.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Passes a due command to the command bus, and schedules and stores its next run or removes it.
+     *
+     * @param scheduled The due command.
+     */
+    protected void fire(DefaultScheduledCommand scheduled) {
+        try {
+            target.handleCommand(scheduled.command);
+        } catch (RuntimeException e) {
+            lastError = e;
+        }
+
+        long nextDeadline = 0;
+
+        synchronized (lock) {
+            if (scheduled.state != FIRING) {
+                // cancelled while it was handled
+                return;
+            }
+
+            if (scheduled.period > 0) {
+                nextDeadline = getNextDeadline(scheduled.deadline, scheduled.period, currentTimeMillis());
+                scheduled.deadline = nextDeadline;
+                scheduled.deadlineTick = getDeadlineTick(nextDeadline);
+                scheduled.state = PENDING;
+                wheel.add(scheduled, due);
+            } else {
+                scheduled.state = DONE;
+                pendingCount--;
+            }
+        }
+
+        if (store == null) {
+            return;
+        }
+
+        // an update after a removal by a concurrent cancel is ignored by the store
+        if (nextDeadline > 0) {
+            store.update(scheduled.id, nextDeadline);
+        } else {
+            store.remove(scheduled.id);
+        }
+    }
+
+    /**
+     * @param deadline The deadline, in milliseconds.
+     * @return The first tick at or after the deadline, so commands are never handled early.
+     */
+    protected long getDeadlineTick(long deadline) {
+        return deadline / tickMillis + (deadline % tickMillis == 0 ? 0 : 1);
+    }
+
+    /**
+     * Returns the next deadline of a recurring command: one period after the previous deadline, or
+     * the first run in the future if runs were missed.
+     *
+     * @param deadline The previous deadline, in milliseconds.
+     * @param period   The period of the command, in milliseconds.
+     * @param now      The current time, in milliseconds.
+     * @return The next deadline, in milliseconds.
+     */
+    protected static long getNextDeadline(long deadline, long period, long now) {
+        long next = deadline + period;
+
+        if (next <= now) {
+            next += ((now - next) / period + 1) * period;
+        }
+
+        return next;
+    }
+
+    /**
+     * Adds a scheduled command to the wheel and wakes the scheduler thread if necessary. Call
+     * while holding the lock.
+     *
+     * @param scheduled The scheduled command to add.
+     */
+    protected void insert(DefaultScheduledCommand scheduled) {
+        boolean wasIdle = wheel.size() == 0 && due.isEmpty();
+
+        scheduled.deadlineTick = getDeadlineTick(scheduled.deadline);
+        wheel.add(scheduled, due);
+        pendingCount++;
+
+        if (wasIdle || !due.isEmpty()) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Advances the wheel every tick and handles the due commands, until the scheduler is disposed.
+     */
+    protected void runTickLoop() {
+        List<DefaultScheduledCommand> firing = new ArrayList<>();
+
+        while (true) {
+            synchronized (lock) {
+                while (!disposed) {
+                    long now = currentTimeMillis();
+                    wheel.advance(now / tickMillis, due);
+
+                    if (!due.isEmpty()) {
+                        break;
+                    }
+
+                    // wait until the next tick, or until a command is scheduled
+                    long wait = wheel.size() == 0 ? 0 : Math.max((wheel.getCurrentTick() + 1) * tickMillis - now, 1);
+
+                    try {
+                        lock.wait(wait);
+                    } catch (InterruptedException e) {
+                        // ignore: only the scheduler interrupts its thread
+                    }
+                }
+
+                if (disposed) {
+                    return;
+                }
+
+                for (DefaultScheduledCommand scheduled : due) {
+                    if (scheduled.state == PENDING) {
+                        scheduled.state = FIRING;
+                        firing.add(scheduled);
+                    }
+                }
+
+                due.clear();
+            }
+
+            for (DefaultScheduledCommand scheduled : firing) {
+                fire(scheduled);
+            }
+
+            firing.clear();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void checkNotDisposed() {
+        if (disposed) {
+            throw new IllegalStateException("Scheduler is disposed");
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: BUILDER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Builds a command scheduler.
+     */
+    public static class Builder {
+
+        protected ScheduledCommandStore store;
+        protected final CommandBus<?> target;
+        protected long tickMillis = DEFAULT_TICK_MILLIS;
+
+        /**
+         * @param target The command bus to pass the due commands to, for example the facade.
+         */
+        public Builder(CommandBus<?> target) {
+            this.target = Objects.requireNonNull(target, "Target command bus can not be null");
+        }
+
+        public DefaultCommandScheduler build() {
+            return new DefaultCommandScheduler(this);
+        }
+
+        /**
+         * Set the store that persists the scheduled commands, so they survive a restart. By
+         * default, scheduled commands are only kept in memory.
+         *
+         * @param store The store.
+         * @return The builder.
+         */
+        public Builder setStore(ScheduledCommandStore store) {
+            this.store = Objects.requireNonNull(store, "Store can not be null");
+            return this;
+        }
+
+        /**
+         * Set the duration of a tick: the precision of the deadlines. Defaults to
+         * {@link #DEFAULT_TICK_MILLIS} milliseconds.
+         *
+         * @param duration The duration of a tick.
+         * @param unit     The unit of the duration.
+         * @return The builder.
+         */
+        public Builder setTickDuration(long duration, TimeUnit unit) {
+            long millis = Objects.requireNonNull(unit, "Time unit can not be null").toMillis(duration);
+
+            if (millis < 1) {
+                throw new IllegalArgumentException("Tick duration must be at least 1 millisecond");
+            }
+
+            this.tickMillis = millis;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommand;
+
+/**
+ * Default implementation of {@link ScheduledCommand}, which is also the node of its slot in the
+ * timing wheel, so scheduling and cancelling do not allocate anything else.
+ */
+final class DefaultScheduledCommand implements ScheduledCommand {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    static final int PENDING = 0;
+    static final int FIRING = 1;
+    static final int DONE = 2;
+    static final int CANCELLED = 3;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    final Command command;
+    final long id;
+    final long period;
+    final DefaultCommandScheduler scheduler;
+
+    /**
+     * The nominal time of the next run, in milliseconds since the epoch.
+     */
+    volatile long deadline;
+
+    /**
+     * One of the state constants. Only changed by the scheduler, while holding its lock.
+     */
+    volatile int state = PENDING;
+
+    /**
+     * The first tick at or after the deadline.
+     */
+    long deadlineTick;
+
+    /**
+     * The index of the wheel slot that contains this command, or -1 if it is not in the wheel.
+     */
+    int slot = -1;
+
+    DefaultScheduledCommand next;
+    DefaultScheduledCommand previous;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    DefaultScheduledCommand(DefaultCommandScheduler scheduler, long id, Command command,
+                            long deadline, long period) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.command = command;
+        this.deadline = deadline;
+        this.period = period;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean cancel() {
+        return scheduler.cancel(this);
+    }
+
+    @Override
+    public Command getCommand() {
+        return command;
+    }
+
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public long getPeriod() {
+        return period;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultScheduledCommand{" +
+                "id=" + id +
+                ", command=" + command +
+                ", deadline=" + deadline +
+                ", period=" + period +
+                '}';
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.schedule.OnScheduledCommandLoaded;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommand;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommandStore;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.command.schedule.exception.ScheduledCommandStoreException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of {@link ScheduledCommandStore} that appends additions, removals and deadline
+ * updates to a file. The file is compacted when it is loaded, and when it contains more removed
+ * or updated records than pending commands: compaction writes the last deadline of every pending
+ * command into its addition. Every record has a checksum: a record that was not completely written, because the
+ * application stopped, is discarded when the file is opened.
+ * <p>
+ * Records are written to the operating system on every change, so they survive the application
+ * stopping, but are not forced to the disk.
+ * <p>
+ * Record layout: `[int payload length][int CRC-32 of payload][payload]`, where the payload is
+ * `[byte type][long id]`, followed by `[long deadline][long period][encoded command]` for additions
+ * and by `[long deadline]` for updates.
+ */
+public class FileScheduledCommandStore implements ScheduledCommandStore {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    static final byte TYPE_ADD = 1;
+    static final byte TYPE_REMOVE = 2;
+    static final byte TYPE_UPDATE = 3;
+
+    static final int HEADER_SIZE = 8;
+    static final int REMOVE_SIZE = 9;
+    static final int UPDATE_SIZE = 17;
+    static final int ADD_HEADER_SIZE = 25;
+
+    /**
+     * Minimum number of removals and updates before the file is compacted while it is used.
+     */
+    static final int COMPACT_THRESHOLD = 1024;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    protected final MessageCodec codec;
+    protected final File file;
+
+    /**
+     * Guarded by `this`, like the counts.
+     */
+    protected FileChannel channel;
+
+    protected long addCount;
+
+    /**
+     * The number of removals and updates: the records that compaction drops.
+     */
+    protected long removeCount;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Opens the file, creating it if it does not exist, and discards an incomplete last record.
+     *
+     * @param file  The file to store the scheduled commands in.
+     * @param codec Encodes and decodes the commands.
+     * @throws ScheduledCommandStoreException when the file can not be opened.
+     */
+    public FileScheduledCommandStore(File file, MessageCodec codec) {
+        this.file = Objects.requireNonNull(file, "File can not be null");
+        this.codec = Objects.requireNonNull(codec, "Codec can not be null");
+
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            long validLength = readRecords(null);
+
+            if (validLength < channel.size()) {
+                channel.truncate(validLength);
+            }
+
+            channel.position(validLength);
+        } catch (IOException e) {
+            throw new ScheduledCommandStoreException("Could not open " + file, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void add(ScheduledCommand scheduledCommand) {
+        byte[] command = codec.encode(scheduledCommand.getCommand());
+        ByteBuffer payload = ByteBuffer.allocate(ADD_HEADER_SIZE + command.length)
+                .put(TYPE_ADD)
+                .putLong(scheduledCommand.getId())
+                .putLong(scheduledCommand.getDeadline())
+                .putLong(scheduledCommand.getPeriod())
+                .put(command);
+
+        write(payload);
+        addCount++;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Passes the pending commands to the listener, and compacts the file first, so the additions
+     * contain the last deadlines.
+     *
+     * @throws ScheduledCommandStoreException when the file can not be read or compacted.
+     */
+    @Override
+    public synchronized void load(final OnScheduledCommandLoaded listener) {
+        Objects.requireNonNull(listener, "Listener can not be null");
+
+        compact();
+
+        try {
+            readRecords(new RecordVisitor() {
+                @Override
+                public void visit(ByteBuffer payload) {
+                    if (payload.get(0) == TYPE_ADD) {
+                        ByteBuffer command = payload.duplicate();
+                        command.position(ADD_HEADER_SIZE);
+
+                        Message message = codec.decode(command.slice());
+
+                        listener.onScheduledCommandLoaded(payload.getLong(1), (Command) message,
+                                payload.getLong(9), payload.getLong(17));
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new ScheduledCommandStoreException("Could not read " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(long id) {
+        write(ByteBuffer.allocate(REMOVE_SIZE).put(TYPE_REMOVE).putLong(id));
+        removeCount++;
+        compactIfMostlyDropped();
+    }
+
+    @Override
+    public synchronized void update(long id, long deadline) {
+        write(ByteBuffer.allocate(UPDATE_SIZE).put(TYPE_UPDATE).putLong(id).putLong(deadline));
+        removeCount++;
+        compactIfMostlyDropped();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Rewrites the file with only the pending commands, with their last deadlines. Call while
+     * holding the lock.
+     *
+     * @throws ScheduledCommandStoreException when the file can not be compacted.
+     */
+    protected void compact() {
+        if (removeCount == 0) {
+            return;
+        }
+
+        final Set<Long> removed = new HashSet<>();
+        final Map<Long, Long> deadlines = new HashMap<>();
+        File compacted = new File(file.getPath() + ".compact");
+
+        try {
+            readRecords(new RecordVisitor() {
+                @Override
+                public void visit(ByteBuffer payload) {
+                    if (payload.get(0) == TYPE_REMOVE) {
+                        removed.add(payload.getLong(1));
+                    } else if (payload.get(0) == TYPE_UPDATE) {
+                        deadlines.put(payload.getLong(1), payload.getLong(9));
+                    }
+                }
+            });
+
+            final FileChannel target = new RandomAccessFile(compacted, "rw").getChannel();
+            final long[] kept = new long[1];
+
+            try {
+                target.truncate(0);
+
+                readRecords(new RecordVisitor() {
+                    @Override
+                    public void visit(ByteBuffer payload) throws IOException {
+                        if (payload.get(0) == TYPE_ADD && !removed.contains(payload.getLong(1))) {
+                            Long deadline = deadlines.get(payload.getLong(1));
+
+                            if (deadline != null) {
+                                payload.putLong(9, deadline);
+                            }
+
+                            writeRecord(target, payload);
+                            kept[0]++;
+                        }
+                    }
+                });
+
+                target.force(true);
+            } finally {
+                target.close();
+            }
+
+            channel.close();
+
+            if (!compacted.renameTo(file) && !(file.delete() && compacted.renameTo(file))) {
+                throw new IOException("Could not replace " + file);
+            }
+
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            channel.position(channel.size());
+            addCount = kept[0];
+            removeCount = 0;
+        } catch (IOException e) {
+            throw new ScheduledCommandStoreException("Could not compact " + file, e);
+        }
+    }
+
+    /**
+     * Reads the valid records from the start of the file. Counts the records if no visitor is
+     * provided.
+     *
+     * @param visitor The visitor to pass the record payloads to, or `null`.
+     * @return The length of the valid records: the position of an incomplete or corrupt record.
+     * @throws IOException when the file can not be read.
+     */
+    protected long readRecords(RecordVisitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        CRC32 crc = new CRC32();
+        long fileLength = file.length();
+        long length = 0;
+        long adds = 0;
+        long removes = 0;
+
+        try {
+            while (true) {
+                int payloadLength;
+                int checksum;
+                byte[] payload;
+
+                try {
+                    payloadLength = in.readInt();
+                    checksum = in.readInt();
+
+                    if (payloadLength < REMOVE_SIZE || length + HEADER_SIZE + payloadLength > fileLength) {
+                        break;
+                    }
+
+                    payload = new byte[payloadLength];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                if (payload[0] == TYPE_ADD) {
+                    adds++;
+                } else {
+                    removes++;
+                }
+
+                if (visitor != null) {
+                    visitor.visit(ByteBuffer.wrap(payload));
+                }
+
+                length += HEADER_SIZE + payloadLength;
+            }
+        } finally {
+            in.close();
+        }
+
+        if (visitor == null) {
+            addCount = adds;
+            removeCount = removes;
+        }
+
+        return length;
+    }
+
+    /**
+     * Appends a record to the file.
+     *
+     * @param payload The payload of the record, positioned at its end.
+     * @throws ScheduledCommandStoreException when the record can not be written.
+     */
+    protected void write(ByteBuffer payload) {
+        payload.flip();
+
+        try {
+            writeRecord(channel, payload);
+        } catch (IOException e) {
+            throw new ScheduledCommandStoreException("Could not write " + file, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void compactIfMostlyDropped() {
+        if (removeCount >= COMPACT_THRESHOLD && removeCount > addCount - removeCount) {
+            compact();
+        }
+    }
+
+    private static void writeRecord(FileChannel target, ByteBuffer payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(payload.remaining())
+                .putInt((int) crc.getValue());
+        header.flip();
+
+        ByteBuffer[] record = {header, payload.duplicate()};
+
+        while (record[1].hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Visits the payloads of the records in the file.
+     */
+    protected interface RecordVisitor {
+
+        void visit(ByteBuffer payload) throws IOException;
+
+    }
+
+}
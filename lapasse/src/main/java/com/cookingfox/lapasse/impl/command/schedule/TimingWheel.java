@@ -0,0 +1,192 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel of scheduled commands. Every level has 64 slots, and a slot of a level
+ * spans all the slots of the level below it, so eleven levels cover every tick that fits in a
+ * `long`. A command is added to the lowest level where its deadline tick and the current tick
+ * differ, and is moved down a level when the current tick reaches its slot, until it is due.
+ * Adding and removing a command takes constant time, whatever the number of scheduled commands.
+ * <p>
+ * Not thread-safe: the scheduler guards the wheel with its lock.
+ */
+final class TimingWheel {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int SLOT_MASK = SLOTS - 1;
+    static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The first command of every slot: `level * SLOTS + index`.
+     */
+    private final DefaultScheduledCommand[] heads = new DefaultScheduledCommand[LEVELS * SLOTS];
+
+    private long currentTick;
+    private int size;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param currentTick The tick to start at.
+     */
+    TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Adds a command to the wheel, or to the due list if its deadline tick has passed.
+     *
+     * @param command The command to add.
+     * @param due     The list of due commands.
+     */
+    void add(DefaultScheduledCommand command, List<DefaultScheduledCommand> due) {
+        long tick = command.deadlineTick;
+
+        if (tick <= currentTick) {
+            due.add(command);
+            return;
+        }
+
+        int level = (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / SLOT_BITS;
+        link(command, level * SLOTS + ((int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK));
+    }
+
+    /**
+     * Advances the wheel to the provided tick, and adds the commands that became due to the list.
+     *
+     * @param tick The tick to advance to.
+     * @param due  The list of due commands.
+     */
+    void advance(long tick, List<DefaultScheduledCommand> due) {
+        while (currentTick < tick) {
+            if (size == 0) {
+                // nothing to move: skip the remaining ticks
+                currentTick = tick;
+                return;
+            }
+
+            currentTick++;
+
+            // find the highest level whose slot is reached: all lower digits are zero
+            int topLevel = 0;
+
+            while (topLevel + 1 < LEVELS &&
+                    (currentTick & ((1L << ((topLevel + 1) * SLOT_BITS)) - 1)) == 0) {
+                topLevel++;
+            }
+
+            // move the commands of the reached slots down, highest level first
+            for (int level = topLevel; level > 0; level--) {
+                int slot = level * SLOTS + ((int) (currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+                DefaultScheduledCommand command = unlinkAll(slot);
+
+                while (command != null) {
+                    DefaultScheduledCommand next = command.next;
+                    command.next = null;
+                    add(command, due);
+                    command = next;
+                }
+            }
+
+            DefaultScheduledCommand command = unlinkAll((int) currentTick & SLOT_MASK);
+
+            while (command != null) {
+                DefaultScheduledCommand next = command.next;
+                command.next = null;
+                due.add(command);
+                command = next;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Removes a command from the wheel, if it is in the wheel.
+     *
+     * @param command The command to remove.
+     */
+    void remove(DefaultScheduledCommand command) {
+        if (command.slot < 0) {
+            return;
+        }
+
+        if (command.previous == null) {
+            heads[command.slot] = command.next;
+        } else {
+            command.previous.next = command.next;
+        }
+
+        if (command.next != null) {
+            command.next.previous = command.previous;
+        }
+
+        command.next = null;
+        command.previous = null;
+        command.slot = -1;
+        size--;
+    }
+
+    /**
+     * @return The number of commands in the wheel, excluding the due commands.
+     */
+    int size() {
+        return size;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void link(DefaultScheduledCommand command, int slot) {
+        DefaultScheduledCommand head = heads[slot];
+
+        command.slot = slot;
+        command.previous = null;
+        command.next = head;
+
+        if (head != null) {
+            head.previous = command;
+        }
+
+        heads[slot] = command;
+        size++;
+    }
+
+    /**
+     * Empties a slot.
+     *
+     * @return The first command of the slot: the others are linked through `next`.
+     */
+    private DefaultScheduledCommand unlinkAll(int slot) {
+        DefaultScheduledCommand first = heads[slot];
+        heads[slot] = null;
+
+        for (DefaultScheduledCommand command = first; command != null; command = command.next) {
+            command.previous = null;
+            command.slot = -1;
+            size--;
+        }
+
+        return first;
+    }
+
+}
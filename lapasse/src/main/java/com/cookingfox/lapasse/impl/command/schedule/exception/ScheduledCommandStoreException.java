@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.command.schedule.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when scheduled commands can not be read or written.
+ */
+public class ScheduledCommandStoreException extends LaPasseException {
+
+    public ScheduledCommandStoreException(String message) {
+        super(message);
+    }
+
+    public ScheduledCommandStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
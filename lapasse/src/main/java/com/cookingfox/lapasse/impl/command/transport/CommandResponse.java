@@ -0,0 +1,60 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.api.event.Event;
+
+import java.util.List;
+
+/**
+ * The result of a command that was sent to another process: the events that its handler produced,
+ * or a description of the error that occurred.
+ */
+public class CommandResponse {
+
+    protected final long correlationId;
+    protected final String error;
+    protected final List<Event> events;
+
+    public CommandResponse(long correlationId, List<Event> events, String error) {
+        this.correlationId = correlationId;
+        this.error = error;
+        this.events = events;
+    }
+
+    /**
+     * @return The id that was returned when the command was sent.
+     */
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    /**
+     * @return A description of the error that occurred, or `null` if the command was handled.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return The events that the command handler produced: empty if an error occurred.
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return Whether the command was handled without errors.
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandResponse{" +
+                "correlationId=" + correlationId +
+                ", events=" + events +
+                ", error='" + error + '\'' +
+                '}';
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+/**
+ * Handles the responses that a {@link CommandTransportClient} receives.
+ */
+public interface CommandResponseHandler {
+
+    /**
+     * Handle a response.
+     *
+     * @param response The response to a sent command.
+     */
+    void handle(CommandResponse response);
+
+}
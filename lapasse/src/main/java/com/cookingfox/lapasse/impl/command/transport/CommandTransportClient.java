@@ -0,0 +1,218 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.command.transport.exception.CommandTransportException;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends commands to a facade in another process on the same host, through shared memory. The
+ * client writes its commands to its own request ring and reads the responses from its own response
+ * ring, which are served by a {@link CommandTransportServer} in the process of the facade.
+ * <p>
+ * The request ring is a multi-producer ring, so {@link #send(Command)} may be called from several
+ * threads. The responses must be read by one thread at a time, through
+ * {@link #pollResponses(CommandResponseHandler, int)} or {@link #call(Command, long, TimeUnit)}.
+ * Disposing the client removes its rings, which disconnects it from the server.
+ */
+public class CommandTransportClient implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default capacity of the rings in bytes.
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    /**
+     * File extension of request rings.
+     */
+    public static final String REQUESTS_EXTENSION = ".requests";
+
+    /**
+     * File extension of response rings.
+     */
+    public static final String RESPONSES_EXTENSION = ".responses";
+
+    static final byte STATUS_ERROR = 1;
+    static final byte STATUS_OK = 0;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    protected final MessageCodec codec;
+    protected final AtomicLong nextCorrelationId;
+    protected final SharedMemoryRing requests;
+    protected final SharedMemoryRing responses;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Opens the rings of the client, or creates them.
+     *
+     * @param directory The transport directory, shared with the server.
+     * @param clientId  The unique id of the client: determines the ring files.
+     * @param codec     Converts commands and events to bytes and back.
+     * @param capacity  The capacity of new rings in bytes: a power of two.
+     * @throws CommandTransportException when the rings can not be opened.
+     */
+    public CommandTransportClient(File directory, String clientId, MessageCodec codec, int capacity) {
+        Objects.requireNonNull(directory, "Directory can not be null");
+        Objects.requireNonNull(clientId, "Client id can not be null");
+
+        this.codec = Objects.requireNonNull(codec, "Codec can not be null");
+
+        // the response ring first: the server starts serving a client when its request ring exists
+        this.responses = SharedMemoryRing.openOrCreate(new File(directory, clientId + RESPONSES_EXTENSION), capacity);
+        this.requests = SharedMemoryRing.openOrCreate(new File(directory, clientId + REQUESTS_EXTENSION), capacity, true);
+        this.nextCorrelationId = new AtomicLong(System.nanoTime());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Sends a command and spins until its response arrives. Responses to other commands that
+     * arrive first are dropped, so do not mix with {@link #send(Command)}.
+     *
+     * @param command The command to send.
+     * @param timeout The maximum time to wait for the response.
+     * @param unit    The unit of the timeout.
+     * @return The response.
+     * @throws CommandTransportException when the request ring is full or the response does not
+     *                                   arrive in time.
+     */
+    public CommandResponse call(Command command, long timeout, TimeUnit unit) {
+        final long correlationId = send(command);
+        final CommandResponse[] result = new CommandResponse[1];
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        CommandResponseHandler handler = new CommandResponseHandler() {
+            @Override
+            public void handle(CommandResponse response) {
+                if (response.getCorrelationId() == correlationId) {
+                    result[0] = response;
+                }
+            }
+        };
+
+        while (result[0] == null) {
+            if (pollResponses(handler, 1) == 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new CommandTransportException("No response to " + command + " within " + timeout + " " + unit);
+                }
+
+                Thread.yield();
+            }
+        }
+
+        return result[0];
+    }
+
+    /**
+     * Removes the rings of this client: the server stops serving it and forgets its pending
+     * commands when it next looks for clients.
+     */
+    @Override
+    public void dispose() {
+        requests.dispose();
+        responses.dispose();
+
+        // the request ring first: the server evicts a client when its request ring is removed
+        requests.getFile().delete();
+        responses.getFile().delete();
+    }
+
+    /**
+     * Handles the available responses.
+     *
+     * @param handler      Handles the responses.
+     * @param maxResponses The maximum number of responses to handle.
+     * @return The number of handled responses.
+     */
+    public int pollResponses(final CommandResponseHandler handler, int maxResponses) {
+        Objects.requireNonNull(handler, "Handler can not be null");
+
+        return responses.poll(new SharedMemoryRing.RecordHandler() {
+            @Override
+            public void handle(ByteBuffer payload) {
+                handler.handle(decodeResponse(payload));
+            }
+        }, maxResponses);
+    }
+
+    /**
+     * Sends a command, without waiting for its response.
+     *
+     * @param command The command to send.
+     * @return The correlation id of the response.
+     * @throws CommandTransportException when the request ring is full.
+     */
+    public long send(Command command) {
+        Objects.requireNonNull(command, "Command can not be null");
+
+        long correlationId = nextCorrelationId.getAndIncrement();
+        byte[] message = codec.encode(command);
+        byte[] request = ByteBuffer.allocate(8 + message.length).putLong(correlationId).put(message).array();
+
+        if (!requests.offer(request)) {
+            throw new CommandTransportException("Request ring is full: " + requests.getFile());
+        }
+
+        return correlationId;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    protected CommandResponse decodeResponse(ByteBuffer payload) {
+        long correlationId = payload.getLong();
+
+        if (payload.get() == STATUS_ERROR) {
+            byte[] error = new byte[payload.remaining()];
+            payload.get(error);
+
+            return new CommandResponse(correlationId, new ArrayList<Event>(0),
+                    new String(error, StandardCharsets.UTF_8));
+        }
+
+        int count = payload.getInt();
+        List<Event> events = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int length = payload.getInt();
+            ByteBuffer bytes = payload.slice();
+            bytes.limit(length);
+            payload.position(payload.position() + length);
+
+            Message message = codec.decode(bytes);
+
+            if (!(message instanceof Event)) {
+                throw new CommandTransportException("Response contains a message that is not an event: " + message);
+            }
+
+            events.add((Event) message);
+        }
+
+        return new CommandResponse(correlationId, events, null);
+    }
+
+}
@@ -0,0 +1,368 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.logging.CommandLogger;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.command.transport.exception.CommandTransportException;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Serves the commands of {@link CommandTransportClient}s in other processes on the same host: drains
+ * their request rings into {@link Facade#handleCommand(Command)}, and writes the events or errors
+ * of every command to the response ring of its client.
+ * <p>
+ * Call {@link #poll(int)} from one thread, typically in a loop. New clients are discovered at most
+ * every discovery interval, and clients whose request ring was removed are evicted with their
+ * pending commands. Responses are written when the facade's command loggers are notified, so
+ * results of async command handlers are also sent back. The number of pending commands is bounded:
+ * when it is reached, new commands are answered with an error instead of being handled.
+ */
+public class CommandTransportServer implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Minimum time between looking for new clients.
+     */
+    static final long DISCOVERY_INTERVAL_NANOS = 100 * 1000 * 1000;
+
+    /**
+     * Default maximum number of pending commands.
+     */
+    public static final int DEFAULT_MAX_PENDING = 64 * 1024;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Connected clients by id.
+     */
+    protected final Map<String, Client> clients = CollectionUtils.newConcurrentMap();
+
+    protected final MessageCodec codec;
+    protected final File directory;
+    protected final Facade<?> facade;
+    protected long lastDiscovery;
+
+    /**
+     * The maximum number of pending commands.
+     */
+    protected final int maxPending;
+
+    /**
+     * Commands that are being handled, by identity.
+     */
+    protected final Map<Command, Pending> pending = Collections.synchronizedMap(new IdentityHashMap<Command, Pending>());
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a server with the default maximum number of pending commands.
+     *
+     * @param directory The transport directory, shared with the clients.
+     * @param facade    The facade to handle the commands.
+     * @param codec     Converts commands and events to bytes and back.
+     */
+    public CommandTransportServer(File directory, Facade<?> facade, MessageCodec codec) {
+        this(directory, facade, codec, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param directory  The transport directory, shared with the clients.
+     * @param facade     The facade to handle the commands.
+     * @param codec      Converts commands and events to bytes and back.
+     * @param maxPending The maximum number of commands that are being handled.
+     */
+    public CommandTransportServer(File directory, Facade<?> facade, MessageCodec codec, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Max pending must be at least 1");
+        }
+
+        this.codec = Objects.requireNonNull(codec, "Codec can not be null");
+        this.directory = Objects.requireNonNull(directory, "Directory can not be null");
+        this.facade = Objects.requireNonNull(facade, "Facade can not be null");
+        this.maxPending = maxPending;
+
+        facade.addCommandLogger(commandLogger);
+        lastDiscovery = System.nanoTime() - DISCOVERY_INTERVAL_NANOS;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        facade.removeCommandLogger(commandLogger);
+
+        for (Client client : clients.values()) {
+            client.requests.dispose();
+            client.responses.dispose();
+        }
+
+        clients.clear();
+        pending.clear();
+    }
+
+    /**
+     * Handles the available commands of all clients.
+     *
+     * @param maxCommandsPerClient The maximum number of commands to handle per client.
+     * @return The number of handled commands.
+     */
+    public int poll(int maxCommandsPerClient) {
+        long now = System.nanoTime();
+
+        if (now - lastDiscovery >= DISCOVERY_INTERVAL_NANOS) {
+            lastDiscovery = now;
+            discoverClients();
+        }
+
+        int count = 0;
+
+        for (final Client client : clients.values()) {
+            count += client.requests.poll(new SharedMemoryRing.RecordHandler() {
+                @Override
+                public void handle(ByteBuffer payload) {
+                    handleRequest(client, payload);
+                }
+            }, maxCommandsPerClient);
+        }
+
+        return count;
+    }
+
+    /**
+     * Looks for new clients now, and evicts the clients whose request ring was removed.
+     */
+    public void discoverClients() {
+        for (Client client : clients.values()) {
+            if (!client.requests.getFile().exists()) {
+                evictClient(client);
+            }
+        }
+
+        String[] names = directory.list();
+
+        if (names == null) {
+            return;
+        }
+
+        for (String name : names) {
+            if (!name.endsWith(CommandTransportClient.REQUESTS_EXTENSION)) {
+                continue;
+            }
+
+            String clientId = name.substring(0, name.length() - CommandTransportClient.REQUESTS_EXTENSION.length());
+
+            if (clients.containsKey(clientId)) {
+                continue;
+            }
+
+            try {
+                SharedMemoryRing responses = SharedMemoryRing.open(new File(directory, clientId + CommandTransportClient.RESPONSES_EXTENSION));
+                SharedMemoryRing requests = SharedMemoryRing.open(new File(directory, name));
+
+                clients.put(clientId, new Client(clientId, requests, responses));
+            } catch (CommandTransportException e) {
+                // not completely created yet: try again later
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Decodes a request and passes its command to the facade.
+     *
+     * @param client  The client that sent the request.
+     * @param payload The request payload: the correlation id, followed by the encoded command.
+     */
+    protected void handleRequest(Client client, ByteBuffer payload) {
+        long correlationId = payload.getLong();
+        Message message;
+
+        try {
+            message = codec.decode(payload.slice());
+        } catch (RuntimeException e) {
+            respondError(client, correlationId, e);
+            return;
+        }
+
+        if (!(message instanceof Command)) {
+            respondError(client, correlationId, new CommandTransportException("Not a command: " + message));
+            return;
+        }
+
+        Command command = (Command) message;
+
+        if (pending.size() >= maxPending) {
+            respondError(client, correlationId, new CommandTransportException("Too many pending commands: " + maxPending));
+            return;
+        }
+
+        pending.put(command, new Pending(client, correlationId));
+
+        try {
+            facade.handleCommand(command);
+        } catch (RuntimeException e) {
+            // e.g. no handler for the command
+            if (pending.remove(command) != null) {
+                respondError(client, correlationId, e);
+            }
+        }
+    }
+
+    /**
+     * Stops serving a client and forgets its pending commands: their results are not sent.
+     *
+     * @param client The client to evict.
+     */
+    protected void evictClient(Client client) {
+        clients.remove(client.id);
+        client.requests.dispose();
+        client.responses.dispose();
+
+        synchronized (pending) {
+            Iterator<Pending> iterator = pending.values().iterator();
+
+            while (iterator.hasNext()) {
+                if (iterator.next().client == client) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a response to the response ring of a client. Responses can be written from several
+     * threads, so the ring is guarded by the client.
+     *
+     * @param client   The client to respond to.
+     * @param response The encoded response.
+     */
+    protected void respond(Client client, byte[] response) {
+        synchronized (client) {
+            if (!client.responses.offer(response)) {
+                // the client does not read its responses: drop, so the facade is not blocked
+                client.droppedResponses++;
+            }
+        }
+    }
+
+    protected void respondError(Client client, long correlationId, Throwable error) {
+        byte[] description = String.valueOf(error).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer response = ByteBuffer.allocate(9 + description.length);
+        response.putLong(correlationId).put(CommandTransportClient.STATUS_ERROR).put(description);
+
+        respond(client, response.array());
+    }
+
+    protected void respondEvents(Client client, long correlationId, Collection<Event> events) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        try {
+            output.writeLong(correlationId);
+            output.writeByte(CommandTransportClient.STATUS_OK);
+            output.writeInt(events == null ? 0 : events.size());
+
+            if (events != null) {
+                for (Event event : events) {
+                    byte[] encoded = codec.encode(event);
+                    output.writeInt(encoded.length);
+                    output.write(encoded);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            respondError(client, correlationId, e);
+            return;
+        }
+
+        respond(client, bytes.toByteArray());
+    }
+
+    /**
+     * Sends the result of a command to its client.
+     */
+    protected final CommandLogger commandLogger = new CommandLogger() {
+        @Override
+        public void onCommandHandlerError(Throwable error, Command command) {
+            Pending request = pending.remove(command);
+
+            if (request != null) {
+                respondError(request.client, request.correlationId, error);
+            }
+        }
+
+        @Override
+        public void onCommandHandlerResult(Command command, Collection<Event> events) {
+            Pending request = pending.remove(command);
+
+            if (request != null) {
+                respondEvents(request.client, request.correlationId, events);
+            }
+        }
+    };
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * A connected client.
+     */
+    protected static final class Client {
+
+        final String id;
+        final SharedMemoryRing requests;
+        final SharedMemoryRing responses;
+
+        /**
+         * Guarded by this client.
+         */
+        long droppedResponses;
+
+        Client(String id, SharedMemoryRing requests, SharedMemoryRing responses) {
+            this.id = id;
+            this.requests = requests;
+            this.responses = responses;
+        }
+
+    }
+
+    /**
+     * A command that is being handled.
+     */
+    protected static final class Pending {
+
+        final Client client;
+        final long correlationId;
+
+        Pending(Client client, long correlationId) {
+            this.client = client;
+            this.correlationId = correlationId;
+        }
+
+    }
+
+}
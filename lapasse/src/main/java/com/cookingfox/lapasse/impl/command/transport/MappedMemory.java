@@ -0,0 +1,243 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.impl.command.transport.exception.CommandTransportException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Ordered, volatile and atomic accesses to mapped memory by address, which `java.nio` buffers do
+ * not provide. Backed by `sun.misc.Unsafe`, which is looked up reflectively and called through
+ * constant method handles: the JIT compiles these to the same intrinsics as direct calls, and the
+ * proprietary API is not linked at compile time. This is the only class of the transport that
+ * touches Unsafe.
+ */
+final class MappedMemory {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Offset of the `address` field of {@link Buffer}, or -1 if unavailable.
+     */
+    private static final long ADDRESS_FIELD_OFFSET;
+
+    private static final MethodHandle COMPARE_AND_SWAP_LONG;
+    private static final MethodHandle GET_INT_VOLATILE;
+    private static final MethodHandle GET_LONG;
+    private static final MethodHandle GET_LONG_OF_OBJECT;
+    private static final MethodHandle GET_LONG_VOLATILE;
+    private static final MethodHandle PUT_ORDERED_INT;
+    private static final MethodHandle PUT_ORDERED_LONG;
+    private static final MethodHandle SET_MEMORY;
+
+    static {
+        long addressFieldOffset = -1;
+        MethodHandle compareAndSwapLong = null;
+        MethodHandle getIntVolatile = null;
+        MethodHandle getLong = null;
+        MethodHandle getLongOfObject = null;
+        MethodHandle getLongVolatile = null;
+        MethodHandle putOrderedInt = null;
+        MethodHandle putOrderedLong = null;
+        MethodHandle setMemory = null;
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            Object unsafe = unsafeField.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            MethodHandle objectFieldOffset = lookup.findVirtual(unsafeClass, "objectFieldOffset",
+                    MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+            addressFieldOffset = (long) objectFieldOffset.invokeExact(Buffer.class.getDeclaredField("address"));
+
+            compareAndSwapLong = lookup.findVirtual(unsafeClass, "compareAndSwapLong",
+                    MethodType.methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+            getIntVolatile = lookup.findVirtual(unsafeClass, "getIntVolatile",
+                    MethodType.methodType(int.class, Object.class, long.class)).bindTo(unsafe);
+            getLong = lookup.findVirtual(unsafeClass, "getLong",
+                    MethodType.methodType(long.class, long.class)).bindTo(unsafe);
+            getLongOfObject = lookup.findVirtual(unsafeClass, "getLong",
+                    MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            getLongVolatile = lookup.findVirtual(unsafeClass, "getLongVolatile",
+                    MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            putOrderedInt = lookup.findVirtual(unsafeClass, "putOrderedInt",
+                    MethodType.methodType(void.class, Object.class, long.class, int.class)).bindTo(unsafe);
+            putOrderedLong = lookup.findVirtual(unsafeClass, "putOrderedLong",
+                    MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            setMemory = lookup.findVirtual(unsafeClass, "setMemory",
+                    MethodType.methodType(void.class, long.class, long.class, byte.class)).bindTo(unsafe);
+        } catch (Throwable e) {
+            // not supported by this runtime
+            addressFieldOffset = -1;
+        }
+
+        ADDRESS_FIELD_OFFSET = addressFieldOffset;
+        COMPARE_AND_SWAP_LONG = compareAndSwapLong;
+        GET_INT_VOLATILE = getIntVolatile;
+        GET_LONG = getLong;
+        GET_LONG_OF_OBJECT = getLongOfObject;
+        GET_LONG_VOLATILE = getLongVolatile;
+        PUT_ORDERED_INT = putOrderedInt;
+        PUT_ORDERED_LONG = putOrderedLong;
+        SET_MEMORY = setMemory;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private MappedMemory() {
+        throw new UnsupportedOperationException();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param buffer The mapped buffer: keeps the mapping alive.
+     * @return The address of the mapped memory of the buffer.
+     * @throws CommandTransportException when the runtime does not provide these accesses.
+     */
+    static long addressOf(MappedByteBuffer buffer) {
+        if (ADDRESS_FIELD_OFFSET < 0) {
+            throw new CommandTransportException("Shared memory rings are not supported: " +
+                    "sun.misc.Unsafe is not available");
+        }
+
+        try {
+            return (long) GET_LONG_OF_OBJECT.invokeExact((Object) buffer, ADDRESS_FIELD_OFFSET);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Atomically sets a long to a new value if it has the expected value (full fence).
+     *
+     * @param address  The address of the long.
+     * @param expected The expected value.
+     * @param value    The new value.
+     * @return Whether the value was set.
+     */
+    static boolean compareAndSetLong(long address, long expected, long value) {
+        try {
+            return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, address, expected, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads an int in native byte order with a volatile load (acquire).
+     *
+     * @param address The address of the int.
+     * @return The value.
+     */
+    static int getIntVolatile(long address) {
+        try {
+            return (int) GET_INT_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads a long in native byte order with a plain load: only for values that this thread wrote.
+     *
+     * @param address The address of the long.
+     * @return The value.
+     */
+    static long getLong(long address) {
+        try {
+            return (long) GET_LONG.invokeExact(address);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads a long in native byte order with a volatile load (acquire).
+     *
+     * @param address The address of the long.
+     * @return The value.
+     */
+    static long getLongVolatile(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Writes an int in native byte order with an ordered store (release).
+     *
+     * @param address The address of the int.
+     * @param value   The value.
+     */
+    static void putOrderedInt(long address, int value) {
+        try {
+            PUT_ORDERED_INT.invokeExact((Object) null, address, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Writes a long in native byte order with an ordered store (release).
+     *
+     * @param address The address of the long.
+     * @param value   The value.
+     */
+    static void putOrderedLong(long address, long value) {
+        try {
+            PUT_ORDERED_LONG.invokeExact((Object) null, address, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Sets a range of bytes to zero with plain stores.
+     *
+     * @param address The address of the first byte.
+     * @param length  The number of bytes.
+     */
+    static void zero(long address, long length) {
+        try {
+            SET_MEMORY.invokeExact(address, length, (byte) 0);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The Unsafe methods only throw unchecked exceptions: rethrows them as is.
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+
+        throw new IllegalStateException(e);
+    }
+
+}
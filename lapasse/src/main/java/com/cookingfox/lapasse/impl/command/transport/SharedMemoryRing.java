@@ -0,0 +1,349 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.impl.command.transport.exception.CommandTransportException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A ring buffer in a memory-mapped file, for passing records between processes on one host. A
+ * ring has one consumer and either one producer or, when created in multi-producer mode, any
+ * number of producers in any number of processes.
+ * <p>
+ * The file starts with a header: a magic number, the capacity and the mode, the consumer position
+ * and the producer position, each on its own cache line. A producer claims the space of a record
+ * by advancing the producer position: with a plain store if it is the only producer, with a
+ * compare-and-set otherwise. It then writes the payload and commits the record by writing its
+ * header (length plus one, aligned to 8 bytes). The consumer handles the committed records in
+ * order, stops at a header of zero, zeroes the space of the handled records and then releases it
+ * by advancing the consumer position. The headers, positions and magic number are accessed in
+ * native byte order through {@link MappedMemory}: an ordered store (release) publishes a value
+ * after the accesses before it, and a volatile load (acquire) of a value happens before the
+ * accesses after it. A runtime without these operations can not open a ring.
+ * <p>
+ * Only one thread may consume.
+ * <p>
+ * In multi-producer mode a record is claimed and committed in two steps, and the consumer can not
+ * tell an abandoned claim from a slow producer: a producer that stops between the two, for example
+ * because its process crashes, leaves an uncommitted record that blocks the consumer for good, and
+ * the ring fills up behind it. Multi-producer rings are therefore only safe with producers that do
+ * not stop while writing a record. To recover, stop the producers and the consumer and delete the
+ * ring file: the records after the abandoned one are lost.
+ */
+public class SharedMemoryRing implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    static final int MAGIC = 0x4c505248;
+    static final int CAPACITY_OFFSET = 4;
+    static final int MODE_OFFSET = 8;
+    static final int CONSUMER_OFFSET = 64;
+    static final int PRODUCER_OFFSET = 128;
+    static final int DATA_OFFSET = 192;
+
+    static final int MODE_SINGLE_PRODUCER = 0;
+    static final int MODE_MULTI_PRODUCER = 1;
+
+    /**
+     * Header of a record that marks the rest of the ring as unused: the next record is at the start.
+     */
+    static final int PADDING = -1;
+
+    /**
+     * Header of a record that is not committed yet.
+     */
+    static final int UNCOMMITTED = 0;
+
+    /**
+     * Size of the record header (length) in bytes.
+     */
+    static final int RECORD_HEADER_SIZE = 4;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The address of the mapping: the buffer keeps the mapping alive.
+     */
+    protected final long address;
+
+    protected final MappedByteBuffer buffer;
+    protected final int capacity;
+    protected final File file;
+    protected final boolean multiProducer;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    protected SharedMemoryRing(File file, MappedByteBuffer buffer, int capacity, boolean multiProducer) {
+        this.address = MappedMemory.addressOf(buffer);
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.file = file;
+        this.multiProducer = multiProducer;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC FACTORY METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Opens the ring in the file, or creates a single-producer ring if the file does not exist.
+     *
+     * @param file     The ring file.
+     * @param capacity The capacity in bytes of a new ring: a power of two, at least 64.
+     * @return The ring.
+     * @throws CommandTransportException when the ring can not be opened or is invalid.
+     * @see #openOrCreate(File, int, boolean)
+     */
+    public static SharedMemoryRing openOrCreate(File file, int capacity) {
+        return openOrCreate(file, capacity, false);
+    }
+
+    /**
+     * Opens the ring in the file, or creates it if the file does not exist. An existing ring keeps
+     * its positions and mode, so a restarted process continues where it stopped.
+     *
+     * @param file          The ring file.
+     * @param capacity      The capacity in bytes of a new ring: a power of two, at least 64.
+     * @param multiProducer Whether a new ring may have several producers.
+     * @return The ring.
+     * @throws CommandTransportException when the ring can not be opened or is invalid.
+     */
+    public static SharedMemoryRing openOrCreate(File file, int capacity, boolean multiProducer) {
+        if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, at least 64");
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+
+            if (channel.size() == 0) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + capacity);
+                long address = MappedMemory.addressOf(buffer);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putInt(MODE_OFFSET, multiProducer ? MODE_MULTI_PRODUCER : MODE_SINGLE_PRODUCER);
+
+                // publish the capacity and mode with the magic number
+                MappedMemory.putOrderedInt(address, MAGIC);
+
+                return new SharedMemoryRing(file, buffer, capacity, multiProducer);
+            }
+        } catch (IOException e) {
+            throw new CommandTransportException("Could not create ring " + file, e);
+        }
+
+        return open(file);
+    }
+
+    /**
+     * Opens an existing ring.
+     *
+     * @param file The ring file.
+     * @return The ring.
+     * @throws CommandTransportException when the ring can not be opened or is invalid.
+     */
+    public static SharedMemoryRing open(File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+
+            if (size < DATA_OFFSET) {
+                throw new CommandTransportException("Invalid ring " + file);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            long address = MappedMemory.addressOf(buffer);
+
+            if (MappedMemory.getIntVolatile(address) != MAGIC) {
+                throw new CommandTransportException("Invalid ring " + file);
+            }
+
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            int mode = buffer.getInt(MODE_OFFSET);
+
+            if (Integer.bitCount(capacity) != 1 || DATA_OFFSET + capacity != size ||
+                    (mode != MODE_SINGLE_PRODUCER && mode != MODE_MULTI_PRODUCER)) {
+                throw new CommandTransportException("Invalid ring " + file);
+            }
+
+            return new SharedMemoryRing(file, buffer, capacity, mode == MODE_MULTI_PRODUCER);
+        } catch (IOException e) {
+            throw new CommandTransportException("Could not open ring " + file, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Does nothing: the mapping is released when the ring is garbage collected.
+     */
+    @Override
+    public void dispose() {
+        // the mapping can not be released explicitly
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return Whether this ring may have several producers.
+     */
+    public boolean isMultiProducer() {
+        return multiProducer;
+    }
+
+    /**
+     * Writes a record, if there is space: producers only. In single-producer mode only one thread
+     * may call this method. In multi-producer mode the consumer waits for every claimed record, so
+     * a producer that stops before this method returns blocks the ring (see the class doc).
+     *
+     * @param payload The payload of the record.
+     * @return Whether the record was written: `false` if the ring is full.
+     * @throws IllegalArgumentException when the record is larger than the capacity.
+     */
+    public boolean offer(byte[] payload) {
+        int recordSize = align(RECORD_HEADER_SIZE + payload.length);
+
+        if (recordSize > capacity) {
+            throw new IllegalArgumentException("Record is larger than the ring capacity: " + recordSize);
+        }
+
+        long producer;
+        int padding;
+
+        while (true) {
+            // in single-producer mode only this thread writes the producer position
+            producer = multiProducer ? MappedMemory.getLongVolatile(address + PRODUCER_OFFSET) :
+                    MappedMemory.getLong(address + PRODUCER_OFFSET);
+            long consumer = MappedMemory.getLongVolatile(address + CONSUMER_OFFSET);
+
+            int remaining = capacity - (int) (producer & (capacity - 1));
+            padding = remaining < recordSize ? remaining : 0;
+
+            if (producer + padding + recordSize - consumer > capacity) {
+                return false;
+            }
+
+            long claimed = producer + padding + recordSize;
+
+            if (!multiProducer) {
+                MappedMemory.putOrderedLong(address + PRODUCER_OFFSET, claimed);
+                break;
+            } else if (MappedMemory.compareAndSetLong(address + PRODUCER_OFFSET, producer, claimed)) {
+                break;
+            }
+
+            // another producer claimed the space first
+        }
+
+        int offset = (int) (producer & (capacity - 1));
+
+        if (padding > 0) {
+            MappedMemory.putOrderedInt(address + DATA_OFFSET + offset, PADDING);
+            offset = 0;
+        }
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(DATA_OFFSET + offset + RECORD_HEADER_SIZE);
+        target.put(payload);
+
+        // commit the record
+        MappedMemory.putOrderedInt(address + DATA_OFFSET + offset, payload.length + 1);
+
+        return true;
+    }
+
+    /**
+     * Handles the committed records: consumer only.
+     *
+     * @param handler    Handles the records: the payload is only valid during the call.
+     * @param maxRecords The maximum number of records to handle.
+     * @return The number of handled records.
+     */
+    public int poll(RecordHandler handler, int maxRecords) {
+        // only this thread writes the consumer position
+        long consumer = MappedMemory.getLong(address + CONSUMER_OFFSET);
+        int count = 0;
+
+        try {
+            while (count < maxRecords) {
+                int offset = (int) (consumer & (capacity - 1));
+                int header = MappedMemory.getIntVolatile(address + DATA_OFFSET + offset);
+
+                if (header == UNCOMMITTED) {
+                    break;
+                } else if (header == PADDING) {
+                    MappedMemory.zero(address + DATA_OFFSET + offset, capacity - offset);
+                    consumer += capacity - offset;
+                    continue;
+                }
+
+                int length = header - 1;
+                int recordSize = align(RECORD_HEADER_SIZE + length);
+
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(DATA_OFFSET + offset + RECORD_HEADER_SIZE);
+                payload.limit(DATA_OFFSET + offset + RECORD_HEADER_SIZE + length);
+
+                // release the record even if the handler fails, so it does not block the ring
+                consumer += recordSize;
+                count++;
+
+                try {
+                    handler.handle(payload.slice().asReadOnlyBuffer());
+                } finally {
+                    // the header of a later record may be written anywhere in this space
+                    MappedMemory.zero(address + DATA_OFFSET + offset, recordSize);
+                }
+            }
+        } finally {
+            MappedMemory.putOrderedLong(address + CONSUMER_OFFSET, consumer);
+        }
+
+        return count;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Handles the records of a ring.
+     */
+    public interface RecordHandler {
+
+        /**
+         * Handle a record.
+         *
+         * @param payload The payload: a read-only view that is only valid during the call.
+         */
+        void handle(ByteBuffer payload);
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.command.transport.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when a command or response can not be transported between processes.
+ */
+public class CommandTransportException extends LaPasseException {
+
+    public CommandTransportException(String message) {
+        super(message);
+    }
+
+    public CommandTransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -4,15 +4,24 @@ import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.event.exception.EventHandlerReturnedNullException;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLogger;
 import com.cookingfox.lapasse.api.event.logging.EventLoggerHelper;
 import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.impl.message.bus.AbstractMessageBus;
+import com.cookingfox.lapasse.impl.message.bus.DispatchRoute;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Default implementation of {@link EventBus}.
@@ -23,11 +32,27 @@ public class DefaultEventBus<S extends State>
         extends AbstractMessageBus<Event, EventHandler<S, Event>>
         implements EventBus<S> {
 
+    /**
+     * Snapshot of an event without mapped handlers.
+     */
+    private static final Object[] NO_HANDLERS = new Object[0];
+
+    /**
+     * Handler dispatchers that route events directly to their handler methods.
+     */
+    protected final SnapshotSet<HandlerDispatcher<S>> eventDispatchers = CollectionUtils.newSnapshotSet();
+
     /**
      * Used for logging the event handler operations.
      */
     protected final EventLoggerHelper<S> loggerHelper;
 
+    /**
+     * Configuration for executing event handlers in parallel, or `null` to execute them one after
+     * the other.
+     */
+    protected volatile ParallelEventHandlers<S> parallelEventHandlers;
+
     /**
      * Provides access to the current state.
      */
@@ -40,7 +65,21 @@ public class DefaultEventBus<S extends State>
     public DefaultEventBus(MessageStore messageStore,
                            EventLoggerHelper<S> loggerHelper,
                            StateManager<S> stateManager) {
-        super(messageStore);
+        this(messageStore, loggerHelper, stateManager, 0);
+    }
+
+    /**
+     * @param messageStore       Stores the handled events.
+     * @param loggerHelper       Notifies the event loggers.
+     * @param stateManager       Provides the current state and handles the new states.
+     * @param expectedEventTypes The expected number of mapped event types, used to size the
+     *                           handler map.
+     */
+    public DefaultEventBus(MessageStore messageStore,
+                           EventLoggerHelper<S> loggerHelper,
+                           StateManager<S> stateManager,
+                           int expectedEventTypes) {
+        super(messageStore, expectedEventTypes);
 
         this.loggerHelper = Objects.requireNonNull(loggerHelper, "Logger helper can not be null");
         this.stateManager = Objects.requireNonNull(stateManager, "State manager can not be null");
@@ -55,11 +94,24 @@ public class DefaultEventBus<S extends State>
         loggerHelper.addEventLogger(logger);
     }
 
+    @Override
+    public void dispose() {
+        eventDispatchers.clear();
+
+        super.dispose();
+    }
+
     @Override
     public void handleEvent(Event event) {
         handleMessage(event);
     }
 
+    @Override
+    public void mapEventDispatcher(HandlerDispatcher<S> dispatcher) {
+        eventDispatchers.add(Objects.requireNonNull(dispatcher, "Dispatcher can not be null"));
+        clearDispatchRoutes();
+    }
+
     @Override
     public <E extends Event> void mapEventHandler(Class<E> eventClass, EventHandler<S, E> eventHandler) {
         // noinspection unchecked
@@ -71,6 +123,16 @@ public class DefaultEventBus<S extends State>
         loggerHelper.removeEventLogger(logger);
     }
 
+    @Override
+    public void setParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<S> combiner) {
+        if (pool == null || combiner == null) {
+            // execute the event handlers one after the other
+            parallelEventHandlers = null;
+        } else {
+            parallelEventHandlers = new ParallelEventHandlers<>(pool, combiner);
+        }
+    }
+
     //----------------------------------------------------------------------------------------------
     // OVERRIDDEN ABSTRACT METHODS
     //----------------------------------------------------------------------------------------------
@@ -87,6 +149,187 @@ public class DefaultEventBus<S extends State>
             return;
         }
 
+        handleResult(event, newState);
+    }
+
+    @Override
+    protected boolean shouldHandleMessageType(Message message) {
+        return message instanceof Event;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // OVERRIDDEN PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    protected void dispatch(Event event) {
+        DispatchRoute route = getDispatchRoute(event.getClass());
+
+        for (int i = 0; i < route.size(); i++) {
+            executeDispatcher(route.<S>getDispatcher(i), route.getIndex(i), event);
+        }
+    }
+
+    /**
+     * Executes the dispatched and mapped event handlers in parallel when configured, and when
+     * there is more than one.
+     *
+     * @see #setParallelEventHandlers(ForkJoinPool, EventHandlerCombiner)
+     */
+    @Override
+    protected void routeMessage(Event event) {
+        ParallelEventHandlers<S> parallel = parallelEventHandlers;
+
+        if (parallel == null) {
+            super.routeMessage(event);
+            return;
+        }
+
+        DispatchRoute route = getDispatchRoute(event.getClass());
+        SnapshotSet<EventHandler<S, Event>> handlers = messageHandlerMap.isEmpty() ? null :
+                getMessageHandlers(event.getClass());
+        Object[] snapshot = handlers == null ? NO_HANDLERS : handlers.snapshot();
+
+        if (route.size() + snapshot.length < 2) {
+            super.routeMessage(event);
+        } else {
+            executeHandlersInParallel(parallel, event, route, snapshot);
+        }
+    }
+
+    @Override
+    protected DispatchRoute resolveDispatchRoute(Class<? extends Message> messageClass) {
+        Object[] dispatchers = eventDispatchers.snapshot();
+        HandlerDispatcher[] matched = new HandlerDispatcher[dispatchers.length];
+        int[] indices = new int[dispatchers.length];
+        int size = 0;
+
+        for (Object element : dispatchers) {
+            HandlerDispatcher dispatcher = (HandlerDispatcher) element;
+            int index = dispatcher.getEventIndex(messageClass);
+
+            if (index != HandlerDispatcher.NOT_HANDLED) {
+                matched[size] = dispatcher;
+                indices[size++] = index;
+            }
+        }
+
+        return DispatchRoute.of(matched, indices, size);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Execute an event handler of a dispatcher.
+     *
+     * @param dispatcher The dispatcher to execute the event handler of.
+     * @param index      The index of the event handler.
+     * @param event      The event object.
+     */
+    protected void executeDispatcher(HandlerDispatcher<S> dispatcher, int index, Event event) {
+        S newState;
+
+        try {
+            // attempt to create a new state by applying the event to the current state
+            newState = dispatcher.dispatchEvent(index, stateManager.getCurrentState(), event);
+        } catch (Exception e) {
+            loggerHelper.onEventHandlerError(e, event);
+            return;
+        }
+
+        handleResult(event, newState);
+    }
+
+    /**
+     * Applies the dispatched and mapped event handlers to the same current state in parallel,
+     * combines their new states and passes the combined state to the state manager once. The
+     * calling thread executes the last handler itself. Errors of individual handlers are logged and
+     * their results are left out.
+     *
+     * @param parallel The pool and combiner to use.
+     * @param event    The event to handle.
+     * @param route    The dispatchers of the event handlers to execute.
+     * @param handlers The mapped event handlers to execute.
+     */
+    protected void executeHandlersInParallel(ParallelEventHandlers<S> parallel, Event event,
+                                             DispatchRoute route, Object[] handlers) {
+        S previousState = stateManager.getCurrentState();
+        int lastIndex = route.size() + handlers.length - 1;
+        List<EventHandlerTask<S>> tasks = new ArrayList<>(lastIndex + 1);
+
+        for (int i = 0; i < lastIndex; i++) {
+            EventHandlerTask<S> task = createTask(route, handlers, i, previousState, event);
+            parallel.pool.execute(task);
+            tasks.add(task);
+        }
+
+        // the calling thread executes the last handler, while the pool executes the others
+        EventHandlerTask<S> lastTask = createTask(route, handlers, lastIndex, previousState, event);
+        lastTask.invoke();
+        tasks.add(lastTask);
+
+        List<S> newStates = new ArrayList<>(tasks.size());
+
+        for (EventHandlerTask<S> task : tasks) {
+            task.join();
+
+            if (task.error != null) {
+                loggerHelper.onEventHandlerError(task.error, event);
+            } else if (task.newState == null) {
+                loggerHelper.onEventHandlerError(new EventHandlerReturnedNullException(event), event);
+            } else {
+                newStates.add(task.newState);
+            }
+        }
+
+        // no successful handlers: nothing to combine
+        if (newStates.isEmpty()) {
+            return;
+        }
+
+        S combinedState;
+
+        try {
+            combinedState = parallel.combiner.combine(previousState, event, newStates);
+        } catch (Exception e) {
+            loggerHelper.onEventHandlerError(e, event);
+            return;
+        }
+
+        handleResult(event, combinedState);
+    }
+
+    /**
+     * Creates the task of a dispatched or mapped event handler.
+     *
+     * @param route         The dispatchers of the event handlers.
+     * @param handlers      The mapped event handlers.
+     * @param position      The position of the handler: the dispatched handlers come first.
+     * @param previousState The state to apply the event to.
+     * @param event         The event to handle.
+     * @return The task.
+     */
+    protected EventHandlerTask<S> createTask(DispatchRoute route, Object[] handlers, int position,
+                                             S previousState, Event event) {
+        if (position < route.size()) {
+            return new EventHandlerTask<>(route.<S>getDispatcher(position), route.getIndex(position),
+                    previousState, event);
+        }
+
+        // noinspection unchecked
+        return new EventHandlerTask<>((EventHandler<S, Event>) handlers[position - route.size()],
+                previousState, event);
+    }
+
+    /**
+     * Handle the result of an event handler.
+     *
+     * @param event    The event that was handled.
+     * @param newState (Optional) The new state that was produced by the event handler.
+     */
+    protected void handleResult(Event event, S newState) {
         // log handler result
         loggerHelper.onEventHandlerResult(event, newState);
 
@@ -99,9 +342,73 @@ public class DefaultEventBus<S extends State>
         }
     }
 
-    @Override
-    protected boolean shouldHandleMessageType(Message message) {
-        return message instanceof Event;
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Configuration for executing event handlers in parallel.
+     *
+     * @param <S> The concrete type of the state object.
+     */
+    protected static final class ParallelEventHandlers<S extends State> {
+
+        final EventHandlerCombiner<S> combiner;
+        final ForkJoinPool pool;
+
+        ParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<S> combiner) {
+            this.combiner = combiner;
+            this.pool = pool;
+        }
+
+    }
+
+    /**
+     * Applies a mapped or dispatched event handler to a state. Errors are kept, instead of
+     * rethrown by the pool.
+     *
+     * @param <S> The concrete type of the state object.
+     */
+    static final class EventHandlerTask<S extends State> extends RecursiveAction {
+
+        private final HandlerDispatcher<S> dispatcher;
+        private final int dispatcherIndex;
+        private final Event event;
+        private final EventHandler<S, Event> eventHandler;
+        private final S previousState;
+
+        Exception error;
+        S newState;
+
+        EventHandlerTask(EventHandler<S, Event> eventHandler, S previousState, Event event) {
+            this.dispatcher = null;
+            this.dispatcherIndex = HandlerDispatcher.NOT_HANDLED;
+            this.event = event;
+            this.eventHandler = eventHandler;
+            this.previousState = previousState;
+        }
+
+        EventHandlerTask(HandlerDispatcher<S> dispatcher, int dispatcherIndex, S previousState, Event event) {
+            this.dispatcher = dispatcher;
+            this.dispatcherIndex = dispatcherIndex;
+            this.event = event;
+            this.eventHandler = null;
+            this.previousState = previousState;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (dispatcher != null) {
+                    newState = dispatcher.dispatchEvent(dispatcherIndex, previousState, event);
+                } else {
+                    newState = eventHandler.handle(previousState, event);
+                }
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
     }
 
 }
@@ -2,27 +2,50 @@ package com.cookingfox.lapasse.impl.facade;
 
 import com.cookingfox.lapasse.api.command.Command;
 import com.cookingfox.lapasse.api.command.bus.CommandBus;
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
 import com.cookingfox.lapasse.api.command.handler.CommandHandler;
 import com.cookingfox.lapasse.api.command.logging.CommandLogger;
+import com.cookingfox.lapasse.api.command.schedule.CommandScheduler;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommandStore;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
+import com.cookingfox.lapasse.api.event.exception.NoRegisteredEventLoggerException;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLogger;
 import com.cookingfox.lapasse.api.facade.Facade;
 import com.cookingfox.lapasse.api.logging.CombinedLogger;
 import com.cookingfox.lapasse.api.logging.LoggersHelper;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+import com.cookingfox.lapasse.api.state.partition.StatePartitioner;
 import com.cookingfox.lapasse.impl.command.bus.DefaultCommandBus;
+import com.cookingfox.lapasse.impl.command.schedule.DefaultCommandScheduler;
 import com.cookingfox.lapasse.impl.event.bus.DefaultEventBus;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
+import com.cookingfox.lapasse.impl.helper.exception.InvalidRoutingGraphException;
+import com.cookingfox.lapasse.impl.logging.DefaultLogger;
 import com.cookingfox.lapasse.impl.logging.DefaultLoggersHelper;
 import com.cookingfox.lapasse.impl.message.store.NoStorageMessageStore;
 import com.cookingfox.lapasse.impl.state.manager.DefaultStateManager;
-
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Implementation of {@link Facade}, containing a Builder class.
@@ -31,12 +54,44 @@ import java.util.concurrent.ExecutorService;
  */
 public class LaPasseFacade<S extends State> implements Facade<S> {
 
+    /**
+     * Maximum number of events that are read before they are passed to the replay partitions.
+     */
+    static final int REPLAY_BATCH_SIZE = 4096;
+
+    /**
+     * Event of the state reset of the warm-up copy between iterations.
+     */
+    static final Event WARM_UP_RESET = new Event() {
+    };
+
     protected final CommandBus<S> commandBus;
     protected final EventBus<S> eventBus;
     protected final LoggersHelper<S> loggersHelper;
     protected final MessageStore messageStore;
     protected final StateManager<S> stateManager;
 
+    /**
+     * Handles commands later, or `null` until it is first requested.
+     *
+     * @see #getCommandScheduler()
+     */
+    protected volatile CommandScheduler commandScheduler;
+
+    /**
+     * Persists the scheduled commands, or `null` to only keep them in memory.
+     */
+    protected final ScheduledCommandStore scheduledCommandStore;
+
+    /**
+     * The handlers and dispatchers that were mapped through this facade, in order. They are mapped
+     * to the isolated facade copies that are used for warming up and parallel replay.
+     *
+     * @see #warmUp(Collection, int)
+     * @see #replayInParallel(Iterable, StatePartitioner, ForkJoinPool, int)
+     */
+    protected final SnapshotSet<HandlerMapping> handlerMappings = CollectionUtils.newSnapshotSet();
+
     //----------------------------------------------------------------------------------------------
     // CONSTRUCTOR
     //----------------------------------------------------------------------------------------------
@@ -46,11 +101,29 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
                          LoggersHelper<S> loggersHelper,
                          MessageStore messageStore,
                          StateManager<S> stateManager) {
+        this(commandBus, eventBus, loggersHelper, messageStore, stateManager, null);
+    }
+
+    /**
+     * @param commandBus            Handles the commands.
+     * @param eventBus              Handles the events.
+     * @param loggersHelper         Notifies the command and event loggers.
+     * @param messageStore          Stores the handled messages.
+     * @param stateManager          Manages the state.
+     * @param scheduledCommandStore (Optional) Persists the commands of the command scheduler.
+     */
+    public LaPasseFacade(CommandBus<S> commandBus,
+                         EventBus<S> eventBus,
+                         LoggersHelper<S> loggersHelper,
+                         MessageStore messageStore,
+                         StateManager<S> stateManager,
+                         ScheduledCommandStore scheduledCommandStore) {
         this.commandBus = Objects.requireNonNull(commandBus, "Command bus can not be null");
         this.eventBus = Objects.requireNonNull(eventBus, "Event bus can not be null");
         this.loggersHelper = Objects.requireNonNull(loggersHelper, "Loggers helper can not be null");
         this.messageStore = Objects.requireNonNull(messageStore, "Message store can not be null");
         this.stateManager = Objects.requireNonNull(stateManager, "State manager can not be null");
+        this.scheduledCommandStore = scheduledCommandStore;
     }
 
     //----------------------------------------------------------------------------------------------
@@ -81,9 +154,16 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         commandBus.handleCommand(command);
     }
 
+    @Override
+    public void mapCommandDispatcher(HandlerDispatcher<S> dispatcher) {
+        commandBus.mapCommandDispatcher(dispatcher);
+        handlerMappings.add(new HandlerMapping(HandlerMapping.COMMAND_DISPATCHER, null, dispatcher));
+    }
+
     @Override
     public <C extends Command, E extends Event> void mapCommandHandler(Class<C> commandClass, CommandHandler<S, C, E> commandHandler) {
         commandBus.mapCommandHandler(commandClass, commandHandler);
+        handlerMappings.add(new HandlerMapping(HandlerMapping.COMMAND_HANDLER, commandClass, commandHandler));
     }
 
     @Override
@@ -96,12 +176,70 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         commandBus.setCommandHandlerExecutor(executor);
     }
 
+    @Override
+    public void setCommandHandlerExecutorStrategy(CommandHandlerExecutorStrategy strategy) {
+        commandBus.setCommandHandlerExecutorStrategy(strategy);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // COMMAND SCHEDULER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the scheduler that passes delayed and recurring commands to this facade. It is
+     * created on first use, with the scheduled command store of the builder. Scheduled commands
+     * that were restored from the store are handled once the scheduler is started: call
+     * {@link CommandScheduler#start()} after the command handlers are mapped.
+     *
+     * @return The command scheduler.
+     */
+    public CommandScheduler getCommandScheduler() {
+        CommandScheduler scheduler = commandScheduler;
+
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = commandScheduler;
+
+                if (scheduler == null) {
+                    scheduler = createCommandScheduler();
+                    commandScheduler = scheduler;
+                }
+            }
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Creates the command scheduler of this facade.
+     *
+     * @return The command scheduler.
+     * @see #getCommandScheduler()
+     */
+    protected CommandScheduler createCommandScheduler() {
+        DefaultCommandScheduler.Builder builder = new DefaultCommandScheduler.Builder(this);
+
+        if (scheduledCommandStore != null) {
+            builder.setStore(scheduledCommandStore);
+        }
+
+        return builder.build();
+    }
+
     //----------------------------------------------------------------------------------------------
     // DISPOSABLE
     //----------------------------------------------------------------------------------------------
 
     @Override
     public void dispose() {
+        // stop the scheduled commands before the buses
+        if (commandScheduler != null) {
+            commandScheduler.dispose();
+        } else if (scheduledCommandStore != null) {
+            scheduledCommandStore.dispose();
+        }
+
+        handlerMappings.clear();
         commandBus.dispose();
         eventBus.dispose();
         loggersHelper.dispose();
@@ -123,9 +261,16 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         eventBus.handleEvent(event);
     }
 
+    @Override
+    public void mapEventDispatcher(HandlerDispatcher<S> dispatcher) {
+        eventBus.mapEventDispatcher(dispatcher);
+        handlerMappings.add(new HandlerMapping(HandlerMapping.EVENT_DISPATCHER, null, dispatcher));
+    }
+
     @Override
     public <E extends Event> void mapEventHandler(Class<E> eventClass, EventHandler<S, E> eventHandler) {
         eventBus.mapEventHandler(eventClass, eventHandler);
+        handlerMappings.add(new HandlerMapping(HandlerMapping.EVENT_HANDLER, eventClass, eventHandler));
     }
 
     @Override
@@ -133,6 +278,11 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         eventBus.removeEventLogger(logger);
     }
 
+    @Override
+    public void setParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<S> combiner) {
+        eventBus.setParallelEventHandlers(pool, combiner);
+    }
+
     //----------------------------------------------------------------------------------------------
     // STATE OBSERVER
     //----------------------------------------------------------------------------------------------
@@ -152,6 +302,341 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         stateManager.removeStateChangedListener(listener);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // WARM-UP
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Warms up the dispatch machinery before the first real messages arrive, so that its hot paths
+     * are compiled by then. Creates one isolated copy of this facade, with the handlers and
+     * dispatchers of this facade, and every iteration handles every sample message once, starting
+     * with the current state. The copy has its own state manager and no listeners or stored
+     * messages: the state and observers of this facade are not affected. Its logger ignores handler
+     * errors, so a sample that makes a handler throw does not abort the warm-up.
+     * <p>
+     * The mapped handlers are executed for every sample message, so the samples should only cause
+     * handlers without side effects to be executed.
+     *
+     * @param samples    The sample commands and events to handle, see
+     *                   {@link RoutingGraph#createSampleMessages()}.
+     * @param iterations The number of times to handle the samples.
+     * @throws NoMessageHandlersException when no handler is mapped for a sample.
+     */
+    public void warmUp(Collection<? extends Message> samples, int iterations) {
+        Objects.requireNonNull(samples, "Samples can not be null");
+
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Iterations can not be negative");
+        }
+
+        if (iterations == 0) {
+            return;
+        }
+
+        S initialState = getCurrentState();
+        LaPasseFacade<S> copy = createMappedCopy(initialState);
+        copy.addLogger(new DefaultLogger<S>());
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+                // the copy has no listeners: the event of the reset is not observed
+                copy.stateManager.handleNewState(initialState, WARM_UP_RESET);
+
+                for (Message sample : samples) {
+                    if (sample instanceof Command) {
+                        copy.handleCommand((Command) sample);
+                    } else if (sample instanceof Event) {
+                        copy.handleEvent((Event) sample);
+                    } else {
+                        throw new IllegalArgumentException("Sample is not a command or event: " + sample);
+                    }
+                }
+            }
+        } finally {
+            copy.dispose();
+        }
+    }
+
+    /**
+     * Creates an isolated copy of this facade for warming up or replaying, without handlers.
+     *
+     * @param initialState The initial state of the copy.
+     * @return The facade copy.
+     * @see #warmUp(Collection, int)
+     * @see #replayInParallel(Iterable, StatePartitioner, ForkJoinPool, int)
+     */
+    protected LaPasseFacade<S> createWarmUpCopy(S initialState) {
+        return new Builder<>(initialState).build();
+    }
+
+    /**
+     * Creates an isolated copy of this facade, with the handlers and dispatchers of this facade.
+     *
+     * @param initialState The initial state of the copy.
+     * @return The facade copy.
+     */
+    protected LaPasseFacade<S> createMappedCopy(S initialState) {
+        LaPasseFacade<S> copy = createWarmUpCopy(initialState);
+
+        for (Object mapping : handlerMappings.snapshot()) {
+            ((HandlerMapping) mapping).mapTo(copy);
+        }
+
+        return copy;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PARALLEL REPLAY
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Replays events in parallel on a pool with its parallelism as partition count.
+     *
+     * @param messages    The messages to replay, in order: commands are skipped.
+     * @param partitioner Determines the keys of the events and merges the partitions.
+     * @param pool        The pool to replay the partitions on.
+     * @return The number of replayed events.
+     * @see #replayInParallel(Iterable, StatePartitioner, ForkJoinPool, int)
+     */
+    public long replayInParallel(Iterable<? extends Message> messages, StatePartitioner<S> partitioner,
+                                 ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "Pool can not be null");
+
+        return replayInParallel(messages, partitioner, pool, pool.getParallelism());
+    }
+
+    /**
+     * Replays an event history in parallel, for a state that can be partitioned by key. The events
+     * are split by key over the partitions, and every partition applies its events in order to its
+     * own isolated copy of this facade, which starts with the current state and has the handlers
+     * and dispatchers of this facade, but its own state manager. Finally, the states of the
+     * partitions are merged and set as the new state, so state listeners are notified once.
+     * <p>
+     * The messages are read in batches on the calling thread, while the partitions apply the
+     * previous batch on the pool. Events are not stored again and event results are not logged,
+     * but event handler errors are passed to the event loggers of this facade, from the pool
+     * threads: with loggers, the replay continues after a failed event, like
+     * {@link #handleEvent(Event)} does.
+     *
+     * @param messages       The messages to replay, in order: commands are skipped.
+     * @param partitioner    Determines the keys of the events and merges the partitions.
+     * @param pool           The pool to replay the partitions on.
+     * @param partitionCount The number of partitions.
+     * @return The number of replayed events.
+     * @throws NoMessageHandlersException when no handler is mapped for an event.
+     * @throws NoRegisteredEventLoggerException when an event handler fails and this facade has no
+     *                                          event logger.
+     */
+    public long replayInParallel(Iterable<? extends Message> messages, StatePartitioner<S> partitioner,
+                                 ForkJoinPool pool, int partitionCount) {
+        Objects.requireNonNull(messages, "Messages can not be null");
+        Objects.requireNonNull(partitioner, "Partitioner can not be null");
+        Objects.requireNonNull(pool, "Pool can not be null");
+
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+
+        S initialState = getCurrentState();
+        List<LaPasseFacade<S>> partitions = new ArrayList<>(partitionCount);
+        List<ReplayTask> running = new ArrayList<>(partitionCount);
+        Iterator<? extends Message> iterator = messages.iterator();
+        Event lastEvent = null;
+        long count = 0;
+
+        try {
+            ReplayErrorLogger errorLogger = new ReplayErrorLogger();
+
+            for (int i = 0; i < partitionCount; i++) {
+                LaPasseFacade<S> partition = createMappedCopy(initialState);
+                partition.addEventLogger(errorLogger);
+                partitions.add(partition);
+            }
+
+            while (iterator.hasNext()) {
+                List<List<Event>> batch = new ArrayList<>(partitionCount);
+
+                for (int i = 0; i < partitionCount; i++) {
+                    batch.add(new ArrayList<Event>());
+                }
+
+                int batchSize = 0;
+
+                while (batchSize < REPLAY_BATCH_SIZE && iterator.hasNext()) {
+                    Message message = iterator.next();
+
+                    if (message instanceof Event) {
+                        Event event = (Event) message;
+                        Object key = Objects.requireNonNull(partitioner.getKey(event), "Partition key can not be null");
+
+                        batch.get(getPartitionIndex(key, partitionCount)).add(event);
+                        lastEvent = event;
+                        batchSize++;
+                    }
+                }
+
+                // the partitions apply their events in order: wait for the previous batch
+                joinReplayTasks(running);
+
+                for (int i = 0; i < partitionCount; i++) {
+                    if (!batch.get(i).isEmpty()) {
+                        ReplayTask task = new ReplayTask(partitions.get(i), batch.get(i));
+                        pool.execute(task);
+                        running.add(task);
+                    }
+                }
+
+                count += batchSize;
+            }
+
+            joinReplayTasks(running);
+
+            if (lastEvent != null) {
+                List<S> partitionStates = new ArrayList<>(partitionCount);
+
+                for (LaPasseFacade<S> partition : partitions) {
+                    partitionStates.add(partition.getCurrentState());
+                }
+
+                stateManager.handleNewState(partitioner.merge(initialState, partitionStates), lastEvent);
+            }
+        } finally {
+            // a failed task: let the others finish before disposing the partitions
+            for (ReplayTask task : running) {
+                task.quietlyJoin();
+            }
+
+            for (LaPasseFacade<S> partition : partitions) {
+                partition.dispose();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the partition of a key.
+     *
+     * @param key            The key.
+     * @param partitionCount The number of partitions.
+     * @return The index of the partition.
+     */
+    protected static int getPartitionIndex(Object key, int partitionCount) {
+        int hash = key.hashCode();
+
+        // spread the high bits, for keys that only differ there
+        hash ^= hash >>> 16;
+
+        return (hash & Integer.MAX_VALUE) % partitionCount;
+    }
+
+    /**
+     * Waits for the replay tasks, rethrowing the first error, and clears the list.
+     */
+    private static void joinReplayTasks(List<ReplayTask> tasks) {
+        for (ReplayTask task : tasks) {
+            task.join();
+        }
+
+        tasks.clear();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: REPLAY TASK
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Applies a batch of events to a partition.
+     */
+    protected static final class ReplayTask extends RecursiveAction {
+
+        final List<Event> events;
+        final Facade<?> partition;
+
+        ReplayTask(Facade<?> partition, List<Event> events) {
+            this.events = events;
+            this.partition = partition;
+        }
+
+        @Override
+        protected void compute() {
+            for (Event event : events) {
+                partition.handleEvent(event);
+            }
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: REPLAY ERROR LOGGER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Passes the event handler errors of the replay partitions to the loggers of this facade.
+     */
+    protected final class ReplayErrorLogger implements EventLogger<S> {
+
+        @Override
+        public void onEventHandlerError(Throwable error, Event event) {
+            loggersHelper.onEventHandlerError(error, event);
+        }
+
+        @Override
+        public void onEventHandlerResult(Event event, S newState) {
+            // results are not logged
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: HANDLER MAPPING
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * A handler or dispatcher that was mapped through this facade.
+     */
+    protected static final class HandlerMapping {
+
+        static final int COMMAND_DISPATCHER = 0;
+        static final int COMMAND_HANDLER = 1;
+        static final int EVENT_DISPATCHER = 2;
+        static final int EVENT_HANDLER = 3;
+
+        final Object handler;
+        final Class messageClass;
+        final int type;
+
+        HandlerMapping(int type, Class messageClass, Object handler) {
+            this.handler = handler;
+            this.messageClass = messageClass;
+            this.type = type;
+        }
+
+        /**
+         * Maps the handler or dispatcher to another facade.
+         *
+         * @param facade The facade to map to.
+         */
+        @SuppressWarnings("unchecked")
+        void mapTo(Facade facade) {
+            switch (type) {
+                case COMMAND_DISPATCHER:
+                    facade.mapCommandDispatcher((HandlerDispatcher) handler);
+                    break;
+                case COMMAND_HANDLER:
+                    facade.mapCommandHandler(messageClass, (CommandHandler) handler);
+                    break;
+                case EVENT_DISPATCHER:
+                    facade.mapEventDispatcher((HandlerDispatcher) handler);
+                    break;
+                default:
+                    facade.mapEventHandler(messageClass, (EventHandler) handler);
+                    break;
+            }
+        }
+
+    }
+
     //----------------------------------------------------------------------------------------------
     // INNER CLASS: BUILDER
     //----------------------------------------------------------------------------------------------
@@ -168,6 +653,8 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         protected final S initialState;
         protected LoggersHelper<S> loggersHelper;
         protected MessageStore messageStore;
+        protected final List<RoutingGraph> routingGraphs = new ArrayList<>();
+        protected ScheduledCommandStore scheduledCommandStore;
         protected StateManager<S> stateManager;
 
         //------------------------------------------------------------------------------------------
@@ -182,14 +669,82 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
         // PUBLIC METHODS
         //------------------------------------------------------------------------------------------
 
+        /**
+         * Adds the generated routing graph of a class with LaPasse annotations, whose handlers
+         * will be mapped to the built facade. The default message buses are sized for the message
+         * types of the routing graphs, and their classes are loaded when the facade is built. The
+         * dispatch routes of the message types are resolved when the handlers are mapped, so the
+         * first messages are not delayed by class loading or route resolution.
+         *
+         * @param routingGraph The routing graph, see {@link RoutingGraph#load(Class)}.
+         * @return The builder.
+         */
+        public Builder<S> addRoutingGraph(RoutingGraph routingGraph) {
+            routingGraphs.add(Objects.requireNonNull(routingGraph, "Routing graph can not be null"));
+            return this;
+        }
+
         /**
          * Build a new facade using the current settings.
          *
          * @return The created facade.
+         * @throws InvalidRoutingGraphException when a class of a routing graph can not be loaded.
          */
         public LaPasseFacade<S> build() {
+            preloadRoutingGraphs();
+
             return new LaPasseFacade<>(getCommandBus(), getEventBus(), getLoggersHelper(),
-                    getMessageStore(), getStateManager());
+                    getMessageStore(), getStateManager(), scheduledCommandStore);
+        }
+
+        //------------------------------------------------------------------------------------------
+        // PROTECTED METHODS
+        //------------------------------------------------------------------------------------------
+
+        /**
+         * Loads the classes of the added routing graphs. Call before building the facade.
+         *
+         * @throws InvalidRoutingGraphException when a class of a routing graph can not be loaded.
+         * @see RoutingGraph#preload()
+         */
+        protected void preloadRoutingGraphs() {
+            for (RoutingGraph routingGraph : routingGraphs) {
+                routingGraph.preload();
+            }
+        }
+
+        /**
+         * Returns the command classes of the added routing graphs, whose dispatch routes the
+         * default command bus resolves when handler dispatchers are mapped.
+         *
+         * @return The command classes.
+         * @throws InvalidRoutingGraphException when a class of a routing graph can not be loaded.
+         */
+        protected Set<Class<? extends Message>> getRoutedCommandClasses() {
+            Set<Class<? extends Message>> commandClasses = new LinkedHashSet<>();
+
+            for (RoutingGraph routingGraph : routingGraphs) {
+                commandClasses.addAll(routingGraph.getCommandClasses());
+            }
+
+            return commandClasses;
+        }
+
+        /**
+         * Returns the event classes of the added routing graphs, whose dispatch routes the
+         * default event bus resolves when handler dispatchers are mapped.
+         *
+         * @return The event classes.
+         * @throws InvalidRoutingGraphException when a class of a routing graph can not be loaded.
+         */
+        protected Set<Class<? extends Message>> getRoutedEventClasses() {
+            Set<Class<? extends Message>> eventClasses = new LinkedHashSet<>();
+
+            for (RoutingGraph routingGraph : routingGraphs) {
+                eventClasses.addAll(routingGraph.getEventClasses());
+            }
+
+            return eventClasses;
         }
 
         //------------------------------------------------------------------------------------------
@@ -198,8 +753,12 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
 
         public CommandBus<S> getCommandBus() {
             if (commandBus == null) {
-                commandBus = new DefaultCommandBus<>(getMessageStore(), getEventBus(),
-                        getLoggersHelper(), getStateManager());
+                Set<Class<? extends Message>> commandClasses = getRoutedCommandClasses();
+                DefaultCommandBus<S> defaultCommandBus = new DefaultCommandBus<>(getMessageStore(),
+                        getEventBus(), getLoggersHelper(), getStateManager(), commandClasses.size());
+
+                defaultCommandBus.setPreloadedMessageClasses(commandClasses);
+                commandBus = defaultCommandBus;
             }
 
             return commandBus;
@@ -207,8 +766,12 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
 
         public EventBus<S> getEventBus() {
             if (eventBus == null) {
-                eventBus = new DefaultEventBus<>(getMessageStore(), getLoggersHelper(),
-                        getStateManager());
+                Set<Class<? extends Message>> eventClasses = getRoutedEventClasses();
+                DefaultEventBus<S> defaultEventBus = new DefaultEventBus<>(getMessageStore(),
+                        getLoggersHelper(), getStateManager(), eventClasses.size());
+
+                defaultEventBus.setPreloadedMessageClasses(eventClasses);
+                eventBus = defaultEventBus;
             }
 
             return eventBus;
@@ -262,6 +825,20 @@ public class LaPasseFacade<S extends State> implements Facade<S> {
             return this;
         }
 
+        /**
+         * Set the store that persists the commands of the command scheduler, so they survive a
+         * restart. By default, scheduled commands are only kept in memory.
+         *
+         * @param scheduledCommandStore The store.
+         * @return The builder.
+         * @see LaPasseFacade#getCommandScheduler()
+         */
+        public Builder<S> setScheduledCommandStore(ScheduledCommandStore scheduledCommandStore) {
+            this.scheduledCommandStore = Objects.requireNonNull(scheduledCommandStore,
+                    "Scheduled command store can not be null");
+            return this;
+        }
+
         public Builder<S> setStateManager(StateManager<S> stateManager) {
             this.stateManager = Objects.requireNonNull(stateManager, "State manager can not be null");
             return this;
@@ -1,18 +1,22 @@
 package com.cookingfox.lapasse.impl.facade;
 
 import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
 import com.cookingfox.lapasse.api.command.handler.CommandHandler;
 import com.cookingfox.lapasse.api.command.logging.CommandLogger;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLogger;
 import com.cookingfox.lapasse.api.facade.Facade;
 import com.cookingfox.lapasse.api.logging.CombinedLogger;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
 
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Delegates all {@link Facade} operations to a provided instance.
@@ -60,6 +64,11 @@ public class LaPasseFacadeDelegate<S extends State> implements Facade<S> {
         facade.handleCommand(command);
     }
 
+    @Override
+    public void mapCommandDispatcher(HandlerDispatcher<S> dispatcher) {
+        facade.mapCommandDispatcher(dispatcher);
+    }
+
     @Override
     public <C extends Command, E extends Event> void mapCommandHandler(Class<C> commandClass, CommandHandler<S, C, E> commandHandler) {
         facade.mapCommandHandler(commandClass, commandHandler);
@@ -75,6 +84,11 @@ public class LaPasseFacadeDelegate<S extends State> implements Facade<S> {
         facade.setCommandHandlerExecutor(executor);
     }
 
+    @Override
+    public void setCommandHandlerExecutorStrategy(CommandHandlerExecutorStrategy strategy) {
+        facade.setCommandHandlerExecutorStrategy(strategy);
+    }
+
     //----------------------------------------------------------------------------------------------
     // DISPOSABLE
     //----------------------------------------------------------------------------------------------
@@ -98,6 +112,11 @@ public class LaPasseFacadeDelegate<S extends State> implements Facade<S> {
         facade.handleEvent(event);
     }
 
+    @Override
+    public void mapEventDispatcher(HandlerDispatcher<S> dispatcher) {
+        facade.mapEventDispatcher(dispatcher);
+    }
+
     @Override
     public <E extends Event> void mapEventHandler(Class<E> eventClass, EventHandler<S, E> eventHandler) {
         facade.mapEventHandler(eventClass, eventHandler);
@@ -108,6 +127,11 @@ public class LaPasseFacadeDelegate<S extends State> implements Facade<S> {
         facade.removeEventLogger(logger);
     }
 
+    @Override
+    public void setParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<S> combiner) {
+        facade.setParallelEventHandlers(pool, combiner);
+    }
+
     //----------------------------------------------------------------------------------------------
     // STATE OBSERVER
     //----------------------------------------------------------------------------------------------
@@ -1,15 +1,19 @@
 package com.cookingfox.lapasse.impl.helper;
 
 import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.impl.helper.exception.GeneratedConstructorNotFoundException;
+import com.cookingfox.lapasse.impl.helper.exception.HandlerDispatcherInstantiationException;
 import com.cookingfox.lapasse.impl.helper.exception.HandlerMapperInstantiationException;
 import com.cookingfox.lapasse.impl.helper.exception.NoGeneratedClassException;
 import com.cookingfox.lapasse.impl.internal.HandlerMapper;
+import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * Helper class for mapping handlers from annotated class.
@@ -21,6 +25,40 @@ public final class LaPasse {
      */
     public static final String GENERATED_SUFFIX = "$$LaPasseGenerated";
 
+    /**
+     * Generated dispatcher class name suffix.
+     */
+    public static final String DISPATCHER_SUFFIX = "$$LaPasseDispatcher";
+
+    /**
+     * Generated factory class name suffix.
+     */
+    public static final String FACTORY_SUFFIX = "$$LaPasseFactory";
+
+    /**
+     * Generated routing graph resource name suffix.
+     *
+     * @see RoutingGraph
+     */
+    public static final String ROUTES_SUFFIX = "$$LaPasseRoutes";
+
+    /**
+     * Handler mapper factories by origin class: the generated factories that are registered as
+     * service, and reflective factories for origins without a registered factory. A factory
+     * references its origin class, so the origin classes are weak keys and the factories are soft
+     * values: the cache does not keep the class loaders of the origins from being unloaded. A
+     * cleared factory is created again. `ClassValue` is not used, because Android only provides it
+     * since API level 34. Guarded by itself.
+     */
+    static final Map<Class<?>, SoftReference<HandlerMapperFactory>> FACTORIES = new WeakHashMap<>();
+
+    /**
+     * The class names of the registered factories by class loader, by the names of their origin
+     * classes: names do not keep the class loaders from being unloaded. The services of a class
+     * loader are only loaded once. Guarded by {@link #FACTORIES}.
+     */
+    static final Map<ClassLoader, Map<String, String>> REGISTERED_FACTORY_NAMES = new WeakHashMap<>();
+
     //----------------------------------------------------------------------------------------------
     // CONSTRUCTOR
     //----------------------------------------------------------------------------------------------
@@ -52,7 +90,13 @@ public final class LaPasse {
     }
 
     /**
-     * Map the annotated handler methods of a class to its facade.
+     * Map the annotated handler methods of a class to its facade. When a generated
+     * {@link HandlerDispatcher} exists for the class, it is mapped instead of the handlers of the
+     * generated {@link HandlerMapper}, so that messages are routed to the annotated methods directly.
+     * <p>
+     * The generated classes are created by the generated {@link HandlerMapperFactory} of the class,
+     * which is discovered once using {@link ServiceLoader}. When no factory is registered, the
+     * generated classes are resolved once using reflection.
      *
      * @param origin The class containing the annotations.
      * @param facade The LaPasse facade to map handlers to.
@@ -61,28 +105,51 @@ public final class LaPasse {
      *                                               found.
      * @throws HandlerMapperInstantiationException   when an error occurs during the instantiation
      *                                               of the HandlerMapper.
+     * @throws HandlerDispatcherInstantiationException when an error occurs during the
+     *                                                 instantiation of the HandlerDispatcher.
      */
     public static void mapHandlers(Object origin, Facade<? extends State> facade) {
         Objects.requireNonNull(origin, "Origin can not be null");
         Objects.requireNonNull(facade, "Facade can not be null");
 
-        // get generated class name
-        Class<?> originClass = origin.getClass();
-        String generatedClassName = originClass.getCanonicalName() + GENERATED_SUFFIX;
+        HandlerMapperFactory factory = getHandlerMapperFactory(origin.getClass());
 
-        // create instance of generated class
-        Class<? extends HandlerMapper> handlerMapperClass = getHandlerMapperClass(generatedClassName);
-        Constructor<? extends HandlerMapper> constructor = getHandlerMapperConstructor(handlerMapperClass, originClass);
-        HandlerMapper handlerMapper = createHandlerMapperInstance(constructor, origin, facade);
+        // prefer the generated dispatcher, which does not need handler objects
+        HandlerDispatcher dispatcher = factory.createHandlerDispatcher(origin);
 
-        // map handlers
-        handlerMapper.mapHandlers();
+        if (dispatcher != null) {
+            // noinspection unchecked
+            facade.mapCommandDispatcher(dispatcher);
+            // noinspection unchecked
+            facade.mapEventDispatcher(dispatcher);
+            return;
+        }
+
+        factory.createHandlerMapper(origin, facade).mapHandlers();
     }
 
     //----------------------------------------------------------------------------------------------
     // PROTECTED METHODS
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Creates an instance of the provided HandlerDispatcher constructor.
+     *
+     * @param constructor The constructor to create an instance of.
+     * @param origin      The annotated object to pass to the constructor.
+     * @return A HandlerDispatcher instance.
+     * @throws HandlerDispatcherInstantiationException when an error occurs during the
+     *                                                 instantiation of the HandlerDispatcher.
+     */
+    protected static HandlerDispatcher createHandlerDispatcherInstance(Constructor<?> constructor, Object origin) {
+        try {
+            return (HandlerDispatcher) constructor.newInstance(origin);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
+                ClassCastException e) {
+            throw new HandlerDispatcherInstantiationException(constructor, e);
+        }
+    }
+
     /**
      * Creates an instance of the provided HandlerMapper constructor.
      *
@@ -102,6 +169,87 @@ public final class LaPasse {
         }
     }
 
+    /**
+     * Attempts to get the constructor of the generated HandlerDispatcher for the origin class.
+     *
+     * @param originClass The class containing the annotations.
+     * @return The generated HandlerDispatcher constructor, or `null` if no dispatcher was generated.
+     * @throws GeneratedConstructorNotFoundException when the expected generated constructor was not
+     *                                               found.
+     */
+    protected static Constructor<?> getHandlerDispatcherConstructor(Class<?> originClass) {
+        String fqcn = originClass.getCanonicalName() + DISPATCHER_SUFFIX;
+        Class<?> dispatcherClass;
+
+        try {
+            dispatcherClass = Class.forName(fqcn);
+        } catch (ClassNotFoundException e) {
+            // no dispatcher generated: use handler mapper
+            return null;
+        }
+
+        try {
+            return dispatcherClass.getDeclaredConstructor(originClass);
+        } catch (NoSuchMethodException e) {
+            throw new GeneratedConstructorNotFoundException(fqcn, e);
+        }
+    }
+
+    /**
+     * Returns the handler mapper factory for the origin class. Looks for a registered (generated)
+     * factory first, and creates a reflective factory otherwise. The factory is cached, so
+     * reflection is used at most once per origin class.
+     *
+     * @param originClass The class containing the annotations.
+     * @return The handler mapper factory.
+     * @throws NoGeneratedClassException             when no generated class exists for this origin.
+     * @throws GeneratedConstructorNotFoundException when the expected generated constructor was not
+     *                                               found.
+     */
+    protected static HandlerMapperFactory getHandlerMapperFactory(Class<?> originClass) {
+        ClassLoader classLoader = originClass.getClassLoader();
+        String registeredName;
+
+        synchronized (FACTORIES) {
+            HandlerMapperFactory factory = getCachedFactory(originClass);
+
+            if (factory != null) {
+                return factory;
+            }
+
+            // caches the registered factories when the services are loaded
+            registeredName = getRegisteredFactoryNames(classLoader).get(originClass.getName());
+            factory = getCachedFactory(originClass);
+
+            if (factory != null) {
+                return factory;
+            }
+        }
+
+        HandlerMapperFactory factory = null;
+
+        if (registeredName != null) {
+            factory = createRegisteredFactory(registeredName, originClass);
+        }
+
+        if (factory == null) {
+            // no registered factory: resolve the generated classes using reflection
+            factory = new ReflectiveHandlerMapperFactory(originClass);
+        }
+
+        synchronized (FACTORIES) {
+            HandlerMapperFactory existing = getCachedFactory(originClass);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            FACTORIES.put(originClass, new SoftReference<>(factory));
+        }
+
+        return factory;
+    }
+
     /**
      * Attempts to load the HandlerMapper class by its Fully-Qualified Class Name.
      *
@@ -136,4 +284,148 @@ public final class LaPasse {
         }
     }
 
+    /**
+     * Returns the names of the factories that are registered as service in the class loader, by
+     * the names of their origin classes. Loads the services once per class loader, and caches the
+     * loaded factories. Call while holding the lock of {@link #FACTORIES}.
+     *
+     * @param classLoader The class loader to load the factories with.
+     * @return The names of the registered factories, by the names of their origin classes.
+     */
+    protected static Map<String, String> getRegisteredFactoryNames(ClassLoader classLoader) {
+        Map<String, String> names = REGISTERED_FACTORY_NAMES.get(classLoader);
+
+        if (names != null) {
+            return names;
+        }
+
+        names = new HashMap<>();
+
+        try {
+            for (HandlerMapperFactory factory : ServiceLoader.load(HandlerMapperFactory.class, classLoader)) {
+                Class<?> originClass = factory.getOriginClass();
+                names.put(originClass.getName(), factory.getClass().getName());
+
+                if (getCachedFactory(originClass) == null) {
+                    FACTORIES.put(originClass, new SoftReference<>(factory));
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            // invalid registration: remaining origins fall back to reflection
+        }
+
+        REGISTERED_FACTORY_NAMES.put(classLoader, names);
+
+        return names;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates the registered factory of the origin class again, after its cached instance was
+     * cleared.
+     *
+     * @param factoryName The class name of the registered factory.
+     * @param originClass The class containing the annotations.
+     * @return The factory, or `null` if it can not be created for the origin class.
+     */
+    private static HandlerMapperFactory createRegisteredFactory(String factoryName, Class<?> originClass) {
+        try {
+            Object factory = Class.forName(factoryName, true, originClass.getClassLoader()).newInstance();
+
+            if (factory instanceof HandlerMapperFactory &&
+                    ((HandlerMapperFactory) factory).getOriginClass() == originClass) {
+                return (HandlerMapperFactory) factory;
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // fall back to reflection
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the cached factory for the origin class, and removes a cleared entry. Call while
+     * holding the lock of {@link #FACTORIES}.
+     *
+     * @param originClass The class containing the annotations.
+     * @return The cached factory, or `null` if there is none.
+     */
+    private static HandlerMapperFactory getCachedFactory(Class<?> originClass) {
+        SoftReference<HandlerMapperFactory> reference = FACTORIES.get(originClass);
+
+        if (reference == null) {
+            return null;
+        }
+
+        HandlerMapperFactory factory = reference.get();
+
+        if (factory == null) {
+            FACTORIES.remove(originClass);
+        }
+
+        return factory;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Handler mapper factory for origins without a registered factory: resolves the constructors
+     * of the generated classes once, using reflection.
+     */
+    static final class ReflectiveHandlerMapperFactory implements HandlerMapperFactory {
+
+        private final Class<?> originClass;
+        private final Constructor<?> dispatcherConstructor;
+        private volatile Constructor<? extends HandlerMapper> mapperConstructor;
+
+        ReflectiveHandlerMapperFactory(Class<?> originClass) {
+            this.originClass = originClass;
+
+            dispatcherConstructor = getHandlerDispatcherConstructor(originClass);
+
+            // no dispatcher: resolve mapper up front, so a missing class throws immediately
+            if (dispatcherConstructor == null) {
+                mapperConstructor = resolveMapperConstructor();
+            }
+        }
+
+        @Override
+        public Class<?> getOriginClass() {
+            return originClass;
+        }
+
+        @Override
+        public HandlerDispatcher createHandlerDispatcher(Object origin) {
+            if (dispatcherConstructor == null) {
+                return null;
+            }
+
+            return createHandlerDispatcherInstance(dispatcherConstructor, origin);
+        }
+
+        @Override
+        public HandlerMapper createHandlerMapper(Object origin, Facade facade) {
+            Constructor<? extends HandlerMapper> constructor = mapperConstructor;
+
+            if (constructor == null) {
+                constructor = resolveMapperConstructor();
+                mapperConstructor = constructor;
+            }
+
+            return createHandlerMapperInstance(constructor, origin, facade);
+        }
+
+        private Constructor<? extends HandlerMapper> resolveMapperConstructor() {
+            String generatedClassName = originClass.getCanonicalName() + GENERATED_SUFFIX;
+
+            return getHandlerMapperConstructor(getHandlerMapperClass(generatedClassName), originClass);
+        }
+
+    }
+
 }
@@ -0,0 +1,473 @@
+package com.cookingfox.lapasse.impl.helper;
+
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.impl.helper.exception.InvalidRoutingGraphException;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The routing graph of a class with LaPasse annotations, as generated by the annotation processor:
+ * the commands with their handler methods and the event types they emit, the events with their
+ * handler methods, and the concrete state.
+ * <p>
+ * The graph allows a facade to prepare for the messages it will handle before the first message
+ * arrives: the message buses can be sized for the number of message types, and the message, state
+ * and generated classes can be loaded and initialized up front. It also provides sample messages
+ * for warming up the facade.
+ *
+ * @see LaPasse#ROUTES_SUFFIX
+ */
+public final class RoutingGraph {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Record type of a command handler route.
+     */
+    public static final String RECORD_COMMAND = "command";
+
+    /**
+     * Record type of an event handler route.
+     */
+    public static final String RECORD_EVENT = "event";
+
+    /**
+     * Record type of the class that contains the annotations.
+     */
+    public static final String RECORD_ORIGIN = "origin";
+
+    /**
+     * Record type of the concrete state.
+     */
+    public static final String RECORD_STATE = "state";
+
+    /**
+     * Dispatcher result types by name.
+     *
+     * @see HandlerDispatcher
+     */
+    static final Map<String, Integer> RESULT_TYPES = createResultTypes();
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private final ClassLoader classLoader;
+    private final List<CommandRoute> commandRoutes;
+    private final List<EventRoute> eventRoutes;
+    private final String originClassName;
+    private final String stateClassName;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    RoutingGraph(ClassLoader classLoader, String originClassName, String stateClassName,
+                 List<CommandRoute> commandRoutes, List<EventRoute> eventRoutes) {
+        this.classLoader = classLoader;
+        this.commandRoutes = Collections.unmodifiableList(commandRoutes);
+        this.eventRoutes = Collections.unmodifiableList(eventRoutes);
+        this.originClassName = originClassName;
+        this.stateClassName = stateClassName;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Loads the generated routing graph of a class with LaPasse annotations.
+     *
+     * @param originClass The class containing the annotations.
+     * @return The routing graph, or `null` if no routing graph was generated for this class.
+     * @throws InvalidRoutingGraphException when the routing graph can not be read.
+     */
+    public static RoutingGraph load(Class<?> originClass) {
+        Objects.requireNonNull(originClass, "Origin class can not be null");
+
+        // resource name is relative to the package of the origin
+        String originName = originClass.getName();
+        String resourceName = originName.substring(originName.lastIndexOf('.') + 1) +
+                LaPasse.ROUTES_SUFFIX;
+        InputStream stream = originClass.getResourceAsStream(resourceName);
+
+        if (stream == null) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return read(reader, originClass.getClassLoader());
+        } catch (IOException e) {
+            throw new InvalidRoutingGraphException("Could not read routing graph: " + resourceName, e);
+        }
+    }
+
+    /**
+     * Reads a routing graph.
+     *
+     * @param reader      The reader to read the routing graph from.
+     * @param classLoader The class loader for the classes of the routing graph.
+     * @return The routing graph.
+     * @throws IOException                  when the routing graph can not be read.
+     * @throws InvalidRoutingGraphException when the routing graph contains invalid records.
+     */
+    public static RoutingGraph read(Reader reader, ClassLoader classLoader) throws IOException {
+        Objects.requireNonNull(reader, "Reader can not be null");
+        Objects.requireNonNull(classLoader, "Class loader can not be null");
+
+        BufferedReader lines = new BufferedReader(reader);
+        List<CommandRoute> commandRoutes = new ArrayList<>();
+        List<EventRoute> eventRoutes = new ArrayList<>();
+        String originClassName = null;
+        String stateClassName = null;
+        String line;
+
+        while ((line = lines.readLine()) != null) {
+            // skip comments and empty lines
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] values = line.split("\t", -1);
+
+            if (values[0].equals(RECORD_COMMAND) && values.length == 5) {
+                Integer resultType = RESULT_TYPES.get(values[3]);
+
+                if (resultType == null) {
+                    throw new InvalidRoutingGraphException("Invalid result type: " + line);
+                }
+
+                commandRoutes.add(new CommandRoute(values[1], values[2], resultType,
+                        values[4].isEmpty() ? null : values[4]));
+            } else if (values[0].equals(RECORD_EVENT) && values.length == 3) {
+                eventRoutes.add(new EventRoute(values[1], values[2]));
+            } else if (values[0].equals(RECORD_ORIGIN) && values.length == 2) {
+                originClassName = values[1];
+            } else if (values[0].equals(RECORD_STATE) && values.length == 2) {
+                stateClassName = values[1];
+            } else {
+                throw new InvalidRoutingGraphException("Invalid routing graph record: " + line);
+            }
+        }
+
+        if (originClassName == null || stateClassName == null) {
+            throw new InvalidRoutingGraphException("Routing graph has no origin or state record");
+        }
+
+        return new RoutingGraph(classLoader, originClassName, stateClassName, commandRoutes,
+                eventRoutes);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates sample messages for warming up a facade: an instance of every command type of this
+     * routing graph that has an accessible no-argument constructor. Event types are included when
+     * no command handler emits them.
+     *
+     * @return The sample messages.
+     * @throws InvalidRoutingGraphException when a class of the routing graph can not be loaded.
+     * @see com.cookingfox.lapasse.impl.facade.LaPasseFacade#warmUp(Collection, int)
+     */
+    public List<Message> createSampleMessages() {
+        Set<String> classNames = new LinkedHashSet<>();
+        Set<String> emittedClassNames = new HashSet<>();
+
+        for (CommandRoute route : commandRoutes) {
+            classNames.add(route.getCommandClassName());
+            emittedClassNames.add(route.getEventClassName());
+        }
+
+        for (EventRoute route : eventRoutes) {
+            // emitted events are already handled through their commands
+            if (!emittedClassNames.contains(route.getEventClassName())) {
+                classNames.add(route.getEventClassName());
+            }
+        }
+
+        List<Message> samples = new ArrayList<>();
+
+        for (String className : classNames) {
+            Message sample = createSampleMessage(loadClass(className));
+
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+
+        return samples;
+    }
+
+    /**
+     * Loads the command classes of this routing graph.
+     *
+     * @return The command classes, in the order of the routes.
+     * @throws InvalidRoutingGraphException when a class can not be loaded or is not a message.
+     */
+    public Set<Class<? extends Message>> getCommandClasses() {
+        Set<Class<? extends Message>> classes = new LinkedHashSet<>();
+
+        for (CommandRoute route : commandRoutes) {
+            classes.add(loadMessageClass(route.getCommandClassName()));
+        }
+
+        return classes;
+    }
+
+    /**
+     * @return The command handler routes.
+     */
+    public List<CommandRoute> getCommandRoutes() {
+        return commandRoutes;
+    }
+
+    /**
+     * Loads the classes of the events that are handled by the event handlers of this routing
+     * graph.
+     *
+     * @return The event classes, in the order of the routes.
+     * @throws InvalidRoutingGraphException when a class can not be loaded or is not a message.
+     */
+    public Set<Class<? extends Message>> getEventClasses() {
+        Set<Class<? extends Message>> classes = new LinkedHashSet<>();
+
+        for (EventRoute route : eventRoutes) {
+            classes.add(loadMessageClass(route.getEventClassName()));
+        }
+
+        return classes;
+    }
+
+    /**
+     * @return The event handler routes.
+     */
+    public List<EventRoute> getEventRoutes() {
+        return eventRoutes;
+    }
+
+    /**
+     * Returns the event handler routes for the events that are emitted by a command handler.
+     *
+     * @param commandRoute The command handler route.
+     * @return The event handler routes for the emitted event type.
+     */
+    public List<EventRoute> getEventRoutes(CommandRoute commandRoute) {
+        Objects.requireNonNull(commandRoute, "Command route can not be null");
+
+        List<EventRoute> routes = new ArrayList<>();
+
+        for (EventRoute eventRoute : eventRoutes) {
+            if (eventRoute.getEventClassName().equals(commandRoute.getEventClassName())) {
+                routes.add(eventRoute);
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * @return The binary name of the class that contains the annotations.
+     */
+    public String getOriginClassName() {
+        return originClassName;
+    }
+
+    /**
+     * @return The binary name of the concrete state class.
+     */
+    public String getStateClassName() {
+        return stateClassName;
+    }
+
+    /**
+     * Loads and initializes the classes of this routing graph: the state, the command and event
+     * types, and the generated classes of the origin. The handler mapper factory of the origin is
+     * resolved and cached, so mapping the handlers of the origin does not need to look it up.
+     * <p>
+     * A facade that is built with this routing graph also resolves the dispatch routes of its
+     * command and event classes when the handlers of the origin are mapped, see
+     * {@link com.cookingfox.lapasse.impl.message.bus.AbstractMessageBus#setPreloadedMessageClasses(Collection)}.
+     *
+     * @throws InvalidRoutingGraphException when a class of the routing graph can not be loaded.
+     */
+    public void preload() {
+        Set<String> classNames = new LinkedHashSet<>();
+        classNames.add(stateClassName);
+
+        for (CommandRoute route : commandRoutes) {
+            classNames.add(route.getCommandClassName());
+
+            if (route.getEventClassName() != null) {
+                classNames.add(route.getEventClassName());
+            }
+        }
+
+        for (EventRoute route : eventRoutes) {
+            classNames.add(route.getEventClassName());
+        }
+
+        for (String className : classNames) {
+            loadClass(className);
+        }
+
+        LaPasse.getHandlerMapperFactory(loadClass(originClassName));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param messageClass The message class.
+     * @return A new instance of the message class, or `null` if it has no accessible no-argument
+     * constructor.
+     */
+    private static Message createSampleMessage(Class<?> messageClass) {
+        if (!Message.class.isAssignableFrom(messageClass) || messageClass.isInterface() ||
+                Modifier.isAbstract(messageClass.getModifiers())) {
+            return null;
+        }
+
+        try {
+            return (Message) messageClass.getConstructor().newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException |
+                InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, Integer> createResultTypes() {
+        Map<String, Integer> resultTypes = new HashMap<>();
+        resultTypes.put("RESULT_VOID", HandlerDispatcher.RESULT_VOID);
+        resultTypes.put("RESULT_EVENT", HandlerDispatcher.RESULT_EVENT);
+        resultTypes.put("RESULT_EVENT_COLLECTION", HandlerDispatcher.RESULT_EVENT_COLLECTION);
+        resultTypes.put("RESULT_EVENT_CALLABLE", HandlerDispatcher.RESULT_EVENT_CALLABLE);
+        resultTypes.put("RESULT_EVENT_COLLECTION_CALLABLE", HandlerDispatcher.RESULT_EVENT_COLLECTION_CALLABLE);
+        resultTypes.put("RESULT_EVENT_OBSERVABLE", HandlerDispatcher.RESULT_EVENT_OBSERVABLE);
+        resultTypes.put("RESULT_EVENT_COLLECTION_OBSERVABLE", HandlerDispatcher.RESULT_EVENT_COLLECTION_OBSERVABLE);
+        resultTypes.put("RESULT_EVENT_SINGLE", HandlerDispatcher.RESULT_EVENT_SINGLE);
+        resultTypes.put("RESULT_EVENT_COLLECTION_SINGLE", HandlerDispatcher.RESULT_EVENT_COLLECTION_SINGLE);
+
+        return Collections.unmodifiableMap(resultTypes);
+    }
+
+    private Class<? extends Message> loadMessageClass(String className) {
+        Class<?> messageClass = loadClass(className);
+
+        if (!Message.class.isAssignableFrom(messageClass)) {
+            throw new InvalidRoutingGraphException("Class of routing graph is not a message: " + className);
+        }
+
+        return messageClass.asSubclass(Message.class);
+    }
+
+    private Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, true, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new InvalidRoutingGraphException("Could not load class of routing graph: " +
+                    className, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Route of a command to its handler method.
+     */
+    public static final class CommandRoute {
+
+        private final String commandClassName;
+        private final String eventClassName;
+        private final String methodName;
+        private final int resultType;
+
+        CommandRoute(String commandClassName, String methodName, int resultType, String eventClassName) {
+            this.commandClassName = commandClassName;
+            this.eventClassName = eventClassName;
+            this.methodName = methodName;
+            this.resultType = resultType;
+        }
+
+        /**
+         * @return The binary name of the command class.
+         */
+        public String getCommandClassName() {
+            return commandClassName;
+        }
+
+        /**
+         * @return The binary name of the emitted event class, or `null` if the handler does not
+         * emit events.
+         */
+        public String getEventClassName() {
+            return eventClassName;
+        }
+
+        /**
+         * @return The name of the handler method.
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * @return The result type: one of the {@link HandlerDispatcher} `RESULT_` constants.
+         */
+        public int getResultType() {
+            return resultType;
+        }
+
+        @Override
+        public String toString() {
+            return commandClassName + " -> " + methodName + " -> " + eventClassName;
+        }
+
+    }
+
+    /**
+     * Route of an event to its handler method.
+     */
+    public static final class EventRoute {
+
+        private final String eventClassName;
+        private final String methodName;
+
+        EventRoute(String eventClassName, String methodName) {
+            this.eventClassName = eventClassName;
+            this.methodName = methodName;
+        }
+
+        /**
+         * @return The binary name of the event class.
+         */
+        public String getEventClassName() {
+            return eventClassName;
+        }
+
+        /**
+         * @return The name of the handler method.
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        @Override
+        public String toString() {
+            return eventClassName + " -> " + methodName;
+        }
+
+    }
+
+}
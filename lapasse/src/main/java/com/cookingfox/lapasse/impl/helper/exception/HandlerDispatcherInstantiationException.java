@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.helper.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Thrown when an error occurs during the instantiation of a generated {@link HandlerDispatcher}
+ * class.
+ */
+public class HandlerDispatcherInstantiationException extends LaPasseException {
+
+    public HandlerDispatcherInstantiationException(Constructor<?> constructor, Throwable cause) {
+        super("Could not create an instance of handler dispatcher: " + constructor.toString(), cause);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.cookingfox.lapasse.impl.helper.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
+
+/**
+ * Thrown when a generated {@link RoutingGraph} can not be read, or refers to classes that can not
+ * be loaded.
+ */
+public class InvalidRoutingGraphException extends LaPasseException {
+
+    public InvalidRoutingGraphException(String message) {
+        super(message);
+    }
+
+    public InvalidRoutingGraphException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
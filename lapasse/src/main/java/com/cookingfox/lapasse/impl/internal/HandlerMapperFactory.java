@@ -0,0 +1,37 @@
+package com.cookingfox.lapasse.impl.internal;
+
+import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.impl.helper.LaPasse;
+
+/**
+ * Internal helper interface that creates the generated {@link HandlerMapper} and
+ * {@link HandlerDispatcher} for one annotated class, without reflection. Implementations are
+ * generated by the annotation processor and registered as a {@link java.util.ServiceLoader}
+ * service, so {@link LaPasse} can discover them once at startup.
+ */
+public interface HandlerMapperFactory {
+
+    /**
+     * @return The annotated class that this factory creates handlers for.
+     */
+    Class<?> getOriginClass();
+
+    /**
+     * Creates the generated handler dispatcher for the origin.
+     *
+     * @param origin The annotated object.
+     * @return The handler dispatcher, or `null` if no dispatcher was generated for the origin.
+     */
+    HandlerDispatcher createHandlerDispatcher(Object origin);
+
+    /**
+     * Creates the generated handler mapper for the origin.
+     *
+     * @param origin The annotated object.
+     * @param facade The facade to map the handlers to.
+     * @return The handler mapper.
+     */
+    HandlerMapper createHandlerMapper(Object origin, Facade facade);
+
+}
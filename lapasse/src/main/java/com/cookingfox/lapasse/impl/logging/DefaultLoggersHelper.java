@@ -10,10 +10,11 @@ import com.cookingfox.lapasse.api.logging.CombinedLogger;
 import com.cookingfox.lapasse.api.logging.LoggersHelper;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * Helper class for all LaPasse loggers.
@@ -25,12 +26,12 @@ public class DefaultLoggersHelper<S extends State> implements LoggersHelper<S> {
     /**
      * Set of unique command logger instances.
      */
-    protected final Set<CommandLogger> commandLoggers = CollectionUtils.newConcurrentSet();
+    protected final SnapshotSet<CommandLogger> commandLoggers = CollectionUtils.newSnapshotSet();
 
     /**
      * Set of unique event logger instances.
      */
-    protected final Set<EventLogger<S>> eventLoggers = CollectionUtils.newConcurrentSet();
+    protected final SnapshotSet<EventLogger<S>> eventLoggers = CollectionUtils.newSnapshotSet();
 
     //----------------------------------------------------------------------------------------------
     // COMMAND LOGGER
@@ -52,15 +53,38 @@ public class DefaultLoggersHelper<S extends State> implements LoggersHelper<S> {
             throw new NoRegisteredCommandLoggerException(error, command);
         }
 
-        for (CommandLogger logger : commandLoggers) {
-            logger.onCommandHandlerError(error, command);
+        for (Object logger : commandLoggers.snapshot()) {
+            ((CommandLogger) logger).onCommandHandlerError(error, command);
         }
     }
 
     @Override
     public void onCommandHandlerResult(Command command, Collection<Event> events) {
-        for (CommandLogger logger : commandLoggers) {
-            logger.onCommandHandlerResult(command, events);
+        for (Object logger : commandLoggers.snapshot()) {
+            ((CommandLogger) logger).onCommandHandlerResult(command, events);
+        }
+    }
+
+    /**
+     * Called when a 'single' command handler returns a result. Equivalent to
+     * {@link #onCommandHandlerResult(Command, Collection)}, but skips wrapping the event in a
+     * collection when there are no loggers.
+     *
+     * @param command The command that was handled.
+     * @param event   The resulting event, or `null` if the handler did not produce one.
+     */
+    public void onCommandHandlerSingleResult(Command command, Event event) {
+        Object[] loggers = commandLoggers.snapshot();
+
+        // no loggers: skip wrapping the event in a collection
+        if (loggers.length == 0) {
+            return;
+        }
+
+        Collection<Event> events = event == null ? null : Collections.singleton(event);
+
+        for (Object logger : loggers) {
+            ((CommandLogger) logger).onCommandHandlerResult(command, events);
         }
     }
 
@@ -84,15 +108,17 @@ public class DefaultLoggersHelper<S extends State> implements LoggersHelper<S> {
             throw new NoRegisteredEventLoggerException(error, event);
         }
 
-        for (EventLogger<S> logger : eventLoggers) {
-            logger.onEventHandlerError(error, event);
+        for (Object logger : eventLoggers.snapshot()) {
+            // noinspection unchecked
+            ((EventLogger<S>) logger).onEventHandlerError(error, event);
         }
     }
 
     @Override
     public void onEventHandlerResult(Event event, S newState) {
-        for (EventLogger<S> logger : eventLoggers) {
-            logger.onEventHandlerResult(event, newState);
+        for (Object logger : eventLoggers.snapshot()) {
+            // noinspection unchecked
+            ((EventLogger<S>) logger).onEventHandlerResult(event, newState);
         }
     }
 
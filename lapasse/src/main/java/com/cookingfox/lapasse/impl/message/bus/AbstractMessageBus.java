@@ -7,10 +7,12 @@ import com.cookingfox.lapasse.api.message.handler.MessageHandler;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.message.store.OnMessageAdded;
 import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Abstract message bus implementation.
@@ -25,10 +27,25 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
     // PROTECTED PROPERTIES
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * The resolved dispatch routes by message class. Replaced when the handler dispatchers change,
+     * so a route that was resolved with the old dispatchers is never cached in the new map.
+     *
+     * @see #getDispatchRoute(Class)
+     */
+    protected volatile ConcurrentMap<Class<?>, DispatchRoute> dispatchRoutes = CollectionUtils.newConcurrentMap();
+
+    /**
+     * The message classes whose dispatch routes are resolved when the handler dispatchers change.
+     *
+     * @see #setPreloadedMessageClasses(Collection)
+     */
+    protected volatile Class<?>[] preloadedMessageClasses = new Class<?>[0];
+
     /**
      * A map of message types to a set of message handlers.
      */
-    protected final Map<Class<M>, Set<H>> messageHandlerMap = CollectionUtils.newConcurrentMap();
+    protected final Map<Class<M>, SnapshotSet<H>> messageHandlerMap;
 
     /**
      * Stores messages.
@@ -40,8 +57,18 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
     //----------------------------------------------------------------------------------------------
 
     public AbstractMessageBus(MessageStore messageStore) {
+        this(messageStore, 0);
+    }
+
+    /**
+     * @param messageStore         Stores messages.
+     * @param expectedMessageTypes The expected number of mapped message types, used to size the
+     *                             handler map.
+     */
+    public AbstractMessageBus(MessageStore messageStore, int expectedMessageTypes) {
         messageStore.addMessageAddedListener(onMessageAddedToStore);
 
+        this.messageHandlerMap = CollectionUtils.newConcurrentMap(expectedMessageTypes);
         this.messageStore = messageStore;
     }
 
@@ -52,14 +79,15 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
     @Override
     public void dispose() {
         messageHandlerMap.clear();
+        clearDispatchRoutes();
     }
 
     @Override
     public void handleMessage(M message) {
         Class<? extends Message> messageClass = message.getClass();
 
-        // no mapped handlers? throw
-        if (getMessageHandlers(messageClass) == null) {
+        // no dispatcher or mapped handlers? throw
+        if (!isDispatched(messageClass) && getMessageHandlers(messageClass) == null) {
             throw new NoMessageHandlersException(messageClass);
         }
 
@@ -75,11 +103,11 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
         Objects.requireNonNull(messageClass, "Message class can not be null");
         Objects.requireNonNull(messageHandler, "Message handler can not be null");
 
-        Set<H> handlers = messageHandlerMap.get(messageClass);
+        SnapshotSet<H> handlers = messageHandlerMap.get(messageClass);
 
         // no handler collection yet? create it first
         if (handlers == null) {
-            handlers = CollectionUtils.newConcurrentSet();
+            handlers = CollectionUtils.newSnapshotSet();
             messageHandlerMap.put(messageClass, handlers);
         }
 
@@ -108,10 +136,117 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
      */
     protected abstract boolean shouldHandleMessageType(Message message);
 
+    /**
+     * Sets the message classes whose dispatch routes are resolved as soon as the handler
+     * dispatchers change, instead of when the first message of the class is handled. The routes
+     * are resolved with the current dispatchers immediately.
+     *
+     * @param messageClasses The message classes, for example of a routing graph.
+     */
+    public void setPreloadedMessageClasses(Collection<? extends Class<? extends Message>> messageClasses) {
+        Objects.requireNonNull(messageClasses, "Message classes can not be null");
+
+        preloadedMessageClasses = messageClasses.toArray(new Class<?>[messageClasses.size()]);
+        clearDispatchRoutes();
+    }
+
     //----------------------------------------------------------------------------------------------
     // PROTECTED METHODS
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Forgets the resolved dispatch routes: call when the handler dispatchers change. The routes
+     * of the preloaded message classes are resolved again with the current dispatchers.
+     *
+     * @see #setPreloadedMessageClasses(Collection)
+     */
+    @SuppressWarnings("unchecked")
+    protected void clearDispatchRoutes() {
+        Class<?>[] messageClasses = preloadedMessageClasses;
+        ConcurrentMap<Class<?>, DispatchRoute> routes = CollectionUtils.newConcurrentMap(messageClasses.length);
+
+        // resolve before publishing the map, so no message resolves these routes
+        for (Class<?> messageClass : messageClasses) {
+            routes.put(messageClass, resolveDispatchRoute((Class<? extends Message>) messageClass));
+        }
+
+        dispatchRoutes = routes;
+    }
+
+    /**
+     * Routes the message to the handler dispatchers that handle its type. Called before the mapped
+     * message handlers are executed. The default implementation does nothing.
+     *
+     * @param message The message to dispatch.
+     * @see #getDispatchRoute(Class)
+     */
+    protected void dispatch(M message) {
+        // override in message buses that support handler dispatchers
+    }
+
+    /**
+     * Execute the mapped message handlers for this message. The default implementation executes
+     * them one after the other.
+     *
+     * @param message  The message to handle.
+     * @param handlers The message handlers that are associated with this message: a snapshot that
+     *                 must NOT be modified.
+     */
+    protected void executeHandlers(M message, Object[] handlers) {
+        // iterate the snapshot to prevent iterator allocation
+        for (Object handler : handlers) {
+            // noinspection unchecked
+            executeHandler(message, (H) handler);
+        }
+    }
+
+    /**
+     * Returns the handler dispatchers that handle this message class. The route is resolved once
+     * per message class and then cached.
+     *
+     * @param messageClass The message class to get the route for.
+     * @return The dispatch route, or {@link DispatchRoute#EMPTY}.
+     * @see #resolveDispatchRoute(Class)
+     */
+    protected DispatchRoute getDispatchRoute(Class<? extends Message> messageClass) {
+        // read the map before the dispatchers: see dispatchRoutes
+        ConcurrentMap<Class<?>, DispatchRoute> routes = dispatchRoutes;
+        DispatchRoute route = routes.get(messageClass);
+
+        if (route == null) {
+            route = resolveDispatchRoute(messageClass);
+            routes.put(messageClass, route);
+        }
+
+        return route;
+    }
+
+    /**
+     * Routes a stored message to its handler dispatchers and then to its mapped message handlers.
+     *
+     * @param message The message to route.
+     * @see #dispatch(Message)
+     * @see #executeHandlers(Message, Object[])
+     */
+    protected void routeMessage(M message) {
+        // route to handler dispatchers first
+        dispatch(message);
+
+        // no mapped handlers at all? skip the handler lookup
+        if (messageHandlerMap.isEmpty()) {
+            return;
+        }
+
+        // check if the bus has mapped handlers
+        SnapshotSet<H> handlers = getMessageHandlers(message.getClass());
+
+        if (handlers == null) {
+            return;
+        }
+
+        executeHandlers(message, handlers.snapshot());
+    }
+
     /**
      * Get mapped handlers for this message class.
      *
@@ -119,9 +254,9 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
      * @return The handlers for this message class.
      * @throws NoMessageHandlersException when no handlers are mapped for this message.
      */
-    protected Set<H> getMessageHandlers(Class<? extends Message> messageClass) {
+    protected SnapshotSet<H> getMessageHandlers(Class<? extends Message> messageClass) {
         // noinspection SuspiciousMethodCalls
-        Set<H> handlers = messageHandlerMap.get(messageClass);
+        SnapshotSet<H> handlers = messageHandlerMap.get(messageClass);
 
         // no mapped handlers for this message type: see if there's a handler for the message's
         // super type
@@ -138,25 +273,42 @@ public abstract class AbstractMessageBus<M extends Message, H extends MessageHan
         return handlers;
     }
 
+    /**
+     * Returns whether a handler dispatcher handles messages of this type.
+     *
+     * @param messageClass The message class to check.
+     * @return Whether a handler dispatcher handles this message class.
+     * @see #dispatch(Message)
+     */
+    protected boolean isDispatched(Class<? extends Message> messageClass) {
+        return !getDispatchRoute(messageClass).isEmpty();
+    }
+
+    /**
+     * Searches the handler dispatchers that handle this message class. The default implementation
+     * returns an empty route.
+     *
+     * @param messageClass The message class to resolve the route for.
+     * @return The dispatch route, or {@link DispatchRoute#EMPTY}.
+     * @see #getDispatchRoute(Class)
+     */
+    protected DispatchRoute resolveDispatchRoute(Class<? extends Message> messageClass) {
+        return DispatchRoute.EMPTY;
+    }
+
     /**
      * Listener for when a new message is added to the store.
      */
     protected final OnMessageAdded onMessageAddedToStore = new OnMessageAdded() {
         @Override
         public void onMessageAdded(Message message) {
-            // check if the bus has mapped handlers
-            Set<H> handlers = getMessageHandlers(message.getClass());
-
-            if (!shouldHandleMessageType(message) || handlers == null) {
+            if (!shouldHandleMessageType(message)) {
                 // this message bus should not handle messages of this type
                 return;
             }
 
-            // execute message handlers
-            for (H handler : handlers) {
-                // noinspection unchecked
-                executeHandler((M) message, handler);
-            }
+            // noinspection unchecked
+            routeMessage((M) message);
         }
     };
 
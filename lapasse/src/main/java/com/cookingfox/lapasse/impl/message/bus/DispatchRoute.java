@@ -0,0 +1,92 @@
+package com.cookingfox.lapasse.impl.message.bus;
+
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.api.state.State;
+
+import java.util.Arrays;
+
+/**
+ * The handler dispatchers that handle a message class, with the index of their handler. Resolved
+ * once per message class by a message bus and cached, so dispatching a message does not search the
+ * dispatchers.
+ */
+public final class DispatchRoute {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Route of a message class that no dispatcher handles.
+     */
+    public static final DispatchRoute EMPTY = new DispatchRoute(new HandlerDispatcher[0], new int[0], 0);
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private final HandlerDispatcher[] dispatchers;
+    private final int[] indices;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    private DispatchRoute(HandlerDispatcher[] dispatchers, int[] indices, int size) {
+        this.dispatchers = size == dispatchers.length ? dispatchers : Arrays.copyOf(dispatchers, size);
+        this.indices = size == indices.length ? indices : Arrays.copyOf(indices, size);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC FACTORY METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a route. The arrays are not copied when their length equals the size.
+     *
+     * @param dispatchers The dispatchers that handle the message class.
+     * @param indices     The handler index of every dispatcher.
+     * @param size        The number of dispatchers: the arrays are trimmed to this size.
+     * @return The route, or {@link #EMPTY} if the size is 0.
+     */
+    public static DispatchRoute of(HandlerDispatcher[] dispatchers, int[] indices, int size) {
+        return size == 0 ? EMPTY : new DispatchRoute(dispatchers, indices, size);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param position The position in this route.
+     * @param <S>      The concrete type of the state object.
+     * @return The dispatcher at this position.
+     */
+    public <S extends State> HandlerDispatcher<S> getDispatcher(int position) {
+        // noinspection unchecked
+        return (HandlerDispatcher<S>) dispatchers[position];
+    }
+
+    /**
+     * @param position The position in this route.
+     * @return The handler index of the dispatcher at this position.
+     */
+    public int getIndex(int position) {
+        return indices[position];
+    }
+
+    /**
+     * @return Whether no dispatcher handles the message class.
+     */
+    public boolean isEmpty() {
+        return dispatchers.length == 0;
+    }
+
+    /**
+     * @return The number of dispatchers that handle the message class.
+     */
+    public int size() {
+        return dispatchers.length;
+    }
+
+}
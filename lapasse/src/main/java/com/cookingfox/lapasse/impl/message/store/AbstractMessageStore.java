@@ -4,9 +4,9 @@ import com.cookingfox.lapasse.api.message.Message;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
 import com.cookingfox.lapasse.api.message.store.OnMessageAdded;
 import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * Abstract implementation of {@link MessageStore}.
@@ -16,7 +16,7 @@ public abstract class AbstractMessageStore implements MessageStore {
     /**
      * Collection of listeners for when a message is added.
      */
-    protected final Set<OnMessageAdded> messageAddedListeners = CollectionUtils.newConcurrentSet();
+    protected final SnapshotSet<OnMessageAdded> messageAddedListeners = CollectionUtils.newSnapshotSet();
 
     //----------------------------------------------------------------------------------------------
     // PUBLIC METHODS
@@ -47,8 +47,8 @@ public abstract class AbstractMessageStore implements MessageStore {
      * @param message The message that was added.
      */
     protected void notifyMessageAdded(Message message) {
-        for (OnMessageAdded listener : messageAddedListeners) {
-            listener.onMessageAdded(message);
+        for (Object listener : messageAddedListeners.snapshot()) {
+            ((OnMessageAdded) listener).onMessageAdded(message);
         }
     }
 
@@ -0,0 +1,254 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) checksum of journal records. Uses `java.util.zip.CRC32C` (Java 9+) when
+ * available, which is an intrinsic on most platforms, and a slicing-by-8 implementation otherwise.
+ * Both produce the same values, so journals can be moved between JVMs. Both checksum mapped and
+ * other direct buffers in place: the bytes are only copied to a heap buffer for other checksum
+ * implementations.
+ */
+final class Crc32c implements Checksum {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The reversed Castagnoli polynomial.
+     */
+    private static final int POLYNOMIAL = 0x82f63b78;
+
+    /**
+     * `java.util.zip.CRC32C()` (Java 9+), or `null` if not available.
+     */
+    static final Constructor<? extends Checksum> JDK_CONSTRUCTOR = findJdkConstructor();
+
+    /**
+     * `java.util.zip.Checksum.update(ByteBuffer)` (Java 9+), or `null` if not available. The JDK
+     * CRC-32C implementation checksums direct buffers in place. A constant method handle, so the
+     * JIT compiles calls to a direct virtual call.
+     */
+    static final MethodHandle JDK_UPDATE_BUFFER = findJdkUpdateBuffer();
+
+    private static final int[][] TABLES = createTables();
+
+    /**
+     * Reusable buffers for checksums of buffers without an accessible array, by checksum
+     * implementations that can not read them in place.
+     */
+    private static final ThreadLocal<byte[]> COPY_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private int crc = 0xffffffff;
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return A new CRC-32C checksum: not thread-safe.
+     */
+    static Checksum create() {
+        if (JDK_CONSTRUCTOR != null) {
+            try {
+                return JDK_CONSTRUCTOR.newInstance();
+            } catch (ReflectiveOperationException e) {
+                // fall through
+            }
+        }
+
+        return new Crc32c();
+    }
+
+    /**
+     * Updates the checksum with the remaining bytes of the buffer, without changing its position.
+     * Buffers without an accessible array, such as mapped segments, are read in place by this
+     * implementation and by the JDK implementation, and are copied through a heap buffer for
+     * other checksums.
+     *
+     * @param checksum The checksum to update.
+     * @param bytes    The bytes.
+     */
+    static void update(Checksum checksum, ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            checksum.update(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            return;
+        }
+
+        if (checksum instanceof Crc32c) {
+            ((Crc32c) checksum).updateInPlace(bytes);
+            return;
+        }
+
+        if (JDK_UPDATE_BUFFER != null) {
+            int position = bytes.position();
+
+            try {
+                JDK_UPDATE_BUFFER.invokeExact(checksum, bytes);
+                return;
+            } catch (Throwable e) {
+                // fall through: nothing was read, because the buffer is readable
+            } finally {
+                // the JDK implementation advances the position to the limit
+                bytes.position(position);
+            }
+        }
+
+        byte[] copy = COPY_BUFFER.get();
+        ByteBuffer source = bytes.duplicate();
+
+        while (source.hasRemaining()) {
+            int length = Math.min(copy.length, source.remaining());
+            source.get(copy, 0, length);
+            checksum.update(copy, 0, length);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public long getValue() {
+        return ~crc & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xffffffff;
+    }
+
+    @Override
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ b) & 0xff];
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        int value = crc;
+        int end = offset + length;
+
+        // eight bytes per step
+        while (end - offset >= 8) {
+            int low = value ^ ((bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 |
+                    (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24);
+
+            value = TABLES[7][low & 0xff] ^ TABLES[6][(low >>> 8) & 0xff] ^
+                    TABLES[5][(low >>> 16) & 0xff] ^ TABLES[4][low >>> 24] ^
+                    TABLES[3][bytes[offset + 4] & 0xff] ^ TABLES[2][bytes[offset + 5] & 0xff] ^
+                    TABLES[1][bytes[offset + 6] & 0xff] ^ TABLES[0][bytes[offset + 7] & 0xff];
+
+            offset += 8;
+        }
+
+        while (offset < end) {
+            value = (value >>> 8) ^ TABLES[0][(value ^ bytes[offset++]) & 0xff];
+        }
+
+        crc = value;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Updates the checksum with the remaining bytes of the buffer, reading them in place, without
+     * changing its position.
+     *
+     * @param bytes The bytes.
+     */
+    void updateInPlace(ByteBuffer bytes) {
+        boolean bigEndian = bytes.order() == ByteOrder.BIG_ENDIAN;
+        int value = crc;
+        int offset = bytes.position();
+        int end = bytes.limit();
+
+        // eight bytes per step
+        while (end - offset >= 8) {
+            int word = bytes.getInt(offset);
+            int low = value ^ (bigEndian ? Integer.reverseBytes(word) : word);
+
+            value = TABLES[7][low & 0xff] ^ TABLES[6][(low >>> 8) & 0xff] ^
+                    TABLES[5][(low >>> 16) & 0xff] ^ TABLES[4][low >>> 24] ^
+                    TABLES[3][bytes.get(offset + 4) & 0xff] ^ TABLES[2][bytes.get(offset + 5) & 0xff] ^
+                    TABLES[1][bytes.get(offset + 6) & 0xff] ^ TABLES[0][bytes.get(offset + 7) & 0xff];
+
+            offset += 8;
+        }
+
+        while (offset < end) {
+            value = (value >>> 8) ^ TABLES[0][(value ^ bytes.get(offset++)) & 0xff];
+        }
+
+        crc = value;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static int[][] createTables() {
+        int[][] tables = new int[8][256];
+
+        for (int i = 0; i < 256; i++) {
+            int value = i;
+
+            for (int bit = 0; bit < 8; bit++) {
+                value = (value & 1) != 0 ? (value >>> 1) ^ POLYNOMIAL : value >>> 1;
+            }
+
+            tables[0][i] = value;
+        }
+
+        for (int i = 0; i < 256; i++) {
+            for (int table = 1; table < 8; table++) {
+                int previous = tables[table - 1][i];
+                tables[table][i] = (previous >>> 8) ^ tables[0][previous & 0xff];
+            }
+        }
+
+        return tables;
+    }
+
+    /**
+     * @return The constructor of the JDK implementation, or `null` if not available.
+     */
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends Checksum> findJdkConstructor() {
+        try {
+            return (Constructor<? extends Checksum>) Class.forName("java.util.zip.CRC32C").getConstructor();
+        } catch (ClassNotFoundException | NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The method handle that updates a checksum with a buffer, or `null` if not available.
+     */
+    private static MethodHandle findJdkUpdateBuffer() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Checksum.class, "update",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            return null;
+        }
+    }
+
+}
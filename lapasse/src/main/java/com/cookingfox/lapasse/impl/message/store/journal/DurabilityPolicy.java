@@ -0,0 +1,141 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines when the journal forces appended messages to the storage device.
+ */
+public final class DurabilityPolicy {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The durability modes.
+     */
+    public enum Mode {
+
+        /**
+         * Every append is forced before it returns.
+         */
+        PER_MESSAGE,
+
+        /**
+         * Concurrent appends are coalesced into one force: appends that arrive during a force join
+         * the next one. Appends wait for it before they return.
+         */
+        GROUP_COMMIT,
+
+        /**
+         * Appends are forced at a fixed interval. Appends do not wait for it.
+         */
+        PERIODIC,
+
+        /**
+         * Appends are never forced: the operating system decides when they are written.
+         */
+        OS_MANAGED
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private final long intervalNanos;
+    private final Mode mode;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    private DurabilityPolicy(Mode mode, long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.mode = mode;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC FACTORY METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a policy that coalesces concurrent appends into one force. A force starts as soon as
+     * an append requests it and no force is in flight: appends that arrive during a force join the
+     * next one. Before a force, the appends that are in progress are waited for, at most the latency
+     * budget.
+     *
+     * @param latencyBudget The maximum time to wait for appends in progress to join a force.
+     * @param unit          The unit of the latency budget.
+     * @return The policy.
+     */
+    public static DurabilityPolicy groupCommit(long latencyBudget, TimeUnit unit) {
+        if (latencyBudget < 0) {
+            throw new IllegalArgumentException("Latency budget can not be negative");
+        }
+
+        return new DurabilityPolicy(Mode.GROUP_COMMIT,
+                Objects.requireNonNull(unit, "Unit can not be null").toNanos(latencyBudget));
+    }
+
+    /**
+     * Creates a policy that never forces appends: the fastest, but appends can be lost when the
+     * machine crashes.
+     *
+     * @return The policy.
+     */
+    public static DurabilityPolicy osManaged() {
+        return new DurabilityPolicy(Mode.OS_MANAGED, 0);
+    }
+
+    /**
+     * Creates a policy that forces every append before it returns: the safest, but the slowest.
+     *
+     * @return The policy.
+     */
+    public static DurabilityPolicy perMessage() {
+        return new DurabilityPolicy(Mode.PER_MESSAGE, 0);
+    }
+
+    /**
+     * Creates a policy that forces appends at a fixed interval. Appends of the last interval can be
+     * lost when the machine crashes.
+     *
+     * @param interval The time between forces.
+     * @param unit     The unit of the interval.
+     * @return The policy.
+     */
+    public static DurabilityPolicy periodic(long interval, TimeUnit unit) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+
+        return new DurabilityPolicy(Mode.PERIODIC,
+                Objects.requireNonNull(unit, "Unit can not be null").toNanos(interval));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // GETTERS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The latency budget (group commit) or the interval (periodic) in nanoseconds.
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityPolicy{" +
+                "mode=" + mode +
+                ", intervalNanos=" + intervalNanos +
+                '}';
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.event.Event;
+
+/**
+ * Folds the events of a type where only the latest value matters: when the journal is compacted,
+ * only the latest event per key is kept.
+ *
+ * @param <E> The concrete event type.
+ * @see JournalCompactor.Builder#addEventFolder(Class, EventFolder)
+ */
+public interface EventFolder<E extends Event> {
+
+    /**
+     * Returns the key of the event: an older event with an equal key is removed by compaction.
+     *
+     * @param event The event.
+     * @return The key of the event, or `null` to always keep the event.
+     */
+    Object getKey(E event);
+
+}
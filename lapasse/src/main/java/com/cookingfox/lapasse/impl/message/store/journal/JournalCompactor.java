@@ -0,0 +1,739 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+/**
+ * Keeps the journal of a {@link JournalMessageStore} from growing forever, in two steps:
+ * <ol>
+ * <li>Retention: full segments whose messages are all covered by the latest snapshot are deleted
+ * or archived, oldest first, as far as the {@link RetentionPolicy} allows.</li>
+ * <li>Folding: full segments are rewritten without the events that are superseded by a later
+ * event with an equal key, for the event types that have an {@link EventFolder}.</li>
+ * </ol>
+ * The current segment is never touched, and appending is only blocked while the segment list of
+ * the store is replaced, so compaction does not pause appends. Sequences are kept: after folding
+ * they can have gaps. Compaction runs on a background thread when an interval is set, or on
+ * {@link #compact()}.
+ * <p>
+ * For folding, the compactor keeps the latest sequence per key of the records it scanned, and
+ * forgets the keys whose latest record was removed. After every run it saves this state to the
+ * journal directory, so the next process only decodes the records that were appended since. The
+ * state is only saved when all keys are serializable, and is ignored when it refers to records
+ * that the journal no longer has.
+ */
+public class JournalCompactor implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * File extension of a segment that is being rewritten.
+     */
+    static final String COMPACT_EXTENSION = ".compact";
+
+    /**
+     * Name of the file in the journal directory that keeps the fold state between processes.
+     */
+    static final String STATE_FILE_NAME = "compactor.state";
+
+    /**
+     * Name of the thread that compacts the journal at a fixed interval.
+     */
+    static final String THREAD_NAME = "lapasse-journal-compactor";
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The directory to move removed segments to, or `null` to delete them.
+     */
+    protected final File archiveDirectory;
+
+    /**
+     * The event folders by concrete event type.
+     */
+    protected final Map<Class<?>, EventFolder<?>> eventFolders;
+
+    protected final long intervalNanos;
+
+    /**
+     * The latest sequence per key, per event type, of the records up to the scanned sequence.
+     * Keys whose latest sequence is before the first segment are pruned. Guarded by the run lock.
+     */
+    protected HashMap<Class<?>, HashMap<Object, Long>> latestSequences = new HashMap<>();
+
+    /**
+     * Guards the interval wait and disposing.
+     */
+    protected final Object lock = new Object();
+
+    protected final RetentionPolicy retentionPolicy;
+
+    /**
+     * The base sequence of the first segment when the latest sequences were last pruned. Guarded
+     * by the run lock.
+     */
+    protected long prunedSequence;
+
+    /**
+     * Verifies the checksums of the records that are read. Guarded by the run lock.
+     */
+    protected final Checksum readChecksum = Crc32c.create();
+
+    /**
+     * Guards compaction runs: only one at a time.
+     */
+    protected final Object runLock = new Object();
+
+    /**
+     * The sequence of the last record that was scanned for folding. Guarded by the run lock.
+     */
+    protected long scannedSequence;
+
+    protected final JournalMessageStore store;
+
+    /**
+     * Compacts at a fixed interval, or `null` if no interval is set.
+     */
+    protected final Thread thread;
+
+    protected volatile boolean disposed;
+
+    /**
+     * The error of the last failed compaction on the background thread.
+     */
+    protected volatile JournalException lastError;
+
+    /**
+     * The sequence of the last message that is covered by the latest snapshot.
+     */
+    protected volatile long snapshotSequence;
+
+    /**
+     * The base sequences of the segments that contain superseded records, so they can be folded
+     * when they are full. Guarded by the run lock.
+     */
+    protected TreeSet<Long> unfoldedBaseSequences = new TreeSet<>();
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    protected JournalCompactor(Builder builder) {
+        this.archiveDirectory = builder.archiveDirectory;
+        this.eventFolders = new LinkedHashMap<>(builder.eventFolders);
+        this.intervalNanos = builder.intervalNanos;
+        this.retentionPolicy = builder.retentionPolicy;
+        this.store = builder.store;
+
+        if (!eventFolders.isEmpty()) {
+            loadFoldState();
+        }
+
+        if (intervalNanos > 0) {
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runCompactionLoop();
+                }
+            }, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            thread = null;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Removes the segments that the retention policy allows, and folds the remaining full
+     * segments. Blocks while another compaction runs.
+     *
+     * @throws JournalException when the compactor is disposed or the journal can not be compacted.
+     */
+    public void compact() {
+        synchronized (runLock) {
+            if (disposed) {
+                throw new JournalException("Compactor is disposed");
+            }
+
+            try {
+                removeSegments();
+
+                if (!eventFolders.isEmpty()) {
+                    foldSegments();
+                }
+            } catch (IOException e) {
+                throw new JournalException("Could not compact journal " + store.directory, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread, after the running compaction.
+     */
+    @Override
+    public void dispose() {
+        synchronized (lock) {
+            disposed = true;
+            lock.notifyAll();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The error of the last failed compaction on the background thread, or `null`.
+     */
+    public JournalException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * @return The sequence of the last message that is covered by the latest snapshot.
+     */
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    /**
+     * Set the sequence of the last message that is covered by the latest snapshot: segments with
+     * later messages are never removed. Defaults to 0, so no segments are removed until a snapshot
+     * is taken.
+     *
+     * @param snapshotSequence The sequence of the last message in the snapshot.
+     */
+    public void setSnapshotSequence(long snapshotSequence) {
+        if (snapshotSequence < 0) {
+            throw new IllegalArgumentException("Snapshot sequence can not be negative");
+        }
+
+        this.snapshotSequence = snapshotSequence;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Rewrites the full segments without the events that are superseded by a later event with an
+     * equal key. A segment without remaining records is removed. Only the records that were
+     * appended since the last run are decoded to update the latest sequence per key, and only the
+     * segments with superseded records are rewritten.
+     *
+     * @throws IOException when a segment can not be read or rewritten.
+     */
+    protected void foldSegments() throws IOException {
+        List<JournalSegment> segments = store.segments;
+        long firstSequence = segments.get(0).baseSequence;
+
+        if (firstSequence > prunedSequence) {
+            pruneLatestSequences(firstSequence);
+        }
+
+        // update the latest sequence per key, also from the current segment
+        for (int i = JournalMessageStore.findSegmentIndex(segments, scannedSequence + 1); i < segments.size(); i++) {
+            JournalSegment segment = segments.get(i);
+            RecordReader reader = new RecordReader(segment, segment.seek(scannedSequence + 1));
+
+            while (reader.next()) {
+                Object key = reader.getKey();
+
+                if (key != null) {
+                    HashMap<Object, Long> sequences = latestSequences.get(reader.message.getClass());
+
+                    if (sequences == null) {
+                        sequences = new HashMap<>();
+                        latestSequences.put(reader.message.getClass(), sequences);
+                    }
+
+                    Long superseded = sequences.put(key, reader.sequence);
+
+                    if (superseded != null && superseded >= firstSequence) {
+                        int index = JournalMessageStore.findSegmentIndex(segments, superseded);
+                        unfoldedBaseSequences.add(segments.get(index).baseSequence);
+                    }
+                }
+
+                scannedSequence = reader.sequence;
+            }
+        }
+
+        for (int i = 0; i < segments.size() - 1; i++) {
+            JournalSegment segment = segments.get(i);
+
+            if (!unfoldedBaseSequences.contains(segment.baseSequence)) {
+                continue;
+            }
+
+            RecordReader reader = new RecordReader(segment, 0);
+            List<long[]> kept = new ArrayList<>();
+            boolean dropped = false;
+
+            while (reader.next()) {
+                Object key = reader.getKey();
+                Map<Object, Long> sequences = key == null ? null : latestSequences.get(reader.message.getClass());
+                Long latest = sequences == null ? null : sequences.get(key);
+
+                // no latest sequence if the key is not stable across decodes: keep the record
+                if (latest != null && latest > reader.sequence) {
+                    dropped = true;
+                } else {
+                    kept.add(new long[]{reader.position, reader.recordSize});
+                }
+            }
+
+            if (dropped && kept.isEmpty()) {
+                store.removeSegment(segment);
+                segment.close();
+                delete(segment.file);
+                delete(segment.indexFile);
+            } else if (dropped) {
+                rewriteSegment(segment, kept);
+            }
+
+            unfoldedBaseSequences.remove(segment.baseSequence);
+        }
+
+        // keep the current segment for a later run, forget the segments that were removed
+        unfoldedBaseSequences.headSet(segments.get(segments.size() - 1).baseSequence).clear();
+
+        saveFoldState();
+    }
+
+    /**
+     * Loads the fold state that was saved by an earlier compactor of the journal, if it is still
+     * valid: otherwise the next run scans the journal from the start.
+     */
+    @SuppressWarnings("unchecked")
+    protected void loadFoldState() {
+        File stateFile = new File(store.directory, STATE_FILE_NAME);
+
+        if (!stateFile.isFile()) {
+            return;
+        }
+
+        try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            long scanned = input.readLong();
+            HashMap<Class<?>, HashMap<Object, Long>> sequences = (HashMap<Class<?>, HashMap<Object, Long>>) input.readObject();
+            TreeSet<Long> unfolded = (TreeSet<Long>) input.readObject();
+
+            // the journal lost records that the state refers to, e.g. a torn write
+            if (scanned > store.getLastSequence()) {
+                return;
+            }
+
+            scannedSequence = scanned;
+            latestSequences = sequences;
+            unfoldedBaseSequences = unfolded;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // invalid or of other event types: scan the journal from the start
+        }
+    }
+
+    /**
+     * Forgets the keys whose latest record is before the first segment: no remaining record of
+     * these keys can be superseded.
+     *
+     * @param firstSequence The base sequence of the first segment.
+     */
+    protected void pruneLatestSequences(long firstSequence) {
+        Iterator<HashMap<Object, Long>> maps = latestSequences.values().iterator();
+
+        while (maps.hasNext()) {
+            Iterator<Long> sequences = maps.next().values().iterator();
+
+            while (sequences.hasNext()) {
+                if (sequences.next() < firstSequence) {
+                    sequences.remove();
+                }
+            }
+        }
+
+        prunedSequence = firstSequence;
+    }
+
+    /**
+     * Saves the fold state to the journal directory, replacing the previous state atomically.
+     * Removes the previous state when a key is not serializable.
+     *
+     * @throws IOException when the state can not be written.
+     */
+    protected void saveFoldState() throws IOException {
+        File stateFile = new File(store.directory, STATE_FILE_NAME);
+        File tempFile = new File(store.directory, STATE_FILE_NAME + COMPACT_EXTENSION);
+
+        try (FileOutputStream file = new FileOutputStream(tempFile)) {
+            ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(file));
+            output.writeLong(scannedSequence);
+            output.writeObject(latestSequences);
+            output.writeObject(unfoldedBaseSequences);
+            output.flush();
+            file.getChannel().force(false);
+        } catch (NotSerializableException e) {
+            delete(tempFile);
+            delete(stateFile);
+            return;
+        }
+
+        if (!tempFile.renameTo(stateFile)) {
+            // not atomic on every platform: replace explicitly
+            delete(stateFile);
+
+            if (!tempFile.renameTo(stateFile)) {
+                throw new IOException("Could not replace " + stateFile);
+            }
+        }
+    }
+
+    /**
+     * Removes the full segments that are covered by the snapshot, oldest first, as far as the
+     * retention policy allows. Segments are only removed from the start, so the remaining messages
+     * are contiguous.
+     */
+    protected void removeSegments() {
+        if (retentionPolicy.getMode() == RetentionPolicy.Mode.KEEP_ALL) {
+            return;
+        }
+
+        List<JournalSegment> segments = store.segments;
+        long now = System.currentTimeMillis();
+        long snapshot = snapshotSequence;
+        long totalSize = 0;
+
+        for (JournalSegment segment : segments) {
+            totalSize += segment.size;
+        }
+
+        for (int i = 0; i < segments.size() - 1; i++) {
+            JournalSegment segment = segments.get(i);
+
+            if (segment.lastSequence > snapshot || !isExpired(segment, totalSize, now)) {
+                break;
+            }
+
+            store.removeSegment(segment);
+            segment.close();
+            totalSize -= segment.size;
+
+            if (archiveDirectory == null) {
+                delete(segment.file);
+                delete(segment.indexFile);
+            } else {
+                archive(segment.file);
+                archive(segment.indexFile);
+            }
+        }
+    }
+
+    /**
+     * Copies the kept records of a full segment to a new file, and replaces the segment with it.
+     * The new file keeps the modification time of the segment, for the max age retention policy.
+     *
+     * @param segment The segment to rewrite.
+     * @param kept    The position and size of every record to keep.
+     * @throws IOException when the segment can not be rewritten.
+     */
+    protected void rewriteSegment(JournalSegment segment, List<long[]> kept) throws IOException {
+        File compactFile = new File(segment.file.getPath() + COMPACT_EXTENSION);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(compactFile, "rw")) {
+            FileChannel target = randomAccessFile.getChannel();
+            target.truncate(0);
+
+            for (long[] record : kept) {
+                long position = record[0];
+                long remaining = record[1];
+
+                while (remaining > 0) {
+                    long transferred = segment.channel.transferTo(position, remaining, target);
+
+                    if (transferred <= 0) {
+                        throw new IOException("Unexpected end of segment " + segment.file);
+                    }
+
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+
+            target.force(false);
+        }
+
+        // noinspection ResultOfMethodCallIgnored
+        compactFile.setLastModified(segment.file.lastModified());
+
+        replaceSegmentFile(segment, compactFile);
+
+        JournalSegment replacement = JournalSegment.open(store.directory, segment.baseSequence, store.indexInterval, true, false);
+        store.replaceSegment(segment, replacement);
+        segment.close();
+    }
+
+    /**
+     * Renames the rewritten file over the file of the segment. The index file of the segment is
+     * emptied first, so when the process stops after the rename, the index of the old records is
+     * not used for the new file, but rebuilt when the segment is opened.
+     *
+     * @param segment     The segment to replace the file of.
+     * @param compactFile The rewritten file.
+     * @throws IOException when the index file can not be emptied.
+     */
+    protected void replaceSegmentFile(JournalSegment segment, File compactFile) throws IOException {
+        segment.invalidateIndexFile();
+
+        if (!compactFile.renameTo(segment.file)) {
+            delete(compactFile);
+            throw new JournalException("Could not replace segment " + segment.file);
+        }
+    }
+
+    /**
+     * Compacts at the interval, until the compactor is disposed.
+     */
+    protected void runCompactionLoop() {
+        while (true) {
+            synchronized (lock) {
+                long deadline = System.nanoTime() + intervalNanos;
+                long remaining;
+
+                while (!disposed && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    } catch (InterruptedException e) {
+                        // ignore: only the compactor interrupts its thread
+                    }
+                }
+
+                if (disposed) {
+                    return;
+                }
+            }
+
+            try {
+                compact();
+            } catch (JournalException e) {
+                lastError = e;
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void archive(File file) {
+        if (file.exists() && !file.renameTo(new File(archiveDirectory, file.getName()))) {
+            throw new JournalException("Could not archive " + file);
+        }
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            throw new JournalException("Could not delete " + file);
+        }
+    }
+
+    private boolean isExpired(JournalSegment segment, long totalSize, long now) {
+        switch (retentionPolicy.getMode()) {
+            case MAX_AGE:
+                return now - segment.file.lastModified() > retentionPolicy.getLimit();
+
+            case MAX_SIZE:
+                return totalSize > retentionPolicy.getLimit();
+
+            case UNTIL_SNAPSHOT:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Reads and decodes the records of a segment, up to its size when the reader was created.
+     */
+    protected final class RecordReader {
+
+        final ByteBuffer header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+        final JournalSegment segment;
+        final long size;
+
+        Message message;
+        long position;
+        long recordSize;
+        long sequence;
+
+        RecordReader(JournalSegment segment, long position) {
+            this.segment = segment;
+            this.size = segment.size;
+            this.position = position;
+        }
+
+        /**
+         * @return The key of the current message if it has an event folder, otherwise `null`.
+         */
+        @SuppressWarnings("unchecked")
+        Object getKey() {
+            EventFolder<Event> folder = (EventFolder<Event>) eventFolders.get(message.getClass());
+
+            return folder == null ? null : folder.getKey((Event) message);
+        }
+
+        /**
+         * Moves to the next record and decodes it.
+         *
+         * @return Whether there is a next record.
+         * @throws IOException      when the segment can not be read.
+         * @throws JournalException when the checksum of the record is invalid.
+         */
+        boolean next() throws IOException {
+            position += recordSize;
+
+            if (position >= size) {
+                return false;
+            }
+
+            segment.readHeader(position, header);
+
+            int length = header.getInt();
+            sequence = header.getLong();
+            recordSize = JournalSegment.HEADER_SIZE + length;
+            ByteBuffer payload = segment.readPayload(position, length);
+
+            if (header.getInt() != JournalSegment.checksum(readChecksum, header, 0, payload, 0, length)) {
+                throw new JournalException("Invalid checksum of record " + sequence + " in segment " + segment.file);
+            }
+
+            message = store.codec.decode(payload);
+
+            return true;
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: BUILDER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Builds a journal compactor.
+     */
+    public static class Builder {
+
+        protected File archiveDirectory;
+        protected final Map<Class<?>, EventFolder<?>> eventFolders = new LinkedHashMap<>();
+        protected long intervalNanos;
+        protected RetentionPolicy retentionPolicy = RetentionPolicy.untilSnapshot();
+        protected final JournalMessageStore store;
+
+        /**
+         * @param store The store to compact the journal of.
+         */
+        public Builder(JournalMessageStore store) {
+            this.store = Objects.requireNonNull(store, "Store can not be null");
+        }
+
+        /**
+         * Fold the events of the provided type: only the latest event per key is kept.
+         *
+         * @param eventClass The concrete event type.
+         * @param folder     Determines the key of an event.
+         * @param <E>        The concrete event type.
+         * @return The builder.
+         */
+        public <E extends Event> Builder addEventFolder(Class<E> eventClass, EventFolder<E> folder) {
+            Objects.requireNonNull(eventClass, "Event class can not be null");
+            Objects.requireNonNull(folder, "Folder can not be null");
+
+            if (eventFolders.containsKey(eventClass)) {
+                throw new IllegalArgumentException("Event class already has a folder: " + eventClass);
+            }
+
+            eventFolders.put(eventClass, folder);
+            return this;
+        }
+
+        /**
+         * Builds the compactor, and starts its thread if an interval is set.
+         *
+         * @return The compactor.
+         * @throws JournalException when the archive directory can not be created.
+         */
+        public JournalCompactor build() {
+            if (archiveDirectory != null && !archiveDirectory.isDirectory() && !archiveDirectory.mkdirs()) {
+                throw new JournalException("Could not create archive directory " + archiveDirectory);
+            }
+
+            return new JournalCompactor(this);
+        }
+
+        /**
+         * Set a directory to move removed segments to, instead of deleting them. Must be on the same
+         * file system as the journal.
+         *
+         * @param archiveDirectory The archive directory: created if it does not exist.
+         * @return The builder.
+         */
+        public Builder setArchiveDirectory(File archiveDirectory) {
+            this.archiveDirectory = Objects.requireNonNull(archiveDirectory, "Archive directory can not be null");
+            return this;
+        }
+
+        /**
+         * Set the time between compactions on a background thread. Without an interval, the journal
+         * is only compacted on {@link JournalCompactor#compact()}.
+         *
+         * @param interval The time between compactions.
+         * @param unit     The unit of the interval.
+         * @return The builder.
+         */
+        public Builder setInterval(long interval, TimeUnit unit) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("Interval must be positive");
+            }
+
+            this.intervalNanos = Objects.requireNonNull(unit, "Unit can not be null").toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Set which segments that are covered by the snapshot are removed. Defaults to removing
+         * them as soon as the snapshot covers them.
+         *
+         * @param retentionPolicy The retention policy.
+         * @return The builder.
+         */
+        public Builder setRetentionPolicy(RetentionPolicy retentionPolicy) {
+            this.retentionPolicy = Objects.requireNonNull(retentionPolicy, "Retention policy can not be null");
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+
+/**
+ * Handles the messages that are read by a {@link JournalTailer}.
+ */
+public interface JournalMessageHandler {
+
+    /**
+     * Handle a message from the journal.
+     *
+     * @param sequence The sequence of the message.
+     * @param message  The message.
+     */
+    void handle(long sequence, Message message);
+
+}
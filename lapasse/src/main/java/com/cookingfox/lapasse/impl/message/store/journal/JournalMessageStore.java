@@ -0,0 +1,959 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.api.message.store.MessageStore;
+import com.cookingfox.lapasse.impl.message.store.AbstractMessageStore;
+import com.cookingfox.lapasse.impl.message.store.journal.DurabilityPolicy.Mode;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Checksum;
+
+/**
+ * Implementation of {@link MessageStore} that appends messages to a journal of segment files in a
+ * directory, before it notifies listeners. Every message gets a sequence that increases by one per
+ * message, and can be read back from any sequence using {@link #read(long, int)}.
+ * <p>
+ * When appended messages are forced to the storage device is determined by the
+ * {@link DurabilityPolicy}. With the per message and group commit policies, a message is durable
+ * before listeners are notified of it: when a synchronous command handler returns, its events are
+ * durable. With the other policies, use {@link #awaitDurable()}.
+ */
+public class JournalMessageStore extends AbstractMessageStore {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Default maximum number of bytes between indexed records.
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 4096;
+
+    /**
+     * Default maximum size of a segment in bytes.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Name of the thread that forces appended messages, for the group commit and periodic policies.
+     */
+    static final String SYNC_THREAD_NAME = "lapasse-journal-sync";
+
+    /**
+     * Number of messages that {@link #readAll(long)} reads at once.
+     */
+    static final int READ_BATCH_SIZE = 1024;
+
+    /**
+     * Name of the threads that open and recover the segments.
+     */
+    static final String RECOVERY_THREAD_NAME = "lapasse-journal-recovery";
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    protected final MessageCodec codec;
+    protected final File directory;
+    protected final DurabilityPolicy durabilityPolicy;
+    protected final int indexInterval;
+    protected final long maxSegmentSize;
+
+    /**
+     * The segments, oldest first. Replaced on modification.
+     */
+    protected volatile List<JournalSegment> segments;
+
+    /**
+     * Forces appended messages, for the group commit and periodic policies.
+     */
+    protected final Thread syncThread;
+
+    /**
+     * Guards appending: the current segment, the write buffer and the last sequence.
+     */
+    protected final Object writeLock = new Object();
+
+    /**
+     * Guards the sync requests: waiting threads are notified when messages become durable.
+     */
+    protected final Object syncLock = new Object();
+
+    /**
+     * The sequence of the last appended message, or 0 if the journal is empty.
+     */
+    protected long lastSequence;
+
+    /**
+     * The base sequence of the oldest segment that may contain records which are not forced yet:
+     * earlier segments were forced when the next segment was created or by {@link #sync()}. Guarded
+     * by the write lock.
+     */
+    protected long unforcedBaseSequence;
+
+    protected volatile boolean disposed;
+
+    /**
+     * The sequence up to which the appended messages are durable.
+     */
+    protected volatile long durableSequence;
+
+    /**
+     * The highest sequence that a thread waits to become durable.
+     */
+    protected long requestedSequence;
+
+    /**
+     * The number of group commit appends that started and completed: the sync thread lets the
+     * appends that are in progress join a force.
+     */
+    protected final AtomicLong appendsStarted = new AtomicLong();
+    protected final AtomicLong appendsCompleted = new AtomicLong();
+
+    /**
+     * The number of completed appends that the sync thread waits for, or `Long.MAX_VALUE`. Guarded
+     * by the sync lock.
+     */
+    protected long appendsCompletedTarget = Long.MAX_VALUE;
+
+    /**
+     * The error of a failed force: threads that wait for durability are released with it.
+     */
+    protected volatile JournalException syncError;
+
+    /**
+     * Checksum of appended records, guarded by the write lock.
+     */
+    protected final Checksum checksum = Crc32c.create();
+
+    /**
+     * Reusable buffer for writing records.
+     */
+    protected ByteBuffer writeBuffer = ByteBuffer.allocate(4096);
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    protected JournalMessageStore(Builder builder) {
+        this.codec = builder.codec;
+        this.directory = builder.directory;
+        this.durabilityPolicy = builder.durabilityPolicy;
+        this.indexInterval = builder.indexInterval;
+        this.maxSegmentSize = builder.maxSegmentSize;
+        this.segments = openSegments(directory, indexInterval, builder.verifyAllSegments, builder.recoveryThreads);
+        this.lastSequence = getCurrentSegment().lastSequence;
+        this.unforcedBaseSequence = getCurrentSegment().baseSequence;
+        this.durableSequence = lastSequence;
+
+        Mode mode = durabilityPolicy.getMode();
+
+        if (mode == Mode.GROUP_COMMIT || mode == Mode.PERIODIC) {
+            syncThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runSyncLoop();
+                }
+            }, SYNC_THREAD_NAME);
+            syncThread.setDaemon(true);
+            syncThread.start();
+        } else {
+            syncThread = null;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Appends the message to the journal, waits until it is durable when the durability policy
+     * requires it, and notifies the listeners.
+     *
+     * @param message The message to add.
+     * @throws JournalException when the message can not be written or forced.
+     */
+    @Override
+    public void addMessage(Message message) {
+        Objects.requireNonNull(message, "Message can not be null");
+
+        Mode mode = durabilityPolicy.getMode();
+
+        if (mode == Mode.GROUP_COMMIT) {
+            long sequence;
+            appendsStarted.incrementAndGet();
+
+            try {
+                sequence = append(codec.encode(message));
+            } finally {
+                appendsCompleted.incrementAndGet();
+            }
+
+            awaitDurable(sequence);
+        } else {
+            append(codec.encode(message));
+
+            if (mode == Mode.PER_MESSAGE) {
+                sync();
+            }
+        }
+
+        notifyMessageAdded(message);
+    }
+
+    /**
+     * Blocks until all messages that were added before this call are durable. Requests a force
+     * from the sync thread if there is one, otherwise forces the journal.
+     *
+     * @throws JournalException when the journal can not be forced.
+     */
+    public void awaitDurable() {
+        awaitDurable(getLastSequence());
+    }
+
+    /**
+     * Blocks until the message with the provided sequence, and all messages before it, are
+     * durable. Requests a force from the sync thread if there is one, otherwise forces the journal.
+     *
+     * @param sequence The sequence of the message.
+     * @throws JournalException when the journal can not be forced.
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+
+        if (syncThread == null) {
+            sync();
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (sequence > requestedSequence) {
+                requestedSequence = sequence;
+                syncLock.notifyAll();
+            } else if (appendsCompleted.get() >= appendsCompletedTarget) {
+                // the sync thread waits for the appends that were in progress
+                syncLock.notifyAll();
+            }
+
+            while (durableSequence < sequence) {
+                if (syncError != null) {
+                    throw new JournalException("Could not force the journal", syncError);
+                }
+
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException("Interrupted while waiting for durability", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a tailer for this journal, that continues from its checkpoint.
+     *
+     * @param name The name of the tailer: determines the checkpoint file.
+     * @return The tailer.
+     * @see JournalTailer
+     */
+    public JournalTailer createTailer(String name) {
+        return new JournalTailer(directory, name, codec);
+    }
+
+    /**
+     * Forces the appended messages and closes the journal.
+     */
+    @Override
+    public void dispose() {
+        synchronized (writeLock) {
+            if (disposed) {
+                return;
+            }
+
+            disposed = true;
+        }
+
+        synchronized (syncLock) {
+            syncLock.notifyAll();
+        }
+
+        if (syncThread != null) {
+            try {
+                syncThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            sync();
+        } catch (JournalException e) {
+            failSync(e);
+            throw e;
+        } finally {
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+
+            super.dispose();
+        }
+    }
+
+    /**
+     * @return The sequence up to which the added messages are durable.
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * @return The sequence of the last added message, or 0 if the journal is empty.
+     */
+    public long getLastSequence() {
+        synchronized (writeLock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * @return The journal directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads messages from the journal, starting at the provided sequence. Seeking costs a binary
+     * search in the segments and in the sparse index of the segment, plus a scan of at most the
+     * index interval.
+     *
+     * @param fromSequence The sequence of the first message to read.
+     * @param maxMessages  The maximum number of messages to read.
+     * @return The messages, in order of their sequence.
+     * @throws JournalException when the journal can not be read.
+     */
+    public List<SequencedMessage> read(long fromSequence, int maxMessages) {
+        if (maxMessages < 0) {
+            throw new IllegalArgumentException("Max messages can not be negative");
+        }
+
+        List<SequencedMessage> messages = new ArrayList<>();
+
+        while (true) {
+            List<JournalSegment> current = segments;
+
+            try {
+                readMessages(current, fromSequence, maxMessages, messages);
+                return messages;
+            } catch (ClosedChannelException e) {
+                if (disposed) {
+                    throw new JournalException("Journal is disposed", e);
+                }
+
+                // only retry if a segment was removed or compacted concurrently: otherwise the
+                // channel was closed for another reason, e.g. the reading thread was interrupted
+                if (segments == current) {
+                    throw new JournalException("Could not read journal " + directory, e);
+                }
+
+                if (!messages.isEmpty()) {
+                    fromSequence = messages.get(messages.size() - 1).getSequence() + 1;
+                }
+            } catch (IOException e) {
+                throw new JournalException("Could not read journal " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the messages from the provided sequence, for example to replay them. The messages
+     * are read lazily, in batches.
+     *
+     * @param fromSequence The sequence of the first message to read.
+     * @return The messages, in order of their sequence.
+     * @throws JournalException on iteration, when the journal can not be read.
+     */
+    public Iterable<Message> readAll(final long fromSequence) {
+        return new Iterable<Message>() {
+            @Override
+            public Iterator<Message> iterator() {
+                return new MessageIterator(fromSequence);
+            }
+        };
+    }
+
+    /**
+     * Forces all appended messages to the storage device.
+     *
+     * @throws JournalException when the journal can not be forced.
+     */
+    public void sync() {
+        List<JournalSegment> current;
+        long unforcedBase;
+        long sequence;
+
+        synchronized (writeLock) {
+            current = segments;
+            unforcedBase = unforcedBaseSequence;
+            sequence = lastSequence;
+        }
+
+        if (durableSequence >= sequence) {
+            return;
+        }
+
+        // also force the segments that were created since the last force, e.g. when the operating
+        // system manages durability and segments are not forced when they are full
+        for (int i = findSegmentIndex(current, unforcedBase); i < current.size(); i++) {
+            JournalSegment segment = current.get(i);
+
+            try {
+                segment.force();
+            } catch (ClosedChannelException e) {
+                // removed or replaced by compaction, which forces the replacement
+                if (i == current.size() - 1 || segments.contains(segment)) {
+                    throw new JournalException("Could not force segment " + segment.file, e);
+                }
+            } catch (IOException e) {
+                throw new JournalException("Could not force segment " + segment.file, e);
+            }
+        }
+
+        synchronized (writeLock) {
+            long forcedBase = current.get(current.size() - 1).baseSequence;
+
+            if (forcedBase > unforcedBaseSequence) {
+                unforcedBaseSequence = forcedBase;
+            }
+        }
+
+        synchronized (syncLock) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+
+            syncLock.notifyAll();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Appends a record to the current segment, and creates a new segment when it is full.
+     *
+     * @param payload The encoded message.
+     * @return The sequence of the message.
+     * @throws JournalException when the record can not be written.
+     */
+    protected long append(byte[] payload) {
+        synchronized (writeLock) {
+            if (disposed) {
+                throw new JournalException("Journal is disposed");
+            }
+
+            long sequence = lastSequence + 1;
+            int recordSize = JournalSegment.HEADER_SIZE + payload.length;
+
+            if (writeBuffer.capacity() < recordSize) {
+                writeBuffer = ByteBuffer.allocate(Math.max(recordSize, writeBuffer.capacity() * 2));
+            }
+
+            writeBuffer.clear();
+            writeBuffer.putInt(payload.length).putLong(sequence).putInt(0).put(payload).flip();
+            writeBuffer.putInt(JournalSegment.CHECKSUM_OFFSET, JournalSegment.checksum(checksum, writeBuffer, 0, payload.length));
+
+            JournalSegment segment = getCurrentSegment();
+
+            try {
+                if (segment.size > 0 && segment.size + recordSize > maxSegmentSize) {
+                    segment = createNextSegment(segment, sequence);
+                }
+
+                segment.append(writeBuffer, sequence);
+            } catch (IOException e) {
+                throw new JournalException("Could not write to segment " + segment.file, e);
+            }
+
+            return lastSequence = sequence;
+        }
+    }
+
+    /**
+     * Creates the next segment. The current segment is forced first, unless the operating system
+     * manages durability: then {@link #sync()} forces it later. Must be called while holding the
+     * write lock.
+     *
+     * @param current      The current segment.
+     * @param baseSequence The sequence of the first record of the new segment.
+     * @return The new segment.
+     * @throws IOException when the current segment can not be forced.
+     */
+    protected JournalSegment createNextSegment(JournalSegment current, long baseSequence) throws IOException {
+        if (durabilityPolicy.getMode() != Mode.OS_MANAGED) {
+            current.force();
+            unforcedBaseSequence = baseSequence;
+        }
+
+        JournalSegment next = JournalSegment.open(directory, baseSequence, indexInterval, true, true);
+        List<JournalSegment> replacement = new ArrayList<>(segments);
+        replacement.add(next);
+        segments = Collections.unmodifiableList(replacement);
+
+        return next;
+    }
+
+    /**
+     * Returns the index of the segment that contains the provided sequence: the last segment with
+     * a base sequence lower than or equal to it, or the first segment.
+     *
+     * @param segments The segments, oldest first.
+     * @param sequence The sequence to find.
+     * @return The index of the segment.
+     */
+    protected static int findSegmentIndex(List<JournalSegment> segments, long sequence) {
+        int low = 0;
+        int high = segments.size() - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (segments.get(middle).baseSequence <= sequence) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    protected JournalSegment getCurrentSegment() {
+        List<JournalSegment> current = segments;
+
+        return current.get(current.size() - 1);
+    }
+
+    /**
+     * Reads messages from the provided segments and adds them to the provided list.
+     *
+     * @param current      The segments to read from.
+     * @param fromSequence The sequence of the first message to read.
+     * @param maxMessages  The maximum number of messages in the list.
+     * @param messages     The list to add the messages to.
+     * @throws IOException when a segment can not be read.
+     * @throws JournalException when a record is corrupt.
+     */
+    protected void readMessages(List<JournalSegment> current, long fromSequence, int maxMessages,
+                                List<SequencedMessage> messages) throws IOException {
+        int segmentIndex = findSegmentIndex(current, fromSequence);
+        JournalSegment segment = current.get(segmentIndex);
+        ByteBuffer header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+        Checksum readChecksum = Crc32c.create();
+        long position = segment.seek(fromSequence);
+
+        while (messages.size() < maxMessages) {
+            if (position >= segment.size) {
+                if (++segmentIndex == current.size()) {
+                    break;
+                }
+
+                segment = current.get(segmentIndex);
+                position = 0;
+                continue;
+            }
+
+            segment.readHeader(position, header);
+
+            int length = header.getInt();
+            long sequence = header.getLong();
+            ByteBuffer payload = segment.readPayload(position, length);
+
+            if (header.getInt() != JournalSegment.checksum(readChecksum, header, 0, payload, 0, length)) {
+                throw new JournalException("Invalid checksum of record " + sequence + " in segment " + segment.file);
+            }
+
+            messages.add(new SequencedMessage(sequence, codec.decode(payload)));
+            position += JournalSegment.HEADER_SIZE + length;
+        }
+    }
+
+    /**
+     * Removes a full segment from the journal: only blocks appending while the segment list is
+     * replaced. The caller closes the removed segment.
+     *
+     * @param segment The segment to remove: not the current segment.
+     */
+    protected void removeSegment(JournalSegment segment) {
+        synchronized (writeLock) {
+            if (segment == getCurrentSegment()) {
+                throw new IllegalArgumentException("Can not remove the current segment");
+            }
+
+            List<JournalSegment> replacement = new ArrayList<>(segments);
+            replacement.remove(segment);
+            segments = Collections.unmodifiableList(replacement);
+        }
+    }
+
+    /**
+     * Replaces a full segment, e.g. by a compacted one: only blocks appending while the segment
+     * list is replaced. The caller closes the replaced segment.
+     *
+     * @param segment     The segment to replace: not the current segment.
+     * @param replacement The replacement, with the same base sequence.
+     */
+    protected void replaceSegment(JournalSegment segment, JournalSegment replacement) {
+        synchronized (writeLock) {
+            if (segment == getCurrentSegment()) {
+                throw new IllegalArgumentException("Can not replace the current segment");
+            }
+
+            List<JournalSegment> replaced = new ArrayList<>(segments);
+            replaced.set(replaced.indexOf(segment), replacement);
+            segments = Collections.unmodifiableList(replaced);
+        }
+    }
+
+    /**
+     * Forces the appended messages when requested (group commit) or at a fixed interval
+     * (periodic), until the store is disposed.
+     */
+    protected void runSyncLoop() {
+        boolean groupCommit = durabilityPolicy.getMode() == Mode.GROUP_COMMIT;
+        long intervalNanos = durabilityPolicy.getIntervalNanos();
+
+        while (true) {
+            synchronized (syncLock) {
+                long deadline = System.nanoTime() + intervalNanos;
+
+                // group commit: wait for a request, periodic: wait for the interval or a request
+                while (!disposed && requestedSequence <= durableSequence) {
+                    long remaining = groupCommit ? 0 : deadline - System.nanoTime();
+
+                    if (!groupCommit && remaining <= 0) {
+                        break;
+                    }
+
+                    waitForSyncLock(remaining);
+                }
+
+                // group commit: force now, but let the appends that are already in progress join,
+                // within the latency budget. Appends that start later join the next force.
+                if (groupCommit) {
+                    deadline = System.nanoTime() + intervalNanos;
+                    appendsCompletedTarget = appendsStarted.get();
+                    long remaining;
+
+                    while (!disposed && appendsCompleted.get() < appendsCompletedTarget
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        waitForSyncLock(remaining);
+                    }
+
+                    appendsCompletedTarget = Long.MAX_VALUE;
+                }
+
+                if (disposed) {
+                    return;
+                }
+            }
+
+            try {
+                sync();
+            } catch (JournalException e) {
+                failSync(e);
+                return;
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Fails the threads that wait for durability, now and later.
+     */
+    private void failSync(JournalException error) {
+        synchronized (syncLock) {
+            syncError = error;
+            syncLock.notifyAll();
+        }
+    }
+
+    /**
+     * Opens the segments in the directory in parallel, and recovers the last one, or all of them
+     * when all segments are verified. Recovery validates the checksums of the records and rebuilds
+     * the indexes; only a torn write at the end of the last segment is truncated.
+     */
+    private static List<JournalSegment> openSegments(final File directory, final int indexInterval,
+                                                     final boolean verifyAllSegments, int recoveryThreads) {
+        final List<Long> baseSequences = JournalSegment.listBaseSequences(directory);
+
+        if (baseSequences.isEmpty()) {
+            baseSequences.add(1L);
+        }
+
+        int count = baseSequences.size();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(recoveryThreads, count), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, RECOVERY_THREAD_NAME);
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        List<Future<JournalSegment>> futures = new ArrayList<>(count);
+        List<JournalSegment> segments = new ArrayList<>(count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                final long baseSequence = baseSequences.get(i);
+                final boolean last = i == count - 1;
+                final boolean recover = verifyAllSegments || last;
+
+                futures.add(executor.submit(new Callable<JournalSegment>() {
+                    @Override
+                    public JournalSegment call() {
+                        return JournalSegment.open(directory, baseSequence, indexInterval, recover, last);
+                    }
+                }));
+            }
+
+            JournalException error = null;
+
+            // wait for all segments, so none are left open on error
+            for (Future<JournalSegment> future : futures) {
+                try {
+                    segments.add(future.get());
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof JournalException ? (JournalException) e.getCause() :
+                                new JournalException("Could not open journal " + directory, e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    error = new JournalException("Interrupted while opening journal " + directory, e);
+                    break;
+                }
+            }
+
+            if (error != null) {
+                for (JournalSegment segment : segments) {
+                    segment.close();
+                }
+
+                throw error;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Waits on the sync lock, for the provided time or until notified. Must be called while holding
+     * the sync lock.
+     */
+    private void waitForSyncLock(long nanos) {
+        try {
+            if (nanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(syncLock, nanos);
+            } else {
+                syncLock.wait();
+            }
+        } catch (InterruptedException e) {
+            // ignore: only the store interrupts the sync thread
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Reads the messages of the journal in batches.
+     */
+    protected class MessageIterator implements Iterator<Message> {
+
+        List<SequencedMessage> batch = Collections.emptyList();
+        int index;
+        long nextSequence;
+
+        MessageIterator(long fromSequence) {
+            this.nextSequence = fromSequence;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < batch.size()) {
+                return true;
+            }
+
+            batch = read(nextSequence, READ_BATCH_SIZE);
+            index = 0;
+
+            if (batch.isEmpty()) {
+                return false;
+            }
+
+            nextSequence = batch.get(batch.size() - 1).getSequence() + 1;
+
+            return true;
+        }
+
+        @Override
+        public Message next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return batch.get(index++).getMessage();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: BUILDER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Builds and opens a journal message store.
+     */
+    public static class Builder {
+
+        protected final MessageCodec codec;
+        protected final File directory;
+        protected DurabilityPolicy durabilityPolicy = DurabilityPolicy.groupCommit(1, TimeUnit.MILLISECONDS);
+        protected int indexInterval = DEFAULT_INDEX_INTERVAL;
+        protected long maxSegmentSize = DEFAULT_SEGMENT_SIZE;
+        protected int recoveryThreads = Runtime.getRuntime().availableProcessors();
+        protected boolean verifyAllSegments;
+
+        /**
+         * @param directory The journal directory: created if it does not exist.
+         * @param codec     Converts messages to bytes and back.
+         */
+        public Builder(File directory, MessageCodec codec) {
+            this.codec = Objects.requireNonNull(codec, "Codec can not be null");
+            this.directory = Objects.requireNonNull(directory, "Directory can not be null");
+        }
+
+        /**
+         * Open the journal, and truncate torn records.
+         *
+         * @return The opened store.
+         * @throws JournalException when the journal can not be opened.
+         */
+        public JournalMessageStore build() {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new JournalException("Could not create journal directory " + directory);
+            }
+
+            return new JournalMessageStore(this);
+        }
+
+        /**
+         * Set when appended messages are forced to the storage device. Defaults to group commit
+         * with a latency budget of 1 millisecond.
+         *
+         * @param durabilityPolicy The durability policy.
+         * @return The builder.
+         */
+        public Builder setDurabilityPolicy(DurabilityPolicy durabilityPolicy) {
+            this.durabilityPolicy = Objects.requireNonNull(durabilityPolicy, "Durability policy can not be null");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of bytes between indexed records: a seek scans at most this many
+         * bytes after the binary search in the index.
+         *
+         * @param indexInterval The index interval in bytes.
+         * @return The builder.
+         */
+        public Builder setIndexInterval(int indexInterval) {
+            if (indexInterval < 1) {
+                throw new IllegalArgumentException("Index interval must be positive");
+            }
+
+            this.indexInterval = indexInterval;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a segment: a new segment is created when a record does not fit.
+         * Segments are mapped into memory by tailers, so they can not be larger than 2 GB.
+         *
+         * @param maxSegmentSize The maximum segment size in bytes.
+         * @return The builder.
+         * @throws IllegalArgumentException when the size is not positive or larger than 2 GB.
+         */
+        public Builder setMaxSegmentSize(long maxSegmentSize) {
+            if (maxSegmentSize < 1) {
+                throw new IllegalArgumentException("Max segment size must be positive");
+            } else if (maxSegmentSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Max segment size can not be larger than " + Integer.MAX_VALUE);
+            }
+
+            this.maxSegmentSize = maxSegmentSize;
+            return this;
+        }
+
+        /**
+         * Set the number of threads that open and recover the segments in parallel. Defaults to the
+         * number of available processors.
+         *
+         * @param recoveryThreads The number of recovery threads.
+         * @return The builder.
+         */
+        public Builder setRecoveryThreads(int recoveryThreads) {
+            if (recoveryThreads < 1) {
+                throw new IllegalArgumentException("Recovery threads must be positive");
+            }
+
+            this.recoveryThreads = recoveryThreads;
+            return this;
+        }
+
+        /**
+         * Set whether to validate the checksums of all records when the journal is opened, e.g.
+         * after a crash with the OS managed durability policy, where full segments may not have been
+         * forced. By default, only the last segment and the records after the last index entry of
+         * the other segments are validated.
+         *
+         * @param verifyAllSegments Whether to validate all segments.
+         * @return The builder.
+         */
+        public Builder setVerifyAllSegments(boolean verifyAllSegments) {
+            this.verifyAllSegments = verifyAllSegments;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,552 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Checksum;
+
+/**
+ * One file of the journal, named after the sequence of its first record. Records are only appended
+ * to the last segment.
+ * <p>
+ * A record is the length of the payload (int), the sequence (long), the CRC-32C checksum of the
+ * length, sequence and payload (int) and the payload. A record with an invalid checksum is a torn
+ * write: it and the records after it are truncated when the segment is opened. Every segment
+ * has a sparse index file with (sequence, position) entries (two longs), for a record at least
+ * every index interval bytes. The index is not forced: it is rebuilt when a segment is recovered.
+ */
+final class JournalSegment {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * File extension of segments.
+     */
+    static final String EXTENSION = ".journal";
+
+    /**
+     * Offset of the checksum in the record header.
+     */
+    static final int CHECKSUM_OFFSET = 12;
+
+    /**
+     * Size of the record header in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * File extension of segment indexes.
+     */
+    static final String INDEX_EXTENSION = ".index";
+
+    /**
+     * Size of an index entry in bytes.
+     */
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    /**
+     * Initial size of the buffer for scanning records.
+     */
+    static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    final long baseSequence;
+    final FileChannel channel;
+    final File file;
+    final FileChannel indexChannel;
+    final File indexFile;
+    final int indexInterval;
+
+    /**
+     * The sequence of the last complete record, or the base sequence minus one when empty. Only
+     * modified while holding the write lock.
+     */
+    volatile long lastSequence;
+
+    /**
+     * The end of the last complete record. Only modified while holding the write lock.
+     */
+    volatile long size;
+
+    /**
+     * The sparse index, guarded by this segment.
+     */
+    private int indexCount;
+    private long[] indexPositions = new long[16];
+    private long[] indexSequences = new long[16];
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    private JournalSegment(File directory, long baseSequence, int indexInterval) throws IOException {
+        this.baseSequence = baseSequence;
+        this.file = getFile(directory, baseSequence);
+        this.indexFile = getIndexFile(directory, baseSequence);
+        this.indexInterval = indexInterval;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.indexChannel = new RandomAccessFile(indexFile, "rw").getChannel();
+        this.lastSequence = baseSequence - 1;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Computes the checksum of a record: the length, the sequence and the payload.
+     *
+     * @param checksum The checksum to use: reset first.
+     * @param record   A buffer that contains the record.
+     * @param offset   The offset of the record in the buffer.
+     * @param length   The length of the payload.
+     * @return The checksum.
+     */
+    static int checksum(Checksum checksum, ByteBuffer record, int offset, int length) {
+        return checksum(checksum, record, offset, record, offset + HEADER_SIZE, length);
+    }
+
+    /**
+     * Computes the checksum of a record with a separate header and payload.
+     *
+     * @param checksum      The checksum to use: reset first.
+     * @param header        A buffer that contains the record header.
+     * @param headerOffset  The offset of the header in its buffer.
+     * @param payload       A buffer that contains the payload.
+     * @param payloadOffset The offset of the payload in its buffer.
+     * @param length        The length of the payload.
+     * @return The checksum.
+     */
+    static int checksum(Checksum checksum, ByteBuffer header, int headerOffset, ByteBuffer payload,
+                        int payloadOffset, int length) {
+        checksum.reset();
+
+        ByteBuffer view = header.duplicate();
+        view.clear();
+        view.position(headerOffset).limit(headerOffset + CHECKSUM_OFFSET);
+        Crc32c.update(checksum, view);
+
+        view = payload.duplicate();
+        view.clear();
+        view.position(payloadOffset).limit(payloadOffset + length);
+        Crc32c.update(checksum, view);
+
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * @param directory    The journal directory.
+     * @param baseSequence The sequence of the first record of the segment.
+     * @return The file of the segment.
+     */
+    static File getFile(File directory, long baseSequence) {
+        return new File(directory, getBaseName(baseSequence) + EXTENSION);
+    }
+
+    /**
+     * @param directory    The journal directory.
+     * @param baseSequence The sequence of the first record of the segment.
+     * @return The index file of the segment.
+     */
+    static File getIndexFile(File directory, long baseSequence) {
+        return new File(directory, getBaseName(baseSequence) + INDEX_EXTENSION);
+    }
+
+    /**
+     * Opens a segment. When recovering, validates all records and rebuilds the index. Otherwise,
+     * loads the index and validates the records after the last index entry. Only the last segment
+     * can hold a torn write: it is truncated at the first invalid record, while an invalid record in
+     * an earlier segment is corruption.
+     *
+     * @param directory     The journal directory.
+     * @param baseSequence  The sequence of the first record of the segment.
+     * @param indexInterval The maximum number of bytes between indexed records.
+     * @param recover       Whether to scan all records: only needed for the last segment.
+     * @param last          Whether this is the last segment of the journal.
+     * @return The opened segment.
+     * @throws JournalException when the segment can not be opened, or when a segment that is not the
+     *                          last one contains an invalid record.
+     */
+    static JournalSegment open(File directory, long baseSequence, int indexInterval, boolean recover, boolean last) {
+        JournalSegment segment = null;
+
+        try {
+            segment = new JournalSegment(directory, baseSequence, indexInterval);
+
+            if (recover || !segment.loadIndex()) {
+                segment.resetIndex();
+                segment.scan(0, baseSequence);
+            } else {
+                segment.scan(segment.indexPositions[segment.indexCount - 1],
+                        segment.indexSequences[segment.indexCount - 1]);
+            }
+
+            if (segment.size < segment.channel.size()) {
+                if (!last) {
+                    segment.close();
+
+                    throw new JournalException("Invalid record at position " + segment.size +
+                            " of segment " + segment.file);
+                }
+
+                segment.channel.truncate(segment.size);
+            }
+
+            segment.channel.position(segment.size);
+
+            return segment;
+        } catch (IOException e) {
+            if (segment != null) {
+                segment.close();
+            }
+
+            throw new JournalException("Could not open segment " + getFile(directory, baseSequence), e);
+        }
+    }
+
+    /**
+     * Returns the base sequences of the segments in the directory.
+     *
+     * @param directory The journal directory.
+     * @return The base sequences, in ascending order.
+     */
+    static List<Long> listBaseSequences(File directory) {
+        List<Long> baseSequences = new ArrayList<>();
+        String[] names = directory.list();
+
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(EXTENSION)) {
+                    try {
+                        baseSequences.add(Long.parseLong(name.substring(0, name.length() - EXTENSION.length())));
+                    } catch (NumberFormatException e) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+
+        Collections.sort(baseSequences);
+
+        return baseSequences;
+    }
+
+    private static String getBaseName(long baseSequence) {
+        return String.format("%020d", baseSequence);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Appends a record, and indexes it when the index interval has passed. Must be called while
+     * holding the write lock.
+     *
+     * @param record   The record: header and payload.
+     * @param sequence The sequence of the record.
+     * @throws IOException when the record can not be written.
+     */
+    void append(ByteBuffer record, long sequence) throws IOException {
+        long position = size;
+        long end = position + record.remaining();
+
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+
+        indexIfNeeded(sequence, position);
+
+        lastSequence = sequence;
+        size = end;
+    }
+
+    void close() {
+        try {
+            channel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            // ignore: closing
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * @return The number of index entries.
+     */
+    synchronized int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Reads the header of the record at the provided position.
+     *
+     * @param position The position of the record.
+     * @param header   The buffer to read the header into: cleared first.
+     * @throws IOException when the header can not be read.
+     */
+    void readHeader(long position, ByteBuffer header) throws IOException {
+        header.clear();
+
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0) {
+                throw new IOException("Unexpected end of segment " + file);
+            }
+        }
+
+        header.flip();
+    }
+
+    /**
+     * Reads the payload of the record at the provided position.
+     *
+     * @param position The position of the record.
+     * @param length   The length of the payload.
+     * @return The payload.
+     * @throws IOException when the payload can not be read.
+     */
+    ByteBuffer readPayload(long position, int length) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        long start = position + HEADER_SIZE;
+
+        while (payload.hasRemaining()) {
+            if (channel.read(payload, start + payload.position()) < 0) {
+                throw new IOException("Unexpected end of segment " + file);
+            }
+        }
+
+        payload.flip();
+
+        return payload;
+    }
+
+    /**
+     * Returns the position of the first record with a sequence greater than or equal to the
+     * provided sequence: a binary search in the index, followed by a scan of at most the index
+     * interval.
+     *
+     * @param sequence The sequence to seek.
+     * @return The position of the record, or the segment size if there is none.
+     * @throws IOException when the records can not be read.
+     */
+    long seek(long sequence) throws IOException {
+        long end = size;
+
+        if (sequence <= baseSequence) {
+            return 0;
+        }
+
+        long position;
+
+        synchronized (this) {
+            int index = Arrays.binarySearch(indexSequences, 0, indexCount, sequence);
+
+            if (index < 0) {
+                // greatest entry with a smaller sequence
+                index = -index - 2;
+            }
+
+            position = index < 0 ? 0 : indexPositions[index];
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position < end) {
+            readHeader(position, header);
+
+            int length = header.getInt();
+
+            if (header.getLong() >= sequence) {
+                break;
+            }
+
+            position += HEADER_SIZE + length;
+        }
+
+        return position;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private synchronized void addIndexEntry(long sequence, long position) throws IOException {
+        if (indexCount == indexSequences.length) {
+            indexPositions = Arrays.copyOf(indexPositions, indexCount * 2);
+            indexSequences = Arrays.copyOf(indexSequences, indexCount * 2);
+        }
+
+        indexPositions[indexCount] = position;
+        indexSequences[indexCount] = sequence;
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putLong(sequence).putLong(position).flip();
+
+        long entryPosition = (long) indexCount * INDEX_ENTRY_SIZE;
+
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry, entryPosition + entry.position());
+        }
+
+        indexCount++;
+    }
+
+    /**
+     * Adds an index entry for the record if the index interval has passed since the last entry.
+     */
+    private synchronized void indexIfNeeded(long sequence, long position) throws IOException {
+        if (indexCount == 0 || position - indexPositions[indexCount - 1] >= indexInterval) {
+            addIndexEntry(sequence, position);
+        }
+    }
+
+    /**
+     * Loads the index file.
+     *
+     * @return Whether the index is valid: if not, it must be rebuilt.
+     */
+    private synchronized boolean loadIndex() throws IOException {
+        long fileSize = channel.size();
+        long indexSize = indexChannel.size();
+
+        if (indexSize == 0 || indexSize % INDEX_ENTRY_SIZE != 0 || indexSize / INDEX_ENTRY_SIZE > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate((int) indexSize);
+
+        while (entries.hasRemaining()) {
+            if (indexChannel.read(entries, entries.position()) < 0) {
+                return false;
+            }
+        }
+
+        entries.flip();
+
+        int count = (int) (indexSize / INDEX_ENTRY_SIZE);
+        indexPositions = new long[Math.max(count, 16)];
+        indexSequences = new long[Math.max(count, 16)];
+
+        for (int i = 0; i < count; i++) {
+            long sequence = entries.getLong();
+            long position = entries.getLong();
+
+            if (position >= fileSize || (i > 0 && (sequence <= indexSequences[i - 1] || position <= indexPositions[i - 1]))) {
+                return false;
+            }
+
+            indexSequences[i] = sequence;
+            indexPositions[i] = position;
+        }
+
+        indexCount = count;
+
+        // after compaction, the first record can have a later sequence than the base sequence
+        return indexSequences[0] >= baseSequence && indexPositions[0] == 0;
+    }
+
+    /**
+     * Empties the index file and forces it, so the index is rebuilt when the segment is opened
+     * again, for example after the segment file was replaced. The index in memory stays valid.
+     *
+     * @throws IOException when the index file can not be truncated.
+     */
+    synchronized void invalidateIndexFile() throws IOException {
+        indexChannel.truncate(0);
+        indexChannel.force(true);
+    }
+
+    private synchronized void resetIndex() throws IOException {
+        indexChannel.truncate(0);
+        indexCount = 0;
+    }
+
+    /**
+     * Reads the segment into the buffer from the provided position: as much as fits, and at least
+     * the provided number of bytes. The buffer is replaced by a larger one if needed.
+     */
+    private ByteBuffer fill(ByteBuffer buffer, long position, int minBytes, long fileSize) throws IOException {
+        if (buffer.capacity() < minBytes) {
+            buffer = ByteBuffer.allocate(minBytes);
+        }
+
+        buffer.clear();
+
+        while (buffer.position() < minBytes || (buffer.hasRemaining() && position + buffer.position() < fileSize)) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment " + file);
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Scans the records from the provided position to the first torn, corrupt or out of sequence
+     * record, indexes them, and sets the size and last sequence. Sequences increase, but can have
+     * gaps after compaction. Reads large blocks, so the scan is bound by disk bandwidth.
+     */
+    private void scan(long position, long minSequence) throws IOException {
+        long fileSize = channel.size();
+        Checksum checksum = Crc32c.create();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER_SIZE, Math.max(fileSize - position, HEADER_SIZE)));
+        long bufferPosition = position;
+        buffer.limit(0);
+
+        while (position + HEADER_SIZE <= fileSize) {
+            int offset = (int) (position - bufferPosition);
+
+            if (offset + HEADER_SIZE > buffer.limit()) {
+                buffer = fill(buffer, position, HEADER_SIZE, fileSize);
+                bufferPosition = position;
+                offset = 0;
+            }
+
+            int length = buffer.getInt(offset);
+            long sequence = buffer.getLong(offset + 4);
+
+            if (length < 0 || position + HEADER_SIZE + length > fileSize || sequence < minSequence) {
+                break;
+            }
+
+            int recordSize = HEADER_SIZE + length;
+
+            if (offset + recordSize > buffer.limit()) {
+                buffer = fill(buffer, position, recordSize, fileSize);
+                bufferPosition = position;
+                offset = 0;
+            }
+
+            if (buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(checksum, buffer, offset, length)) {
+                break;
+            }
+
+            indexIfNeeded(sequence, position);
+
+            lastSequence = sequence;
+            position += recordSize;
+            minSequence = sequence + 1;
+        }
+
+        size = position;
+    }
+
+}
@@ -0,0 +1,485 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * Reads the messages of a journal at its own pace, from a durable checkpoint. A tailer only needs
+ * the journal directory, so it can run in another process than the journal message store, and it
+ * does not slow down appending.
+ * <p>
+ * Segments are mapped into memory read-only once, and messages are decoded from views of the
+ * mapped segments. A read-only mapping can not extend past the end of its file, so records that
+ * are appended to the segment after it was mapped are copied into a reusable window, and the
+ * segment is only mapped again when it grew by more than the window size. A record is only read
+ * when it is complete, its checksum is valid and it has a sequence after the last handled message.
+ * A tailer is not thread-safe.
+ */
+public class JournalTailer implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * File extension of checkpoints.
+     */
+    public static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+    /**
+     * Size of the window that the records appended after mapping a segment are copied into.
+     */
+    static final int WINDOW_SIZE = 256 * 1024;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    protected final FileChannel checkpointChannel;
+    protected final Checksum checksum = Crc32c.create();
+    protected final MessageCodec codec;
+    protected final File directory;
+    protected final String name;
+
+    /**
+     * The sequence of the last handled message.
+     */
+    protected long sequence;
+
+    /**
+     * The bytes of the segment that contains the next record, from {@link #bufferPosition} on: the
+     * mapped segment or the window. `null` if not yet mapped.
+     */
+    protected ByteBuffer segment;
+    protected long segmentBaseSequence;
+    protected FileChannel segmentChannel;
+    protected int segmentPosition;
+
+    /**
+     * The position in the segment of the first byte of {@link #segment}: 0 when mapped.
+     */
+    protected int bufferPosition;
+
+    /**
+     * Reusable buffer for the records that were appended after the segment was mapped, or `null`
+     * if not yet needed.
+     */
+    protected ByteBuffer window;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a tailer that continues from its checkpoint, or from the start of the journal.
+     *
+     * @param directory The journal directory.
+     * @param name      The name of the tailer: determines the checkpoint file.
+     * @param codec     Converts bytes to messages.
+     * @throws JournalException when the checkpoint can not be opened.
+     */
+    public JournalTailer(File directory, String name, MessageCodec codec) {
+        this.codec = Objects.requireNonNull(codec, "Codec can not be null");
+        this.directory = Objects.requireNonNull(directory, "Directory can not be null");
+        this.name = Objects.requireNonNull(name, "Name can not be null");
+
+        File checkpointFile = new File(directory, name + CHECKPOINT_EXTENSION);
+
+        try {
+            checkpointChannel = new RandomAccessFile(checkpointFile, "rw").getChannel();
+            sequence = readCheckpoint();
+        } catch (IOException e) {
+            throw new JournalException("Could not open checkpoint " + checkpointFile, e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Durably saves the sequence of the last handled message as checkpoint.
+     *
+     * @throws JournalException when the checkpoint can not be written.
+     */
+    public void commit() {
+        ByteBuffer bytes = ByteBuffer.allocate(8);
+        bytes.putLong(sequence).flip();
+
+        try {
+            while (bytes.hasRemaining()) {
+                checkpointChannel.write(bytes, bytes.position());
+            }
+
+            checkpointChannel.force(false);
+        } catch (IOException e) {
+            throw new JournalException("Could not write checkpoint of tailer " + name, e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        closeSegment();
+
+        try {
+            checkpointChannel.close();
+        } catch (IOException e) {
+            // ignore: closing
+        }
+    }
+
+    /**
+     * @return The name of the tailer.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The sequence of the last handled message, or 0 if none.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Handles the next available messages: does not wait for new messages.
+     *
+     * @param handler     Handles the messages.
+     * @param maxMessages The maximum number of messages to handle.
+     * @return The number of handled messages.
+     * @throws JournalException when the journal can not be read.
+     */
+    public int poll(JournalMessageHandler handler, int maxMessages) {
+        Objects.requireNonNull(handler, "Handler can not be null");
+
+        int count = 0;
+
+        try {
+            while (count < maxMessages && nextRecordAvailable()) {
+                int offset = segmentPosition - bufferPosition;
+                int length = segment.getInt(offset);
+                long recordSequence = segment.getLong(offset + 4);
+                ByteBuffer payload = segment.duplicate();
+                payload.limit(offset + JournalSegment.HEADER_SIZE + length);
+                payload.position(offset + JournalSegment.HEADER_SIZE);
+
+                handler.handle(recordSequence, codec.decode(payload.slice()));
+
+                segmentPosition += JournalSegment.HEADER_SIZE + length;
+                sequence = recordSequence;
+                count++;
+            }
+        } catch (IOException e) {
+            throw new JournalException("Could not read journal " + directory, e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Continue after the provided sequence: the next handled message has the next sequence.
+     *
+     * @param sequence The sequence of the last handled message, or 0 to start from the beginning.
+     */
+    public void seek(long sequence) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Sequence can not be negative");
+        }
+
+        this.sequence = sequence;
+
+        closeSegment();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Maps the segment that contains the next record, and moves to the next record.
+     *
+     * @return Whether a segment was mapped.
+     * @throws IOException when the segment can not be mapped.
+     */
+    protected boolean mapSegment() throws IOException {
+        long nextSequence = sequence + 1;
+        List<Long> baseSequences = JournalSegment.listBaseSequences(directory);
+
+        if (baseSequences.isEmpty()) {
+            return false;
+        }
+
+        int index = baseSequences.size() - 1;
+
+        while (index > 0 && baseSequences.get(index) > nextSequence) {
+            index--;
+        }
+
+        openSegment(baseSequences.get(index));
+
+        if (nextSequence < segmentBaseSequence) {
+            // the messages before the first segment were removed: continue with the first one
+            sequence = segmentBaseSequence - 1;
+            segmentPosition = 0;
+        } else {
+            segmentPosition = seekInSegment(nextSequence);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether the next record is complete, mapping the next segment or reading the records
+     * that were appended to the current segment.
+     *
+     * @return Whether the next record is complete.
+     * @throws IOException when a segment can not be mapped or read.
+     */
+    protected boolean nextRecordAvailable() throws IOException {
+        if (segment == null && !mapSegment()) {
+            return false;
+        }
+
+        if (isRecordComplete()) {
+            return true;
+        }
+
+        // the current segment may have grown since it was read
+        if (readAppended() && isRecordComplete()) {
+            return true;
+        }
+
+        // the current segment is full when there is a next segment: continue in the next segment
+        long nextBaseSequence = findNextBaseSequence();
+
+        if (nextBaseSequence < 0) {
+            return false;
+        }
+
+        // records may have been appended before the next segment was created
+        if (readAppended()) {
+            return isRecordComplete();
+        }
+
+        openSegment(nextBaseSequence);
+        segmentPosition = 0;
+
+        return isRecordComplete();
+    }
+
+    /**
+     * Makes the records that were appended to the current segment since it was read available:
+     * copies them into the window, or maps the segment again when it grew by more than the window
+     * size.
+     *
+     * @return Whether the segment grew.
+     * @throws IOException when the segment can not be mapped or read.
+     */
+    protected boolean readAppended() throws IOException {
+        long size = Math.min(segmentChannel.size(), Integer.MAX_VALUE);
+
+        if (size <= (long) bufferPosition + segment.limit()) {
+            return false;
+        }
+
+        int remaining = (int) (size - segmentPosition);
+
+        if (remaining > WINDOW_SIZE) {
+            segment = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            bufferPosition = 0;
+
+            return true;
+        }
+
+        if (window == null) {
+            window = ByteBuffer.allocateDirect(WINDOW_SIZE);
+        }
+
+        window.clear();
+        window.limit(remaining);
+
+        while (window.hasRemaining()) {
+            if (segmentChannel.read(window, segmentPosition + window.position()) < 0) {
+                break;
+            }
+        }
+
+        window.flip();
+        segment = window;
+        bufferPosition = segmentPosition;
+
+        return true;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void closeSegment() {
+        segment = null;
+
+        if (segmentChannel != null) {
+            try {
+                segmentChannel.close();
+            } catch (IOException e) {
+                // ignore: closing
+            }
+
+            segmentChannel = null;
+        }
+    }
+
+    /**
+     * Returns the base sequence of the segment after the current segment, or -1 if there is none.
+     */
+    private long findNextBaseSequence() {
+        // common case: the segments were not compacted
+        if (JournalSegment.getFile(directory, sequence + 1).exists()) {
+            return sequence + 1;
+        }
+
+        for (long baseSequence : JournalSegment.listBaseSequences(directory)) {
+            if (baseSequence > segmentBaseSequence) {
+                return baseSequence;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns whether the record at the current position is complete, has a valid checksum and has
+     * a sequence after the last handled message.
+     */
+    private boolean isRecordComplete() {
+        int offset = segmentPosition - bufferPosition;
+        int limit = segment.limit();
+
+        if (offset + JournalSegment.HEADER_SIZE > limit) {
+            return false;
+        }
+
+        int length = segment.getInt(offset);
+
+        // a record that is still being written has an invalid checksum
+        return length >= 0 &&
+                (long) offset + JournalSegment.HEADER_SIZE + length <= limit &&
+                segment.getLong(offset + 4) > sequence &&
+                segment.getInt(offset + JournalSegment.CHECKSUM_OFFSET) ==
+                        JournalSegment.checksum(checksum, segment, offset, length);
+    }
+
+    /**
+     * Opens and maps the segment with the provided base sequence, and closes the current one.
+     */
+    private void openSegment(long baseSequence) throws IOException {
+        File file = JournalSegment.getFile(directory, baseSequence);
+        FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+
+        try {
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            closeSegment();
+
+            segment = mapped;
+            segmentBaseSequence = baseSequence;
+            segmentChannel = channel;
+            bufferPosition = 0;
+        } catch (IOException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpointChannel.size() < 8) {
+            return 0;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(8);
+
+        while (bytes.hasRemaining()) {
+            if (checkpointChannel.read(bytes, bytes.position()) < 0) {
+                return 0;
+            }
+        }
+
+        bytes.flip();
+
+        return bytes.getLong();
+    }
+
+    /**
+     * Returns the position of the record with the provided sequence in the mapped segment, using
+     * its sparse index if available.
+     */
+    private int seekInSegment(long target) throws IOException {
+        int position = 0;
+        File indexFile = JournalSegment.getIndexFile(directory, segmentBaseSequence);
+
+        if (indexFile.exists()) {
+            MappedByteBuffer index = map(indexFile);
+            int low = 0;
+            int high = index.limit() / JournalSegment.INDEX_ENTRY_SIZE - 1;
+
+            // greatest entry with a sequence lower than or equal to the target
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int offset = middle * JournalSegment.INDEX_ENTRY_SIZE;
+
+                if (index.getLong(offset) <= target) {
+                    long entryPosition = index.getLong(offset + 8);
+
+                    // the index can belong to a newer, compacted version of the segment
+                    if (entryPosition + JournalSegment.HEADER_SIZE <= segment.limit() &&
+                            segment.getLong((int) entryPosition + 4) == index.getLong(offset)) {
+                        position = (int) entryPosition;
+                    }
+
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+        }
+
+        int limit = segment.limit();
+
+        while (position + JournalSegment.HEADER_SIZE <= limit) {
+            int length = segment.getInt(position);
+
+            if (length < 0 || segment.getLong(position + 4) >= target) {
+                break;
+            }
+
+            position += JournalSegment.HEADER_SIZE + length;
+        }
+
+        return position;
+    }
+
+}
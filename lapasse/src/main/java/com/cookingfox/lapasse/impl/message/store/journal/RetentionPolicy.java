@@ -0,0 +1,137 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines which segments the {@link JournalCompactor} removes. Only full segments whose
+ * messages are all covered by the latest snapshot can be removed: the policy determines how many of
+ * those are kept.
+ */
+public final class RetentionPolicy {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The retention modes.
+     */
+    public enum Mode {
+
+        /**
+         * Segments are removed as soon as the snapshot covers them.
+         */
+        UNTIL_SNAPSHOT,
+
+        /**
+         * Segments are removed when the snapshot covers them and they were last modified longer
+         * than the maximum age ago.
+         */
+        MAX_AGE,
+
+        /**
+         * The oldest segments are removed when the snapshot covers them and the journal is larger
+         * than the maximum size.
+         */
+        MAX_SIZE,
+
+        /**
+         * Segments are never removed.
+         */
+        KEEP_ALL
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    private final long limit;
+    private final Mode mode;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    private RetentionPolicy(Mode mode, long limit) {
+        this.limit = limit;
+        this.mode = mode;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // STATIC FACTORY METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a policy that never removes segments.
+     *
+     * @return The policy.
+     */
+    public static RetentionPolicy keepAll() {
+        return new RetentionPolicy(Mode.KEEP_ALL, 0);
+    }
+
+    /**
+     * Creates a policy that keeps segments for a minimum time after they were last modified.
+     *
+     * @param maxAge The minimum time to keep a segment.
+     * @param unit   The unit of the maximum age.
+     * @return The policy.
+     */
+    public static RetentionPolicy maxAge(long maxAge, TimeUnit unit) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("Max age can not be negative");
+        }
+
+        return new RetentionPolicy(Mode.MAX_AGE,
+                Objects.requireNonNull(unit, "Unit can not be null").toMillis(maxAge));
+    }
+
+    /**
+     * Creates a policy that keeps the newest segments up to a total size.
+     *
+     * @param maxSize The maximum total size of the segments in bytes.
+     * @return The policy.
+     */
+    public static RetentionPolicy maxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size can not be negative");
+        }
+
+        return new RetentionPolicy(Mode.MAX_SIZE, maxSize);
+    }
+
+    /**
+     * Creates a policy that removes segments as soon as the snapshot covers them.
+     *
+     * @return The policy.
+     */
+    public static RetentionPolicy untilSnapshot() {
+        return new RetentionPolicy(Mode.UNTIL_SNAPSHOT, 0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // GETTERS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @return The maximum age in milliseconds (max age) or the maximum size in bytes (max size).
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionPolicy{" +
+                "mode=" + mode +
+                ", limit=" + limit +
+                '}';
+    }
+
+}
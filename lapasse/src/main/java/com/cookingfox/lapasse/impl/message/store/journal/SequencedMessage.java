@@ -0,0 +1,38 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+
+/**
+ * A message that was read from the journal, with its sequence.
+ */
+public class SequencedMessage {
+
+    protected final Message message;
+    protected final long sequence;
+
+    public SequencedMessage(long sequence, Message message) {
+        this.message = message;
+        this.sequence = sequence;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The sequence of the message in the journal: increases by one per added message, but
+     * can have gaps after compaction.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "SequencedMessage{" +
+                "sequence=" + sequence +
+                ", message=" + message +
+                '}';
+    }
+
+}
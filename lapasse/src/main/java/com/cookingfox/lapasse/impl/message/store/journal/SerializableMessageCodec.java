@@ -0,0 +1,48 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Implementation of {@link MessageCodec} using Java serialization: messages must implement
+ * {@link Serializable}. Simple, but slow and verbose: prefer a dedicated codec for high volumes.
+ */
+public class SerializableMessageCodec implements MessageCodec {
+
+    @Override
+    public Message decode(ByteBuffer bytes) {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.duplicate().get(array);
+
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(array))) {
+            return (Message) input.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new JournalException("Could not decode message", e);
+        }
+    }
+
+    @Override
+    public byte[] encode(Message message) {
+        Objects.requireNonNull(message, "Message can not be null");
+
+        if (!(message instanceof Serializable)) {
+            throw new JournalException("Message is not serializable: " + message.getClass().getName());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(message);
+        } catch (IOException e) {
+            throw new JournalException("Could not encode message: " + message, e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.message.store.journal.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when the journal can not be read or written.
+ */
+public class JournalException extends LaPasseException {
+
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.cookingfox.lapasse.impl.message.store.upcast;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.EventUpcaster;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.message.store.upcast.exception.UpcastException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Implementation of {@link MessageCodec} that stores the version of every message with the message,
+ * and converts old versions of events to their current version when they are decoded, so stored
+ * messages do not need to be rewritten when the shape of an event type changes.
+ * <p>
+ * Encoded messages start with a format marker and the version. Records without the marker, for
+ * example in a journal that was written with the delegate codec itself, are read as version 0, so
+ * an existing journal can switch to this codec. A plain record that happens to start with the
+ * marker bytes is misread: the delegate codec must not produce records that start with
+ * {@link #FORMAT_MARKER}, which Java serialization never does. Journals that are written by a
+ * codec that can not guarantee this must be rewritten with this codec before it reads them.
+ * <p>
+ * Every event type has a current version, which is 0 unless set. When the shape of an event type
+ * changes, increase its current version and add an upcaster from the previous version: to the same
+ * class, or from an old class that is kept for decoding. The upcasters are compiled into a lookup
+ * table by class and version. Decoding only costs one lookup for messages at their current version:
+ * upcasters only run for messages that are stored with another version.
+ */
+public class UpcastingMessageCodec implements MessageCodec {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Marks a message that is encoded by this codec: "LPUC".
+     */
+    static final int FORMAT_MARKER = 0x4C505543;
+
+    /**
+     * Size of the format marker and the version that precede every encoded message.
+     */
+    static final int HEADER_SIZE = 8;
+
+    /**
+     * The current version of a class that only has upcasters: it is always upcast.
+     */
+    static final int OUTDATED = -1;
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Encodes the messages themselves.
+     */
+    protected final MessageCodec delegate;
+
+    /**
+     * The current version and upcasters per class. Not modified after construction.
+     */
+    protected final Map<Class<?>, TypeVersions> types;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    protected UpcastingMessageCodec(Builder builder) {
+        this.delegate = builder.delegate;
+        this.types = new HashMap<>(builder.types.size() * 2);
+
+        // copy, so the builder can not modify the codec
+        for (Map.Entry<Class<?>, TypeVersions> entry : builder.types.entrySet()) {
+            types.put(entry.getKey(), entry.getValue().copy());
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Decodes a message, and converts it to its current version if it was stored with another
+     * version. A message without the format marker is decoded by the delegate as version 0.
+     *
+     * @throws UpcastException when the message can not be converted to its current version.
+     */
+    @Override
+    public Message decode(ByteBuffer bytes) {
+        int position = bytes.position();
+        int version = 0;
+        Message message;
+
+        if (bytes.remaining() >= HEADER_SIZE && bytes.getInt(position) == FORMAT_MARKER) {
+            version = bytes.getInt(position + 4);
+
+            ByteBuffer view = bytes.duplicate();
+            view.position(position + HEADER_SIZE);
+            message = delegate.decode(view.slice());
+        } else {
+            // written without this codec
+            message = delegate.decode(bytes);
+        }
+
+        TypeVersions typeVersions = types.get(message.getClass());
+
+        // common case: the message is stored with its current version
+        if (typeVersions == null ? version == 0 : version == typeVersions.currentVersion) {
+            return message;
+        }
+
+        return upcast(message, version);
+    }
+
+    /**
+     * Encodes a message with the current version of its type.
+     */
+    @Override
+    public byte[] encode(Message message) {
+        Objects.requireNonNull(message, "Message can not be null");
+
+        byte[] encoded = delegate.encode(message);
+
+        return ByteBuffer.allocate(HEADER_SIZE + encoded.length)
+                .putInt(FORMAT_MARKER)
+                .putInt(getCurrentVersion(message.getClass()))
+                .put(encoded)
+                .array();
+    }
+
+    /**
+     * @param messageClass The message class.
+     * @return The version that messages of the class are stored with.
+     */
+    public int getCurrentVersion(Class<? extends Message> messageClass) {
+        TypeVersions typeVersions = types.get(messageClass);
+
+        return typeVersions == null ? 0 : Math.max(typeVersions.currentVersion, 0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Applies the upcasters of the message's class and version, until the message is at the
+     * current version of its class.
+     *
+     * @param message The decoded message.
+     * @param version The version it was stored with.
+     * @return The message at its current version.
+     * @throws UpcastException when an upcaster is missing or fails.
+     */
+    @SuppressWarnings("unchecked")
+    protected Message upcast(Message message, int version) {
+        Message current = message;
+        int currentVersion = version;
+
+        while (true) {
+            TypeVersions typeVersions = types.get(current.getClass());
+
+            if (typeVersions == null ? currentVersion == 0 : currentVersion == typeVersions.currentVersion) {
+                return current;
+            }
+
+            EventUpcaster<Event> upcaster = typeVersions == null ? null : typeVersions.getUpcaster(currentVersion);
+
+            if (upcaster == null) {
+                throw new UpcastException("No upcaster for " + current.getClass().getName() +
+                        " version " + currentVersion + ", stored as " + message.getClass().getName() +
+                        " version " + version);
+            }
+
+            try {
+                current = Objects.requireNonNull(upcaster.upcast((Event) current), "Upcaster returned null");
+            } catch (RuntimeException e) {
+                throw new UpcastException("Could not upcast " + current + " from version " + currentVersion, e);
+            }
+
+            currentVersion++;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The current version and the upcasters of one class.
+     */
+    protected static final class TypeVersions {
+
+        int currentVersion = OUTDATED;
+
+        /**
+         * Upcasters by the version they convert from.
+         */
+        EventUpcaster[] upcasters = new EventUpcaster[0];
+
+        TypeVersions copy() {
+            TypeVersions copy = new TypeVersions();
+            copy.currentVersion = currentVersion;
+            copy.upcasters = upcasters.clone();
+
+            return copy;
+        }
+
+        @SuppressWarnings("unchecked")
+        EventUpcaster<Event> getUpcaster(int version) {
+            return version >= 0 && version < upcasters.length ? upcasters[version] : null;
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: BUILDER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Builds an upcasting message codec.
+     */
+    public static class Builder {
+
+        protected final MessageCodec delegate;
+        protected final Map<Class<?>, TypeVersions> types = new HashMap<>();
+
+        /**
+         * @param delegate Encodes and decodes the messages themselves.
+         */
+        public Builder(MessageCodec delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "Delegate can not be null");
+        }
+
+        /**
+         * Add an upcaster that converts events of the provided class and version to the next
+         * version.
+         *
+         * @param eventClass  The class of the events at the older version: the current class, or
+         *                    an old class that is kept for decoding.
+         * @param fromVersion The version the upcaster converts from.
+         * @param upcaster    The upcaster.
+         * @param <E>         The class of the events at the older version.
+         * @return The builder.
+         */
+        public <E extends Event> Builder addUpcaster(Class<E> eventClass, int fromVersion, EventUpcaster<E> upcaster) {
+            Objects.requireNonNull(eventClass, "Event class can not be null");
+            Objects.requireNonNull(upcaster, "Upcaster can not be null");
+
+            if (fromVersion < 0) {
+                throw new IllegalArgumentException("Version can not be negative");
+            }
+
+            TypeVersions typeVersions = getTypeVersions(eventClass);
+
+            if (typeVersions.getUpcaster(fromVersion) != null) {
+                throw new IllegalArgumentException("Upcaster already added for " + eventClass.getName() +
+                        " version " + fromVersion);
+            }
+
+            if (fromVersion >= typeVersions.upcasters.length) {
+                typeVersions.upcasters = Arrays.copyOf(typeVersions.upcasters, fromVersion + 1);
+            }
+
+            typeVersions.upcasters[fromVersion] = upcaster;
+            return this;
+        }
+
+        /**
+         * Builds the codec.
+         *
+         * @return The codec.
+         * @throws IllegalStateException when an upcaster converts from the current version or later.
+         */
+        public UpcastingMessageCodec build() {
+            for (Map.Entry<Class<?>, TypeVersions> entry : types.entrySet()) {
+                TypeVersions typeVersions = entry.getValue();
+
+                if (typeVersions.currentVersion != OUTDATED &&
+                        typeVersions.upcasters.length > typeVersions.currentVersion) {
+                    throw new IllegalStateException("Upcaster for " + entry.getKey().getName() +
+                            " converts from its current version or later");
+                }
+            }
+
+            return new UpcastingMessageCodec(this);
+        }
+
+        /**
+         * Set the version that events of the provided class are stored with. Defaults to 0.
+         *
+         * @param eventClass     The event class.
+         * @param currentVersion The current version.
+         * @return The builder.
+         */
+        public Builder setCurrentVersion(Class<? extends Event> eventClass, int currentVersion) {
+            Objects.requireNonNull(eventClass, "Event class can not be null");
+
+            if (currentVersion < 0) {
+                throw new IllegalArgumentException("Version can not be negative");
+            }
+
+            getTypeVersions(eventClass).currentVersion = currentVersion;
+            return this;
+        }
+
+        protected TypeVersions getTypeVersions(Class<?> eventClass) {
+            TypeVersions typeVersions = types.get(eventClass);
+
+            if (typeVersions == null) {
+                typeVersions = new TypeVersions();
+                types.put(eventClass, typeVersions);
+            }
+
+            return typeVersions;
+        }
+
+    }
+
+}
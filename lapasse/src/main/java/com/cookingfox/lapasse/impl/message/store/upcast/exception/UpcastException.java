@@ -0,0 +1,18 @@
+package com.cookingfox.lapasse.impl.message.store.upcast.exception;
+
+import com.cookingfox.lapasse.api.exception.LaPasseException;
+
+/**
+ * Thrown when a stored event can not be converted to the current version of its type.
+ */
+public class UpcastException extends LaPasseException {
+
+    public UpcastException(String message) {
+        super(message);
+    }
+
+    public UpcastException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.cookingfox.lapasse.impl.state.history;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.State;
+import com.cookingfox.lapasse.impl.state.observer.StateChangedVo;
+
+/**
+ * A state transition that was recorded by {@link StateHistoryRecorder}.
+ *
+ * @param <S> The concrete type of the state object.
+ */
+public class StateHistoryEntry<S extends State> extends StateChangedVo<S> {
+
+    protected final long sequence;
+    protected final long weight;
+
+    public StateHistoryEntry(long sequence, Event event, S state, long weight) {
+        super(event, state);
+
+        this.sequence = sequence;
+        this.weight = weight;
+    }
+
+    /**
+     * @return The number of state transitions that were recorded before this one.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The estimated size of this transition in bytes, or 0 if not weighed.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "StateHistoryEntry{" +
+                "sequence=" + sequence +
+                ", event=" + event +
+                ", state=" + state +
+                '}';
+    }
+
+}
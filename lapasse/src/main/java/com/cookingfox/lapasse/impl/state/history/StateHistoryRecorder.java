@@ -0,0 +1,364 @@
+package com.cookingfox.lapasse.impl.state.history;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.State;
+import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the most recent state transitions in a bounded ring, for inspecting them when debugging.
+ * Add it as state changed listener to a facade.
+ * <p>
+ * States are immutable, so the recorder keeps references to the events and states instead of
+ * copies. Recording a transition does not allocate, lock or weigh, and may happen on several
+ * threads at once, as it does with a pooled command handler executor or Rx schedulers: a thread
+ * claims the next sequence atomically, marks the slot of that sequence as being written, writes
+ * the event and state and publishes them with an ordered store of the slot version. When the ring
+ * is full, the oldest transition is overwritten. {@link #dump()} reads every slot as a sequence
+ * lock reader: it drops slots that are being written or that were overwritten while it read them,
+ * so an entry never pairs an event with the state of another transition. When a byte cap is set,
+ * the dumping thread weighs the transitions, newest first, and drops the older ones that do not
+ * fit the cap.
+ * <p>
+ * That costs a compare-and-set of the sequence, a compare-and-set and an ordered store of the slot
+ * version and two slot stores per transition, and a yield while an older transition is still
+ * being written to the same slot. When the transitions are only recorded on one thread, create
+ * the recorder in single-writer mode instead: recording then takes one ordered store of an
+ * immutable entry to its slot and an ordered store of the sequence, plus the allocation of the
+ * entry. The dumping thread drops the slots that hold an entry of another sequence.
+ *
+ * @param <S> The concrete type of the state object.
+ */
+public class StateHistoryRecorder<S extends State> implements OnStateChanged<S> {
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The recorded transitions in single-writer mode, indexed like {@link #events}, or `null`.
+     */
+    protected final AtomicReferenceArray<StateHistoryEntry<S>> entries;
+
+    /**
+     * The events of the recorded transitions: the transition with sequence `n` is at index
+     * `n % events.length()`. Has one slot more than the maximum number of entries, so the oldest
+     * transition of a dump is less likely to be overwritten while it is read. `null` in
+     * single-writer mode, like {@link #states} and {@link #versions}.
+     */
+    protected final AtomicReferenceArray<Event> events;
+
+    /**
+     * Whether only one thread records transitions.
+     */
+    protected final boolean singleWriter;
+
+    /**
+     * The maximum total weight of the recorded transitions.
+     */
+    protected final long maxBytes;
+
+    /**
+     * The maximum number of recorded transitions.
+     */
+    protected final int maxEntries;
+
+    /**
+     * The next sequence to claim: the number of transitions that were recorded or are being
+     * recorded.
+     */
+    protected final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The states of the recorded transitions, parallel to {@link #events}.
+     */
+    protected final AtomicReferenceArray<State> states;
+
+    /**
+     * The version of every slot: `2n + 1` while the transition with sequence `n` is written to it,
+     * `2n + 2` once it is published and 0 if the slot was never written.
+     */
+    protected final AtomicLongArray versions;
+
+    /**
+     * (Optional) Estimates the size of a transition in bytes.
+     */
+    protected final Weigher<S> weigher;
+
+    /**
+     * The sequence of the first transition that is not removed by {@link #clear()}.
+     */
+    protected volatile long clearedSequence;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a recorder with a size cap.
+     *
+     * @param maxEntries The maximum number of recorded transitions.
+     */
+    public StateHistoryRecorder(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a recorder with a size and byte cap.
+     *
+     * @param maxEntries The maximum number of recorded transitions.
+     * @param maxBytes   The maximum total weight of the recorded transitions.
+     * @param weigher    Estimates the size of a transition in bytes.
+     */
+    public StateHistoryRecorder(int maxEntries, long maxBytes, Weigher<S> weigher) {
+        this(maxEntries, maxBytes, weigher, false);
+    }
+
+    /**
+     * Creates a recorder with a size and byte cap, which may only record transitions on one thread
+     * when it is in single-writer mode.
+     *
+     * @param maxEntries   The maximum number of recorded transitions.
+     * @param maxBytes     The maximum total weight of the recorded transitions.
+     * @param weigher      Estimates the size of a transition in bytes.
+     * @param singleWriter Whether only one thread calls {@link #onStateChanged(State, Event)}.
+     */
+    public StateHistoryRecorder(int maxEntries, long maxBytes, Weigher<S> weigher, boolean singleWriter) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be at least 1");
+        }
+
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Max bytes must be at least 1");
+        }
+
+        if (weigher == null && maxBytes != Long.MAX_VALUE) {
+            throw new NullPointerException("Weigher can not be null");
+        }
+
+        this.entries = singleWriter ? new AtomicReferenceArray<StateHistoryEntry<S>>(maxEntries + 1) : null;
+        this.events = singleWriter ? null : new AtomicReferenceArray<Event>(maxEntries + 1);
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+        this.singleWriter = singleWriter;
+        this.states = singleWriter ? null : new AtomicReferenceArray<State>(maxEntries + 1);
+        this.versions = singleWriter ? null : new AtomicLongArray(maxEntries + 1);
+        this.weigher = weigher;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Removes all recorded transitions. The slots keep their references until they are
+     * overwritten.
+     */
+    public void clear() {
+        clearedSequence = sequence.get();
+    }
+
+    /**
+     * Returns the recorded transitions. Transitions that are still being recorded are left out.
+     *
+     * @return The recorded transitions, oldest first.
+     */
+    public List<StateHistoryEntry<S>> dump() {
+        long end = sequence.get();
+        long start = Math.max(clearedSequence, end - maxEntries);
+        int capacity = (int) (end - start);
+        long[] copiedSequences = new long[capacity];
+        Event[] copiedEvents = new Event[capacity];
+        State[] copiedStates = new State[capacity];
+        int count = 0;
+
+        for (long current = start; current < end; current++) {
+            int index = (int) (current % (maxEntries + 1));
+
+            if (singleWriter) {
+                StateHistoryEntry<S> entry = entries.get(index);
+
+                if (entry == null || entry.getSequence() != current) {
+                    // overwritten by a newer transition
+                    continue;
+                }
+
+                copiedSequences[count] = current;
+                copiedEvents[count] = entry.getEvent();
+                copiedStates[count] = entry.getState();
+                count++;
+                continue;
+            }
+
+            long published = 2 * current + 2;
+
+            if (versions.get(index) != published) {
+                // being written, or overwritten by a newer transition
+                continue;
+            }
+
+            Event event = events.get(index);
+            State state = states.get(index);
+
+            // the slot reads are volatile, so they can not move past this check
+            if (versions.get(index) != published) {
+                continue;
+            }
+
+            copiedSequences[count] = current;
+            copiedEvents[count] = event;
+            copiedStates[count] = state;
+            count++;
+        }
+
+        long[] weights = new long[count];
+        long totalWeight = 0;
+        int first = count;
+
+        // weigh newest first, but always keep the newest
+        while (first > 0) {
+            int index = first - 1;
+            weights[index] = weigh(copiedStates[index], copiedEvents[index]);
+
+            if (totalWeight + weights[index] > maxBytes && first < count) {
+                break;
+            }
+
+            totalWeight += weights[index];
+            first--;
+        }
+
+        List<StateHistoryEntry<S>> entries = new ArrayList<>(count - first);
+
+        for (int i = first; i < count; i++) {
+            // noinspection unchecked
+            S state = (S) copiedStates[i];
+
+            entries.add(new StateHistoryEntry<>(copiedSequences[i], copiedEvents[i], state, weights[i]));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes the recorded transitions, oldest first, one per line.
+     *
+     * @param out The destination to write to.
+     * @throws IOException when an I/O error occurs.
+     */
+    public void dump(Appendable out) throws IOException {
+        Objects.requireNonNull(out, "Out can not be null");
+
+        for (StateHistoryEntry<S> entry : dump()) {
+            out.append('#').append(String.valueOf(entry.getSequence()))
+                    .append(' ').append(String.valueOf(entry.getEvent()))
+                    .append(" -> ").append(String.valueOf(entry.getState()))
+                    .append('\n');
+        }
+    }
+
+    /**
+     * @return The total number of transitions that were recorded, including evicted ones and ones
+     * that are still being recorded.
+     */
+    public long getRecordedCount() {
+        return sequence.get();
+    }
+
+    /**
+     * @return The number of transitions that are currently recorded. Weighs them when a byte cap
+     * is set.
+     */
+    public int getSize() {
+        if (weigher != null) {
+            return dump().size();
+        }
+
+        return (int) Math.min(sequence.get() - clearedSequence, maxEntries);
+    }
+
+    @Override
+    public void onStateChanged(S state, Event event) {
+        if (singleWriter) {
+            // only this thread writes the sequence
+            long recorded = sequence.get();
+            int index = (int) (recorded % (maxEntries + 1));
+
+            entries.lazySet(index, new StateHistoryEntry<>(recorded, event, state, 0));
+
+            // publish the slot
+            sequence.lazySet(recorded + 1);
+            return;
+        }
+
+        long claimed = sequence.getAndIncrement();
+        int index = (int) (claimed % versions.length());
+        long writing = 2 * claimed + 1;
+
+        while (true) {
+            long version = versions.get(index);
+
+            if (version > writing) {
+                // a newer transition already took the slot: this one is evicted
+                return;
+            } else if ((version & 1) == 0 && versions.compareAndSet(index, version, writing)) {
+                break;
+            }
+
+            // an older transition is still being written to the slot
+            Thread.yield();
+        }
+
+        events.lazySet(index, event);
+        states.lazySet(index, state);
+
+        // publish the slot
+        versions.lazySet(index, writing + 1);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Estimates the size of a transition, on the dumping thread.
+     *
+     * @param state The new state.
+     * @param event The event that caused the transition.
+     * @return The estimated size of the transition in bytes, or 0 if no byte cap is set.
+     */
+    protected long weigh(State state, Event event) {
+        // noinspection unchecked
+        return weigher == null ? 0 : weigher.weigh((S) state, event);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Estimates the size of a state transition, for the byte cap of the recorder. States share
+     * most of their data with the previous state, so a weigher typically estimates the size of the
+     * changed part only.
+     *
+     * @param <S> The concrete type of the state object.
+     */
+    public interface Weigher<S extends State> {
+
+        /**
+         * @param state The new state.
+         * @param event The event that caused the transition.
+         * @return The estimated size of the transition in bytes.
+         */
+        long weigh(S state, Event event);
+
+    }
+
+}
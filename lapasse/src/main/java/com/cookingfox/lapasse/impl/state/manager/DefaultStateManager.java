@@ -5,9 +5,9 @@ import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
 import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
 
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * Default implementation of {@link StateManager}.
@@ -17,14 +17,14 @@ import java.util.Set;
 public class DefaultStateManager<S extends State> implements StateManager<S> {
 
     /**
-     * The current state object.
+     * The current state object. Volatile: state observers may read it from other threads.
      */
-    protected S currentState;
+    protected volatile S currentState;
 
     /**
      * Collection of listeners of when the state changes.
      */
-    protected final Set<OnStateChanged<S>> stateChangedListeners = CollectionUtils.newConcurrentSet();
+    protected final SnapshotSet<OnStateChanged<S>> stateChangedListeners = CollectionUtils.newSnapshotSet();
 
     //----------------------------------------------------------------------------------------------
     // CONSTRUCTOR
@@ -65,8 +65,9 @@ public class DefaultStateManager<S extends State> implements StateManager<S> {
 
         currentState = newState;
 
-        for (OnStateChanged<S> listener : stateChangedListeners) {
-            listener.onStateChanged(currentState, event);
+        for (Object listener : stateChangedListeners.snapshot()) {
+            // noinspection unchecked
+            ((OnStateChanged<S>) listener).onStateChanged(currentState, event);
         }
     }
 
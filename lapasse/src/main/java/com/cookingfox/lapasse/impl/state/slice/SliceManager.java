@@ -0,0 +1,349 @@
+package com.cookingfox.lapasse.impl.state.slice;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.lifecycle.Disposable;
+import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+import com.cookingfox.lapasse.api.state.slice.OnSliceChanged;
+import com.cookingfox.lapasse.api.state.slice.SliceReducer;
+import com.cookingfox.lapasse.impl.util.CollectionUtils;
+import com.cookingfox.lapasse.impl.util.SnapshotSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Maps slice reducers and slice listeners for a facade with a {@link SlicedState}.
+ * <p>
+ * For every event type with slice reducers, one event handler is mapped to the facade. It applies
+ * the reducers of every slice to that slice only, and replaces only the changed slices. When an
+ * event type has reducers for several slices and a pool is provided, the slices are reduced in
+ * parallel. Slice listeners are only notified when their slice changes.
+ */
+public class SliceManager implements Disposable {
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The facade to map the event handlers to.
+     */
+    protected final Facade<SlicedState> facade;
+
+    /**
+     * Slice reducers by event type.
+     */
+    protected final Map<Class<? extends Event>, SliceEventHandler> eventHandlers = CollectionUtils.newConcurrentMap();
+
+    /**
+     * The initial state, which determines the available slices.
+     */
+    protected final SlicedState initialState;
+
+    /**
+     * The state that slice listeners were last notified of.
+     */
+    protected volatile SlicedState notifiedState;
+
+    /**
+     * (Optional) The pool to reduce slices in parallel on, or `null` to reduce them one after the
+     * other.
+     */
+    protected final ForkJoinPool pool;
+
+    /**
+     * Slice listeners by slice index.
+     */
+    protected final Map<Integer, SnapshotSet<OnSliceChanged>> sliceListeners = CollectionUtils.newConcurrentMap();
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a slice manager that reduces slices one after the other.
+     *
+     * @param facade The facade to map the event handlers to.
+     */
+    public SliceManager(Facade<SlicedState> facade) {
+        this(facade, null);
+    }
+
+    /**
+     * @param facade The facade to map the event handlers to.
+     * @param pool   (Optional) The pool to reduce the slices of one event in parallel on.
+     */
+    public SliceManager(Facade<SlicedState> facade, ForkJoinPool pool) {
+        this.facade = Objects.requireNonNull(facade, "Facade can not be null");
+        this.initialState = facade.getCurrentState();
+        this.notifiedState = initialState;
+        this.pool = pool;
+
+        facade.addStateChangedListener(onStateChanged);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Add a listener for when a slice changes.
+     *
+     * @param sliceName The name of the slice.
+     * @param listener  The listener to add.
+     * @param <T>       The type of the slice.
+     * @throws IllegalArgumentException when the state has no slice with this name.
+     */
+    public <T> void addSliceChangedListener(String sliceName, OnSliceChanged<T> listener) {
+        Objects.requireNonNull(listener, "Listener can not be null");
+
+        int index = initialState.getSliceIndex(sliceName);
+
+        synchronized (sliceListeners) {
+            SnapshotSet<OnSliceChanged> listeners = sliceListeners.get(index);
+
+            if (listeners == null) {
+                listeners = CollectionUtils.newSnapshotSet();
+                sliceListeners.put(index, listeners);
+            }
+
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        facade.removeStateChangedListener(onStateChanged);
+        sliceListeners.clear();
+    }
+
+    /**
+     * Map a reducer of a slice for a concrete event type. The first reducer for an event type maps
+     * an event handler for this event type to the facade.
+     *
+     * @param sliceName    The name of the slice that the reducer reduces.
+     * @param eventClass   The concrete event type that the reducer will handle.
+     * @param sliceReducer The reducer.
+     * @param <T>          The type of the slice.
+     * @param <E>          The concrete event type.
+     * @throws IllegalArgumentException when the state has no slice with this name.
+     */
+    public <T, E extends Event> void mapSliceReducer(String sliceName, Class<E> eventClass,
+                                                     SliceReducer<T, E> sliceReducer) {
+        Objects.requireNonNull(eventClass, "Event class can not be null");
+        Objects.requireNonNull(sliceReducer, "Slice reducer can not be null");
+
+        int index = initialState.getSliceIndex(sliceName);
+        SliceEventHandler eventHandler;
+
+        synchronized (eventHandlers) {
+            eventHandler = eventHandlers.get(eventClass);
+
+            if (eventHandler == null) {
+                eventHandler = new SliceEventHandler();
+                eventHandlers.put(eventClass, eventHandler);
+                facade.mapEventHandler(eventClass, (EventHandler) eventHandler);
+            }
+
+            eventHandler.addReducer(index, sliceReducer);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PROTECTED METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Notifies the listeners of the slices that were replaced.
+     *
+     * @param state The new state.
+     * @param event The event that changed the state.
+     */
+    protected void notifySliceListeners(SlicedState state, Event event) {
+        SlicedState previousState = notifiedState;
+        notifiedState = state;
+
+        for (Map.Entry<Integer, SnapshotSet<OnSliceChanged>> entry : sliceListeners.entrySet()) {
+            int index = entry.getKey();
+            Object slice = state.slices[index];
+
+            // unchanged slices are not replaced
+            if (slice == previousState.slices[index]) {
+                continue;
+            }
+
+            for (Object listener : entry.getValue().snapshot()) {
+                // noinspection unchecked
+                ((OnSliceChanged<Object>) listener).onSliceChanged(slice, event);
+            }
+        }
+    }
+
+    /**
+     * Listens to state changes of the facade, to notify the slice listeners.
+     */
+    protected final OnStateChanged<SlicedState> onStateChanged = new OnStateChanged<SlicedState>() {
+        @Override
+        public void onStateChanged(SlicedState state, Event event) {
+            notifySliceListeners(state, event);
+        }
+    };
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The event handler for one event type: applies the reducers of every slice.
+     */
+    protected class SliceEventHandler implements EventHandler<SlicedState, Event> {
+
+        /**
+         * The reducers per slice, in the order the slices were first mapped. Replaced on
+         * modification.
+         */
+        volatile SliceReducers[] sliceReducers = new SliceReducers[0];
+
+        void addReducer(int index, SliceReducer reducer) {
+            SliceReducers[] current = sliceReducers;
+
+            for (SliceReducers reducers : current) {
+                if (reducers.index == index) {
+                    reducers.reducers.add(reducer);
+                    return;
+                }
+            }
+
+            SliceReducers[] replacement = new SliceReducers[current.length + 1];
+            System.arraycopy(current, 0, replacement, 0, current.length);
+            replacement[current.length] = new SliceReducers(index, reducer);
+            sliceReducers = replacement;
+        }
+
+        @Override
+        public SlicedState handle(SlicedState previousState, Event event) {
+            SliceReducers[] current = sliceReducers;
+            Object[] newSlices = new Object[current.length];
+
+            if (pool == null || current.length < 2) {
+                for (int i = 0; i < current.length; i++) {
+                    newSlices[i] = current[i].reduce(previousState.slices[current[i].index], event);
+                }
+            } else {
+                reduceInParallel(current, previousState, event, newSlices);
+            }
+
+            // replace changed slices only
+            Object[] slices = null;
+
+            for (int i = 0; i < current.length; i++) {
+                int index = current[i].index;
+
+                if (newSlices[i] != previousState.slices[index]) {
+                    if (slices == null) {
+                        slices = previousState.slices.clone();
+                    }
+
+                    slices[index] = newSlices[i];
+                }
+            }
+
+            return slices == null ? previousState : new SlicedState(previousState.indexes, slices);
+        }
+
+        /**
+         * Reduces the slices on the pool, while the calling thread reduces the last slice.
+         */
+        private void reduceInParallel(SliceReducers[] current, SlicedState previousState,
+                                      Event event, Object[] newSlices) {
+            List<SliceTask> tasks = new ArrayList<>(current.length);
+
+            for (int i = 0; i < current.length; i++) {
+                SliceTask task = new SliceTask(current[i], previousState.slices[current[i].index], event);
+                tasks.add(task);
+
+                if (i < current.length - 1) {
+                    pool.execute(task);
+                } else {
+                    task.invoke();
+                }
+            }
+
+            for (int i = 0; i < current.length; i++) {
+                SliceTask task = tasks.get(i);
+                task.join();
+
+                if (task.error != null) {
+                    throw task.error;
+                }
+
+                newSlices[i] = task.newSlice;
+            }
+        }
+
+    }
+
+    /**
+     * The reducers of one slice for one event type.
+     */
+    static final class SliceReducers {
+
+        final int index;
+        final SnapshotSet<SliceReducer> reducers = CollectionUtils.newSnapshotSet();
+
+        SliceReducers(int index, SliceReducer reducer) {
+            this.index = index;
+            this.reducers.add(reducer);
+        }
+
+        /**
+         * Applies the reducers to the slice, one after the other.
+         */
+        Object reduce(Object slice, Event event) {
+            for (Object reducer : reducers.snapshot()) {
+                // noinspection unchecked
+                slice = Objects.requireNonNull(((SliceReducer) reducer).reduce(slice, event),
+                        "Slice reducer returned null");
+            }
+
+            return slice;
+        }
+
+    }
+
+    /**
+     * Reduces one slice. Errors are kept, instead of rethrown by the pool.
+     */
+    static final class SliceTask extends RecursiveAction {
+
+        private final Event event;
+        private final Object previousSlice;
+        private final SliceReducers reducers;
+
+        RuntimeException error;
+        Object newSlice;
+
+        SliceTask(SliceReducers reducers, Object previousSlice, Event event) {
+            this.event = event;
+            this.previousSlice = previousSlice;
+            this.reducers = reducers;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                newSlice = reducers.reduce(previousSlice, event);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.cookingfox.lapasse.impl.state.slice;
+
+import com.cookingfox.lapasse.api.state.State;
+
+import java.util.*;
+
+/**
+ * Immutable state that is divided into named slices. Every slice has its own reducers, see
+ * {@link SliceManager}. A new state shares the unchanged slices of its previous state, so applying
+ * an event only costs the work for the slices it changes.
+ */
+public final class SlicedState implements State {
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Slice indexes by name: shared by all states that are derived from the same initial state.
+     */
+    final Map<String, Integer> indexes;
+
+    /**
+     * The slices, in the order of their indexes. Never modified.
+     */
+    final Object[] slices;
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //----------------------------------------------------------------------------------------------
+
+    SlicedState(Map<String, Integer> indexes, Object[] slices) {
+        this.indexes = indexes;
+        this.slices = slices;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the slice with the provided name.
+     *
+     * @param name The name of the slice.
+     * @param <T>  The type of the slice.
+     * @return The slice.
+     * @throws IllegalArgumentException when this state has no slice with this name.
+     */
+    public <T> T getSlice(String name) {
+        // noinspection unchecked
+        return (T) slices[getSliceIndex(name)];
+    }
+
+    /**
+     * @return The names of the slices, in the order they were added.
+     */
+    public Set<String> getSliceNames() {
+        return indexes.keySet();
+    }
+
+    /**
+     * Returns a copy of this state, with the slice of the provided name replaced. Returns this state
+     * if the slice is the same.
+     *
+     * @param name  The name of the slice to replace.
+     * @param slice The new slice.
+     * @return The new state.
+     * @throws IllegalArgumentException when this state has no slice with this name.
+     */
+    public SlicedState withSlice(String name, Object slice) {
+        Objects.requireNonNull(slice, "Slice can not be null");
+
+        int index = getSliceIndex(name);
+
+        if (slices[index] == slice) {
+            return this;
+        }
+
+        Object[] newSlices = slices.clone();
+        newSlices[index] = slice;
+
+        return new SlicedState(indexes, newSlices);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SlicedState)) return false;
+
+        SlicedState that = (SlicedState) o;
+
+        return indexes.keySet().equals(that.indexes.keySet()) &&
+                Arrays.equals(slices, that.slices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(slices);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SlicedState{");
+
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            if (entry.getValue() > 0) {
+                builder.append(", ");
+            }
+
+            builder.append(entry.getKey()).append('=').append(slices[entry.getValue()]);
+        }
+
+        return builder.append('}').toString();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PACKAGE-PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * @param name The name of the slice.
+     * @return The index of the slice.
+     * @throws IllegalArgumentException when this state has no slice with this name.
+     */
+    int getSliceIndex(String name) {
+        Integer index = indexes.get(Objects.requireNonNull(name, "Slice name can not be null"));
+
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown slice: " + name);
+        }
+
+        return index;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // INNER CLASS: BUILDER
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Builds the initial sliced state.
+     */
+    public static class Builder {
+
+        protected final Map<String, Object> slices = new LinkedHashMap<>();
+
+        /**
+         * Adds a slice.
+         *
+         * @param name  The unique name of the slice.
+         * @param slice The initial slice.
+         * @return The builder.
+         * @throws IllegalArgumentException when a slice with this name was already added.
+         */
+        public Builder addSlice(String name, Object slice) {
+            Objects.requireNonNull(name, "Slice name can not be null");
+            Objects.requireNonNull(slice, "Slice can not be null");
+
+            if (slices.containsKey(name)) {
+                throw new IllegalArgumentException("Slice was already added: " + name);
+            }
+
+            slices.put(name, slice);
+            return this;
+        }
+
+        /**
+         * Build a new sliced state using the added slices.
+         *
+         * @return The created state.
+         */
+        public SlicedState build() {
+            Map<String, Integer> indexes = new LinkedHashMap<>();
+
+            for (String name : slices.keySet()) {
+                indexes.put(name, indexes.size());
+            }
+
+            return new SlicedState(Collections.unmodifiableMap(indexes), slices.values().toArray());
+        }
+
+    }
+
+}
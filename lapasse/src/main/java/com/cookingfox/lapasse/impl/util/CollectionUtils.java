@@ -33,6 +33,20 @@ public final class CollectionUtils {
         return new ConcurrentHashMap<>();
     }
 
+    /**
+     * Creates a new concurrent map using the default implementation, sized for the expected
+     * number of entries, so it does not need to be resized while it is populated.
+     *
+     * @param expectedSize The expected number of entries.
+     * @param <K>          The type of keys maintained by this map.
+     * @param <V>          The type of mapped values.
+     * @return New concurrent map.
+     */
+    public static <K, V> ConcurrentMap<K, V> newConcurrentMap(int expectedSize) {
+        // initial capacity is the table size, which is resized at a load factor of 0.75
+        return new ConcurrentHashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+    }
+
     /**
      * Creates a new concurrent set from a {@link ConcurrentMap}.
      *
@@ -43,4 +57,16 @@ public final class CollectionUtils {
         return Collections.newSetFromMap(CollectionUtils.<V, Boolean>newConcurrentMap());
     }
 
+    /**
+     * Creates a new copy-on-write set which can be iterated without allocation, through
+     * {@link SnapshotSet#snapshot()}. Use for collections that are iterated far more often than they
+     * are modified, e.g. listeners and handlers.
+     *
+     * @param <V> The value type.
+     * @return New snapshot set.
+     */
+    public static <V> SnapshotSet<V> newSnapshotSet() {
+        return new SnapshotSet<>();
+    }
+
 }
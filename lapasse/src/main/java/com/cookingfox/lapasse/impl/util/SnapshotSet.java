@@ -0,0 +1,172 @@
+package com.cookingfox.lapasse.impl.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread-safe copy-on-write set, optimized for frequent iteration and infrequent modification, such
+ * as collections of listeners and handlers.
+ * <p>
+ * Every modification replaces the backing array. The current array can be obtained through
+ * {@link #snapshot()}, which allows iterating the elements without allocating an iterator.
+ *
+ * @param <E> The type of elements in this set.
+ */
+public final class SnapshotSet<E> extends AbstractSet<E> {
+
+    //----------------------------------------------------------------------------------------------
+    // CONSTANTS
+    //----------------------------------------------------------------------------------------------
+
+    private static final Object[] EMPTY = new Object[0];
+
+    //----------------------------------------------------------------------------------------------
+    // PROPERTIES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * The current elements. Never modified: replaced on every modification of the set.
+     */
+    private volatile Object[] elements = EMPTY;
+
+    //----------------------------------------------------------------------------------------------
+    // PUBLIC METHODS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized boolean add(E element) {
+        if (element == null) {
+            throw new NullPointerException("Element can not be null");
+        }
+
+        Object[] current = elements;
+
+        if (indexOf(current, element) >= 0) {
+            return false;
+        }
+
+        Object[] replacement = Arrays.copyOf(current, current.length + 1);
+        replacement[current.length] = element;
+        elements = replacement;
+
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        elements = EMPTY;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(elements, o) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return elements.length == 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator<>(elements);
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        Object[] current = elements;
+        int index = indexOf(current, o);
+
+        if (index < 0) {
+            return false;
+        }
+
+        if (current.length == 1) {
+            elements = EMPTY;
+            return true;
+        }
+
+        Object[] replacement = new Object[current.length - 1];
+        System.arraycopy(current, 0, replacement, 0, index);
+        System.arraycopy(current, index + 1, replacement, index, current.length - index - 1);
+        elements = replacement;
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Returns the current elements of this set. The returned array is shared and must NOT be
+     * modified. Later modifications of the set are not reflected in the returned array.
+     *
+     * @return The current elements of this set.
+     */
+    public Object[] snapshot() {
+        return elements;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // PRIVATE METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static int indexOf(Object[] elements, Object o) {
+        if (o == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < elements.length; i++) {
+            if (o.equals(elements[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // MEMBER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Read-only iterator for a snapshot of the elements.
+     *
+     * @param <E> The type of elements in the set.
+     */
+    private static final class SnapshotIterator<E> implements Iterator<E> {
+
+        private final Object[] elements;
+        private int index;
+
+        SnapshotIterator(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < elements.length;
+        }
+
+        @Override
+        public E next() {
+            if (index >= elements.length) {
+                throw new NoSuchElementException();
+            }
+
+            // noinspection unchecked
+            return (E) elements[index++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove elements through the set instead");
+        }
+
+    }
+
+}
@@ -1,13 +1,20 @@
 package com.cookingfox.lapasse.impl.command.bus;
 
 import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor;
+import com.cookingfox.lapasse.api.command.exception.DuplicateCommandException;
 import com.cookingfox.lapasse.api.command.exception.NoRegisteredCommandLoggerException;
 import com.cookingfox.lapasse.api.command.exception.UnsupportedCommandHandlerException;
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
 import com.cookingfox.lapasse.api.command.handler.*;
 import com.cookingfox.lapasse.api.command.logging.CommandLogger;
+import com.cookingfox.lapasse.api.command.logging.CommandLoggerHelper;
 import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
 import com.cookingfox.lapasse.api.state.State;
+import com.cookingfox.lapasse.impl.command.dedup.CommandDeduplicator;
+import com.cookingfox.lapasse.impl.command.executor.CommandHandlerExecutors;
 import com.cookingfox.lapasse.impl.logging.DefaultLogger;
 import com.cookingfox.lapasse.impl.logging.DefaultLoggersHelper;
 import fixtures.event.bus.FixtureEventBus;
@@ -15,17 +22,23 @@ import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
 import fixtures.message.FixtureMessage;
+import fixtures.message.dispatcher.FixtureHandlerDispatcher;
 import fixtures.message.store.FixtureMessageStore;
 import fixtures.state.manager.FixtureStateManager;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -102,6 +115,15 @@ public class DefaultCommandBusTest {
         }
     }
 
+    @Test(expected = NoMessageHandlersException.class)
+    public void dispose_should_remove_mapped_command_dispatchers() throws Exception {
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null));
+
+        commandBus.dispose();
+
+        commandBus.handleCommand(new IncrementCount(1));
+    }
+
     @Test
     public void dispose_should_shutdown_command_executor() throws Exception {
         ExecutorService executorService = Executors.newSingleThreadExecutor();
@@ -189,6 +211,7 @@ public class DefaultCommandBusTest {
                 });
 
         commandBus.handleCommand(new IncrementCount(count));
+        awaitCommandHandlerExecutor();
 
         assertTrue(eventBus.handleEventCalls.contains(event));
     }
@@ -212,10 +235,55 @@ public class DefaultCommandBusTest {
                 });
 
         commandBus.handleCommand(new IncrementCount(count));
+        awaitCommandHandlerExecutor();
 
         assertTrue(eventBus.handleEventCalls.contains(event));
     }
 
+    @Test
+    public void executeHandler_should_not_wait_for_async_handlers() throws Exception {
+        final int handlers = 4;
+        final CountDownLatch started = new CountDownLatch(handlers);
+        final CountDownLatch handled = new CountDownLatch(handlers);
+        final AtomicInteger overlapping = new AtomicInteger();
+
+        commandBus.setCommandHandlerExecutorStrategy(CommandHandlerExecutors.boundedPool(handlers));
+        commandBus.addCommandLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                handled.countDown();
+            }
+        });
+        commandBus.mapCommandHandler(IncrementCount.class,
+                new AsyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+                    @Override
+                    public Callable<CountIncremented> handle(CountState state, final IncrementCount command) {
+                        return new Callable<CountIncremented>() {
+                            @Override
+                            public CountIncremented call() throws Exception {
+                                // slow handler: only completes when all handlers run at once
+                                started.countDown();
+
+                                if (started.await(5, TimeUnit.SECONDS)) {
+                                    overlapping.incrementAndGet();
+                                }
+
+                                return new CountIncremented(command.getCount());
+                            }
+                        };
+                    }
+                });
+
+        for (int i = 1; i <= handlers; i++) {
+            commandBus.handleCommand(new IncrementCount(i));
+        }
+
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        assertEquals(handlers, overlapping.get());
+
+        commandBus.dispose();
+    }
+
     @Test
     public void executeHandler_should_log_command_handler_result_of_single_handler() throws Exception {
         final AtomicReference<Command> calledCommand = new AtomicReference<>();
@@ -244,6 +312,46 @@ public class DefaultCommandBusTest {
         assertEquals(Collections.singleton(new CountIncremented(command.getCount())), calledEvents.get());
     }
 
+    @Test
+    public void executeHandler_should_log_single_result_with_custom_logger_helper() throws Exception {
+        final AtomicReference<Collection<Event>> calledEvents = new AtomicReference<>();
+
+        CommandLoggerHelper loggerHelper = new CommandLoggerHelper() {
+            @Override
+            public void addCommandLogger(CommandLogger logger) {
+            }
+
+            @Override
+            public void dispose() {
+            }
+
+            @Override
+            public void removeCommandLogger(CommandLogger logger) {
+            }
+
+            @Override
+            public void onCommandHandlerError(Throwable error, Command command) {
+            }
+
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                calledEvents.set(events);
+            }
+        };
+
+        commandBus = new DefaultCommandBus<>(messageStore, eventBus, loggerHelper, stateManager);
+        commandBus.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        commandBus.handleCommand(new IncrementCount(123));
+
+        assertEquals(Collections.singleton(new CountIncremented(123)), calledEvents.get());
+    }
+
     @Test
     public void executeHandler_should_log_error_of_throwing_single_handler() throws Exception {
         final AtomicReference<Throwable> calledError = new AtomicReference<>();
@@ -373,6 +481,106 @@ public class DefaultCommandBusTest {
         assertTrue(called.get());
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: executeDispatcher
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void executeDispatcher_should_pass_event_from_event_result() throws Exception {
+        CountIncremented event = new CountIncremented(1);
+        IncrementCount command = new IncrementCount(1);
+        FixtureHandlerDispatcher dispatcher =
+                new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_EVENT, event);
+
+        commandBus.mapCommandDispatcher(dispatcher);
+        commandBus.handleCommand(command);
+
+        assertEquals(Collections.singletonList(command), dispatcher.dispatchedCommands);
+        assertTrue(eventBus.handleEventCalls.contains(event));
+    }
+
+    @Test
+    public void executeDispatcher_should_pass_events_from_event_collection_result() throws Exception {
+        CountIncremented event = new CountIncremented(1);
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_COLLECTION, Collections.singletonList(event)));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertTrue(eventBus.handleEventCalls.contains(event));
+    }
+
+    @Test
+    public void executeDispatcher_should_pass_event_from_callable_result() throws Exception {
+        final CountIncremented event = new CountIncremented(1);
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_CALLABLE, new Callable<CountIncremented>() {
+            @Override
+            public CountIncremented call() throws Exception {
+                return event;
+            }
+        }));
+        commandBus.handleCommand(new IncrementCount(1));
+        awaitCommandHandlerExecutor();
+
+        assertTrue(eventBus.handleEventCalls.contains(event));
+    }
+
+    @Test
+    public void executeDispatcher_should_log_error_if_callable_throws() throws Exception {
+        final AtomicReference<Throwable> calledError = new AtomicReference<>();
+        final Exception exception = new Exception("Callable error");
+
+        commandBus.addCommandLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerError(Throwable error, Command command) {
+                calledError.set(error);
+            }
+        });
+
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(
+                HandlerDispatcher.RESULT_EVENT_COLLECTION_CALLABLE, new Callable<Collection<Event>>() {
+            @Override
+            public Collection<Event> call() throws Exception {
+                throw exception;
+            }
+        }));
+        commandBus.handleCommand(new IncrementCount(1));
+        awaitCommandHandlerExecutor();
+
+        assertNotNull(calledError.get());
+        assertSame(exception, calledError.get().getCause());
+        assertTrue(eventBus.handleEventCalls.isEmpty());
+    }
+
+    @Test
+    public void executeDispatcher_should_also_execute_mapped_handlers() throws Exception {
+        final AtomicBoolean handlerCalled = new AtomicBoolean(false);
+        FixtureHandlerDispatcher dispatcher =
+                new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+
+        commandBus.mapCommandDispatcher(dispatcher);
+        commandBus.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                handlerCalled.set(true);
+            }
+        });
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, dispatcher.dispatchedCommands.size());
+        assertTrue(handlerCalled.get());
+    }
+
+    @Test(expected = NoMessageHandlersException.class)
+    public void handleCommand_should_throw_if_dispatcher_does_not_handle_command() throws Exception {
+        commandBus.mapCommandDispatcher(new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null));
+
+        commandBus.handleCommand(new Command() {
+        });
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: getCommandHandlerExecutor
     //----------------------------------------------------------------------------------------------
@@ -397,6 +605,21 @@ public class DefaultCommandBusTest {
         assertSame(customExecutor, executor);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: mapCommandDispatcher
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void mapCommandDispatcher_should_throw_if_dispatcher_null() throws Exception {
+        commandBus.mapCommandDispatcher(null);
+    }
+
+    @Test(expected = UnsupportedCommandHandlerException.class)
+    public void mapCommandDispatcher_should_throw_if_result_type_unsupported() throws Exception {
+        commandBus.mapCommandDispatcher(
+                new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_EVENT_OBSERVABLE, null));
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: mapCommandHandler
     //----------------------------------------------------------------------------------------------
@@ -435,6 +658,131 @@ public class DefaultCommandBusTest {
         assertFalse(loggers.hasCommandLogger(logger));
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: setCommandDeduplicator
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void setCommandDeduplicator_should_drop_duplicate_commands() throws Exception {
+        final AtomicInteger handleCount = new AtomicInteger();
+
+        commandBus.addCommandLogger(new DefaultLogger<CountState>());
+
+        commandBus.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                handleCount.incrementAndGet();
+            }
+        });
+
+        commandBus.setCommandDeduplicator(new CommandDeduplicator(new CommandIdExtractor() {
+            @Override
+            public long getCommandId(Command command) {
+                return ((IncrementCount) command).getCount();
+            }
+        }, 1, TimeUnit.MINUTES));
+
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(new IncrementCount(2));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(2, handleCount.get());
+
+        commandBus.setCommandDeduplicator(null);
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(3, handleCount.get());
+    }
+
+    @Test
+    public void setCommandDeduplicator_should_notify_loggers_of_dropped_command() throws Exception {
+        final List<Command> resultCommands = new ArrayList<>();
+        final List<Command> errorCommands = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+
+        commandBus.addCommandLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerError(Throwable error, Command command) {
+                errorCommands.add(command);
+                errors.add(error);
+            }
+
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                resultCommands.add(command);
+            }
+        });
+
+        commandBus.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        commandBus.setCommandDeduplicator(new CommandDeduplicator(new CountIdExtractor(), 1, TimeUnit.MINUTES));
+
+        IncrementCount retry = new IncrementCount(1);
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(retry);
+
+        assertEquals(1, resultCommands.size());
+        assertEquals(1, errorCommands.size());
+        assertSame(retry, errorCommands.get(0));
+        assertTrue(errors.get(0) instanceof DuplicateCommandException);
+        assertEquals(1, eventBus.handleEventCalls.size());
+    }
+
+    @Test
+    public void setCommandDeduplicator_should_handle_retry_of_failed_command() throws Exception {
+        final AtomicInteger handleCount = new AtomicInteger();
+
+        commandBus.addCommandLogger(new DefaultLogger<CountState>());
+
+        commandBus.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                if (handleCount.incrementAndGet() == 1) {
+                    throw new RuntimeException("Example exception");
+                }
+            }
+        });
+
+        commandBus.setCommandDeduplicator(new CommandDeduplicator(new CountIdExtractor(), 1, TimeUnit.MINUTES));
+
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(new IncrementCount(1));
+        commandBus.handleCommand(new IncrementCount(1));
+
+        // failed, handled, dropped
+        assertEquals(2, handleCount.get());
+    }
+
+    @Test
+    public void setCommandDeduplicator_should_handle_retry_if_handle_message_throws() throws Exception {
+        commandBus.setCommandDeduplicator(new CommandDeduplicator(new CountIdExtractor(), 1, TimeUnit.MINUTES));
+
+        try {
+            commandBus.handleCommand(new IncrementCount(1));
+            fail("Expected NoMessageHandlersException");
+        } catch (NoMessageHandlersException e) {
+            // no handler mapped yet
+        }
+
+        final AtomicInteger handleCount = new AtomicInteger();
+
+        commandBus.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                handleCount.incrementAndGet();
+            }
+        });
+
+        commandBus.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, handleCount.get());
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: setCommandHandlerExecutor
     //----------------------------------------------------------------------------------------------
@@ -444,6 +792,59 @@ public class DefaultCommandBusTest {
         commandBus.setCommandHandlerExecutor(null);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: setCommandHandlerExecutorStrategy
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void setCommandHandlerExecutorStrategy_should_throw_if_strategy_null() throws Exception {
+        commandBus.setCommandHandlerExecutorStrategy(null);
+    }
+
+    @Test
+    public void setCommandHandlerExecutorStrategy_should_create_executor_lazily() throws Exception {
+        final ExecutorService customExecutor = Executors.newSingleThreadExecutor();
+        final AtomicInteger createCount = new AtomicInteger();
+
+        commandBus.setCommandHandlerExecutorStrategy(new CommandHandlerExecutorStrategy() {
+            @Override
+            public ExecutorService createExecutor() {
+                createCount.incrementAndGet();
+                return customExecutor;
+            }
+        });
+
+        assertEquals(0, createCount.get());
+        assertSame(customExecutor, commandBus.getCommandHandlerExecutor());
+        assertSame(customExecutor, commandBus.getCommandHandlerExecutor());
+        assertEquals(1, createCount.get());
+
+        customExecutor.shutdown();
+    }
+
+    @Test
+    public void setCommandHandlerExecutorStrategy_should_throw_if_executor_set_explicitly() throws Exception {
+        ExecutorService customExecutor = Executors.newSingleThreadExecutor();
+
+        commandBus.setCommandHandlerExecutor(customExecutor);
+
+        try {
+            commandBus.setCommandHandlerExecutorStrategy(CommandHandlerExecutors.boundedPool(2));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertSame(customExecutor, commandBus.getCommandHandlerExecutor());
+        } finally {
+            customExecutor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setCommandHandlerExecutorStrategy_should_throw_if_executor_created() throws Exception {
+        commandBus.getCommandHandlerExecutor();
+
+        commandBus.setCommandHandlerExecutorStrategy(CommandHandlerExecutors.boundedPool(2));
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: shouldHandleMessageType
     //----------------------------------------------------------------------------------------------
@@ -462,10 +863,35 @@ public class DefaultCommandBusTest {
         assertFalse(result);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Waits until the default single thread executor has run the submitted async handlers.
+     */
+    private void awaitCommandHandlerExecutor() throws Exception {
+        commandBus.getCommandHandlerExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
     //----------------------------------------------------------------------------------------------
     // HELPER CLASSES
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Uses the count of {@link IncrementCount} as identifier.
+     */
+    static class CountIdExtractor implements CommandIdExtractor {
+        @Override
+        public long getCommandId(Command command) {
+            return ((IncrementCount) command).getCount();
+        }
+    }
+
     class TestLoggersHelper<S extends State> extends DefaultLoggersHelper<S> {
         public boolean hasCommandLogger(CommandLogger logger) {
             return commandLoggers.contains(logger);
@@ -0,0 +1,289 @@
+package com.cookingfox.lapasse.impl.command.dedup;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor;
+import fixtures.example.command.IncrementCount;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CommandDeduplicator}.
+ */
+public class CommandDeduplicatorTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private long now = 1000;
+    private CommandDeduplicator deduplicator;
+
+    @Before
+    public void setUp() throws Exception {
+        deduplicator = createDeduplicator(100);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: constructor
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void constructor_should_throw_if_extractor_null() throws Exception {
+        new CommandDeduplicator(null, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_throw_if_window_not_positive() throws Exception {
+        new CommandDeduplicator(new CountIdExtractor(), 0, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_throw_if_max_ids_not_positive() throws Exception {
+        new CommandDeduplicator(new CountIdExtractor(), 1, TimeUnit.SECONDS, 0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: forget
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void forget_should_remove_id_from_both_generations() throws Exception {
+        deduplicator.isDuplicate(new IncrementCount(1));
+        now += WINDOW_NANOS;
+        deduplicator.isDuplicate(new IncrementCount(2));
+
+        // 1 in the previous generation, 2 in the current
+        deduplicator.forget(new IncrementCount(1));
+        deduplicator.forget(new IncrementCount(2));
+
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(2)));
+        assertEquals(0, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    public void forget_should_ignore_unknown_id() throws Exception {
+        deduplicator.isDuplicate(new IncrementCount(1));
+
+        deduplicator.forget(new IncrementCount(2));
+        deduplicator.forget(new IncrementCount(0));
+
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(1)));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: isDuplicate
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void isDuplicate_should_return_true_for_repeated_id() throws Exception {
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(2)));
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(1)));
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(2)));
+        assertEquals(2, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    public void isDuplicate_should_never_return_true_for_no_id() throws Exception {
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(0)));
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(0)));
+        assertEquals(0, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    public void isDuplicate_should_remember_id_for_at_least_window() throws Exception {
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+
+        now += WINDOW_NANOS - 1;
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(1)));
+
+        // rotated: now in the previous generation
+        now += 1;
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(2)));
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(1)));
+    }
+
+    @Test
+    public void isDuplicate_should_forget_id_after_two_windows() throws Exception {
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+
+        now += WINDOW_NANOS * 2;
+
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+    }
+
+    @Test
+    public void isDuplicate_should_rotate_when_generation_full() throws Exception {
+        deduplicator = createDeduplicator(4);
+
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(deduplicator.isDuplicate(new IncrementCount(i)));
+        }
+
+        // 1-4 in the previous generation, 5 in the current
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(1)));
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(5)));
+
+        for (int i = 6; i <= 9; i++) {
+            assertFalse(deduplicator.isDuplicate(new IncrementCount(i)));
+        }
+
+        // rotated when 9 was added: 1-4 are forgotten
+        assertFalse(deduplicator.isDuplicate(new IncrementCount(1)));
+        assertTrue(deduplicator.isDuplicate(new IncrementCount(5)));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: writeTo / readFrom
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void readFrom_should_restore_written_window() throws Exception {
+        deduplicator.isDuplicate(new IncrementCount(1));
+        now += WINDOW_NANOS;
+        deduplicator.isDuplicate(new IncrementCount(2));
+        now += 5;
+
+        byte[] window = write(deduplicator);
+
+        now = 99999;
+        CommandDeduplicator restored = createDeduplicator(100);
+        restored.readFrom(new ByteArrayInputStream(window));
+
+        assertTrue(restored.isDuplicate(new IncrementCount(1)));
+        assertTrue(restored.isDuplicate(new IncrementCount(2)));
+        assertFalse(restored.isDuplicate(new IncrementCount(3)));
+
+        // the age of the current generation is restored
+        now += WINDOW_NANOS - 5;
+        assertFalse(restored.isDuplicate(new IncrementCount(1)));
+        assertTrue(restored.isDuplicate(new IncrementCount(2)));
+    }
+
+    @Test
+    public void readFrom_should_ignore_ids_that_do_not_fit() throws Exception {
+        for (int i = 1; i <= 10; i++) {
+            deduplicator.isDuplicate(new IncrementCount(i));
+        }
+
+        CommandDeduplicator restored = createDeduplicator(4);
+        restored.readFrom(new ByteArrayInputStream(write(deduplicator)));
+
+        int duplicates = 0;
+
+        for (int i = 1; i <= 10; i++) {
+            if (restored.isDuplicate(new IncrementCount(i))) {
+                duplicates++;
+            }
+        }
+
+        assertTrue(duplicates > 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_should_throw_for_unsupported_format() throws Exception {
+        deduplicator.readFrom(new ByteArrayInputStream(new byte[]{0, 0, 0, 99}));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: LongHashSet
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void LongHashSet_should_add_and_find_values() throws Exception {
+        LongHashSet set = new LongHashSet(1000);
+
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.add(i * 1024));
+        }
+
+        assertTrue(set.isFull());
+        assertFalse(set.add(1024));
+        assertTrue(set.contains(1000 * 1024));
+        assertFalse(set.contains(1));
+        assertEquals(1000, set.toArray().length);
+
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(1024));
+    }
+
+    @Test
+    public void LongHashSet_should_find_values_after_remove() throws Exception {
+        LongHashSet set = new LongHashSet(1000);
+
+        for (long i = 1; i <= 1000; i++) {
+            set.add(i);
+        }
+
+        // remove every third value: the others must still be found past the gaps
+        for (long i = 3; i <= 1000; i += 3) {
+            assertTrue(set.remove(i));
+        }
+
+        assertFalse(set.remove(3));
+        assertFalse(set.remove(1001));
+        assertEquals(1000 - 333, set.size());
+
+        for (long i = 1; i <= 1000; i++) {
+            assertEquals(i % 3 != 0, set.contains(i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void LongHashSet_should_throw_when_full() throws Exception {
+        LongHashSet set = new LongHashSet(1);
+
+        set.add(1);
+        set.add(2);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Uses the count of {@link IncrementCount} as identifier.
+     */
+    static class CountIdExtractor implements CommandIdExtractor {
+
+        @Override
+        public long getCommandId(Command command) {
+            return ((IncrementCount) command).getCount();
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private CommandDeduplicator createDeduplicator(int maxIdsPerGeneration) {
+        return new CommandDeduplicator(new CountIdExtractor(), WINDOW_NANOS, TimeUnit.NANOSECONDS,
+                maxIdsPerGeneration) {
+            @Override
+            protected long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    private static byte[] write(CommandDeduplicator deduplicator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        deduplicator.writeTo(out);
+
+        return out.toByteArray();
+    }
+
+}
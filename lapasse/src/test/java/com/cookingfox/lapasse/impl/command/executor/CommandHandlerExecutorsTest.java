@@ -0,0 +1,124 @@
+package com.cookingfox.lapasse.impl.command.executor;
+
+import com.cookingfox.lapasse.api.command.executor.CommandHandlerExecutorStrategy;
+import com.cookingfox.lapasse.impl.command.executor.exception.VirtualThreadsUnsupportedException;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+import static testing.TestingUtils.assertPrivateConstructorInstantiationUnsupported;
+
+/**
+ * Unit tests for {@link CommandHandlerExecutors}.
+ */
+public class CommandHandlerExecutorsTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: constructor
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void constructor_should_throw() throws Exception {
+        assertPrivateConstructorInstantiationUnsupported(CommandHandlerExecutors.class);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: boundedPool
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedPool_should_throw_if_max_threads_less_than_one() throws Exception {
+        CommandHandlerExecutors.boundedPool(0);
+    }
+
+    @Test
+    public void boundedPool_should_run_on_daemon_thread() throws Exception {
+        assertRunsOnDaemonThread(CommandHandlerExecutors.boundedPool(4));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: singleThread
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void singleThread_should_run_on_daemon_thread() throws Exception {
+        assertRunsOnDaemonThread(CommandHandlerExecutors.singleThread());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: virtualThreadPerCommand
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void virtualThreadPerCommand_should_throw_if_unsupported() throws Exception {
+        assumeFalse(CommandHandlerExecutors.isVirtualThreadSupported());
+
+        try {
+            CommandHandlerExecutors.virtualThreadPerCommand().createExecutor();
+
+            fail("Expected exception");
+        } catch (VirtualThreadsUnsupportedException e) {
+            assertNotNull(e);
+        }
+    }
+
+    @Test
+    public void virtualThreadPerCommand_should_create_executor_if_supported() throws Exception {
+        assumeTrue(CommandHandlerExecutors.isVirtualThreadSupported());
+
+        ExecutorService executor = CommandHandlerExecutors.virtualThreadPerCommand().createExecutor();
+
+        assertNotNull(executor);
+
+        executor.shutdown();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: virtualThreadPerCommandOr
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void virtualThreadPerCommandOr_should_throw_if_fallback_null() throws Exception {
+        CommandHandlerExecutors.virtualThreadPerCommandOr(null);
+    }
+
+    @Test
+    public void virtualThreadPerCommandOr_should_return_fallback_if_unsupported() throws Exception {
+        assumeFalse(CommandHandlerExecutors.isVirtualThreadSupported());
+
+        CommandHandlerExecutorStrategy fallback = new CommandHandlerExecutorStrategy() {
+            @Override
+            public ExecutorService createExecutor() {
+                return Executors.newSingleThreadExecutor();
+            }
+        };
+
+        assertSame(fallback, CommandHandlerExecutors.virtualThreadPerCommandOr(fallback));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static void assertRunsOnDaemonThread(CommandHandlerExecutorStrategy strategy)
+            throws Exception {
+        ExecutorService executor = strategy.createExecutor();
+
+        boolean isDaemon = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return Thread.currentThread().isDaemon();
+            }
+        }).get();
+
+        executor.shutdown();
+
+        assertTrue(isDaemon);
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import com.cookingfox.lapasse.api.command.handler.VoidCommandHandler;
+import com.cookingfox.lapasse.api.command.schedule.ScheduledCommand;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.state.CountState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DefaultCommandScheduler}.
+ */
+public class DefaultCommandSchedulerTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BlockingQueue<Integer> handled = new LinkedBlockingQueue<>();
+
+    private LaPasseFacade<CountState> facade;
+    private DefaultCommandScheduler scheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        facade = createFacade();
+        scheduler = createScheduler(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.dispose();
+        facade.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: schedule
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void schedule_should_handle_command_after_delay() throws Exception {
+        long start = System.currentTimeMillis();
+
+        scheduler.schedule(new IncrementCount(1), 50, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertNull(handled.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void schedule_should_handle_commands_in_deadline_order() throws Exception {
+        scheduler.schedule(new IncrementCount(3), 90, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new IncrementCount(1), 10, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new IncrementCount(2), 50, TimeUnit.MILLISECONDS);
+
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), handled.poll(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), handled.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void schedule_should_throw_if_command_null() throws Exception {
+        scheduler.schedule(null, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void schedule_should_throw_if_disposed() throws Exception {
+        scheduler.dispose();
+
+        scheduler.schedule(new IncrementCount(1), 1, TimeUnit.SECONDS);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: scheduleAtFixedRate
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void scheduleAtFixedRate_should_handle_command_repeatedly_until_cancelled() throws Exception {
+        ScheduledCommand scheduled = scheduler.scheduleAtFixedRate(new IncrementCount(1), 0, 20, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(scheduled.cancel());
+        assertTrue(scheduled.isCancelled());
+        assertFalse(scheduled.cancel());
+
+        handled.poll(50, TimeUnit.MILLISECONDS);
+        handled.clear();
+
+        assertNull(handled.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void scheduleAtFixedRate_should_throw_if_period_below_millisecond() throws Exception {
+        scheduler.scheduleAtFixedRate(new IncrementCount(1), 0, 10, TimeUnit.MICROSECONDS);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: cancel
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void cancel_should_prevent_handling() throws Exception {
+        ScheduledCommand cancelled = scheduler.schedule(new IncrementCount(1), 50, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new IncrementCount(2), 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(Integer.valueOf(2), handled.poll(5, TimeUnit.SECONDS));
+        assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    public void cancel_should_return_false_after_handling() throws Exception {
+        ScheduledCommand scheduled = scheduler.schedule(new IncrementCount(1), 0, TimeUnit.MILLISECONDS);
+
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+
+        // wait for the scheduler to complete the run
+        while (scheduler.getPendingCount() > 0) {
+            Thread.sleep(1);
+        }
+
+        assertFalse(scheduled.cancel());
+        assertFalse(scheduled.isCancelled());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: store
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void start_should_restore_stored_commands() throws Exception {
+        File file = folder.newFile();
+        scheduler.dispose();
+        scheduler = createScheduler(file);
+
+        scheduler.schedule(new IncrementCount(1), 200, TimeUnit.MILLISECONDS);
+        ScheduledCommand cancelled = scheduler.schedule(new IncrementCount(2), 200, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(new IncrementCount(3), 250, TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+        scheduler.dispose();
+
+        scheduler = createScheduler(file);
+        scheduler.start();
+
+        assertEquals(2, scheduler.getPendingCount());
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), handled.poll(5, TimeUnit.SECONDS));
+        assertNull(handled.poll(50, TimeUnit.MILLISECONDS));
+
+        // the new identifiers follow the restored ones
+        assertEquals(4, scheduler.schedule(new IncrementCount(4), 1, TimeUnit.HOURS).getId());
+        scheduler.dispose();
+
+        scheduler = createScheduler(file);
+        scheduler.start();
+
+        assertEquals(2, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void start_should_continue_recurring_command_after_last_run() throws Exception {
+        File file = folder.newFile();
+        scheduler.dispose();
+        scheduler = createScheduler(file);
+
+        scheduler.scheduleAtFixedRate(new IncrementCount(1), 0, 1, TimeUnit.HOURS);
+
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+
+        // waits for the run to complete
+        scheduler.dispose();
+
+        scheduler = createScheduler(file);
+        scheduler.start();
+
+        assertEquals(1, scheduler.getPendingCount());
+        assertNull(handled.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void start_should_handle_overdue_commands_immediately() throws Exception {
+        File file = folder.newFile();
+        FileScheduledCommandStore store = new FileScheduledCommandStore(file, new SerializableMessageCodec());
+        store.add(new DefaultScheduledCommand(null, 1, new IncrementCount(1), System.currentTimeMillis() - 60000, 0));
+        store.dispose();
+        scheduler.dispose();
+
+        scheduler = createScheduler(file);
+        scheduler.start();
+
+        assertEquals(Integer.valueOf(1), handled.poll(5, TimeUnit.SECONDS));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getNextDeadline
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getNextDeadline_should_skip_missed_runs() throws Exception {
+        assertEquals(110, DefaultCommandScheduler.getNextDeadline(100, 10, 50));
+        assertEquals(140, DefaultCommandScheduler.getNextDeadline(100, 10, 135));
+        assertEquals(150, DefaultCommandScheduler.getNextDeadline(100, 10, 140));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private LaPasseFacade<CountState> createFacade() {
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                handled.add(command.getCount());
+            }
+        });
+
+        return facade;
+    }
+
+    private DefaultCommandScheduler createScheduler(File file) {
+        DefaultCommandScheduler.Builder builder = new DefaultCommandScheduler.Builder(facade)
+                .setTickDuration(1, TimeUnit.MILLISECONDS);
+
+        if (file != null) {
+            builder.setStore(new FileScheduledCommandStore(file, new SerializableMessageCodec()));
+        }
+
+        return builder.build();
+    }
+
+}
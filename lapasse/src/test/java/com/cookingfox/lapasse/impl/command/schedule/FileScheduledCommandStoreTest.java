@@ -0,0 +1,213 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.schedule.OnScheduledCommandLoaded;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
+import fixtures.example.command.IncrementCount;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link FileScheduledCommandStore}.
+ */
+public class FileScheduledCommandStoreTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializableMessageCodec codec = new SerializableMessageCodec();
+
+    private File file;
+    private FileScheduledCommandStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile();
+        store = new FileScheduledCommandStore(file, codec);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: load
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void load_should_return_added_and_not_removed_commands() throws Exception {
+        add(1, 1000, 0);
+        add(2, 2000, 500);
+        add(3, 3000, 0);
+        store.remove(2);
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(2, loaded.size());
+        assertEquals(1, loaded.get(0).id);
+        assertEquals(new IncrementCount(1), loaded.get(0).command);
+        assertEquals(1000, loaded.get(0).deadline);
+        assertEquals(3, loaded.get(1).id);
+    }
+
+    @Test
+    public void load_should_return_recurring_command_period() throws Exception {
+        add(1, 1000, 500);
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(500, loaded.get(0).period);
+    }
+
+    @Test
+    public void load_should_compact_file() throws Exception {
+        add(1, 1000, 0);
+        add(2, 2000, 0);
+        store.remove(1);
+        long length = file.length();
+
+        reopenAndLoad();
+
+        assertTrue(file.length() < length);
+        assertEquals(1, store.addCount);
+        assertEquals(0, store.removeCount);
+    }
+
+    @Test
+    public void load_should_discard_incomplete_last_record() throws Exception {
+        add(1, 1000, 0);
+        add(2, 2000, 0);
+        store.dispose();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(1, loaded.size());
+        assertEquals(1, loaded.get(0).id);
+
+        // appends after the valid records
+        add(3, 3000, 0);
+
+        assertEquals(2, reopenAndLoad().size());
+    }
+
+    @Test
+    public void load_should_return_last_updated_deadline() throws Exception {
+        add(1, 1000, 500);
+        add(2, 2000, 500);
+        store.update(1, 1500);
+        store.update(1, 2000);
+        store.update(2, 2500);
+        store.remove(2);
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(1, loaded.size());
+        assertEquals(2000, loaded.get(0).deadline);
+        assertEquals(500, loaded.get(0).period);
+        assertEquals(new IncrementCount(1), loaded.get(0).command);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: remove
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void remove_should_compact_when_mostly_removed() throws Exception {
+        int count = FileScheduledCommandStore.COMPACT_THRESHOLD + 10;
+
+        for (int i = 1; i <= count; i++) {
+            add(i, i, 0);
+        }
+
+        for (int i = 1; i < count; i++) {
+            store.remove(i);
+        }
+
+        assertTrue(store.removeCount < count - 1);
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(1, loaded.size());
+        assertEquals(count, loaded.get(0).id);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: update
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void update_should_compact_when_mostly_updated() throws Exception {
+        add(1, 0, 1);
+
+        for (int i = 1; i <= FileScheduledCommandStore.COMPACT_THRESHOLD; i++) {
+            store.update(1, i);
+        }
+
+        assertEquals(0, store.removeCount);
+        assertEquals(1, store.addCount);
+
+        List<Loaded> loaded = reopenAndLoad();
+
+        assertEquals(1, loaded.size());
+        assertEquals(FileScheduledCommandStore.COMPACT_THRESHOLD, loaded.get(0).deadline);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class Loaded {
+        long id;
+        Command command;
+        long deadline;
+        long period;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void add(long id, long deadline, long period) {
+        store.add(new DefaultScheduledCommand(null, id, new IncrementCount((int) id), deadline, period));
+    }
+
+    private List<Loaded> reopenAndLoad() {
+        final List<Loaded> loaded = new ArrayList<>();
+
+        store.dispose();
+        store = new FileScheduledCommandStore(file, codec);
+        store.load(new OnScheduledCommandLoaded() {
+            @Override
+            public void onScheduledCommandLoaded(long id, Command command, long deadline, long period) {
+                Loaded entry = new Loaded();
+                entry.id = id;
+                entry.command = command;
+                entry.deadline = deadline;
+                entry.period = period;
+                loaded.add(entry);
+            }
+        });
+
+        return loaded;
+    }
+
+}
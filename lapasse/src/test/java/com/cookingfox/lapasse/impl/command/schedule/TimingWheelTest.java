@@ -0,0 +1,138 @@
+package com.cookingfox.lapasse.impl.command.schedule;
+
+import fixtures.example.command.IncrementCount;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TimingWheel}.
+ */
+public class TimingWheelTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: add
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void add_should_add_passed_deadline_to_due_list() throws Exception {
+        TimingWheel wheel = new TimingWheel(100);
+        List<DefaultScheduledCommand> due = new ArrayList<>();
+
+        wheel.add(createCommand(1, 100), due);
+        wheel.add(createCommand(2, 50), due);
+
+        assertEquals(2, due.size());
+        assertEquals(0, wheel.size());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: advance
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void advance_should_return_commands_exactly_at_their_deadline_tick() throws Exception {
+        long start = 1234567;
+        TimingWheel wheel = new TimingWheel(start);
+        List<DefaultScheduledCommand> due = new ArrayList<>();
+        Random random = new Random(42);
+        List<DefaultScheduledCommand> commands = new ArrayList<>();
+
+        // deadlines within every level of the first three levels
+        for (int i = 0; i < 2000; i++) {
+            long deadlineTick = start + 1 + random.nextInt(1 << (6 * (1 + i % 3)));
+            DefaultScheduledCommand command = createCommand(i + 1, deadlineTick);
+            commands.add(command);
+            wheel.add(command, due);
+        }
+
+        assertTrue(due.isEmpty());
+
+        for (long tick = start + 1; tick <= start + (1 << 18); tick++) {
+            wheel.advance(tick, due);
+
+            for (DefaultScheduledCommand command : due) {
+                assertEquals(tick, command.deadlineTick);
+            }
+
+            commands.removeAll(due);
+            due.clear();
+
+            if (wheel.size() == 0) {
+                break;
+            }
+        }
+
+        assertTrue(commands.isEmpty());
+    }
+
+    @Test
+    public void advance_should_return_all_passed_commands_when_skipping_ticks() throws Exception {
+        TimingWheel wheel = new TimingWheel(0);
+        List<DefaultScheduledCommand> due = new ArrayList<>();
+
+        wheel.add(createCommand(1, 10), due);
+        wheel.add(createCommand(2, 5000), due);
+        wheel.add(createCommand(3, 1L << 40), due);
+
+        wheel.advance(6000, due);
+
+        assertEquals(2, due.size());
+        assertEquals(1, wheel.size());
+        assertEquals(6000, wheel.getCurrentTick());
+    }
+
+    @Test
+    public void advance_should_skip_ticks_when_empty() throws Exception {
+        TimingWheel wheel = new TimingWheel(0);
+        List<DefaultScheduledCommand> due = new ArrayList<>();
+
+        wheel.advance(Long.MAX_VALUE / 2, due);
+
+        assertEquals(Long.MAX_VALUE / 2, wheel.getCurrentTick());
+        assertTrue(due.isEmpty());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: remove
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void remove_should_unlink_command() throws Exception {
+        TimingWheel wheel = new TimingWheel(0);
+        List<DefaultScheduledCommand> due = new ArrayList<>();
+        DefaultScheduledCommand first = createCommand(1, 10);
+        DefaultScheduledCommand second = createCommand(2, 10);
+        DefaultScheduledCommand third = createCommand(3, 10);
+
+        wheel.add(first, due);
+        wheel.add(second, due);
+        wheel.add(third, due);
+        wheel.remove(second);
+        wheel.remove(second);
+
+        assertEquals(2, wheel.size());
+
+        wheel.advance(10, due);
+
+        assertEquals(2, due.size());
+        assertTrue(due.contains(first));
+        assertTrue(due.contains(third));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static DefaultScheduledCommand createCommand(long id, long deadlineTick) {
+        DefaultScheduledCommand command = new DefaultScheduledCommand(null, id, new IncrementCount(1), deadlineTick, 0);
+        command.deadlineTick = deadlineTick;
+
+        return command;
+    }
+
+}
@@ -0,0 +1,297 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.command.dedup.CommandIdExtractor;
+import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.impl.command.bus.DefaultCommandBus;
+import com.cookingfox.lapasse.impl.command.dedup.CommandDeduplicator;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CommandTransportClient} and {@link CommandTransportServer}.
+ */
+public class CommandTransportTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializableMessageCodec codec = new SerializableMessageCodec();
+
+    private CommandTransportClient client;
+    private DefaultCommandBus<CountState> commandBus;
+    private LaPasseFacade<CountState> facade;
+    private CommandTransportServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        LaPasseFacade.Builder<CountState> builder = new LaPasseFacade.Builder<>(new CountState(0));
+        commandBus = (DefaultCommandBus<CountState>) builder.getCommandBus();
+        facade = builder.build();
+
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                if (command.getCount() < 0) {
+                    throw new IllegalArgumentException("Negative count");
+                }
+
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                return new CountState(previousState.getCount() + event.getCount());
+            }
+        });
+
+        client = new CommandTransportClient(folder.getRoot(), "client", codec, 4096);
+        server = new CommandTransportServer(folder.getRoot(), facade, codec);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.dispose();
+        server.dispose();
+        facade.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: send & poll
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void poll_should_handle_commands_and_respond_with_events() throws Exception {
+        long first = client.send(new IncrementCount(1));
+        long second = client.send(new IncrementCount(2));
+
+        assertEquals(2, server.poll(10));
+        assertEquals(3, facade.getCurrentState().getCount());
+
+        List<CommandResponse> responses = pollResponses();
+
+        assertEquals(2, responses.size());
+        assertEquals(first, responses.get(0).getCorrelationId());
+        assertTrue(responses.get(0).isSuccessful());
+        assertEquals(new CountIncremented(1), responses.get(0).getEvents().get(0));
+        assertEquals(second, responses.get(1).getCorrelationId());
+        assertEquals(new CountIncremented(2), responses.get(1).getEvents().get(0));
+    }
+
+    @Test
+    public void poll_should_respond_with_error_if_command_handler_throws() throws Exception {
+        client.send(new IncrementCount(-1));
+        server.poll(10);
+
+        List<CommandResponse> responses = pollResponses();
+
+        assertEquals(1, responses.size());
+        assertFalse(responses.get(0).isSuccessful());
+        assertTrue(responses.get(0).getError().contains("Negative count"));
+        assertTrue(responses.get(0).getEvents().isEmpty());
+    }
+
+    @Test
+    public void poll_should_respond_with_error_if_no_command_handler() throws Exception {
+        client.send(new UnhandledCommand());
+        server.poll(10);
+
+        List<CommandResponse> responses = pollResponses();
+
+        assertEquals(1, responses.size());
+        assertFalse(responses.get(0).isSuccessful());
+    }
+
+    @Test
+    public void poll_should_respond_to_dropped_duplicate_command() throws Exception {
+        commandBus.setCommandDeduplicator(new CommandDeduplicator(new CommandIdExtractor() {
+            @Override
+            public long getCommandId(Command command) {
+                return ((IncrementCount) command).getCount();
+            }
+        }, 1, TimeUnit.MINUTES));
+
+        client.send(new IncrementCount(1));
+        long retry = client.send(new IncrementCount(1));
+
+        assertEquals(2, server.poll(10));
+        assertEquals(1, facade.getCurrentState().getCount());
+        assertTrue(server.pending.isEmpty());
+
+        List<CommandResponse> responses = pollResponses();
+
+        assertEquals(2, responses.size());
+        assertEquals(retry, responses.get(1).getCorrelationId());
+        assertFalse(responses.get(1).isSuccessful());
+        assertTrue(responses.get(1).getError().contains("DuplicateCommandException"));
+    }
+
+    @Test
+    public void poll_should_serve_multiple_clients() throws Exception {
+        CommandTransportClient other = new CommandTransportClient(folder.getRoot(), "other", codec, 4096);
+
+        try {
+            client.send(new IncrementCount(1));
+            other.send(new IncrementCount(10));
+            server.discoverClients();
+
+            assertEquals(2, server.poll(10));
+            assertEquals(11, facade.getCurrentState().getCount());
+            assertEquals(1, pollResponses().size());
+        } finally {
+            other.dispose();
+        }
+    }
+
+    @Test
+    public void poll_should_respond_with_error_if_max_pending_reached() throws Exception {
+        CommandTransportServer bounded = new CommandTransportServer(folder.getRoot(), facade, codec, 1);
+
+        try {
+            client.send(new IncrementCount(1));
+            bounded.discoverClients();
+            bounded.pending.put(new IncrementCount(2), new CommandTransportServer.Pending(bounded.clients.get("client"), 0));
+
+            assertEquals(1, bounded.poll(10));
+            assertEquals(0, facade.getCurrentState().getCount());
+
+            List<CommandResponse> responses = pollResponses();
+
+            assertEquals(1, responses.size());
+            assertTrue(responses.get(0).getError().contains("Too many pending commands"));
+        } finally {
+            bounded.dispose();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: discoverClients
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void discoverClients_should_evict_disposed_client_and_its_pending_commands() throws Exception {
+        CommandTransportClient other = new CommandTransportClient(folder.getRoot(), "other", codec, 4096);
+        server.discoverClients();
+
+        CommandTransportServer.Client connected = server.clients.get("other");
+        server.pending.put(new IncrementCount(1), new CommandTransportServer.Pending(connected, 0));
+        server.pending.put(new IncrementCount(2), new CommandTransportServer.Pending(server.clients.get("client"), 0));
+
+        other.dispose();
+        server.discoverClients();
+
+        assertFalse(server.clients.containsKey("other"));
+        assertTrue(server.clients.containsKey("client"));
+        assertEquals(1, server.pending.size());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: send
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void send_should_support_concurrent_threads() throws Exception {
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 5; i++) {
+                        client.send(new IncrementCount(1));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(20, server.poll(100));
+        assertEquals(20, facade.getCurrentState().getCount());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: call
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void call_should_return_response_from_server_thread() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    if (server.poll(16) == 0) {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        serverThread.start();
+
+        try {
+            for (int i = 1; i <= 100; i++) {
+                CommandResponse response = client.call(new IncrementCount(i), 10, TimeUnit.SECONDS);
+
+                assertEquals(new CountIncremented(i), response.getEvents().get(0));
+            }
+        } finally {
+            running.set(false);
+            serverThread.join();
+        }
+
+        assertEquals(5050, facade.getCurrentState().getCount());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class UnhandledCommand implements Command, Serializable {
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private List<CommandResponse> pollResponses() {
+        final List<CommandResponse> responses = new ArrayList<>();
+
+        client.pollResponses(new CommandResponseHandler() {
+            @Override
+            public void handle(CommandResponse response) {
+                responses.add(response);
+            }
+        }, Integer.MAX_VALUE);
+
+        return responses;
+    }
+
+}
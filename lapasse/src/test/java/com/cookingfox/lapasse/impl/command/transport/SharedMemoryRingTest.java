@@ -0,0 +1,219 @@
+package com.cookingfox.lapasse.impl.command.transport;
+
+import com.cookingfox.lapasse.impl.command.transport.exception.CommandTransportException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SharedMemoryRing}.
+ */
+public class SharedMemoryRingTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: openOrCreate
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openOrCreate_should_throw_if_capacity_not_power_of_two() throws Exception {
+        SharedMemoryRing.openOrCreate(folder.newFile(), 100);
+    }
+
+    @Test
+    public void openOrCreate_should_keep_records_of_existing_ring() throws Exception {
+        File file = new File(folder.getRoot(), "ring");
+        SharedMemoryRing.openOrCreate(file, 64).offer(bytes(1));
+
+        SharedMemoryRing reopened = SharedMemoryRing.openOrCreate(file, 1024);
+
+        assertEquals(64, reopened.getCapacity());
+        assertEquals(1, poll(reopened).size());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: open
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = CommandTransportException.class)
+    public void open_should_throw_if_invalid_ring() throws Exception {
+        SharedMemoryRing.open(folder.newFile());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: offer & poll
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void offer_should_return_false_if_full() throws Exception {
+        SharedMemoryRing ring = SharedMemoryRing.openOrCreate(new File(folder.getRoot(), "ring"), 64);
+
+        // records of 4 + 12 = 16 bytes
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(bytes(i, 12)));
+        }
+
+        assertFalse(ring.offer(bytes(4, 12)));
+    }
+
+    @Test
+    public void poll_should_release_space_for_new_records() throws Exception {
+        SharedMemoryRing producer = SharedMemoryRing.openOrCreate(new File(folder.getRoot(), "ring"), 64);
+        SharedMemoryRing consumer = SharedMemoryRing.open(new File(folder.getRoot(), "ring"));
+        List<Byte> received = new ArrayList<>();
+
+        // records of 24 bytes do not divide the capacity, so records wrap around
+        for (int i = 0; i < 20; i++) {
+            assertTrue(producer.offer(bytes(i, 20)));
+
+            for (byte[] record : poll(consumer)) {
+                assertEquals(20, record.length);
+                received.add(record[0]);
+            }
+        }
+
+        assertEquals(20, received.size());
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) received.get(i));
+        }
+    }
+
+    @Test
+    public void poll_should_respect_max_records() throws Exception {
+        SharedMemoryRing ring = SharedMemoryRing.openOrCreate(new File(folder.getRoot(), "ring"), 1024);
+
+        for (int i = 0; i < 5; i++) {
+            ring.offer(bytes(i));
+        }
+
+        assertEquals(3, ring.poll(new NoopHandler(), 3));
+        assertEquals(2, ring.poll(new NoopHandler(), 10));
+    }
+
+    @Test
+    public void offer_should_support_multiple_producers() throws Exception {
+        File file = new File(folder.getRoot(), "ring");
+        final SharedMemoryRing consumer = SharedMemoryRing.openOrCreate(file, 256, true);
+        final int perProducer = 10000;
+        Thread[] producers = new Thread[3];
+        int[] received = new int[producers.length];
+
+        for (int p = 0; p < producers.length; p++) {
+            final SharedMemoryRing producer = SharedMemoryRing.open(file);
+            final byte id = (byte) p;
+
+            assertTrue(producer.isMultiProducer());
+
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        byte[] record = bytes(id, 4 + i % 20);
+                        record[1] = (byte) i;
+
+                        while (!producer.offer(record)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            producers[p].start();
+        }
+
+        int total = 0;
+
+        while (total < producers.length * perProducer) {
+            for (byte[] record : poll(consumer)) {
+                int id = record[0];
+
+                // the records of one producer arrive in order
+                assertEquals(4 + received[id] % 20, record.length);
+                assertEquals((byte) received[id], record[1]);
+                received[id]++;
+                total++;
+            }
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(0, poll(consumer).size());
+    }
+
+    @Test
+    public void poll_should_handle_empty_records() throws Exception {
+        SharedMemoryRing ring = SharedMemoryRing.openOrCreate(new File(folder.getRoot(), "ring"), 64);
+
+        ring.offer(new byte[0]);
+
+        List<byte[]> records = poll(ring);
+
+        assertEquals(1, records.size());
+        assertEquals(0, records.get(0).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offer_should_throw_if_record_larger_than_capacity() throws Exception {
+        SharedMemoryRing ring = SharedMemoryRing.openOrCreate(new File(folder.getRoot(), "ring"), 64);
+
+        ring.offer(new byte[61]);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class NoopHandler implements SharedMemoryRing.RecordHandler {
+
+        @Override
+        public void handle(ByteBuffer payload) {
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static byte[] bytes(int value) {
+        return bytes(value, 1);
+    }
+
+    private static byte[] bytes(int value, int length) {
+        byte[] bytes = new byte[length];
+        bytes[0] = (byte) value;
+
+        return bytes;
+    }
+
+    private static List<byte[]> poll(SharedMemoryRing ring) {
+        final List<byte[]> records = new ArrayList<>();
+
+        ring.poll(new SharedMemoryRing.RecordHandler() {
+            @Override
+            public void handle(ByteBuffer payload) {
+                byte[] record = new byte[payload.remaining()];
+                payload.get(record);
+                records.add(record);
+            }
+        }, Integer.MAX_VALUE);
+
+        return records;
+    }
+
+}
@@ -3,7 +3,9 @@ package com.cookingfox.lapasse.impl.event.bus;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.exception.EventHandlerReturnedNullException;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLogger;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
 import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.impl.logging.DefaultLogger;
@@ -11,11 +13,15 @@ import com.cookingfox.lapasse.impl.logging.DefaultLoggersHelper;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
 import fixtures.message.FixtureMessage;
+import fixtures.message.dispatcher.FixtureHandlerDispatcher;
 import fixtures.message.store.FixtureMessageStore;
 import fixtures.state.manager.FixtureStateManager;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -85,6 +91,77 @@ public class DefaultEventBusTest {
         }
     }
 
+    @Test(expected = NoMessageHandlersException.class)
+    public void dispose_should_remove_mapped_event_dispatchers() throws Exception {
+        eventBus.mapEventDispatcher(new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null));
+
+        eventBus.dispose();
+
+        eventBus.handleEvent(new CountIncremented(1));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: executeDispatcher
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void executeDispatcher_should_apply_event_to_state() throws Exception {
+        FixtureHandlerDispatcher dispatcher =
+                new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+        CountIncremented event = new CountIncremented(123);
+
+        eventBus.mapEventDispatcher(dispatcher);
+        eventBus.handleEvent(event);
+
+        assertEquals(1, dispatcher.dispatchedEvents.size());
+        assertSame(event, dispatcher.dispatchedEvents.get(0));
+        assertEquals(123, stateManager.getCurrentState().getCount());
+    }
+
+    @Test
+    public void executeDispatcher_should_resolve_dispatcher_once_per_event_class() throws Exception {
+        FixtureHandlerDispatcher dispatcher =
+                new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+
+        eventBus.mapEventDispatcher(dispatcher);
+        eventBus.handleEvent(new CountIncremented(1));
+        eventBus.handleEvent(new CountIncremented(2));
+
+        assertEquals(2, dispatcher.dispatchedEvents.size());
+        assertEquals(1, dispatcher.eventIndexLookups);
+    }
+
+    @Test
+    public void mapEventDispatcher_should_reset_resolved_routes() throws Exception {
+        FixtureHandlerDispatcher first = new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+        FixtureHandlerDispatcher second = new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+
+        eventBus.mapEventDispatcher(first);
+        eventBus.handleEvent(new CountIncremented(1));
+        eventBus.mapEventDispatcher(second);
+        eventBus.handleEvent(new CountIncremented(2));
+
+        assertEquals(2, first.dispatchedEvents.size());
+        assertEquals(1, second.dispatchedEvents.size());
+    }
+
+    @Test(expected = NoMessageHandlersException.class)
+    public void handleEvent_should_throw_if_dispatcher_does_not_handle_event() throws Exception {
+        eventBus.mapEventDispatcher(new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null));
+
+        eventBus.handleEvent(new Event() {
+        });
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: mapEventDispatcher
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void mapEventDispatcher_should_throw_if_dispatcher_null() throws Exception {
+        eventBus.mapEventDispatcher(null);
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: executeHandler
     //----------------------------------------------------------------------------------------------
@@ -193,6 +270,120 @@ public class DefaultEventBusTest {
         assertEquals(new CountState(event.getCount()), calledNewState.get());
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: executeHandlersInParallel
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void executeHandlersInParallel_should_combine_states_of_same_previous_state() throws Exception {
+        final AtomicInteger resultCount = new AtomicInteger();
+
+        eventBus.addEventLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onEventHandlerResult(Event event, CountState newState) {
+                resultCount.incrementAndGet();
+            }
+        });
+
+        stateManager.currentState = new CountState(1);
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), new SumCombiner());
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(10));
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(100));
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(1000));
+
+        eventBus.handleEvent(new CountIncremented(1));
+
+        assertEquals(1111, stateManager.getCurrentState().getCount());
+        assertEquals(1, resultCount.get());
+    }
+
+    @Test
+    public void executeHandlersInParallel_should_include_dispatched_handlers() throws Exception {
+        final AtomicInteger resultCount = new AtomicInteger();
+
+        eventBus.addEventLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onEventHandlerResult(Event event, CountState newState) {
+                resultCount.incrementAndGet();
+            }
+        });
+
+        FixtureHandlerDispatcher first = new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+        FixtureHandlerDispatcher second = new FixtureHandlerDispatcher(HandlerDispatcher.RESULT_VOID, null);
+
+        stateManager.currentState = new CountState(1);
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), new SumCombiner());
+        eventBus.mapEventDispatcher(first);
+        eventBus.mapEventDispatcher(second);
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(100));
+
+        // both dispatchers add 10 to the same previous state
+        eventBus.handleEvent(new CountIncremented(10));
+
+        assertEquals(121, stateManager.getCurrentState().getCount());
+        assertEquals(1, first.dispatchedEvents.size());
+        assertEquals(1, second.dispatchedEvents.size());
+        assertEquals(1, resultCount.get());
+    }
+
+    @Test
+    public void executeHandlersInParallel_should_log_error_and_combine_other_states() throws Exception {
+        final AtomicReference<Throwable> calledError = new AtomicReference<>();
+        final RuntimeException targetException = new RuntimeException("Example error");
+
+        eventBus.addEventLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onEventHandlerError(Throwable error, Event event) {
+                calledError.set(error);
+            }
+        });
+
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), new SumCombiner());
+        eventBus.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState previousState, CountIncremented event) {
+                throw targetException;
+            }
+        });
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(10));
+
+        eventBus.handleEvent(new CountIncremented(1));
+
+        assertSame(targetException, calledError.get());
+        assertEquals(10, stateManager.getCurrentState().getCount());
+    }
+
+    @Test
+    public void setParallelEventHandlers_should_restore_sequential_execution_if_pool_null() throws Exception {
+        final AtomicInteger resultCount = new AtomicInteger();
+
+        eventBus.addEventLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onEventHandlerResult(Event event, CountState newState) {
+                resultCount.incrementAndGet();
+            }
+        });
+
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), new SumCombiner());
+        eventBus.setParallelEventHandlers(null, new SumCombiner());
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(10));
+        eventBus.mapEventHandler(CountIncremented.class, new AddHandler(100));
+
+        eventBus.handleEvent(new CountIncremented(1));
+
+        // the results are not combined: every handler passes its own new state
+        assertNull(eventBus.parallelEventHandlers);
+        assertEquals(2, resultCount.get());
+    }
+
+    @Test
+    public void setParallelEventHandlers_should_restore_sequential_execution_if_combiner_null() throws Exception {
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), new SumCombiner());
+        eventBus.setParallelEventHandlers(new ForkJoinPool(2), null);
+
+        assertNull(eventBus.parallelEventHandlers);
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: removeEventLogger
     //----------------------------------------------------------------------------------------------
@@ -232,6 +423,38 @@ public class DefaultEventBusTest {
     // HELPER CLASSES
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * Adds an amount to the count of the previous state.
+     */
+    static class AddHandler implements EventHandler<CountState, CountIncremented> {
+        final int amount;
+
+        AddHandler(int amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public CountState handle(CountState previousState, CountIncremented event) {
+            return new CountState(previousState.getCount() + amount);
+        }
+    }
+
+    /**
+     * Adds the changes of all new states to the previous state.
+     */
+    static class SumCombiner implements EventHandlerCombiner<CountState> {
+        @Override
+        public CountState combine(CountState previousState, Event event, List<CountState> newStates) {
+            int count = previousState.getCount();
+
+            for (CountState newState : newStates) {
+                count += newState.getCount() - previousState.getCount();
+            }
+
+            return new CountState(count);
+        }
+    }
+
     class TestLoggersHelper<S extends State> extends DefaultLoggersHelper<S> {
         public boolean hasEventLogger(EventLogger logger) {
             return eventLoggers.contains(logger);
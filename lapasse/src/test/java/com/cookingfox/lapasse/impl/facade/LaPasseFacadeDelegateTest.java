@@ -3,14 +3,18 @@ package com.cookingfox.lapasse.impl.facade;
 import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+import com.cookingfox.lapasse.impl.command.executor.CommandHandlerExecutors;
 import com.cookingfox.lapasse.impl.logging.DefaultLogger;
 import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Unit tests for {@link LaPasseFacadeDelegate}.
@@ -51,6 +55,7 @@ public class LaPasseFacadeDelegateTest {
             }
         });
         delegate.handleCommand(new IncrementCount(1));
+        delegate.setCommandHandlerExecutorStrategy(CommandHandlerExecutors.singleThread());
         delegate.setCommandHandlerExecutor(Executors.newSingleThreadExecutor());
 
         /* EVENT */
@@ -64,6 +69,12 @@ public class LaPasseFacadeDelegateTest {
             }
         });
         delegate.handleEvent(new CountIncremented(1));
+        delegate.setParallelEventHandlers(new ForkJoinPool(), new EventHandlerCombiner<CountState>() {
+            @Override
+            public CountState combine(CountState previousState, Event event, List<CountState> newStates) {
+                return newStates.get(0);
+            }
+        });
 
         /* STATE */
 
@@ -2,29 +2,53 @@ package com.cookingfox.lapasse.impl.facade;
 
 import com.cookingfox.lapasse.api.command.bus.CommandBus;
 import com.cookingfox.lapasse.api.command.handler.SyncCommandHandler;
+import com.cookingfox.lapasse.api.command.handler.VoidCommandHandler;
+import com.cookingfox.lapasse.api.command.schedule.CommandScheduler;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.logging.LoggersHelper;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
 import com.cookingfox.lapasse.api.message.store.MessageStore;
+import com.cookingfox.lapasse.api.state.State;
 import com.cookingfox.lapasse.api.state.manager.StateManager;
 import com.cookingfox.lapasse.api.state.observer.OnStateChanged;
+import com.cookingfox.lapasse.api.state.partition.StatePartitioner;
 import com.cookingfox.lapasse.impl.command.bus.DefaultCommandBus;
+import com.cookingfox.lapasse.impl.command.executor.CommandHandlerExecutors;
 import com.cookingfox.lapasse.impl.event.bus.DefaultEventBus;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph;
 import com.cookingfox.lapasse.impl.logging.DefaultLogger;
 import com.cookingfox.lapasse.impl.logging.DefaultLoggersHelper;
 import com.cookingfox.lapasse.impl.message.store.NoStorageMessageStore;
 import com.cookingfox.lapasse.impl.state.manager.DefaultStateManager;
+import fixtures.annotations.FixtureDispatched;
 import fixtures.example.command.IncrementCount;
 import fixtures.example.event.CountIncremented;
 import fixtures.example.state.CountState;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for {@link LaPasseFacade}.
@@ -64,6 +88,7 @@ public class LaPasseFacadeTest {
             }
         });
         facade.handleCommand(new IncrementCount(1));
+        facade.setCommandHandlerExecutorStrategy(CommandHandlerExecutors.singleThread());
         facade.setCommandHandlerExecutor(Executors.newSingleThreadExecutor());
 
         /* EVENT */
@@ -77,6 +102,12 @@ public class LaPasseFacadeTest {
             }
         });
         facade.handleEvent(new CountIncremented(1));
+        facade.setParallelEventHandlers(new ForkJoinPool(), new EventHandlerCombiner<CountState>() {
+            @Override
+            public CountState combine(CountState previousState, Event event, List<CountState> newStates) {
+                return newStates.get(0);
+            }
+        });
 
         /* STATE */
 
@@ -127,6 +158,18 @@ public class LaPasseFacadeTest {
         assertSame(stateManager, facade.stateManager);
     }
 
+    @Test
+    public void builder_should_prepare_for_routing_graph() throws Exception {
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0))
+                .addRoutingGraph(RoutingGraph.load(FixtureDispatched.class))
+                .build();
+
+        new FixtureDispatched(facade).mapHandlers();
+        facade.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, facade.getCurrentState().getCount());
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: dispose
     //----------------------------------------------------------------------------------------------
@@ -193,4 +236,364 @@ public class LaPasseFacadeTest {
         assertTrue(stateManagerCalled.get());
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getCommandScheduler
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getCommandScheduler_should_pass_scheduled_commands_to_facade() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState state, CountIncremented event) {
+                return new CountState(state.getCount() + event.getCount());
+            }
+        });
+
+        facade.addStateChangedListener(new OnStateChanged<CountState>() {
+            @Override
+            public void onStateChanged(CountState state, Event event) {
+                latch.countDown();
+            }
+        });
+
+        CommandScheduler scheduler = facade.getCommandScheduler();
+        scheduler.schedule(new IncrementCount(3), 10, TimeUnit.MILLISECONDS);
+
+        assertSame(scheduler, facade.getCommandScheduler());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, facade.getCurrentState().getCount());
+
+        facade.dispose();
+
+        try {
+            scheduler.schedule(new IncrementCount(1), 10, TimeUnit.MILLISECONDS);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertNotNull(e);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: warmUp
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void warmUp_should_execute_handlers_in_isolated_copy() throws Exception {
+        final AtomicInteger commandHandlerCalls = new AtomicInteger();
+        final AtomicInteger eventHandlerCalls = new AtomicInteger();
+        final AtomicBoolean stateChanged = new AtomicBoolean(false);
+
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.mapCommandHandler(IncrementCount.class, new SyncCommandHandler<CountState, IncrementCount, CountIncremented>() {
+            @Override
+            public CountIncremented handle(CountState state, IncrementCount command) {
+                commandHandlerCalls.incrementAndGet();
+                return new CountIncremented(command.getCount());
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState state, CountIncremented event) {
+                eventHandlerCalls.incrementAndGet();
+                return new CountState(state.getCount() + event.getCount());
+            }
+        });
+
+        facade.addStateChangedListener(new OnStateChanged<CountState>() {
+            @Override
+            public void onStateChanged(CountState state, Event event) {
+                stateChanged.set(true);
+            }
+        });
+
+        facade.warmUp(Arrays.asList(new IncrementCount(1), new CountIncremented(1)), 10);
+
+        assertEquals(10, commandHandlerCalls.get());
+        assertEquals(20, eventHandlerCalls.get());
+        assertEquals(0, facade.getCurrentState().getCount());
+        assertFalse(stateChanged.get());
+    }
+
+    @Test
+    public void warmUp_should_use_mapped_dispatchers() throws Exception {
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+        new FixtureDispatched(facade).mapHandlers();
+
+        facade.warmUp(Collections.singletonList(new IncrementCount(1)), 10);
+        facade.handleCommand(new IncrementCount(1));
+
+        assertEquals(1, facade.getCurrentState().getCount());
+    }
+
+    @Test
+    public void warmUp_should_continue_if_handlers_throw() throws Exception {
+        final AtomicInteger commandHandlerCalls = new AtomicInteger();
+        final AtomicInteger eventHandlerCalls = new AtomicInteger();
+
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.mapCommandHandler(IncrementCount.class, new VoidCommandHandler<CountState, IncrementCount>() {
+            @Override
+            public void handle(CountState state, IncrementCount command) {
+                commandHandlerCalls.incrementAndGet();
+                throw new RuntimeException("Example exception");
+            }
+        });
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState state, CountIncremented event) {
+                eventHandlerCalls.incrementAndGet();
+                throw new RuntimeException("Example exception");
+            }
+        });
+
+        facade.warmUp(Arrays.asList(new IncrementCount(1), new CountIncremented(1)), 10);
+
+        assertEquals(10, commandHandlerCalls.get());
+        assertEquals(10, eventHandlerCalls.get());
+    }
+
+    @Test
+    public void warmUp_should_reset_state_of_single_copy_every_iteration() throws Exception {
+        final AtomicInteger copyCount = new AtomicInteger();
+        final List<Integer> handledCounts = new ArrayList<>();
+
+        LaPasseFacade.Builder<CountState> builder = new LaPasseFacade.Builder<>(new CountState(5));
+        LaPasseFacade<CountState> facade = new LaPasseFacade<CountState>(builder.getCommandBus(),
+                builder.getEventBus(), builder.getLoggersHelper(), builder.getMessageStore(),
+                builder.getStateManager()) {
+            @Override
+            protected LaPasseFacade<CountState> createWarmUpCopy(CountState initialState) {
+                copyCount.incrementAndGet();
+                return super.createWarmUpCopy(initialState);
+            }
+        };
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<CountState, CountIncremented>() {
+            @Override
+            public CountState handle(CountState state, CountIncremented event) {
+                handledCounts.add(state.getCount());
+                return new CountState(state.getCount() + event.getCount());
+            }
+        });
+
+        facade.warmUp(Collections.singletonList(new CountIncremented(1)), 3);
+
+        assertEquals(1, copyCount.get());
+        assertEquals(Arrays.asList(5, 5, 5), handledCounts);
+    }
+
+    @Test(expected = NoMessageHandlersException.class)
+    public void warmUp_should_throw_if_no_handlers_for_sample() throws Exception {
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.warmUp(Collections.singletonList(new IncrementCount(1)), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void warmUp_should_throw_if_negative_iterations() throws Exception {
+        LaPasseFacade<CountState> facade = new LaPasseFacade.Builder<>(new CountState(0)).build();
+
+        facade.warmUp(Collections.<Message>emptyList(), -1);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: replayInParallel
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void replayInParallel_should_merge_partition_states() throws Exception {
+        final AtomicInteger stateChanges = new AtomicInteger();
+        LaPasseFacade<KeyedCountState> facade = createKeyedFacade();
+        List<Message> events = new ArrayList<>();
+        Map<Integer, Long> expectedSums = new HashMap<>();
+
+        for (int i = 1; i <= 10000; i++) {
+            events.add(new CountIncremented(i));
+
+            Long sum = expectedSums.get(i % 16);
+            expectedSums.put(i % 16, (sum == null ? 0 : sum) + i);
+        }
+
+        facade.addStateChangedListener(new OnStateChanged<KeyedCountState>() {
+            @Override
+            public void onStateChanged(KeyedCountState state, Event event) {
+                stateChanges.incrementAndGet();
+            }
+        });
+
+        long count = facade.replayInParallel(events, new KeyedCountPartitioner(), new ForkJoinPool(4), 5);
+
+        assertEquals(10000, count);
+        assertEquals(expectedSums, facade.getCurrentState().sums);
+        assertEquals(1, stateChanges.get());
+    }
+
+    @Test
+    public void replayInParallel_should_skip_commands() throws Exception {
+        LaPasseFacade<KeyedCountState> facade = createKeyedFacade();
+        List<Message> messages = Arrays.<Message>asList(new IncrementCount(1), new CountIncremented(2), new CountIncremented(3));
+
+        long count = facade.replayInParallel(messages, new KeyedCountPartitioner(), new ForkJoinPool(2));
+
+        assertEquals(2, count);
+        assertEquals(Long.valueOf(2), facade.getCurrentState().sums.get(2));
+        assertEquals(Long.valueOf(3), facade.getCurrentState().sums.get(3));
+    }
+
+    @Test
+    public void replayInParallel_should_not_change_state_without_events() throws Exception {
+        LaPasseFacade<KeyedCountState> facade = createKeyedFacade();
+        KeyedCountState initialState = facade.getCurrentState();
+
+        facade.replayInParallel(Collections.<Message>emptyList(), new KeyedCountPartitioner(), new ForkJoinPool(2));
+
+        assertSame(initialState, facade.getCurrentState());
+    }
+
+    @Test(expected = NoMessageHandlersException.class)
+    public void replayInParallel_should_throw_if_no_handlers_for_event() throws Exception {
+        LaPasseFacade<KeyedCountState> facade = new LaPasseFacade.Builder<>(new KeyedCountState()).build();
+
+        facade.replayInParallel(Collections.singletonList(new CountIncremented(1)),
+                new KeyedCountPartitioner(), new ForkJoinPool(2));
+    }
+
+    @Test
+    public void replayInParallel_should_pass_handler_errors_to_facade_loggers() throws Exception {
+        final List<Event> failedEvents = Collections.synchronizedList(new ArrayList<Event>());
+        LaPasseFacade<KeyedCountState> facade = new LaPasseFacade.Builder<>(new KeyedCountState()).build();
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<KeyedCountState, CountIncremented>() {
+            @Override
+            public KeyedCountState handle(KeyedCountState state, CountIncremented event) {
+                if (event.getCount() == 2) {
+                    throw new IllegalStateException("Handler error");
+                } else if (event.getCount() == 3) {
+                    return null;
+                }
+
+                KeyedCountState newState = new KeyedCountState(state.lastCounts, new HashMap<>(state.sums));
+                newState.sums.put(event.getCount(), (long) event.getCount());
+
+                return newState;
+            }
+        });
+        facade.addLogger(new DefaultLogger<KeyedCountState>() {
+            @Override
+            public void onEventHandlerError(Throwable error, Event event) {
+                failedEvents.add(event);
+            }
+        });
+
+        List<Message> events = Arrays.<Message>asList(new CountIncremented(1), new CountIncremented(2),
+                new CountIncremented(3), new CountIncremented(4));
+
+        long count = facade.replayInParallel(events, new KeyedCountPartitioner(), new ForkJoinPool(2), 4);
+
+        assertEquals(4, count);
+        assertEquals(2, failedEvents.size());
+        assertTrue(failedEvents.contains(new CountIncremented(2)));
+        assertTrue(failedEvents.contains(new CountIncremented(3)));
+        assertEquals(Long.valueOf(1), facade.getCurrentState().sums.get(1));
+        assertEquals(Long.valueOf(4), facade.getCurrentState().sums.get(4));
+        assertFalse(facade.getCurrentState().sums.containsKey(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replayInParallel_should_throw_if_partition_count_not_positive() throws Exception {
+        createKeyedFacade().replayInParallel(Collections.<Message>emptyList(), new KeyedCountPartitioner(),
+                new ForkJoinPool(2), 0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Sum and last count per key (count modulo 16).
+     */
+    static class KeyedCountState implements State {
+
+        final Map<Integer, Integer> lastCounts;
+        final Map<Integer, Long> sums;
+
+        KeyedCountState() {
+            this(new HashMap<Integer, Integer>(), new HashMap<Integer, Long>());
+        }
+
+        KeyedCountState(Map<Integer, Integer> lastCounts, Map<Integer, Long> sums) {
+            this.lastCounts = lastCounts;
+            this.sums = sums;
+        }
+
+    }
+
+    static class KeyedCountPartitioner implements StatePartitioner<KeyedCountState> {
+
+        @Override
+        public Object getKey(Event event) {
+            return ((CountIncremented) event).getCount() % 16;
+        }
+
+        @Override
+        public KeyedCountState merge(KeyedCountState initialState, List<KeyedCountState> partitionStates) {
+            KeyedCountState merged = new KeyedCountState();
+
+            for (KeyedCountState state : partitionStates) {
+                merged.lastCounts.putAll(state.lastCounts);
+                merged.sums.putAll(state.sums);
+            }
+
+            return merged;
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a facade with a keyed count handler, that fails when the counts of a key are not
+     * handled in order.
+     */
+    private static LaPasseFacade<KeyedCountState> createKeyedFacade() {
+        LaPasseFacade<KeyedCountState> facade = new LaPasseFacade.Builder<>(new KeyedCountState()).build();
+
+        facade.mapEventHandler(CountIncremented.class, new EventHandler<KeyedCountState, CountIncremented>() {
+            @Override
+            public KeyedCountState handle(KeyedCountState state, CountIncremented event) {
+                int key = event.getCount() % 16;
+                Integer lastCount = state.lastCounts.get(key);
+
+                if (lastCount != null && lastCount >= event.getCount()) {
+                    throw new IllegalStateException("Out of order: " + event);
+                }
+
+                Long sum = state.sums.get(key);
+                KeyedCountState newState = new KeyedCountState(new HashMap<>(state.lastCounts), new HashMap<>(state.sums));
+                newState.lastCounts.put(key, event.getCount());
+                newState.sums.put(key, (sum == null ? 0 : sum) + event.getCount());
+
+                return newState;
+            }
+        });
+
+        return facade;
+    }
+
 }
@@ -7,8 +7,12 @@ import com.cookingfox.lapasse.impl.helper.exception.GeneratedConstructorNotFound
 import com.cookingfox.lapasse.impl.helper.exception.HandlerMapperInstantiationException;
 import com.cookingfox.lapasse.impl.helper.exception.NoGeneratedClassException;
 import com.cookingfox.lapasse.impl.internal.HandlerMapper;
+import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;
 import fixtures.annotations.FixtureAnnotated;
 import fixtures.annotations.FixtureAnnotatedFacadeDelegate;
+import fixtures.annotations.FixtureDispatched;
+import fixtures.annotations.FixtureRegistered;
+import fixtures.annotations.FixtureRegistered$$LaPasseFactory;
 import fixtures.annotations.MissingConstructor$$LaPassGenerated;
 import fixtures.annotations.ThrowingConstructor$$LaPasseGenerated;
 import fixtures.example.command.IncrementCount;
@@ -17,11 +21,15 @@ import fixtures.example.state.CountState;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 import static testing.TestingUtils.assertPrivateConstructorInstantiationUnsupported;
 
 /**
@@ -72,6 +80,102 @@ public class LaPasseTest {
         LaPasse.getHandlerMapperConstructor(MissingConstructor$$LaPassGenerated.class, FixtureAnnotated.class);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getHandlerMapperFactory
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getHandlerMapperFactory_should_return_registered_factory() throws Exception {
+        HandlerMapperFactory factory = LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+
+        assertTrue(factory instanceof FixtureRegistered$$LaPasseFactory);
+    }
+
+    @Test
+    public void getHandlerMapperFactory_should_cache_reflective_factory() throws Exception {
+        HandlerMapperFactory first = LaPasse.getHandlerMapperFactory(FixtureAnnotated.class);
+        HandlerMapperFactory second = LaPasse.getHandlerMapperFactory(FixtureAnnotated.class);
+
+        assertSame(first, second);
+        assertSame(FixtureAnnotated.class, first.getOriginClass());
+        assertNull(first.createHandlerDispatcher(new FixtureAnnotated(facade)));
+    }
+
+    @Test
+    public void getHandlerMapperFactory_should_cache_registered_factory() throws Exception {
+        HandlerMapperFactory first = LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+        HandlerMapperFactory second = LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void getHandlerMapperFactory_should_create_registered_factory_again_if_cleared() throws Exception {
+        HandlerMapperFactory first = LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+
+        synchronized (LaPasse.FACTORIES) {
+            LaPasse.FACTORIES.get(FixtureRegistered.class).clear();
+        }
+
+        HandlerMapperFactory factory = LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+
+        assertNotSame(first, factory);
+        assertTrue(factory instanceof FixtureRegistered$$LaPasseFactory);
+    }
+
+    @Test
+    public void getHandlerMapperFactory_should_load_registered_factories_once_per_class_loader() throws Exception {
+        LaPasse.getHandlerMapperFactory(FixtureRegistered.class);
+        int instanceCount = FixtureRegistered$$LaPasseFactory.INSTANCE_COUNT.get();
+
+        // origins without a registered factory do not load the services again
+        LaPasse.getHandlerMapperFactory(FixtureAnnotated.class);
+
+        try {
+            LaPasse.getHandlerMapperFactory(LaPasseTest.class);
+        } catch (NoGeneratedClassException e) {
+            // expected: no generated class
+        }
+
+        assertEquals(instanceCount, FixtureRegistered$$LaPasseFactory.INSTANCE_COUNT.get());
+    }
+
+    @Test
+    public void getHandlerMapperFactory_should_not_keep_class_loader_reachable() throws Exception {
+        ClassLoader loader = new IsolatingClassLoader(FixtureRegistered.class.getName());
+        Class<?> originClass = loader.loadClass(FixtureRegistered.class.getName());
+
+        assertNotSame(FixtureRegistered.class, originClass);
+        assertSame(originClass, LaPasse.getHandlerMapperFactory(originClass).getOriginClass());
+
+        WeakReference<ClassLoader> loaderReference = new WeakReference<>(loader);
+        loader = null;
+        originClass = null;
+
+        // clear the cached factory, like the garbage collector does before running out of memory
+        synchronized (LaPasse.FACTORIES) {
+            for (SoftReference<HandlerMapperFactory> reference : LaPasse.FACTORIES.values()) {
+                HandlerMapperFactory factory = reference.get();
+
+                if (factory != null && factory.getOriginClass().getClassLoader() == loaderReference.get()) {
+                    reference.clear();
+                }
+            }
+        }
+
+        for (int i = 0; i < 50 && loaderReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(loaderReference.get());
+    }
+
+    @Test(expected = NoGeneratedClassException.class)
+    public void getHandlerMapperFactory_should_throw_if_generated_class_does_not_exist() throws Exception {
+        LaPasse.getHandlerMapperFactory(LaPasseTest.class);
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: mapHandlers
     //----------------------------------------------------------------------------------------------
@@ -115,6 +219,38 @@ public class LaPasseTest {
         assertTrue(calledEventRef.get() instanceof CountIncremented);
     }
 
+    @Test
+    public void mapHandlers_should_map_generated_dispatcher_if_exists() throws Exception {
+        FixtureDispatched origin = new FixtureDispatched(facade);
+        origin.mapHandlers();
+
+        final AtomicReference<CountState> calledStateRef = new AtomicReference<>();
+
+        facade.addStateChangedListener(new OnStateChanged<CountState>() {
+            @Override
+            public void onStateChanged(CountState state, Event event) {
+                calledStateRef.set(state);
+            }
+        });
+
+        final int incrementValue = 123;
+
+        facade.handleCommand(new IncrementCount(incrementValue));
+        facade.handleCommand(new IncrementCount(incrementValue));
+
+        assertEquals(incrementValue * 2, calledStateRef.get().getCount());
+    }
+
+    @Test
+    public void mapHandlers_should_use_registered_factory() throws Exception {
+        FixtureRegistered origin = new FixtureRegistered(facade);
+        origin.mapHandlers();
+
+        facade.handleCommand(new IncrementCount(123));
+
+        assertEquals(123, facade.getCurrentState().getCount());
+    }
+
     @Test
     public void mapHandlers_should_accept_facade_origin_as_only_argument() throws Exception {
         FixtureAnnotatedFacadeDelegate facadeOrigin = new FixtureAnnotatedFacadeDelegate(facade);
@@ -139,4 +275,66 @@ public class LaPasseTest {
         assertTrue(calledEventRef.get() instanceof CountIncremented);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Defines its own copy of the classes whose name starts with the prefix, and delegates the
+     * other classes to the class loader of the test.
+     */
+    static class IsolatingClassLoader extends ClassLoader {
+
+        final String prefix;
+
+        IsolatingClassLoader(String prefix) {
+            super(LaPasseTest.class.getClassLoader());
+
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(prefix)) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+
+                if (loaded == null) {
+                    byte[] bytes = readClass(name);
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                }
+
+                return loaded;
+            }
+        }
+
+        byte[] readClass(String name) throws ClassNotFoundException {
+            InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+
+            if (in == null) {
+                throw new ClassNotFoundException(name);
+            }
+
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+
+                in.close();
+
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+    }
+
 }
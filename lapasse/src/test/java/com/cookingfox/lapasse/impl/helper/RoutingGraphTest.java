@@ -0,0 +1,213 @@
+package com.cookingfox.lapasse.impl.helper;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph.CommandRoute;
+import com.cookingfox.lapasse.impl.helper.RoutingGraph.EventRoute;
+import com.cookingfox.lapasse.impl.helper.exception.InvalidRoutingGraphException;
+import fixtures.annotations.FixtureAnnotated;
+import fixtures.annotations.FixtureDispatched;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RoutingGraph}.
+ */
+public class RoutingGraphTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private static final ClassLoader CLASS_LOADER = RoutingGraphTest.class.getClassLoader();
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: load
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void load_should_return_null_if_no_routing_graph() throws Exception {
+        assertNull(RoutingGraph.load(FixtureAnnotated.class));
+    }
+
+    @Test
+    public void load_should_read_generated_routing_graph() throws Exception {
+        RoutingGraph graph = RoutingGraph.load(FixtureDispatched.class);
+
+        assertNotNull(graph);
+        assertEquals(FixtureDispatched.class.getName(), graph.getOriginClassName());
+        assertEquals(CountState.class.getName(), graph.getStateClassName());
+        assertEquals(1, graph.getCommandRoutes().size());
+        assertEquals(1, graph.getEventRoutes().size());
+
+        CommandRoute commandRoute = graph.getCommandRoutes().get(0);
+
+        assertEquals(IncrementCount.class.getName(), commandRoute.getCommandClassName());
+        assertEquals("handleIncrementCount", commandRoute.getMethodName());
+        assertEquals(HandlerDispatcher.RESULT_EVENT, commandRoute.getResultType());
+        assertEquals(CountIncremented.class.getName(), commandRoute.getEventClassName());
+
+        EventRoute eventRoute = graph.getEventRoutes().get(0);
+
+        assertEquals(CountIncremented.class.getName(), eventRoute.getEventClassName());
+        assertEquals("handleCountIncremented", eventRoute.getMethodName());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: read
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void read_should_accept_void_command_handler() throws Exception {
+        RoutingGraph graph = read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.State\n" +
+                "command\ttest.Command\thandle\tRESULT_VOID\t\n");
+
+        CommandRoute commandRoute = graph.getCommandRoutes().get(0);
+
+        assertEquals(HandlerDispatcher.RESULT_VOID, commandRoute.getResultType());
+        assertNull(commandRoute.getEventClassName());
+        assertTrue(graph.getEventRoutes(commandRoute).isEmpty());
+    }
+
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void read_should_throw_if_invalid_record() throws Exception {
+        read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.State\n" +
+                "command\ttest.Command\n");
+    }
+
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void read_should_throw_if_invalid_result_type() throws Exception {
+        read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.State\n" +
+                "command\ttest.Command\thandle\tRESULT_INVALID\ttest.Event\n");
+    }
+
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void read_should_throw_if_no_state() throws Exception {
+        read("origin\ttest.Origin\n");
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: createSampleMessages
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void createSampleMessages_should_instantiate_messages_with_no_arg_constructor() throws Exception {
+        RoutingGraph graph = read("" +
+                "origin\ttest.Origin\n" +
+                "state\tfixtures.example.state.CountState\n" +
+                "command\tfixtures.example.command.IncrementCount\thandle\tRESULT_EVENT\tfixtures.example.event.CountIncremented\n" +
+                "command\t" + SampleCommand.class.getName() + "\thandle\tRESULT_VOID\t\n" +
+                "event\tfixtures.example.event.CountIncremented\thandle\n" +
+                "event\t" + SampleEvent.class.getName() + "\thandle\n");
+
+        List<Message> samples = graph.createSampleMessages();
+
+        assertEquals(2, samples.size());
+        assertTrue(samples.get(0) instanceof SampleCommand);
+        assertTrue(samples.get(1) instanceof SampleEvent);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getCommandClasses / getEventClasses
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getCommandClasses_should_load_command_classes() throws Exception {
+        RoutingGraph graph = RoutingGraph.load(FixtureDispatched.class);
+
+        assertEquals(Collections.singleton(IncrementCount.class), graph.getCommandClasses());
+    }
+
+    @Test
+    public void getEventClasses_should_load_handled_event_classes() throws Exception {
+        RoutingGraph graph = RoutingGraph.load(FixtureDispatched.class);
+
+        assertEquals(Collections.singleton(CountIncremented.class), graph.getEventClasses());
+    }
+
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void getEventClasses_should_throw_if_class_not_message() throws Exception {
+        read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.State\n" +
+                "event\tjava.lang.String\thandleEvent\n").getEventClasses();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getEventRoutes
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getEventRoutes_should_return_routes_of_emitted_event() throws Exception {
+        RoutingGraph graph = read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.State\n" +
+                "command\ttest.Command\thandleCommand\tRESULT_EVENT_COLLECTION\ttest.Event\n" +
+                "event\ttest.Event\thandleEvent\n" +
+                "event\ttest.OtherEvent\thandleOtherEvent\n");
+
+        List<EventRoute> eventRoutes = graph.getEventRoutes(graph.getCommandRoutes().get(0));
+
+        assertEquals(1, eventRoutes.size());
+        assertEquals("handleEvent", eventRoutes.get(0).getMethodName());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: preload
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void preload_should_resolve_handler_mapper_factory() throws Exception {
+        synchronized (LaPasse.FACTORIES) {
+            LaPasse.FACTORIES.remove(FixtureDispatched.class);
+        }
+
+        RoutingGraph.load(FixtureDispatched.class).preload();
+
+        synchronized (LaPasse.FACTORIES) {
+            assertNotNull(LaPasse.FACTORIES.get(FixtureDispatched.class).get());
+        }
+    }
+
+    @Test(expected = InvalidRoutingGraphException.class)
+    public void preload_should_throw_if_class_not_found() throws Exception {
+        read("" +
+                "origin\ttest.Origin\n" +
+                "state\ttest.DoesNotExist\n").preload();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    public static class SampleCommand implements Command {
+    }
+
+    public static class SampleEvent implements Event {
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static RoutingGraph read(String routes) throws Exception {
+        return RoutingGraph.read(new StringReader(routes), CLASS_LOADER);
+    }
+
+}
@@ -17,9 +17,9 @@ import testing.TestingUtils;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /**
  * Unit tests for {@link DefaultLoggersHelper}.
@@ -106,6 +106,49 @@ public class DefaultLoggersHelperTest {
         loggers.onCommandHandlerError(null, null);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: onCommandHandlerSingleResult
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void onCommandHandlerSingleResult_should_not_throw_if_no_command_loggers() throws Exception {
+        loggers.onCommandHandlerSingleResult(new IncrementCount(1), new CountIncremented(1));
+    }
+
+    @Test
+    public void onCommandHandlerSingleResult_should_pass_event_as_collection() throws Exception {
+        final AtomicReference<Collection<Event>> calledEvents = new AtomicReference<>();
+        final CountIncremented event = new CountIncremented(1);
+
+        loggers.addCommandLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                calledEvents.set(events);
+            }
+        });
+
+        loggers.onCommandHandlerSingleResult(new IncrementCount(1), event);
+
+        assertEquals(Collections.<Event>singleton(event), calledEvents.get());
+    }
+
+    @Test
+    public void onCommandHandlerSingleResult_should_pass_null_if_no_event() throws Exception {
+        final AtomicBoolean called = new AtomicBoolean(false);
+
+        loggers.addCommandLogger(new DefaultLogger<CountState>() {
+            @Override
+            public void onCommandHandlerResult(Command command, Collection<Event> events) {
+                assertNull(events);
+                called.set(true);
+            }
+        });
+
+        loggers.onCommandHandlerSingleResult(new IncrementCount(1), null);
+
+        assertTrue(called.get());
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: addEventLogger
     //----------------------------------------------------------------------------------------------
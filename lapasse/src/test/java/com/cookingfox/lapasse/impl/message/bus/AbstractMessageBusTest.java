@@ -1,5 +1,6 @@
 package com.cookingfox.lapasse.impl.message.bus;
 
+import com.cookingfox.lapasse.api.message.Message;
 import com.cookingfox.lapasse.api.message.exception.NoMessageHandlersException;
 import fixtures.example.event.CountIncremented;
 import fixtures.message.ExtendedFixtureMessage;
@@ -11,6 +12,9 @@ import org.junit.Before;
 import org.junit.Test;
 import testing.TestingUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -157,6 +161,43 @@ public class AbstractMessageBusTest {
         assertTrue(thirdHandler.handledMessages.contains(message));
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: setPreloadedMessageClasses
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void setPreloadedMessageClasses_should_resolve_routes_when_dispatchers_change() throws Exception {
+        final List<Class<?>> resolved = new ArrayList<>();
+
+        messageBus = new FixtureMessageBus(messageStore) {
+            @Override
+            protected DispatchRoute resolveDispatchRoute(Class<? extends Message> messageClass) {
+                resolved.add(messageClass);
+
+                return super.resolveDispatchRoute(messageClass);
+            }
+        };
+
+        messageBus.setPreloadedMessageClasses(Collections.singleton(FixtureMessage.class));
+
+        assertEquals(1, resolved.size());
+
+        // the handler dispatchers change
+        messageBus.clearDispatchRoutes();
+
+        assertEquals(2, resolved.size());
+        assertTrue(messageBus.dispatchRoutes.containsKey(FixtureMessage.class));
+
+        messageBus.getDispatchRoute(FixtureMessage.class);
+
+        assertEquals(2, resolved.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void setPreloadedMessageClasses_should_throw_if_null() throws Exception {
+        messageBus.setPreloadedMessageClasses(null);
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: getMessageHandlers
     //----------------------------------------------------------------------------------------------
@@ -0,0 +1,121 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link Crc32c}.
+ */
+public class Crc32cTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getValue
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getValue_should_return_check_value() throws Exception {
+        byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(0xe3069283L, checksum(new Crc32c(), bytes));
+        assertEquals(0xe3069283L, checksum(Crc32c.create(), bytes));
+    }
+
+    @Test
+    public void getValue_should_not_depend_on_update_boundaries() throws Exception {
+        byte[] bytes = randomBytes(1000);
+        Crc32c checksum = new Crc32c();
+
+        checksum.update(bytes, 0, 3);
+        checksum.update(bytes[3]);
+        checksum.update(bytes, 4, 996);
+
+        assertEquals(checksum(new Crc32c(), bytes), checksum.getValue());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: reset
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void reset_should_restore_initial_value() throws Exception {
+        Crc32c checksum = new Crc32c();
+        checksum.update(randomBytes(10), 0, 10);
+        checksum.reset();
+
+        assertEquals(0, checksum.getValue());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: update
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void update_should_support_direct_buffers() throws Exception {
+        byte[] bytes = randomBytes(20000);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Checksum checksum = new Crc32c();
+
+        Crc32c.update(checksum, direct);
+
+        assertEquals(checksum(new Crc32c(), bytes), checksum.getValue());
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void update_should_not_depend_on_buffer_byte_order() throws Exception {
+        byte[] bytes = randomBytes(1001);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(bytes).flip();
+        Checksum checksum = new Crc32c();
+
+        Crc32c.update(checksum, direct);
+
+        assertEquals(checksum(new Crc32c(), bytes), checksum.getValue());
+    }
+
+    @Test
+    public void update_should_support_direct_buffers_for_any_checksum() throws Exception {
+        byte[] bytes = randomBytes(20000);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        direct.position(3);
+
+        Checksum created = Crc32c.create();
+        Crc32c.update(created, direct);
+
+        Checksum other = new CRC32();
+        Crc32c.update(other, direct);
+
+        assertEquals(checksum(new Crc32c(), Arrays.copyOfRange(bytes, 3, bytes.length)), created.getValue());
+        assertEquals(checksum(new CRC32(), Arrays.copyOfRange(bytes, 3, bytes.length)), other.getValue());
+        assertEquals(3, direct.position());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static long checksum(Checksum checksum, byte[] bytes) {
+        checksum.update(bytes, 0, bytes.length);
+
+        return checksum.getValue();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+
+        return bytes;
+    }
+
+}
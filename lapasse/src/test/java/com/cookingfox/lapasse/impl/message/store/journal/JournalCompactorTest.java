@@ -0,0 +1,504 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+import fixtures.example.event.CountIncremented;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JournalCompactor}.
+ */
+public class JournalCompactorTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CountingCodec codec = new CountingCodec();
+
+    private JournalCompactor compactor;
+    private JournalMessageStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = buildStore();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (compactor != null) {
+            compactor.dispose();
+        }
+
+        store.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: compact (retention)
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void compact_should_not_remove_segments_without_snapshot() throws Exception {
+        addMessages(1, 50);
+        int segmentCount = store.segments.size();
+        compactor = new JournalCompactor.Builder(store).build();
+
+        compactor.compact();
+
+        assertEquals(segmentCount, store.segments.size());
+        assertEquals(50, store.read(1, 100).size());
+    }
+
+    @Test
+    public void compact_should_remove_segments_covered_by_snapshot() throws Exception {
+        addMessages(1, 50);
+        compactor = new JournalCompactor.Builder(store).build();
+        compactor.setSnapshotSequence(30);
+
+        compactor.compact();
+
+        List<SequencedMessage> messages = store.read(1, 100);
+        long firstSequence = messages.get(0).getSequence();
+
+        assertTrue(firstSequence > 1 && firstSequence <= 31);
+        assertEquals(50, messages.get(messages.size() - 1).getSequence());
+        assertEquals(50 - firstSequence + 1, messages.size());
+        assertFalse(JournalSegment.getFile(folder.getRoot(), 1).exists());
+        assertFalse(JournalSegment.getIndexFile(folder.getRoot(), 1).exists());
+    }
+
+    @Test
+    public void compact_should_never_remove_current_segment() throws Exception {
+        addMessages(1, 50);
+        JournalSegment current = store.getCurrentSegment();
+        compactor = new JournalCompactor.Builder(store).build();
+        compactor.setSnapshotSequence(50);
+
+        compactor.compact();
+
+        assertEquals(1, store.segments.size());
+        assertSame(current, store.getCurrentSegment());
+        assertEquals(50, store.read(current.baseSequence, 100).get(50 - (int) current.baseSequence).getSequence());
+    }
+
+    @Test
+    public void compact_should_keep_segments_within_max_age() throws Exception {
+        addMessages(1, 50);
+        int segmentCount = store.segments.size();
+        compactor = new JournalCompactor.Builder(store)
+                .setRetentionPolicy(RetentionPolicy.maxAge(1, TimeUnit.HOURS))
+                .build();
+        compactor.setSnapshotSequence(50);
+
+        compactor.compact();
+
+        assertEquals(segmentCount, store.segments.size());
+
+        File first = JournalSegment.getFile(folder.getRoot(), 1);
+        assertTrue(first.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+
+        compactor.compact();
+
+        assertEquals(segmentCount - 1, store.segments.size());
+        assertFalse(first.exists());
+    }
+
+    @Test
+    public void compact_should_remove_oldest_segments_above_max_size() throws Exception {
+        addMessages(1, 50);
+        compactor = new JournalCompactor.Builder(store)
+                .setRetentionPolicy(RetentionPolicy.maxSize(2048))
+                .build();
+        compactor.setSnapshotSequence(50);
+
+        compactor.compact();
+
+        long totalSize = 0;
+
+        for (JournalSegment segment : store.segments) {
+            totalSize += segment.size;
+        }
+
+        assertTrue(totalSize <= 2048);
+        assertTrue(store.segments.size() >= 2);
+    }
+
+    @Test
+    public void compact_should_move_removed_segments_to_archive_directory() throws Exception {
+        addMessages(1, 50);
+        File archive = new File(folder.getRoot(), "archive");
+        compactor = new JournalCompactor.Builder(store)
+                .setArchiveDirectory(archive)
+                .build();
+        compactor.setSnapshotSequence(50);
+
+        compactor.compact();
+
+        assertTrue(JournalSegment.getFile(archive, 1).exists());
+        assertTrue(JournalSegment.getIndexFile(archive, 1).exists());
+        assertFalse(JournalSegment.getFile(folder.getRoot(), 1).exists());
+    }
+
+    @Test
+    public void compact_should_not_remove_segments_with_keep_all_policy() throws Exception {
+        addMessages(1, 50);
+        int segmentCount = store.segments.size();
+        compactor = new JournalCompactor.Builder(store)
+                .setRetentionPolicy(RetentionPolicy.keepAll())
+                .build();
+        compactor.setSnapshotSequence(50);
+
+        compactor.compact();
+
+        assertEquals(segmentCount, store.segments.size());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: compact (folding)
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void compact_should_keep_only_latest_event_per_key() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+
+        compactor.compact();
+
+        List<SequencedMessage> messages = store.read(1, 100);
+
+        assertEquals(41, messages.size());
+        assertEquals(new CountIncremented(10), messages.get(0).getMessage());
+        assertEquals(10, messages.get(0).getSequence());
+
+        for (int i = 1; i < messages.size(); i++) {
+            assertEquals(i + 10, messages.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void compact_should_keep_sequences_after_reopen() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+        compactor.dispose();
+        compactor = null;
+        store.dispose();
+
+        store = buildStore();
+        store.addMessage(new CountIncremented(51));
+
+        List<SequencedMessage> messages = store.read(5, 100);
+
+        assertEquals(42, messages.size());
+        assertEquals(10, messages.get(0).getSequence());
+        assertEquals(51, messages.get(41).getSequence());
+        assertEquals(11, store.read(11, 1).get(0).getSequence());
+    }
+
+    @Test
+    public void compact_should_rebuild_index_if_stopped_after_replacing_segment() throws Exception {
+        addMessages(1, 50);
+
+        // only drops the first record, so the old index entries are within the rewritten file
+        EventFolder<CountIncremented> folder = new EventFolder<CountIncremented>() {
+            @Override
+            public Object getKey(CountIncremented event) {
+                return event.getCount() <= 2 ? "low" : null;
+            }
+        };
+
+        // stops after the first segment file is replaced, before the store uses it
+        JournalCompactor stopping = new JournalCompactor(new JournalCompactor.Builder(store)
+                .addEventFolder(CountIncremented.class, folder)) {
+            @Override
+            protected void replaceSegmentFile(JournalSegment segment, File compactFile) throws IOException {
+                super.replaceSegmentFile(segment, compactFile);
+                throw new IOException("Stopped");
+            }
+        };
+
+        try {
+            stopping.compact();
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            assertEquals("Stopped", e.getCause().getMessage());
+        }
+
+        store.dispose();
+        store = buildStore();
+
+        List<SequencedMessage> messages = store.read(1, 100);
+
+        assertEquals(49, messages.size());
+        assertEquals(2, messages.get(0).getSequence());
+
+        // seeking uses the index
+        for (SequencedMessage message : messages) {
+            assertEquals(message.getSequence(), store.read(message.getSequence(), 1).get(0).getSequence());
+        }
+    }
+
+    @Test
+    public void compact_should_only_decode_records_appended_since_last_run() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+
+        codec.decodeCount = 0;
+        compactor.compact();
+
+        assertEquals(0, codec.decodeCount);
+
+        // supersedes the record with sequence 10, in the first remaining segment
+        store.addMessage(new CountIncremented(5));
+        compactor.compact();
+
+        List<SequencedMessage> messages = store.read(1, 100);
+
+        assertEquals(11, messages.get(0).getSequence());
+        assertTrue(codec.decodeCount < 50);
+    }
+
+    @Test
+    public void compact_should_only_decode_records_appended_since_run_of_previous_process() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+        compactor.dispose();
+        store.dispose();
+
+        store = buildStore();
+        compactor = buildFoldingCompactor();
+        codec.decodeCount = 0;
+        compactor.compact();
+
+        assertEquals(0, codec.decodeCount);
+        assertEquals(41, store.read(1, 100).size());
+    }
+
+    @Test
+    public void compact_should_ignore_state_with_records_the_journal_lost() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+        compactor.dispose();
+        store.dispose();
+
+        // the journal loses its newer segments
+        for (long baseSequence : JournalSegment.listBaseSequences(folder.getRoot())) {
+            if (baseSequence > 1) {
+                assertTrue(JournalSegment.getFile(folder.getRoot(), baseSequence).delete());
+            }
+        }
+
+        store = buildStore();
+        compactor = buildFoldingCompactor();
+
+        assertEquals(0, compactor.scannedSequence);
+    }
+
+    @Test
+    public void compact_should_forget_keys_of_removed_segments() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+
+        assertEquals(10, (long) compactor.latestSequences.get(CountIncremented.class).get("low"));
+
+        compactor.setSnapshotSequence(50);
+        compactor.compact();
+
+        assertTrue(compactor.latestSequences.get(CountIncremented.class).isEmpty());
+    }
+
+    @Test
+    public void compact_should_keep_records_if_key_not_stable() throws Exception {
+        addMessages(1, 50);
+        compactor = new JournalCompactor.Builder(store)
+                .addEventFolder(CountIncremented.class, new EventFolder<CountIncremented>() {
+                    int calls;
+
+                    @Override
+                    public Object getKey(CountIncremented event) {
+                        // a different key once the records were scanned
+                        String key = calls++ < 50 ? "low" : "changed";
+
+                        return event.getCount() <= 10 ? key : null;
+                    }
+                })
+                .build();
+
+        compactor.compact();
+
+        assertEquals(50, store.read(1, 100).size());
+    }
+
+    @Test
+    public void compact_should_throw_if_record_checksum_invalid() throws Exception {
+        addMessages(1, 50);
+
+        try (RandomAccessFile file = new RandomAccessFile(JournalSegment.getFile(folder.getRoot(), 1), "rw")) {
+            long position = JournalSegment.HEADER_SIZE + 10;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xff);
+        }
+
+        compactor = buildFoldingCompactor();
+
+        try {
+            compactor.compact();
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            assertTrue(e.getMessage().contains("Invalid checksum"));
+        }
+    }
+
+    @Test
+    public void compact_should_let_tailer_skip_folded_events() throws Exception {
+        addMessages(1, 50);
+        compactor = buildFoldingCompactor();
+        compactor.compact();
+
+        JournalTailer tailer = store.createTailer("test");
+        JournalTailerTest.CollectingHandler handler = new JournalTailerTest.CollectingHandler();
+
+        try {
+            assertEquals(41, tailer.poll(handler, 100));
+            assertEquals(10, (long) handler.sequences.get(0));
+            assertEquals(50, tailer.getSequence());
+        } finally {
+            tailer.dispose();
+        }
+    }
+
+    @Test
+    public void compact_should_not_block_concurrent_appends() throws Exception {
+        compactor = new JournalCompactor.Builder(store)
+                .addEventFolder(CountIncremented.class, new EventFolder<CountIncremented>() {
+                    @Override
+                    public Object getKey(CountIncremented event) {
+                        return event.getCount() % 2 == 0 ? "even" : null;
+                    }
+                })
+                .setInterval(1, TimeUnit.MILLISECONDS)
+                .build();
+
+        addMessages(1, 500);
+        compactor.dispose();
+        compactor = null;
+
+        List<SequencedMessage> messages = store.read(1, 1000);
+        int expectedOdd = 1;
+
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                assertTrue(messages.get(i).getSequence() > messages.get(i - 1).getSequence());
+            }
+
+            int count = ((CountIncremented) messages.get(i).getMessage()).getCount();
+
+            assertEquals(count, messages.get(i).getSequence());
+
+            if (count % 2 == 1) {
+                assertEquals(expectedOdd, count);
+                expectedOdd += 2;
+            }
+        }
+
+        assertEquals(501, expectedOdd);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: Builder
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addEventFolder_should_throw_if_class_already_has_folder() throws Exception {
+        EventFolder<CountIncremented> folder = new CountFolder();
+
+        new JournalCompactor.Builder(store)
+                .addEventFolder(CountIncremented.class, folder)
+                .addEventFolder(CountIncremented.class, folder);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setSnapshotSequence_should_throw_if_negative() throws Exception {
+        compactor = new JournalCompactor.Builder(store).build();
+
+        compactor.setSnapshotSequence(-1);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Counts the decoded messages.
+     */
+    static class CountingCodec extends SerializableMessageCodec {
+
+        int decodeCount;
+
+        @Override
+        public Message decode(ByteBuffer bytes) {
+            decodeCount++;
+            return super.decode(bytes);
+        }
+
+    }
+
+    /**
+     * Folds the counts up to 10 into one key.
+     */
+    static class CountFolder implements EventFolder<CountIncremented> {
+
+        @Override
+        public Object getKey(CountIncremented event) {
+            return event.getCount() <= 10 ? "low" : null;
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void addMessages(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            store.addMessage(new CountIncremented(i));
+        }
+    }
+
+    private JournalCompactor buildFoldingCompactor() {
+        return new JournalCompactor.Builder(store)
+                .addEventFolder(CountIncremented.class, new CountFolder())
+                .build();
+    }
+
+    private JournalMessageStore buildStore() {
+        return new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .setIndexInterval(256)
+                .setMaxSegmentSize(1024)
+                .build();
+    }
+
+}
@@ -0,0 +1,567 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.OnMessageAdded;
+import com.cookingfox.lapasse.impl.message.store.journal.exception.JournalException;
+import fixtures.example.event.CountIncremented;
+import fixtures.message.FixtureMessage;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.RandomAccessFile;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JournalMessageStore}.
+ */
+public class JournalMessageStoreTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializableMessageCodec codec = new SerializableMessageCodec();
+
+    private JournalMessageStore store;
+
+    @After
+    public void tearDown() throws Exception {
+        if (store != null) {
+            store.dispose();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: addMessage
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void addMessage_should_throw_if_message_null() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+
+        store.addMessage(null);
+    }
+
+    @Test(expected = JournalException.class)
+    public void addMessage_should_throw_if_message_can_not_be_encoded() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+
+        store.addMessage(new FixtureMessage());
+    }
+
+    @Test(expected = JournalException.class)
+    public void addMessage_should_throw_if_disposed() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+        store.dispose();
+
+        store.addMessage(new CountIncremented(1));
+    }
+
+    @Test
+    public void addMessage_should_notify_listeners() throws Exception {
+        final AtomicReference<Message> notifiedMessage = new AtomicReference<>();
+        store = build(DurabilityPolicy.osManaged());
+
+        store.addMessageAddedListener(new OnMessageAdded() {
+            @Override
+            public void onMessageAdded(Message message) {
+                notifiedMessage.set(message);
+            }
+        });
+
+        Message message = new CountIncremented(1);
+        store.addMessage(message);
+
+        assertSame(message, notifiedMessage.get());
+    }
+
+    @Test
+    public void addMessage_should_append_messages_that_survive_reopen() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+        store.addMessage(new CountIncremented(1));
+        store.dispose();
+
+        store = build(DurabilityPolicy.osManaged());
+        store.addMessage(new CountIncremented(2));
+        store.dispose();
+
+        assertEquals(messages(1, 2), readMessages(folder.getRoot()));
+    }
+
+    @Test
+    public void addMessage_should_create_next_segment_when_full() throws Exception {
+        store = new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.perMessage())
+                .setMaxSegmentSize(1)
+                .build();
+
+        store.addMessage(new CountIncremented(1));
+        store.addMessage(new CountIncremented(2));
+        store.addMessage(new CountIncremented(3));
+        store.dispose();
+
+        assertEquals(3, segmentFiles(folder.getRoot()).length);
+        assertEquals(messages(1, 2, 3), readMessages(folder.getRoot()));
+    }
+
+    @Test
+    public void addMessage_should_be_durable_when_returned_if_per_message() throws Exception {
+        store = build(DurabilityPolicy.perMessage());
+
+        store.addMessage(new CountIncremented(1));
+
+        assertEquals(1, store.getDurableSequence());
+    }
+
+    @Test
+    public void addMessage_should_be_durable_when_returned_if_group_commit() throws Exception {
+        store = build(DurabilityPolicy.groupCommit(5, TimeUnit.MILLISECONDS));
+
+        int threads = 4;
+        final int messagesPerThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    boolean durable = true;
+
+                    for (int j = 0; j < messagesPerThread; j++) {
+                        store.addMessage(new CountIncremented(j));
+                        durable &= store.getDurableSequence() >= j + 1;
+                    }
+
+                    return durable;
+                }
+            }));
+        }
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(10, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+
+        assertEquals(threads * messagesPerThread, store.getDurableSequence());
+    }
+
+    @Test(timeout = 10000)
+    public void addMessage_should_not_wait_for_latency_budget_if_group_commit_idle() throws Exception {
+        store = build(DurabilityPolicy.groupCommit(1, TimeUnit.MINUTES));
+
+        // every append is forced immediately: waiting for the budget would time out the test
+        for (int i = 1; i <= 20; i++) {
+            store.addMessage(new CountIncremented(i));
+
+            assertEquals(i, store.getDurableSequence());
+        }
+    }
+
+    @Test
+    public void addMessage_should_not_wait_for_durability_if_os_managed() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+
+        store.addMessage(new CountIncremented(1));
+
+        assertEquals(1, store.getLastSequence());
+        assertEquals(0, store.getDurableSequence());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: awaitDurable
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void awaitDurable_should_force_appended_messages_if_os_managed() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+        store.addMessage(new CountIncremented(1));
+
+        store.awaitDurable();
+
+        assertEquals(1, store.getDurableSequence());
+    }
+
+    @Test
+    public void awaitDurable_should_force_rolled_segments_if_os_managed() throws Exception {
+        store = buildIndexed(256, 1024);
+        addMessages(store, 50);
+
+        assertTrue(store.segments.size() > 2);
+        assertEquals(1, store.unforcedBaseSequence);
+
+        store.awaitDurable();
+
+        assertEquals(50, store.getDurableSequence());
+        assertEquals(store.getCurrentSegment().baseSequence, store.unforcedBaseSequence);
+
+        // only the segments created after the force are forced next time
+        long forcedBase = store.unforcedBaseSequence;
+        addMessages(store, 50);
+        assertEquals(forcedBase, store.unforcedBaseSequence);
+
+        store.awaitDurable();
+
+        assertEquals(100, store.getDurableSequence());
+        assertEquals(store.getCurrentSegment().baseSequence, store.unforcedBaseSequence);
+    }
+
+    @Test
+    public void addMessage_should_force_rolled_segments_if_not_os_managed() throws Exception {
+        store = new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.perMessage())
+                .setMaxSegmentSize(1024)
+                .build();
+        addMessages(store, 50);
+
+        assertTrue(store.segments.size() > 2);
+        assertEquals(store.getCurrentSegment().baseSequence, store.unforcedBaseSequence);
+    }
+
+    @Test
+    public void awaitDurable_should_request_force_if_periodic() throws Exception {
+        store = build(DurabilityPolicy.periodic(1, TimeUnit.HOURS));
+        store.addMessage(new CountIncremented(1));
+
+        store.awaitDurable();
+
+        assertEquals(1, store.getDurableSequence());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: read
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void read_should_return_messages_from_sequence() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 100);
+
+        List<SequencedMessage> messages = store.read(42, 3);
+
+        assertEquals(3, messages.size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(42 + i, messages.get(i).getSequence());
+            assertEquals(new CountIncremented(42 + i), messages.get(i).getMessage());
+        }
+    }
+
+    @Test
+    public void read_should_continue_in_next_segments() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 100);
+
+        List<SequencedMessage> messages = store.read(1, Integer.MAX_VALUE);
+
+        assertTrue(segmentFiles(folder.getRoot()).length > 1);
+        assertEquals(100, messages.size());
+        assertEquals(100, messages.get(99).getSequence());
+    }
+
+    @Test
+    public void read_should_return_empty_list_if_sequence_after_last() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 10);
+
+        assertTrue(store.read(11, 10).isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void read_should_throw_if_channel_closed_by_interrupt() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 10);
+
+        Thread.currentThread().interrupt();
+
+        try {
+            store.read(1, 10);
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            assertTrue(e.getCause() instanceof ClosedChannelException);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // the interrupt closed the channel of the segment, so it can not be forced on dispose
+        try {
+            store.dispose();
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            store = null;
+        }
+    }
+
+    @Test
+    public void read_should_use_sparse_index_after_reopen() throws Exception {
+        store = buildIndexed(1024, 1024 * 1024);
+        addMessages(store, 100);
+
+        JournalSegment segment = store.getCurrentSegment();
+        int indexCount = segment.getIndexCount();
+
+        assertTrue(indexCount > 1);
+        assertTrue(indexCount < 100);
+
+        store.dispose();
+        store = buildIndexed(1024, 1024 * 1024);
+
+        assertEquals(100, store.getLastSequence());
+        assertEquals(indexCount, store.getCurrentSegment().getIndexCount());
+        assertEquals(77, store.read(77, 1).get(0).getSequence());
+    }
+
+    @Test
+    public void read_should_rebuild_missing_index() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 100);
+        store.dispose();
+
+        for (File file : folder.getRoot().listFiles()) {
+            if (file.getName().endsWith(JournalSegment.INDEX_EXTENSION)) {
+                assertTrue(file.delete());
+            }
+        }
+
+        store = buildIndexed(64, 256);
+
+        assertEquals(100, store.getLastSequence());
+        assertEquals(new CountIncremented(50), store.read(50, 1).get(0).getMessage());
+    }
+
+    @Test
+    public void readAll_should_iterate_messages_across_batches() throws Exception {
+        store = buildIndexed(4096, 64 * 1024);
+        addMessages(store, JournalMessageStore.READ_BATCH_SIZE * 2 + 10);
+
+        int expectedCount = 5;
+
+        for (Message message : store.readAll(5)) {
+            assertEquals(new CountIncremented(expectedCount++), message);
+        }
+
+        assertEquals(JournalMessageStore.READ_BATCH_SIZE * 2 + 11, expectedCount);
+    }
+
+    @Test
+    public void addMessage_should_continue_sequence_after_reopen() throws Exception {
+        store = buildIndexed(64, 256);
+        addMessages(store, 10);
+        store.dispose();
+
+        store = buildIndexed(64, 256);
+        store.addMessage(new CountIncremented(11));
+
+        assertEquals(11, store.getLastSequence());
+        assertEquals(11, store.read(11, 1).get(0).getSequence());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: build
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void build_should_truncate_torn_record() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+        store.addMessage(new CountIncremented(1));
+        store.dispose();
+
+        File segment = segmentFiles(folder.getRoot())[0];
+        long validSize = segment.length();
+
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(validSize);
+            file.writeInt(1000);
+            file.write(new byte[10]);
+        }
+
+        store = build(DurabilityPolicy.osManaged());
+        store.addMessage(new CountIncremented(2));
+        store.dispose();
+
+        assertEquals(messages(1, 2), readMessages(folder.getRoot()));
+    }
+
+    @Test
+    public void build_should_truncate_record_with_invalid_checksum() throws Exception {
+        store = build(DurabilityPolicy.osManaged());
+        addMessages(store, 3);
+        store.dispose();
+
+        File segment = segmentFiles(folder.getRoot())[0];
+        long recordSize = segment.length() / 3;
+        corruptByte(segment, recordSize + JournalSegment.HEADER_SIZE + 5);
+
+        store = build(DurabilityPolicy.osManaged());
+
+        assertEquals(1, store.getLastSequence());
+        assertEquals(recordSize, segment.length());
+
+        store.addMessage(new CountIncremented(4));
+        store.dispose();
+
+        assertEquals(messages(1, 4), readMessages(folder.getRoot()));
+    }
+
+    @Test
+    public void build_should_not_verify_indexed_records_of_full_segments_by_default() throws Exception {
+        store = buildIndexed(1, 256);
+        addMessages(store, 20);
+        store.dispose();
+
+        corruptByte(segmentFiles(folder.getRoot())[0], JournalSegment.HEADER_SIZE + 5);
+        store = buildIndexed(1, 256);
+
+        try {
+            store.read(1, 1);
+            fail("Expected the corrupt record to be detected on read");
+        } catch (JournalException e) {
+            assertTrue(e.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void build_should_verify_all_segments_in_parallel() throws Exception {
+        store = buildIndexed(1, 256);
+        addMessages(store, 20);
+        store.dispose();
+
+        File[] segments = segmentFiles(folder.getRoot());
+        corruptByte(segments[0], JournalSegment.HEADER_SIZE + 5);
+
+        JournalMessageStore.Builder builder = new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .setIndexInterval(1)
+                .setMaxSegmentSize(256)
+                .setRecoveryThreads(4)
+                .setVerifyAllSegments(true);
+
+        try {
+            builder.build();
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            assertTrue(e.getMessage().contains(segments[0].getName()));
+        }
+
+        assertTrue(segments[0].length() > 0);
+    }
+
+    @Test
+    public void build_should_throw_if_record_after_last_index_entry_of_full_segment_invalid() throws Exception {
+        store = buildIndexed(1024, 256);
+        addMessages(store, 20);
+        store.dispose();
+
+        File[] segments = segmentFiles(folder.getRoot());
+        long segmentSize = segments[0].length();
+        // the first record is the only indexed record of the segment
+        corruptByte(segments[0], segmentSize - 5);
+
+        try {
+            buildIndexed(1024, 256);
+            fail("Expected JournalException");
+        } catch (JournalException e) {
+            assertTrue(e.getMessage().contains(segments[0].getName()));
+        }
+
+        assertEquals(segmentSize, segments[0].length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxSegmentSize_should_throw_if_larger_than_2_GB() throws Exception {
+        new JournalMessageStore.Builder(folder.getRoot(), codec).setMaxSegmentSize(Integer.MAX_VALUE + 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setRecoveryThreads_should_throw_if_not_positive() throws Exception {
+        new JournalMessageStore.Builder(folder.getRoot(), codec).setRecoveryThreads(0);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private JournalMessageStore build(DurabilityPolicy durabilityPolicy) {
+        return new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(durabilityPolicy)
+                .build();
+    }
+
+    private static void addMessages(JournalMessageStore store, int count) {
+        for (int i = 1; i <= count; i++) {
+            store.addMessage(new CountIncremented(i));
+        }
+    }
+
+    private JournalMessageStore buildIndexed(int indexInterval, long maxSegmentSize) {
+        return new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .setIndexInterval(indexInterval)
+                .setMaxSegmentSize(maxSegmentSize)
+                .build();
+    }
+
+    private static void corruptByte(File file, long position) throws Exception {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(position);
+            int value = randomAccessFile.read();
+            randomAccessFile.seek(position);
+            randomAccessFile.write(value ^ 0xff);
+        }
+    }
+
+    private static List<Message> messages(int... counts) {
+        List<Message> messages = new ArrayList<>();
+
+        for (int count : counts) {
+            messages.add(new CountIncremented(count));
+        }
+
+        return messages;
+    }
+
+    private List<Message> readMessages(File directory) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        JournalMessageStore reader = new JournalMessageStore.Builder(directory, codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .build();
+
+        try {
+            for (SequencedMessage message : reader.read(1, Integer.MAX_VALUE)) {
+                messages.add(message.getMessage());
+            }
+        } finally {
+            reader.dispose();
+        }
+
+        return messages;
+    }
+
+    private static File[] segmentFiles(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(JournalSegment.EXTENSION);
+            }
+        });
+        Arrays.sort(files);
+
+        return files;
+    }
+
+}
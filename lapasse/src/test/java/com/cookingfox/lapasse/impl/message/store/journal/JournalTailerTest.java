@@ -0,0 +1,237 @@
+package com.cookingfox.lapasse.impl.message.store.journal;
+
+import com.cookingfox.lapasse.api.message.Message;
+import fixtures.example.event.CountIncremented;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JournalTailer}.
+ */
+public class JournalTailerTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializableMessageCodec codec = new SerializableMessageCodec();
+
+    private JournalMessageStore store;
+    private JournalTailer tailer;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .setIndexInterval(256)
+                .setMaxSegmentSize(1024)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (tailer != null) {
+            tailer.dispose();
+        }
+
+        store.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: poll
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void poll_should_return_zero_if_journal_empty() throws Exception {
+        tailer = store.createTailer("test");
+
+        assertEquals(0, tailer.poll(new CollectingHandler(), 10));
+    }
+
+    @Test
+    public void poll_should_handle_messages_in_order_across_segments() throws Exception {
+        addMessages(1, 50);
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        assertEquals(50, tailer.poll(handler, 100));
+        assertEquals(50, tailer.getSequence());
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i + 1, (long) handler.sequences.get(i));
+            assertEquals(new CountIncremented(i + 1), handler.messages.get(i));
+        }
+    }
+
+    @Test
+    public void poll_should_respect_max_messages() throws Exception {
+        addMessages(1, 10);
+        tailer = store.createTailer("test");
+
+        assertEquals(4, tailer.poll(new CollectingHandler(), 4));
+        assertEquals(4, tailer.getSequence());
+    }
+
+    @Test
+    public void poll_should_handle_messages_added_after_previous_poll() throws Exception {
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        addMessages(1, 3);
+        assertEquals(3, tailer.poll(handler, 100));
+
+        addMessages(4, 40);
+        assertEquals(37, tailer.poll(handler, 100));
+        assertEquals(new CountIncremented(40), handler.messages.get(39));
+    }
+
+    @Test
+    public void poll_should_copy_records_appended_to_mapped_segment_into_window() throws Exception {
+        useSingleSegmentStore();
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        addMessages(1, 3);
+        assertEquals(3, tailer.poll(handler, 100));
+        ByteBuffer mapped = tailer.segment;
+
+        addMessages(4, 5);
+        assertEquals(2, tailer.poll(handler, 100));
+        assertSame(tailer.window, tailer.segment);
+
+        addMessages(6, 8);
+        assertEquals(3, tailer.poll(handler, 100));
+        assertSame(tailer.window, tailer.segment);
+        assertNotSame(mapped, tailer.segment);
+        assertEquals(new CountIncremented(8), handler.messages.get(7));
+    }
+
+    @Test
+    public void poll_should_map_segment_again_if_grown_more_than_window() throws Exception {
+        useSingleSegmentStore();
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        addMessages(1, 3);
+        assertEquals(3, tailer.poll(handler, 100));
+
+        int count = 3;
+
+        while (JournalSegment.getFile(folder.getRoot(), 1).length() < 2L * JournalTailer.WINDOW_SIZE) {
+            addMessages(count + 1, count + 1000);
+            count += 1000;
+        }
+
+        assertEquals(count - 3, tailer.poll(handler, Integer.MAX_VALUE));
+        assertTrue(tailer.segment instanceof MappedByteBuffer);
+        assertEquals(new CountIncremented(count), handler.messages.get(count - 1));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: commit
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void commit_should_make_new_tailer_continue_after_checkpoint() throws Exception {
+        addMessages(1, 30);
+        tailer = store.createTailer("test");
+        tailer.poll(new CollectingHandler(), 17);
+        tailer.commit();
+        tailer.dispose();
+
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        assertEquals(17, tailer.getSequence());
+        assertEquals(13, tailer.poll(handler, 100));
+        assertEquals(18, (long) handler.sequences.get(0));
+    }
+
+    @Test
+    public void commit_should_not_affect_other_tailers() throws Exception {
+        addMessages(1, 5);
+        tailer = store.createTailer("test");
+        tailer.poll(new CollectingHandler(), 5);
+        tailer.commit();
+
+        JournalTailer other = store.createTailer("other");
+
+        try {
+            assertEquals(0, other.getSequence());
+            assertEquals(5, other.poll(new CollectingHandler(), 100));
+        } finally {
+            other.dispose();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: seek
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void seek_should_continue_after_sequence() throws Exception {
+        addMessages(1, 50);
+        tailer = store.createTailer("test");
+        CollectingHandler handler = new CollectingHandler();
+
+        tailer.seek(33);
+
+        assertEquals(17, tailer.poll(handler, 100));
+        assertEquals(34, (long) handler.sequences.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seek_should_throw_if_sequence_negative() throws Exception {
+        tailer = store.createTailer("test");
+
+        tailer.seek(-1);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class CollectingHandler implements JournalMessageHandler {
+
+        final List<Message> messages = new ArrayList<>();
+        final List<Long> sequences = new ArrayList<>();
+
+        @Override
+        public void handle(long sequence, Message message) {
+            messages.add(message);
+            sequences.add(sequence);
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private void useSingleSegmentStore() {
+        store.dispose();
+        store = new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .build();
+    }
+
+    private void addMessages(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            store.addMessage(new CountIncremented(i));
+        }
+    }
+
+}
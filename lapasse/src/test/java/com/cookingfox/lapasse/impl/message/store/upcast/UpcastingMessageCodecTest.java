@@ -0,0 +1,297 @@
+package com.cookingfox.lapasse.impl.message.store.upcast;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.Message;
+import com.cookingfox.lapasse.api.message.store.EventUpcaster;
+import com.cookingfox.lapasse.api.message.store.MessageCodec;
+import com.cookingfox.lapasse.impl.message.store.journal.DurabilityPolicy;
+import com.cookingfox.lapasse.impl.message.store.journal.JournalMessageStore;
+import com.cookingfox.lapasse.impl.message.store.journal.SerializableMessageCodec;
+import com.cookingfox.lapasse.impl.message.store.upcast.exception.UpcastException;
+import fixtures.example.event.CountIncremented;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link UpcastingMessageCodec}.
+ */
+public class UpcastingMessageCodecTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializableMessageCodec delegate = new SerializableMessageCodec();
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: decode
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void decode_should_not_run_upcasters_for_current_version() throws Exception {
+        CountingUpcaster upcaster = new CountingUpcaster();
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 2)
+                .addUpcaster(CountIncremented.class, 1, upcaster)
+                .build();
+
+        Message decoded = codec.decode(ByteBuffer.wrap(codec.encode(new CountIncremented(3))));
+
+        assertEquals(new CountIncremented(3), decoded);
+        assertEquals(0, upcaster.calls.get());
+    }
+
+    @Test
+    public void decode_should_upcast_old_class() throws Exception {
+        byte[] stored = new UpcastingMessageCodec.Builder(delegate).build().encode(new LegacyCountIncremented(3));
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .addUpcaster(LegacyCountIncremented.class, 0, new LegacyUpcaster())
+                .build();
+
+        assertEquals(new CountIncremented(3), codec.decode(ByteBuffer.wrap(stored)));
+    }
+
+    @Test
+    public void decode_should_apply_upcasters_in_order_of_version() throws Exception {
+        byte[] stored = new UpcastingMessageCodec.Builder(delegate).build().encode(new LegacyCountIncremented(3));
+        CountingUpcaster upcaster = new CountingUpcaster();
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 2)
+                .addUpcaster(LegacyCountIncremented.class, 0, new LegacyUpcaster())
+                .addUpcaster(CountIncremented.class, 1, upcaster)
+                .build();
+
+        assertEquals(new CountIncremented(30), codec.decode(ByteBuffer.wrap(stored)));
+        assertEquals(1, upcaster.calls.get());
+    }
+
+    @Test
+    public void decode_should_read_from_buffer_position() throws Exception {
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate).build();
+        byte[] encoded = codec.encode(new CountIncremented(3));
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 5);
+        buffer.position(5);
+        buffer.put(encoded).position(5);
+
+        assertEquals(new CountIncremented(3), codec.decode(buffer));
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void decode_should_read_message_without_format_marker_as_version_0() throws Exception {
+        byte[] stored = delegate.encode(new LegacyCountIncremented(3));
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .addUpcaster(LegacyCountIncremented.class, 0, new LegacyUpcaster())
+                .build();
+
+        assertEquals(new CountIncremented(3), codec.decode(ByteBuffer.wrap(stored)));
+    }
+
+    @Test(expected = UpcastException.class)
+    public void decode_should_throw_if_no_upcaster_for_stored_version() throws Exception {
+        byte[] stored = new UpcastingMessageCodec.Builder(delegate).build().encode(new CountIncremented(3));
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .build();
+
+        codec.decode(ByteBuffer.wrap(stored));
+    }
+
+    @Test(expected = UpcastException.class)
+    public void decode_should_throw_if_stored_version_newer() throws Exception {
+        byte[] stored = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 2)
+                .build()
+                .encode(new CountIncremented(3));
+
+        new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .build()
+                .decode(ByteBuffer.wrap(stored));
+    }
+
+    @Test(expected = UpcastException.class)
+    public void decode_should_throw_if_upcaster_fails() throws Exception {
+        byte[] stored = new UpcastingMessageCodec.Builder(delegate).build().encode(new CountIncremented(3));
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .addUpcaster(CountIncremented.class, 0, new EventUpcaster<CountIncremented>() {
+                    @Override
+                    public Event upcast(CountIncremented event) {
+                        throw new IllegalStateException();
+                    }
+                })
+                .build();
+
+        codec.decode(ByteBuffer.wrap(stored));
+    }
+
+    @Test
+    public void decode_should_upcast_messages_read_from_journal() throws Exception {
+        JournalMessageStore store = buildStore(new UpcastingMessageCodec.Builder(delegate).build());
+        store.addMessage(new LegacyCountIncremented(1));
+        store.addMessage(new LegacyCountIncremented(2));
+        store.dispose();
+
+        store = buildStore(new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .addUpcaster(LegacyCountIncremented.class, 0, new LegacyUpcaster())
+                .build());
+        store.addMessage(new CountIncremented(3));
+
+        List<Message> messages = new ArrayList<>();
+
+        try {
+            for (Message message : store.readAll(1)) {
+                messages.add(message);
+            }
+        } finally {
+            store.dispose();
+        }
+
+        List<Message> expected = new ArrayList<>();
+        expected.add(new CountIncremented(1));
+        expected.add(new CountIncremented(2));
+        expected.add(new CountIncremented(3));
+
+        assertEquals(expected, messages);
+    }
+
+    @Test
+    public void decode_should_read_journal_written_without_codec() throws Exception {
+        JournalMessageStore store = buildStore(delegate);
+        store.addMessage(new LegacyCountIncremented(1));
+        store.addMessage(new CountIncremented(2));
+        store.dispose();
+
+        store = buildStore(new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 2)
+                .addUpcaster(LegacyCountIncremented.class, 0, new LegacyUpcaster())
+                .addUpcaster(CountIncremented.class, 0, new CountingUpcaster())
+                .addUpcaster(CountIncremented.class, 1, new CountingUpcaster())
+                .build());
+        store.addMessage(new CountIncremented(3));
+
+        List<Message> messages = new ArrayList<>();
+
+        try {
+            for (Message message : store.readAll(1)) {
+                messages.add(message);
+            }
+        } finally {
+            store.dispose();
+        }
+
+        List<Message> expected = new ArrayList<>();
+        expected.add(new CountIncremented(10));
+        expected.add(new CountIncremented(200));
+        expected.add(new CountIncremented(3));
+
+        assertEquals(expected, messages);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: encode
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void encode_should_store_current_version() throws Exception {
+        UpcastingMessageCodec codec = new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 7)
+                .build();
+
+        ByteBuffer current = ByteBuffer.wrap(codec.encode(new CountIncremented(3)));
+        ByteBuffer legacy = ByteBuffer.wrap(codec.encode(new LegacyCountIncremented(3)));
+
+        assertEquals(UpcastingMessageCodec.FORMAT_MARKER, current.getInt());
+        assertEquals(7, current.getInt());
+        assertEquals(UpcastingMessageCodec.FORMAT_MARKER, legacy.getInt());
+        assertEquals(0, legacy.getInt());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: Builder
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addUpcaster_should_throw_if_version_already_has_upcaster() throws Exception {
+        new UpcastingMessageCodec.Builder(delegate)
+                .addUpcaster(CountIncremented.class, 0, new CountingUpcaster())
+                .addUpcaster(CountIncremented.class, 0, new CountingUpcaster());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_should_throw_if_upcaster_from_current_version() throws Exception {
+        new UpcastingMessageCodec.Builder(delegate)
+                .setCurrentVersion(CountIncremented.class, 1)
+                .addUpcaster(CountIncremented.class, 1, new CountingUpcaster())
+                .build();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * An old shape of {@link CountIncremented}.
+     */
+    static class LegacyCountIncremented implements Event, Serializable {
+
+        final int value;
+
+        LegacyCountIncremented(int value) {
+            this.value = value;
+        }
+
+    }
+
+    static class LegacyUpcaster implements EventUpcaster<LegacyCountIncremented> {
+
+        @Override
+        public Event upcast(LegacyCountIncremented event) {
+            return new CountIncremented(event.value);
+        }
+
+    }
+
+    /**
+     * Multiplies the count by ten.
+     */
+    static class CountingUpcaster implements EventUpcaster<CountIncremented> {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Event upcast(CountIncremented event) {
+            calls.incrementAndGet();
+
+            return new CountIncremented(event.getCount() * 10);
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private JournalMessageStore buildStore(MessageCodec codec) {
+        return new JournalMessageStore.Builder(folder.getRoot(), codec)
+                .setDurabilityPolicy(DurabilityPolicy.osManaged())
+                .build();
+    }
+
+}
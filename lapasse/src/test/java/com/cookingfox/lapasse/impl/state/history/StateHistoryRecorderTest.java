@@ -0,0 +1,276 @@
+package com.cookingfox.lapasse.impl.state.history;
+
+import com.cookingfox.lapasse.api.event.Event;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link StateHistoryRecorder}.
+ */
+public class StateHistoryRecorderTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: constructor
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_throw_if_max_entries_less_than_one() throws Exception {
+        new StateHistoryRecorder<CountState>(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructor_should_throw_if_byte_cap_without_weigher() throws Exception {
+        new StateHistoryRecorder<CountState>(10, 100, null);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: dump
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void dump_should_return_transitions_oldest_first() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10);
+
+        record(recorder, 3);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(3, entries.size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, entries.get(i).getSequence());
+            assertEquals(new CountState(i + 1), entries.get(i).getState());
+            assertEquals(new CountIncremented(i + 1), entries.get(i).getEvent());
+        }
+    }
+
+    @Test
+    public void dump_should_keep_references_to_states() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10);
+        CountState state = new CountState(1);
+
+        recorder.onStateChanged(state, new CountIncremented(1));
+
+        assertSame(state, recorder.dump().get(0).getState());
+    }
+
+    @Test
+    public void dump_should_write_transitions_to_appendable() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10);
+
+        record(recorder, 2);
+
+        StringBuilder out = new StringBuilder();
+        recorder.dump(out);
+
+        String[] lines = out.toString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("#0 "));
+        assertTrue(lines[1].startsWith("#1 "));
+    }
+
+    @Test
+    public void dump_should_return_consistent_transitions_while_recording() throws Exception {
+        final StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(4);
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    record(recorder, 1);
+                }
+            }
+        });
+
+        dispatcher.start();
+
+        try {
+            for (int i = 0; i < 10000; i++) {
+                List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+                assertTrue(entries.size() <= 4);
+
+                for (StateHistoryEntry<CountState> entry : entries) {
+                    int value = (int) entry.getSequence() + 1;
+
+                    assertEquals(new CountState(value), entry.getState());
+                    assertEquals(new CountIncremented(value), entry.getEvent());
+                }
+            }
+        } finally {
+            running.set(false);
+            dispatcher.join();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: onStateChanged
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void onStateChanged_should_overwrite_oldest_if_max_entries_reached() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(3);
+
+        record(recorder, 5);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(3, recorder.getSize());
+        assertEquals(5, recorder.getRecordedCount());
+        assertEquals(2, entries.get(0).getSequence());
+        assertEquals(4, entries.get(2).getSequence());
+    }
+
+    @Test
+    public void onStateChanged_should_record_transitions_of_concurrent_threads() throws Exception {
+        final StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(8);
+        final AtomicInteger values = new AtomicInteger();
+        final int perThread = 10000;
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        int value = values.incrementAndGet();
+
+                        recorder.onStateChanged(new CountState(value), new CountIncremented(value));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            for (StateHistoryEntry<CountState> entry : recorder.dump()) {
+                CountIncremented event = (CountIncremented) entry.getEvent();
+
+                assertEquals(new CountState(event.getCount()), entry.getState());
+            }
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(threads.length * perThread, recorder.getRecordedCount());
+        assertEquals(8, entries.size());
+        assertEquals(threads.length * perThread - 8, entries.get(0).getSequence());
+    }
+
+    @Test
+    public void onStateChanged_should_evict_oldest_if_max_bytes_reached() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10, 25, new FixedWeigher(10));
+
+        record(recorder, 4);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(0).getSequence());
+        assertEquals(3, entries.get(1).getSequence());
+    }
+
+    @Test
+    public void onStateChanged_should_keep_newest_if_heavier_than_max_bytes() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10, 5, new FixedWeigher(10));
+
+        record(recorder, 3);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(1, entries.size());
+        assertEquals(2, entries.get(0).getSequence());
+    }
+
+    @Test
+    public void onStateChanged_should_overwrite_oldest_in_single_writer_mode() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(3, Long.MAX_VALUE, null, true);
+
+        record(recorder, 5);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(3, entries.size());
+        assertEquals(5, recorder.getRecordedCount());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 2, entries.get(i).getSequence());
+            assertEquals(new CountState(i + 3), entries.get(i).getState());
+            assertEquals(new CountIncremented(i + 3), entries.get(i).getEvent());
+        }
+    }
+
+    @Test
+    public void onStateChanged_should_weigh_transitions_in_single_writer_mode() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(10, 25, new FixedWeigher(10), true);
+
+        record(recorder, 4);
+
+        List<StateHistoryEntry<CountState>> entries = recorder.dump();
+
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(0).getSequence());
+        assertEquals(10, entries.get(0).getWeight());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: clear
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void clear_should_remove_transitions() throws Exception {
+        StateHistoryRecorder<CountState> recorder = new StateHistoryRecorder<>(3);
+
+        record(recorder, 5);
+        recorder.clear();
+        record(recorder, 1);
+
+        assertEquals(1, recorder.getSize());
+        assertEquals(5, recorder.dump().get(0).getSequence());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class FixedWeigher implements StateHistoryRecorder.Weigher<CountState> {
+
+        final long weight;
+
+        FixedWeigher(long weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public long weigh(CountState state, Event event) {
+            return weight;
+        }
+
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER METHODS
+    //----------------------------------------------------------------------------------------------
+
+    private static void record(StateHistoryRecorder<CountState> recorder, int count) {
+        for (int i = 0; i < count; i++) {
+            int value = (int) recorder.getRecordedCount() + 1;
+
+            recorder.onStateChanged(new CountState(value), new CountIncremented(value));
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.cookingfox.lapasse.impl.state.slice;
+
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.state.slice.OnSliceChanged;
+import com.cookingfox.lapasse.api.state.slice.SliceReducer;
+import com.cookingfox.lapasse.impl.facade.LaPasseFacade;
+import fixtures.example.event.CountIncremented;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SliceManager}.
+ */
+public class SliceManagerTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private LaPasseFacade<SlicedState> facade;
+    private SlicedState initialState;
+    private SliceManager sliceManager;
+
+    @Before
+    public void setUp() throws Exception {
+        initialState = new SlicedState.Builder()
+                .addSlice("count", 0)
+                .addSlice("names", "")
+                .addSlice("unchanged", "unchanged")
+                .build();
+
+        facade = new LaPasseFacade.Builder<>(initialState).build();
+        sliceManager = new SliceManager(facade, new ForkJoinPool(2));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sliceManager.dispose();
+        facade.dispose();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: mapSliceReducer
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void mapSliceReducer_should_reduce_every_slice() throws Exception {
+        sliceManager.mapSliceReducer("count", CountIncremented.class, new AddCount());
+        sliceManager.mapSliceReducer("names", CountIncremented.class, new AppendName("a"));
+        sliceManager.mapSliceReducer("names", CountIncremented.class, new AppendName("b"));
+
+        facade.handleEvent(new CountIncremented(2));
+        facade.handleEvent(new CountIncremented(3));
+
+        SlicedState state = facade.getCurrentState();
+
+        assertEquals(5, (int) state.getSlice("count"));
+        assertEquals("abab", state.getSlice("names"));
+        assertSame(initialState.slices[2], state.slices[2]);
+    }
+
+    @Test
+    public void mapSliceReducer_should_keep_state_if_no_slice_changed() throws Exception {
+        sliceManager.mapSliceReducer("count", CountIncremented.class, new AddCount());
+
+        facade.handleEvent(new CountIncremented(0));
+
+        assertSame(initialState, facade.getCurrentState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mapSliceReducer_should_throw_if_unknown_slice() throws Exception {
+        sliceManager.mapSliceReducer("unknown", CountIncremented.class, new AddCount());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: addSliceChangedListener
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void addSliceChangedListener_should_only_notify_for_changed_slice() throws Exception {
+        final List<Object> countChanges = new ArrayList<>();
+        final List<Object> namesChanges = new ArrayList<>();
+
+        sliceManager.mapSliceReducer("count", CountIncremented.class, new AddCount());
+        sliceManager.mapSliceReducer("names", NameAdded.class, new SliceReducer<String, NameAdded>() {
+            @Override
+            public String reduce(String previousSlice, NameAdded event) {
+                return previousSlice + "x";
+            }
+        });
+
+        sliceManager.addSliceChangedListener("count", new OnSliceChanged<Integer>() {
+            @Override
+            public void onSliceChanged(Integer slice, Event event) {
+                countChanges.add(slice);
+            }
+        });
+
+        sliceManager.addSliceChangedListener("names", new OnSliceChanged<String>() {
+            @Override
+            public void onSliceChanged(String slice, Event event) {
+                namesChanges.add(slice);
+            }
+        });
+
+        facade.handleEvent(new CountIncremented(1));
+        facade.handleEvent(new CountIncremented(2));
+        facade.handleEvent(new NameAdded());
+
+        assertEquals(2, countChanges.size());
+        assertEquals(3, countChanges.get(1));
+        assertEquals(1, namesChanges.size());
+        assertEquals("x", namesChanges.get(0));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // HELPER CLASSES
+    //----------------------------------------------------------------------------------------------
+
+    static class NameAdded implements Event {
+    }
+
+    static class AddCount implements SliceReducer<Integer, CountIncremented> {
+        @Override
+        public Integer reduce(Integer previousSlice, CountIncremented event) {
+            return event.getCount() == 0 ? previousSlice : previousSlice + event.getCount();
+        }
+    }
+
+    static class AppendName implements SliceReducer<String, CountIncremented> {
+        final String name;
+
+        AppendName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String reduce(String previousSlice, CountIncremented event) {
+            return previousSlice + name;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.cookingfox.lapasse.impl.state.slice;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SlicedState}.
+ */
+public class SlicedStateTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private SlicedState state;
+
+    @Before
+    public void setUp() throws Exception {
+        state = new SlicedState.Builder()
+                .addSlice("count", 1)
+                .addSlice("name", "first")
+                .build();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: Builder
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addSlice_should_throw_if_name_already_added() throws Exception {
+        new SlicedState.Builder().addSlice("count", 1).addSlice("count", 2);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void addSlice_should_throw_if_slice_null() throws Exception {
+        new SlicedState.Builder().addSlice("count", null);
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: getSlice
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void getSlice_should_return_slice_by_name() throws Exception {
+        int count = state.getSlice("count");
+        String name = state.getSlice("name");
+
+        assertEquals(1, count);
+        assertEquals("first", name);
+        assertEquals(new ArrayList<>(Arrays.asList("count", "name")), new ArrayList<>(state.getSliceNames()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getSlice_should_throw_if_unknown_slice() throws Exception {
+        state.getSlice("unknown");
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: withSlice
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void withSlice_should_replace_slice_only() throws Exception {
+        SlicedState newState = state.withSlice("name", "second");
+
+        assertNotEquals(state, newState);
+        assertEquals("first", state.getSlice("name"));
+        assertEquals("second", newState.getSlice("name"));
+        assertSame(state.slices[0], newState.slices[0]);
+    }
+
+    @Test
+    public void withSlice_should_return_same_state_if_same_slice() throws Exception {
+        String name = state.getSlice("name");
+
+        assertSame(state, state.withSlice("name", name));
+    }
+
+}
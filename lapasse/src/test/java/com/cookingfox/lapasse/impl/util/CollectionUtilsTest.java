@@ -33,6 +33,13 @@ public class CollectionUtilsTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void newConcurrentMap_should_create_new_sized_map() throws Exception {
+        ConcurrentMap<Integer, String> result = CollectionUtils.newConcurrentMap(100);
+
+        assertNotNull(result);
+    }
+
     //----------------------------------------------------------------------------------------------
     // TESTS: newConcurrentSet
     //----------------------------------------------------------------------------------------------
@@ -44,4 +51,15 @@ public class CollectionUtilsTest {
         assertNotNull(result);
     }
 
+    //----------------------------------------------------------------------------------------------
+    // TESTS: newSnapshotSet
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void newSnapshotSet_should_create_new_set() throws Exception {
+        SnapshotSet<String> result = CollectionUtils.newSnapshotSet();
+
+        assertNotNull(result);
+    }
+
 }
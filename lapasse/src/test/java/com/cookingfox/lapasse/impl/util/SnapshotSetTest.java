@@ -0,0 +1,144 @@
+package com.cookingfox.lapasse.impl.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import testing.TestingUtils;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SnapshotSet}.
+ */
+public class SnapshotSetTest {
+
+    //----------------------------------------------------------------------------------------------
+    // TEST SETUP
+    //----------------------------------------------------------------------------------------------
+
+    private SnapshotSet<String> set;
+
+    @Before
+    public void setUp() throws Exception {
+        set = new SnapshotSet<>();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: add
+    //----------------------------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void add_should_throw_if_null() throws Exception {
+        set.add(null);
+    }
+
+    @Test
+    public void add_should_not_add_duplicates() throws Exception {
+        assertTrue(set.add("a"));
+        assertFalse(set.add("a"));
+
+        assertEquals(1, set.size());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: remove
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void remove_should_keep_order_of_remaining_elements() throws Exception {
+        set.add("a");
+        set.add("b");
+        set.add("c");
+
+        assertTrue(set.remove("b"));
+        assertFalse(set.remove("b"));
+
+        assertArrayEquals(new Object[]{"a", "c"}, set.snapshot());
+    }
+
+    @Test
+    public void remove_should_not_throw_if_null() throws Exception {
+        assertFalse(set.remove(null));
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: snapshot
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void snapshot_should_not_reflect_later_modifications() throws Exception {
+        set.add("a");
+
+        Object[] snapshot = set.snapshot();
+
+        set.add("b");
+        set.clear();
+
+        assertArrayEquals(new Object[]{"a"}, snapshot);
+        assertEquals(0, set.snapshot().length);
+        assertTrue(set.isEmpty());
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: iterator
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void iterator_should_iterate_snapshot() throws Exception {
+        set.add("a");
+
+        Iterator<String> iterator = set.iterator();
+
+        set.add("b");
+
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void iterator_next_should_throw_if_no_more_elements() throws Exception {
+        set.iterator().next();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void iterator_remove_should_throw() throws Exception {
+        set.add("a");
+
+        Iterator<String> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // TESTS: CONCURRENCY
+    //----------------------------------------------------------------------------------------------
+
+    @Test
+    public void set_should_pass_concurrency_tests() throws Exception {
+        TestingUtils.runConcurrencyTest(new Runnable() {
+            @Override
+            public void run() {
+                String element = Thread.currentThread().getName();
+
+                set.add(element);
+
+                for (Object o : set.snapshot()) {
+                    assertNotNull(o);
+                }
+
+                for (String s : set) {
+                    assertNotNull(s);
+                }
+
+                assertTrue(set.contains(element));
+                assertTrue(set.remove(element));
+            }
+        });
+
+        assertTrue(set.isEmpty());
+    }
+
+}
@@ -0,0 +1,83 @@
+package fixtures.annotations;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+
+/**
+ * Fixture generated dispatcher class with annotations.
+ */
+public class FixtureDispatched$$LaPasseDispatcher<T extends FixtureDispatched> implements HandlerDispatcher<CountState> {
+
+    final T origin;
+
+    public FixtureDispatched$$LaPasseDispatcher(T origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public int getCommandCount() {
+        return 1;
+    }
+
+    @Override
+    public int getCommandIndex(Class<?> commandClass) {
+        if (commandClass == IncrementCount.class) {
+            return 0;
+        }
+        if (IncrementCount.class.isAssignableFrom(commandClass)) {
+            return 0;
+        }
+        return NOT_HANDLED;
+    }
+
+    @Override
+    public int getCommandResultType(int index) {
+        switch (index) {
+            case 0:
+                return RESULT_EVENT;
+            default:
+                throw new IndexOutOfBoundsException("Invalid handler index: " + index);
+        }
+    }
+
+    @Override
+    public Object dispatchCommand(int index, CountState state, Command command) throws Exception {
+        switch (index) {
+            case 0:
+                return origin.handleIncrementCount(state, (IncrementCount) command);
+            default:
+                throw new IndexOutOfBoundsException("Invalid handler index: " + index);
+        }
+    }
+
+    @Override
+    public int getEventCount() {
+        return 1;
+    }
+
+    @Override
+    public int getEventIndex(Class<?> eventClass) {
+        if (eventClass == CountIncremented.class) {
+            return 0;
+        }
+        if (CountIncremented.class.isAssignableFrom(eventClass)) {
+            return 0;
+        }
+        return NOT_HANDLED;
+    }
+
+    @Override
+    public CountState dispatchEvent(int index, CountState state, Event event) {
+        switch (index) {
+            case 0:
+                return origin.handleCountIncremented(state, (CountIncremented) event);
+            default:
+                throw new IndexOutOfBoundsException("Invalid handler index: " + index);
+        }
+    }
+
+}
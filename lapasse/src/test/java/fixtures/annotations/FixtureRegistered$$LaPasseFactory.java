@@ -0,0 +1,39 @@
+package fixtures.annotations;
+
+import com.cookingfox.lapasse.api.facade.Facade;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import com.cookingfox.lapasse.impl.internal.HandlerMapper;
+import com.cookingfox.lapasse.impl.internal.HandlerMapperFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixture generated factory class, registered as service.
+ */
+public final class FixtureRegistered$$LaPasseFactory implements HandlerMapperFactory {
+
+    /**
+     * Number of created instances.
+     */
+    public static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+    public FixtureRegistered$$LaPasseFactory() {
+        INSTANCE_COUNT.incrementAndGet();
+    }
+
+    @Override
+    public Class<?> getOriginClass() {
+        return FixtureRegistered.class;
+    }
+
+    @Override
+    public HandlerDispatcher createHandlerDispatcher(Object origin) {
+        return new FixtureDispatched$$LaPasseDispatcher<>((FixtureRegistered) origin);
+    }
+
+    @Override
+    public HandlerMapper createHandlerMapper(Object origin, Facade facade) {
+        throw new UnsupportedOperationException("Not implemented");
+    }
+
+}
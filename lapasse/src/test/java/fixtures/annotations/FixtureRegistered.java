@@ -0,0 +1,16 @@
+package fixtures.annotations;
+
+import com.cookingfox.lapasse.api.facade.Facade;
+import fixtures.example.state.CountState;
+
+/**
+ * Fixture class with annotations, of which the generated classes are only available through its
+ * registered factory.
+ */
+public class FixtureRegistered extends FixtureDispatched {
+
+    public FixtureRegistered(Facade<CountState> facade) {
+        super(facade);
+    }
+
+}
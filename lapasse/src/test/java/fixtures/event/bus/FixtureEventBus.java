@@ -3,11 +3,14 @@ package fixtures.event.bus;
 import com.cookingfox.lapasse.api.event.Event;
 import com.cookingfox.lapasse.api.event.bus.EventBus;
 import com.cookingfox.lapasse.api.event.handler.EventHandler;
+import com.cookingfox.lapasse.api.event.handler.EventHandlerCombiner;
 import com.cookingfox.lapasse.api.event.logging.EventLogger;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
 import fixtures.example.state.CountState;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Minimal implementation of {@link EventBus} for testing purposes only.
@@ -41,12 +44,22 @@ public class FixtureEventBus implements EventBus<CountState> {
         handleEventCalls.add(event);
     }
 
+    @Override
+    public void mapEventDispatcher(HandlerDispatcher<CountState> dispatcher) {
+        throw new UnsupportedOperationException("Not implemented");
+    }
+
     @Override
     public <E extends Event> void mapEventHandler(Class<E> eventClass, EventHandler<CountState, E> eventHandler) {
         // noinspection unchecked
         mapEventHandlerCalls.add(new MapCall(eventClass, eventHandler));
     }
 
+    @Override
+    public void setParallelEventHandlers(ForkJoinPool pool, EventHandlerCombiner<CountState> combiner) {
+        throw new UnsupportedOperationException("Not implemented");
+    }
+
     //----------------------------------------------------------------------------------------------
     // INNER CLASS: MapCall
     //----------------------------------------------------------------------------------------------
@@ -2,10 +2,12 @@ package fixtures.example.command;
 
 import com.cookingfox.lapasse.api.command.Command;
 
+import java.io.Serializable;
+
 /**
  * Fixture command: increment count.
  */
-public final class IncrementCount implements Command {
+public final class IncrementCount implements Command, Serializable {
     private final int count;
 
     public IncrementCount(int count) {
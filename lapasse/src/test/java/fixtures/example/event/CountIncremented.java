@@ -2,10 +2,12 @@ package fixtures.example.event;
 
 import com.cookingfox.lapasse.api.event.Event;
 
+import java.io.Serializable;
+
 /**
  * Fixture event: count incremented.
  */
-public final class CountIncremented implements Event {
+public final class CountIncremented implements Event, Serializable {
     private final int count;
 
     public CountIncremented(int count) {
@@ -2,10 +2,12 @@ package fixtures.example.state;
 
 import com.cookingfox.lapasse.api.state.State;
 
+import java.io.Serializable;
+
 /**
  * Fixture state: count.
  */
-public final class CountState implements State {
+public final class CountState implements State, Serializable {
     private final int count;
 
     public CountState(int count) {
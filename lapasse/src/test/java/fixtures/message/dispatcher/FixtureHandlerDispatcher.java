@@ -0,0 +1,81 @@
+package fixtures.message.dispatcher;
+
+import com.cookingfox.lapasse.api.command.Command;
+import com.cookingfox.lapasse.api.event.Event;
+import com.cookingfox.lapasse.api.message.dispatcher.HandlerDispatcher;
+import fixtures.example.command.IncrementCount;
+import fixtures.example.event.CountIncremented;
+import fixtures.example.state.CountState;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Fixture handler dispatcher with one command handler ({@link IncrementCount}) that returns a fixed
+ * result, and one event handler ({@link CountIncremented}) that adds the count to the state. Stores
+ * the dispatched messages, so they can later be inspected.
+ */
+public class FixtureHandlerDispatcher implements HandlerDispatcher<CountState> {
+
+    public final List<Command> dispatchedCommands = new LinkedList<>();
+    public final List<Event> dispatchedEvents = new LinkedList<>();
+    public int eventIndexLookups;
+
+    private final int commandResultType;
+    private final Object commandResult;
+
+    public FixtureHandlerDispatcher(int commandResultType, Object commandResult) {
+        this.commandResultType = commandResultType;
+        this.commandResult = commandResult;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // COMMANDS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public int getCommandCount() {
+        return 1;
+    }
+
+    @Override
+    public int getCommandIndex(Class<?> commandClass) {
+        return commandClass == IncrementCount.class ? 0 : NOT_HANDLED;
+    }
+
+    @Override
+    public int getCommandResultType(int index) {
+        return commandResultType;
+    }
+
+    @Override
+    public Object dispatchCommand(int index, CountState state, Command command) throws Exception {
+        dispatchedCommands.add(command);
+
+        return commandResult;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // EVENTS
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public int getEventCount() {
+        return 1;
+    }
+
+    @Override
+    public int getEventIndex(Class<?> eventClass) {
+        eventIndexLookups++;
+
+        return eventClass == CountIncremented.class ? 0 : NOT_HANDLED;
+    }
+
+    @Override
+    public CountState dispatchEvent(int index, CountState state, Event event) {
+        dispatchedEvents.add(event);
+
+        return new CountState(state.getCount() + ((CountIncremented) event).getCount());
+    }
+
+}